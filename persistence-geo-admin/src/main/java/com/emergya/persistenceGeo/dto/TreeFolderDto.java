@@ -85,6 +85,14 @@ public class TreeFolderDto extends FolderDto implements Treeable, Comparable<Tre
 		// clone zone
 		this.zoneId = origin.zoneId != null ? new Long(origin.zoneId) : null;
 
+		// children projections: nothing to expand if it's empty
+		this.hasChildren = origin.hasChildren;
+		this.layerCount = origin.layerCount;
+		if (Boolean.FALSE.equals(origin.hasChildren)
+				&& origin.layerCount != null && origin.layerCount == 0) {
+			this.leaf = true;
+		}
+
 	}
 
 	public boolean getLeaf() {
@@ -0,0 +1,314 @@
+/*
+ * ContentDownload.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sends layer and resource data answering conditional (
+ * <code>If-None-Match</code>, <code>If-Modified-Since</code>) and single
+ * range (<code>Range</code>, <code>If-Range</code>) requests. The data is
+ * streamed from its storage: files are sent with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} and
+ * database contents with a {@link ContentWriter}.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ */
+public class ContentDownload {
+
+	private static final String BYTES_UNIT = "bytes=";
+
+	/**
+	 * Writes a range of the data
+	 */
+	public interface ContentWriter {
+
+		/**
+		 * @param offset
+		 *            first byte to write
+		 * @param length
+		 *            number of bytes to write or a negative value to write
+		 *            until the end
+		 * @param out
+		 * 
+		 * @return false if there isn't data to write
+		 */
+		public boolean write(long offset, long length, OutputStream out)
+				throws IOException;
+	}
+
+	/**
+	 * Send a file
+	 * 
+	 * @param request
+	 * @param response
+	 * @param file
+	 * @param contentType
+	 * @param contentDisposition
+	 * 
+	 * @throws IOException
+	 */
+	public static void sendFile(HttpServletRequest request,
+			HttpServletResponse response, final File file, String contentType,
+			String contentDisposition) throws IOException {
+		String eTag = "\"" + Long.toHexString(file.lastModified()) + "-"
+				+ Long.toHexString(file.length()) + "\"";
+		send(request, response, eTag, file.lastModified(), file.length(),
+				contentType, contentDisposition, new ContentWriter() {
+					public boolean write(long offset, long length,
+							OutputStream out) throws IOException {
+						FileInputStream in = new FileInputStream(file);
+						try {
+							FileChannel channel = in.getChannel();
+							WritableByteChannel target = Channels
+									.newChannel(out);
+							long end = length < 0 ? channel.size() : offset
+									+ length;
+							long position = offset;
+							while (position < end) {
+								long sent = channel.transferTo(position, end
+										- position, target);
+								if (sent <= 0) {
+									// no progress (e.g. the file was
+									// truncated): copy the rest by reading
+									copy(channel, position, end, target);
+									break;
+								}
+								position += sent;
+							}
+						} finally {
+							in.close();
+						}
+						return true;
+					}
+				});
+	}
+
+	/**
+	 * Send data answering conditional and range requests
+	 * 
+	 * @param request
+	 * @param response
+	 * @param eTag
+	 *            strong entity tag of the data
+	 * @param lastModified
+	 *            last modification time in milliseconds or a negative value
+	 *            if it's unknown
+	 * @param size
+	 *            data size or a negative value if it's unknown. Ranges are
+	 *            only served when the size is known
+	 * @param contentType
+	 * @param contentDisposition
+	 * @param writer
+	 *            writes the data
+	 * 
+	 * @throws IOException
+	 */
+	public static void send(HttpServletRequest request,
+			HttpServletResponse response, String eTag, long lastModified,
+			long size, String contentType, String contentDisposition,
+			ContentWriter writer) throws IOException {
+		response.setHeader("ETag", eTag);
+		if (lastModified >= 0) {
+			response.setDateHeader("Last-Modified", lastModified);
+		}
+
+		if (notModified(request, eTag, lastModified)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		if (contentType != null) {
+			response.setContentType(contentType);
+		}
+		if (contentDisposition != null) {
+			response.setHeader("Content-Disposition", contentDisposition);
+		}
+
+		long offset = 0;
+		long length = size;
+		if (size >= 0) {
+			response.setHeader("Accept-Ranges", "bytes");
+			long[] range = getRange(request, eTag, lastModified, size);
+			if (range != null && range.length == 0) {
+				response.setHeader("Content-Range", "bytes */" + size);
+				response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				return;
+			} else if (range != null) {
+				offset = range[0];
+				length = range[1] - range[0] + 1;
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + range[0] + "-"
+						+ range[1] + "/" + size);
+			}
+			response.setHeader("Content-Length", Long.toString(length));
+		}
+
+		if (!writer.write(offset, length, response.getOutputStream())) {
+			response.reset();
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		response.flushBuffer();
+	}
+
+	/**
+	 * Check the <code>If-None-Match</code> and, only when it's missing, the
+	 * <code>If-Modified-Since</code> headers of a request
+	 * 
+	 * @param request
+	 * @param eTag
+	 *            strong entity tag of the data
+	 * @param lastModified
+	 *            last modification time in milliseconds or a negative value
+	 *            if it's unknown
+	 * 
+	 * @return true if the client copy is still valid
+	 */
+	public static boolean notModified(HttpServletRequest request,
+			String eTag, long lastModified) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				tag = tag.trim();
+				if (tag.equals("*") || tag.equals(eTag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+		// dates in headers have seconds precision
+		return lastModified >= 0 && ifModifiedSince >= 0
+				&& lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+
+	/**
+	 * Parse a single range request
+	 * 
+	 * @return null to send the whole data (also when the range is invalid),
+	 *         an empty array if the range can't be satisfied or the first and
+	 *         last bytes of the range
+	 */
+	private static long[] getRange(HttpServletRequest request, String eTag,
+			long lastModified, long size) {
+		String range = request.getHeader("Range");
+		if (range == null || !range.startsWith(BYTES_UNIT)
+				|| range.indexOf(',') >= 0) {
+			// multiple ranges are answered with the whole data
+			return null;
+		}
+		String ifRange = request.getHeader("If-Range");
+		if (ifRange != null && !ifRange.equals(eTag)) {
+			long ifRangeDate = getDateHeader(request, "If-Range");
+			if (ifRangeDate < 0 || lastModified < 0
+					|| lastModified / 1000 > ifRangeDate / 1000) {
+				// the client copy has changed
+				return null;
+			}
+		}
+		String spec = range.substring(BYTES_UNIT.length()).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0) {
+			return null;
+		}
+		try {
+			String first = spec.substring(0, dash).trim();
+			String last = spec.substring(dash + 1).trim();
+			long start;
+			long end;
+			if (first.length() == 0) {
+				// suffix range: last n bytes
+				long suffix = Long.parseLong(last);
+				if (suffix < 0) {
+					return null;
+				} else if (suffix == 0) {
+					return new long[0];
+				}
+				start = Math.max(0, size - suffix);
+				end = size - 1;
+			} else {
+				start = Long.parseLong(first);
+				end = last.length() == 0 ? size - 1 : Long.parseLong(last);
+				if (start < 0 || end < start) {
+					// invalid range: the header is ignored (RFC 7233)
+					return null;
+				}
+				end = Math.min(end, size - 1);
+			}
+			if (start >= size) {
+				return new long[0];
+			}
+			return new long[] { start, end };
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Copy a part of a file reading it, stopping at the end of the file
+	 */
+	private static void copy(FileChannel channel, long position, long end,
+			WritableByteChannel target) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		while (position < end) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), end - position));
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				return;
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				target.write(buffer);
+			}
+			position += read;
+		}
+	}
+
+	private static long getDateHeader(HttpServletRequest request, String name) {
+		try {
+			return request.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+}
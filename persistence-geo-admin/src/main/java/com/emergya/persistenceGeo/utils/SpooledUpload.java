@@ -0,0 +1,116 @@
+/*
+ * SpooledUpload.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.File;
+import java.io.Serializable;
+
+/**
+ * Upload stored in the {@link UploadSpool}
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ */
+public class SpooledUpload implements Serializable {
+
+	private static final long serialVersionUID = 2215940637125498723L;
+
+	private Long id;
+	private File file;
+	private String name;
+	private String contentType;
+	private long size;
+	private long created;
+	private volatile long lastAccess;
+
+	public SpooledUpload(Long id, File file, String name, String contentType,
+			long size) {
+		this.id = id;
+		this.file = file;
+		this.name = name;
+		this.contentType = contentType;
+		this.size = size;
+		this.created = System.currentTimeMillis();
+		this.lastAccess = created;
+	}
+
+	/**
+	 * @return the upload id
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * @return the file with the uploaded data
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the original file name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the content type sent by the client
+	 */
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * @return the size in bytes
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the upload time in milliseconds
+	 */
+	public long getCreated() {
+		return created;
+	}
+
+	/**
+	 * @return the last access time in milliseconds
+	 */
+	public long getLastAccess() {
+		return lastAccess;
+	}
+
+	void touch(long now) {
+		this.lastAccess = now;
+	}
+
+}
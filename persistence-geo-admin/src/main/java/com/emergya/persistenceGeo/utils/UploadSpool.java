@@ -0,0 +1,487 @@
+/*
+ * UploadSpool.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Disk spool for the files uploaded before they're saved as layers or
+ * resources.
+ * 
+ * Uploads are streamed to the spool directory and they're bounded by:
+ * <ul>
+ * <li><code>upload.spool.maxFileSize</code>: maximum size of an upload</li>
+ * <li><code>upload.spool.maxBytes</code>: disk quota for the spool. Space is
+ * reserved before the upload is written, so concurrent uploads can't go over
+ * it</li>
+ * <li><code>upload.spool.maxEntries</code>: maximum number of uploads</li>
+ * <li><code>upload.spool.ttl</code>: seconds an upload is kept since it was
+ * last read</li>
+ * </ul>
+ * When there isn't room for a new upload the least recently used ones are
+ * evicted. If it isn't enough the upload is rejected with an
+ * {@link UploadRejectedException}.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ */
+@Component("uploadSpool")
+public class UploadSpool {
+
+	private static final Log LOG = LogFactory.getLog(UploadSpool.class);
+
+	private static final String PREFIX = "upload";
+	private static final String SUFFIX = ".tmp";
+	private static final int BUFFER_SIZE = 8192;
+
+	@Value("${upload.spool.dir:}")
+	private String directory;
+	@Value("${upload.spool.maxFileSize:52428800}")
+	private long maxFileSize;
+	@Value("${upload.spool.maxBytes:1073741824}")
+	private long maxBytes;
+	@Value("${upload.spool.maxEntries:256}")
+	private int maxEntries;
+	@Value("${upload.spool.ttl:3600}")
+	private long ttl;
+
+	private File spoolDir;
+
+	/** Uploads in access order: the first one is the least recently used */
+	private final LinkedHashMap<Long, SpooledUpload> uploads = new LinkedHashMap<Long, SpooledUpload>(
+			16, 0.75f, true);
+	private long storedBytes = 0;
+	private long reservedBytes = 0;
+	private final Random random = new Random();
+
+	private final AtomicLong storedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong evictedCount = new AtomicLong();
+	private final AtomicLong expiredCount = new AtomicLong();
+
+	/**
+	 * Create the spool directory and remove the uploads left by a previous
+	 * execution
+	 */
+	@PostConstruct
+	public void init() {
+		spoolDir = StringUtils.isBlank(directory) ? new File(
+				System.getProperty("java.io.tmpdir"), "persistenceGeo-uploads")
+				: new File(directory);
+		if (!spoolDir.isDirectory() && !spoolDir.mkdirs()) {
+			LOG.error("Can't create upload spool directory " + spoolDir);
+		}
+		File[] files = spoolDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().startsWith(PREFIX)
+						&& file.getName().endsWith(SUFFIX)) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove all the uploads
+	 */
+	@PreDestroy
+	public synchronized void clear() {
+		for (SpooledUpload upload : uploads.values()) {
+			upload.getFile().delete();
+		}
+		uploads.clear();
+		storedBytes = 0;
+	}
+
+	/**
+	 * Store an upload in the spool. The stream is copied to disk and closed.
+	 * 
+	 * @param in
+	 *            uploaded data
+	 * @param expectedSize
+	 *            size of the data if it's known or a negative value
+	 * @param name
+	 *            original file name
+	 * @param contentType
+	 * 
+	 * @return stored upload
+	 * 
+	 * @throws UploadRejectedException
+	 *             if the upload is too big or there isn't room for it
+	 * @throws IOException
+	 */
+	public SpooledUpload store(InputStream in, long expectedSize, String name,
+			String contentType) throws IOException {
+		File file = null;
+		long reservation = 0;
+		boolean stored = false;
+		try {
+			if (expectedSize > maxFileSize) {
+				throw reject("Upload of " + expectedSize
+						+ " bytes exceeds the maximum size of " + maxFileSize
+						+ " bytes");
+			}
+			reservation = reserve(expectedSize >= 0 ? expectedSize
+					: maxFileSize);
+			file = File.createTempFile(PREFIX, SUFFIX, spoolDir);
+			long size = copy(in, file, reservation);
+			SpooledUpload upload;
+			synchronized (this) {
+				Long id = nextId();
+				upload = new SpooledUpload(id, file, name, contentType, size);
+				uploads.put(id, upload);
+				storedBytes += size;
+				while (uploads.size() > maxEntries && uploads.size() > 1) {
+					evictEldest();
+				}
+			}
+			stored = true;
+			storedCount.incrementAndGet();
+			return upload;
+		} finally {
+			IOUtils.closeQuietly(in);
+			if (reservation > 0) {
+				release(reservation);
+			}
+			if (!stored && file != null) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Obtain an upload and mark it as recently used
+	 * 
+	 * @param id
+	 * 
+	 * @return upload or null if it doesn't exist or it has expired
+	 */
+	public synchronized SpooledUpload get(Long id) {
+		SpooledUpload upload = id != null ? uploads.get(id) : null;
+		if (upload != null) {
+			long now = System.currentTimeMillis();
+			if (isExpired(upload, now)) {
+				remove(id);
+				expiredCount.incrementAndGet();
+				return null;
+			}
+			upload.touch(now);
+		}
+		return upload;
+	}
+
+	/**
+	 * Obtain the file of an upload and mark it as recently used
+	 * 
+	 * @param id
+	 * 
+	 * @return file or null if the upload doesn't exist or it has expired
+	 */
+	public File getFile(Long id) {
+		SpooledUpload upload = get(id);
+		return upload != null ? upload.getFile() : null;
+	}
+
+	/**
+	 * Remove an upload and its file
+	 * 
+	 * @param id
+	 * 
+	 * @return true if the upload existed
+	 */
+	public synchronized boolean delete(Long id) {
+		return id != null && remove(id);
+	}
+
+	/**
+	 * Take an upload out of the spool moving its file, which is renamed
+	 * instead of copied when it's possible. The caller owns the moved file;
+	 * if it can't use it, it can be given back with
+	 * {@link #restore(SpooledUpload, File)}.
+	 * 
+	 * @param id
+	 * @param target
+	 *            path where the file is moved
+	 * 
+	 * @return upload taken or null if it doesn't exist or it has expired
+	 * 
+	 * @throws IOException
+	 *             if the file can't be moved. The upload is kept in the spool
+	 */
+	public SpooledUpload detach(Long id, File target) throws IOException {
+		SpooledUpload upload;
+		synchronized (this) {
+			upload = get(id);
+			if (upload == null) {
+				return null;
+			}
+			uploads.remove(id);
+			storedBytes -= upload.getSize();
+		}
+		boolean moved = false;
+		try {
+			move(upload.getFile(), target);
+			moved = true;
+		} finally {
+			if (!moved) {
+				attach(upload);
+			}
+		}
+		return upload;
+	}
+
+	/**
+	 * Give back to the spool an upload taken with
+	 * {@link #detach(Long, File)}. The file is deleted if it can't be moved
+	 * back.
+	 * 
+	 * @param upload
+	 * @param file
+	 *            path where the file was moved
+	 */
+	public void restore(SpooledUpload upload, File file) {
+		try {
+			move(file, upload.getFile());
+			attach(upload);
+		} catch (IOException e) {
+			LOG.error("Can't restore upload " + upload.getId(), e);
+			file.delete();
+		}
+	}
+
+	/**
+	 * Remove the uploads not read in the last <code>upload.spool.ttl</code>
+	 * seconds
+	 */
+	@Scheduled(fixedDelay = 60000)
+	public synchronized void purgeExpired() {
+		long now = System.currentTimeMillis();
+		Iterator<SpooledUpload> it = uploads.values().iterator();
+		while (it.hasNext()) {
+			SpooledUpload upload = it.next();
+			if (isExpired(upload, now)) {
+				it.remove();
+				storedBytes -= upload.getSize();
+				upload.getFile().delete();
+				expiredCount.incrementAndGet();
+			}
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Upload spool: " + getStats());
+		}
+	}
+
+	/**
+	 * @return number of uploads in the spool
+	 */
+	public synchronized int getEntryCount() {
+		return uploads.size();
+	}
+
+	/**
+	 * @return bytes used by the uploads in the spool
+	 */
+	public synchronized long getStoredBytes() {
+		return storedBytes;
+	}
+
+	/**
+	 * @return bytes reserved by the uploads in progress
+	 */
+	public synchronized long getReservedBytes() {
+		return reservedBytes;
+	}
+
+	/**
+	 * @return spool metrics
+	 */
+	public synchronized Map<String, Object> getStats() {
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("entries", uploads.size());
+		stats.put("storedBytes", storedBytes);
+		stats.put("reservedBytes", reservedBytes);
+		stats.put("maxEntries", maxEntries);
+		stats.put("maxBytes", maxBytes);
+		stats.put("maxFileSize", maxFileSize);
+		stats.put("stored", storedCount.get());
+		stats.put("rejected", rejectedCount.get());
+		stats.put("evicted", evictedCount.get());
+		stats.put("expired", expiredCount.get());
+		return stats;
+	}
+
+	/**
+	 * Reserve disk space for an upload evicting the least recently used
+	 * uploads if it's needed
+	 * 
+	 * @param bytes
+	 * 
+	 * @return reserved bytes
+	 * 
+	 * @throws UploadRejectedException
+	 *             if there isn't room for the upload
+	 */
+	private synchronized long reserve(long bytes)
+			throws UploadRejectedException {
+		while (storedBytes + reservedBytes + bytes > maxBytes
+				&& !uploads.isEmpty()) {
+			evictEldest();
+		}
+		if (storedBytes + reservedBytes + bytes > maxBytes) {
+			throw reject("Upload spool quota of " + maxBytes
+					+ " bytes exceeded");
+		}
+		reservedBytes += bytes;
+		return bytes;
+	}
+
+	private synchronized void release(long bytes) {
+		reservedBytes -= bytes;
+	}
+
+	/**
+	 * Copy the data to a file
+	 * 
+	 * @param in
+	 * @param file
+	 * @param limit
+	 *            maximum number of bytes to copy
+	 * 
+	 * @return number of bytes copied
+	 * 
+	 * @throws UploadRejectedException
+	 *             if there are more than <code>limit</code> bytes
+	 */
+	private long copy(InputStream in, File file, long limit)
+			throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long count = 0;
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				count += n;
+				if (count > limit) {
+					throw reject("Upload exceeds the maximum size of " + limit
+							+ " bytes");
+				}
+				out.write(buffer, 0, n);
+			}
+			return count;
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	private UploadRejectedException reject(String message) {
+		rejectedCount.incrementAndGet();
+		LOG.warn(message);
+		return new UploadRejectedException(message);
+	}
+
+	/**
+	 * Rename a file or copy it if it can't be renamed (e.g. it's moved to
+	 * another file system)
+	 */
+	private void move(File source, File target) throws IOException {
+		if (!source.renameTo(target)) {
+			FileUtils.copyFile(source, target);
+			if (!source.delete()) {
+				LOG.warn("Can't delete " + source);
+			}
+		}
+	}
+
+	private synchronized void attach(SpooledUpload upload) {
+		if (uploads.containsKey(upload.getId())) {
+			// the id has been reused
+			upload.getFile().delete();
+			return;
+		}
+		uploads.put(upload.getId(), upload);
+		storedBytes += upload.getSize();
+		while (uploads.size() > maxEntries && uploads.size() > 1) {
+			evictEldest();
+		}
+	}
+
+	private boolean isExpired(SpooledUpload upload, long now) {
+		return ttl > 0 && now - upload.getLastAccess() > ttl * 1000;
+	}
+
+	private Long nextId() {
+		Long id;
+		do {
+			id = random.nextLong() & Long.MAX_VALUE;
+		} while (uploads.containsKey(id));
+		return id;
+	}
+
+	private void evictEldest() {
+		Iterator<SpooledUpload> it = uploads.values().iterator();
+		SpooledUpload upload = it.next();
+		it.remove();
+		storedBytes -= upload.getSize();
+		upload.getFile().delete();
+		evictedCount.incrementAndGet();
+	}
+
+	private boolean remove(Long id) {
+		SpooledUpload upload = uploads.remove(id);
+		if (upload != null) {
+			storedBytes -= upload.getSize();
+			upload.getFile().delete();
+			return true;
+		}
+		return false;
+	}
+
+}
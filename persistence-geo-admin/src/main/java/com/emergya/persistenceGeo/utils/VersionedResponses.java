@@ -0,0 +1,144 @@
+/*
+ * VersionedResponses.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.emergya.persistenceGeo.service.ContentVersionService;
+
+/**
+ * Conditional requests for the responses built from the folders and layers.
+ * The responses are tagged with the {@link ContentVersion} of their user,
+ * group or everyone, answered with a 304 while it doesn't change and, when
+ * there is a cache manager, kept in {@link CacheRegions#RESPONSES} by
+ * version.
+ * 
+ * The responses must be revalidated every time (
+ * <code>Cache-Control: no-cache</code>), because a change doesn't have an
+ * expiration date.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ */
+@Component("versionedResponses")
+public class VersionedResponses {
+
+	@Resource
+	private ContentVersionService contentVersionService;
+
+	@Autowired(required = false)
+	private CacheManager cacheManager;
+
+	/**
+	 * @param scope
+	 *            {@link ContentVersion#ALL}, a user or a group scope
+	 * 
+	 * @return current version of the scope
+	 */
+	public ContentVersion getVersion(String scope) {
+		return contentVersionService.getVersion(scope);
+	}
+
+	/**
+	 * Answer with a 304 if the client copy has the given version
+	 * 
+	 * @param version
+	 * @param request
+	 * @param response
+	 * 
+	 * @return true if the response has been answered and mustn't be built
+	 */
+	public boolean notModified(ContentVersion version,
+			HttpServletRequest request, HttpServletResponse response) {
+		if (ContentDownload.notModified(request, version.getETag(),
+				version.getLastModified())) {
+			setHeaders(version, response);
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Tag a response built with the given version. Call it only for
+	 * successful responses, so errors aren't kept by the clients.
+	 * 
+	 * @param version
+	 * @param response
+	 */
+	public void setHeaders(ContentVersion version, HttpServletResponse response) {
+		response.setHeader("Cache-Control", "no-cache");
+		response.setHeader("ETag", version.getETag());
+		response.setDateHeader("Last-Modified", version.getLastModified());
+	}
+
+	/**
+	 * @param key
+	 *            request key, without the version
+	 * @param version
+	 * 
+	 * @return response built for the request with the given version or null
+	 */
+	public Object get(String key, ContentVersion version) {
+		Cache cache = getCache();
+		ValueWrapper value = cache != null ? cache.get(key + "@"
+				+ version.getVersion()) : null;
+		return value != null ? value.get() : null;
+	}
+
+	/**
+	 * Keep a response built for a request with the given version. The
+	 * response mustn't be modified after it.
+	 * 
+	 * @param key
+	 *            request key, without the version
+	 * @param version
+	 * @param response
+	 */
+	public void put(String key, ContentVersion version, Object response) {
+		Cache cache = getCache();
+		if (cache != null) {
+			cache.put(key + "@" + version.getVersion(), response);
+		}
+	}
+
+	private Cache getCache() {
+		return cacheManager != null ? cacheManager
+				.getCache(CacheRegions.RESPONSES) : null;
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * RestCacheController.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.web;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import javax.annotation.Resource;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.emergya.persistenceGeo.service.DBManagementService;
+import com.emergya.persistenceGeo.utils.SingleFlight;
+
+/**
+ * Rest controller with the cache metrics of this node
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ */
+@Controller
+public class RestCacheController extends RestPersistenceGeoController
+		implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 4925713628104577630L;
+
+	@Resource
+	private DBManagementService dbManagementService;
+
+	@Resource
+	private SingleFlight singleFlight;
+
+	/**
+	 * Hibernate second level and query cache statistics
+	 * 
+	 * @return hit, miss and put counts in total and by region
+	 */
+	@RequestMapping(value = "/persistenceGeo/cache/stats", method = RequestMethod.GET, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> getCacheStats() {
+		return dbManagementService.getCacheStatistics();
+	}
+
+	/**
+	 * Coalesced folder tree and layer list reads
+	 * 
+	 * @return executed, coalesced and in flight calls in total and by call
+	 */
+	@RequestMapping(value = "/persistenceGeo/cache/coalesced", method = RequestMethod.GET, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> getCoalescedStats() {
+		return singleFlight.getStatistics();
+	}
+
+}
@@ -38,8 +38,11 @@ import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.collections.ListUtils;
+import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
@@ -55,11 +58,14 @@ import com.emergya.persistenceGeo.dto.TreeFolderDto;
 import com.emergya.persistenceGeo.dto.TreeNode;
 import com.emergya.persistenceGeo.dto.Treeable;
 import com.emergya.persistenceGeo.dto.UserDto;
+import com.emergya.persistenceGeo.service.CoalescedReadService;
 import com.emergya.persistenceGeo.service.FoldersAdminService;
 import com.emergya.persistenceGeo.service.LayerAdminService;
 import com.emergya.persistenceGeo.service.UserAdminService;
+import com.emergya.persistenceGeo.utils.ContentVersion;
 import com.emergya.persistenceGeo.utils.FolderStyle;
 import com.emergya.persistenceGeo.utils.FoldersUtils;
+import com.emergya.persistenceGeo.utils.VersionedResponses;
 import com.google.common.base.Strings;
 
 /**
@@ -81,6 +87,10 @@ public class RestFoldersAdminController implements Serializable {
 	private FoldersAdminService foldersAdminService;
 	@Resource
 	private LayerAdminService layerAdminService;
+	@Resource
+	private VersionedResponses versionedResponses;
+	@Resource
+	private CoalescedReadService coalescedReadService;
 
 	protected final String RESULTS = "results";
 	protected final String ROOT = "data";
@@ -301,16 +311,37 @@ public class RestFoldersAdminController implements Serializable {
 	public static final String FILTER_WITH_LAYERS = "LAYERS";
 
 	/**
-	 * This method loads all folders related with a user
+	 * This method loads all folders related with a user answering
+	 * conditional requests with the version of the user contents
 	 * 
 	 * @param username
 	 * 
-	 * @return JSON file with folders
+	 * @return JSON file with folders or null if the client copy is still
+	 *         valid
 	 */
 	@RequestMapping(value = "/persistenceGeo/loadFolders/{username}", produces = { MediaType.APPLICATION_JSON_VALUE })
 	public @ResponseBody
 	Map<String, Object> loadFolders(@PathVariable String username,
-			@RequestParam(value = "filter", required = false) String filter) {
+			@RequestParam(value = "filter", required = false) String filter,
+			HttpServletRequest request, HttpServletResponse response) {
+		if (username == null) {
+			return loadFolders(username, filter);
+		}
+		// versioned by name, so the user is only loaded to build the response
+		ContentVersion version = versionedResponses.getVersion(ContentVersion
+				.userScope(username));
+		return loadVersioned("user:" + username + ":" + filter, version,
+				request, response, username, filter, null);
+	}
+
+	/**
+	 * This method loads all folders related with a user
+	 * 
+	 * @param username
+	 * 
+	 * @return JSON file with folders
+	 */
+	public Map<String, Object> loadFolders(String username, String filter) {
 		Map<String, Object> result = new HashMap<String, Object>();
 		List<FolderDto> folders = null;
 		try {
@@ -323,7 +354,7 @@ public class RestFoldersAdminController implements Serializable {
 				folders = new LinkedList<FolderDto>();
 				UserDto user = userAdminService.obtenerUsuario(username);
 				FolderDto rootFolder;
-				rootFolder = foldersAdminService.getRootFolder(user.getId());
+				rootFolder = coalescedReadService.getRootFolder(user.getId());
 				FoldersUtils.getFolderTreeFiltered(rootFolder, folders,
 						filter != null ? new Boolean(filter) : null);
 			}
@@ -340,16 +371,36 @@ public class RestFoldersAdminController implements Serializable {
 	}
 
 	/**
-	 * This method loads all folders related with a user
+	 * This method loads all folders related with a group answering
+	 * conditional requests with the version of the group contents
 	 * 
-	 * @param username
+	 * @param idGroup
 	 * 
-	 * @return JSON file with folders
+	 * @return JSON file with folders or null if the client copy is still
+	 *         valid
 	 */
 	@RequestMapping(value = "/persistenceGeo/loadFoldersByGroup/{idGroup}", produces = { MediaType.APPLICATION_JSON_VALUE })
 	public @ResponseBody
 	Map<String, Object> loadFoldersByGroup(@PathVariable String idGroup,
-			@RequestParam(value = "filter", required = false) String filter) {
+			@RequestParam(value = "filter", required = false) String filter,
+			HttpServletRequest request, HttpServletResponse response) {
+		if (idGroup == null || !StringUtils.isNumeric(idGroup)) {
+			return loadFoldersByGroup(idGroup, filter);
+		}
+		ContentVersion version = versionedResponses.getVersion(ContentVersion
+				.groupScope(Long.decode(idGroup)));
+		return loadVersioned("group:" + idGroup + ":" + filter, version,
+				request, response, null, filter, idGroup);
+	}
+
+	/**
+	 * This method loads all folders related with a group
+	 * 
+	 * @param idGroup
+	 * 
+	 * @return JSON file with folders
+	 */
+	public Map<String, Object> loadFoldersByGroup(String idGroup, String filter) {
 		Map<String, Object> result = new HashMap<String, Object>();
 		List<FolderDto> folders = null;
 		try {
@@ -362,10 +413,10 @@ public class RestFoldersAdminController implements Serializable {
 				folders = new LinkedList<FolderDto>();
 				FolderDto rootFolder;
 				if (filter != null) {
-					rootFolder = foldersAdminService.getRootGroupFolder(Long
+					rootFolder = coalescedReadService.getRootGroupFolder(Long
 							.decode(idGroup));
 				} else {
-					rootFolder = foldersAdminService.getRootGroupFolder(Long
+					rootFolder = coalescedReadService.getRootGroupFolder(Long
 							.decode(idGroup));
 				}
 				FoldersUtils.getFolderTreeFiltered(rootFolder, folders,
@@ -414,9 +465,9 @@ public class RestFoldersAdminController implements Serializable {
 			folders = new LinkedList<FolderDto>();
 			if (LOAD_FOLDERS_BY_USER.equals(type)) {
 				UserDto user = userAdminService.obtenerUsuario(userOrGroup);
-				rootFolder = foldersAdminService.getRootFolder(user.getId());
+				rootFolder = coalescedReadService.getRootFolder(user.getId());
 			} else {
-				rootFolder = foldersAdminService.getRootGroupFolder(Long
+				rootFolder = coalescedReadService.getRootGroupFolder(Long
 						.decode(userOrGroup));
 			}
 			if (LOAD_FOLDERS_STYLE_TREE.equals(style)) {
@@ -557,10 +608,30 @@ public class RestFoldersAdminController implements Serializable {
 	 * 
 	 * @return JSON file with folders
 	 */
+	public Map<String, Object> loadFoldersById(String idFolder, String filter) {
+		return loadFoldersById(idFolder, filter, null, null);
+	}
+
+	/**
+	 * This method loads the children folders (without their subtrees) and the
+	 * layers of a folder. Children folders are paged with <code>start</code>
+	 * and <code>limit</code>; layers are only returned with the first page.
+	 * 
+	 * @param idFolder
+	 * @param filter
+	 * @param start
+	 *            first children folder, can be null
+	 * @param limit
+	 *            max children folders, can be null
+	 * 
+	 * @return JSON file with folders
+	 */
 	@RequestMapping(value = "/persistenceGeo/loadFoldersById/{idFolder}", produces = { MediaType.APPLICATION_JSON_VALUE })
 	public @ResponseBody
 	Map<String, Object> loadFoldersById(@PathVariable String idFolder,
-			@RequestParam(value = "filter", required = false) String filter) {
+			@RequestParam(value = "filter", required = false) String filter,
+			@RequestParam(value = "start", required = false) Integer start,
+			@RequestParam(value = "limit", required = false) Integer limit) {
 		Map<String, Object> result = new HashMap<String, Object>();
 		List<Treeable> tree = null;
 		
@@ -599,7 +670,8 @@ public class RestFoldersAdminController implements Serializable {
 					tree.add(new TreeNode(subRes));
 				}
 			} else {
-				loadLayersInTree(folderId, isChannel, recursiveLoadMark, tree);
+				loadLayersInTree(folderId, isChannel, recursiveLoadMark, tree,
+						start, limit);
 			}
 			
 		} catch (Exception e) {
@@ -616,42 +688,103 @@ public class RestFoldersAdminController implements Serializable {
 	}
 	
 	private void loadLayersInTree(
-			Long folderId,  Boolean isChannel, boolean recursive, List<Treeable> tree) {
-		// add folders
+			Long folderId,  Boolean isChannel, boolean recursive, List<Treeable> tree,
+			Integer start, Integer limit) {
+		// add folders (only direct children with counts, not subtrees)
 		List<FolderDto> childrenFolders = foldersAdminService
-				.findByZone(null, folderId, Boolean.TRUE);
+				.getFolderChildren(folderId, Boolean.TRUE, start, limit);
 		if (childrenFolders != null && !childrenFolders.isEmpty()) {
 			for (FolderDto subRes : childrenFolders) {
 				if(!recursive) {
 					tree.add((Treeable) FoldersUtils.getFolderDecorator()
 							.applyStyle(subRes, FolderStyle.NORMAL));
-				} else {
-					loadLayersInTree(subRes.getId(), isChannel, true, tree);
-				}						
+				} else if (BooleanUtils.isTrue(subRes.getHasChildren())
+						|| subRes.getLayerCount() > 0) {
+					loadLayersInTree(subRes.getId(), isChannel, true, tree,
+							null, null);
+				}
 			}
 		}
 		
-		List<LayerDto> previusLayers = layerAdminService
-				.getLayersByFolder(folderId, isChannel, Boolean.TRUE);
-		for (LayerDto subRes : previusLayers) {
-			tree.add(new TreeNode(subRes));
+		if (start == null || start == 0) {
+			List<LayerDto> previusLayers = layerAdminService
+					.getLayersByFolder(folderId, isChannel, Boolean.TRUE);
+			for (LayerDto subRes : previusLayers) {
+				tree.add(new TreeNode(subRes));
+			}
 		}
 	}
 
 	/**
-	 * This method loads all channel folders in a zone
+	 * Answer a folders request with a 304 if the client copy has the given
+	 * version, with the response kept for it or with a new one. Loads the
+	 * folders of the user if <code>username</code> isn't null, of the group
+	 * if <code>idGroup</code> isn't null or the channels otherwise.
+	 * 
+	 * @return JSON file with folders or null if the client copy is still
+	 *         valid
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> loadVersioned(String key,
+			ContentVersion version, HttpServletRequest request,
+			HttpServletResponse response, String username, String filter,
+			String idGroup) {
+		if (versionedResponses.notModified(version, request, response)) {
+			return null;
+		}
+		Map<String, Object> result = (Map<String, Object>) versionedResponses
+				.get(key, version);
+		if (result == null) {
+			if (username != null) {
+				result = loadFolders(username, filter);
+			} else if (idGroup != null) {
+				result = loadFoldersByGroup(idGroup, filter);
+			} else {
+				result = loadChannels(filter);
+			}
+			if (!Boolean.TRUE.equals(result.get(SUCCESS))) {
+				return result;
+			}
+			versionedResponses.put(key, version, result);
+		}
+		versionedResponses.setHeaders(version, response);
+		return result;
+	}
+
+	/**
+	 * This method loads all channel folders in a zone answering conditional
+	 * requests with the version of the contents of everyone
 	 * 
 	 * @param filter
 	 *            can be null
 	 *            {@link RestFoldersAdminController#ALL_CHANNEL_IN_ZONES} or id
 	 *            zone to filter
 	 * 
-	 * @return JSON file with folders
+	 * @return JSON file with folders or null if the client copy is still
+	 *         valid
 	 */
 	@RequestMapping(value = "/persistenceGeo/loadChannels", produces = { MediaType.APPLICATION_JSON_VALUE })
 	public @ResponseBody
 	Map<String, Object> loadChannels(
-			@RequestParam(value = "filter", required = false) String filter) {
+			@RequestParam(value = "filter", required = false) String filter,
+			HttpServletRequest request, HttpServletResponse response) {
+		ContentVersion version = versionedResponses
+				.getVersion(ContentVersion.ALL);
+		return loadVersioned("channels:" + filter, version, request,
+				response, null, filter, null);
+	}
+
+	/**
+	 * This method loads all channel folders in a zone
+	 * 
+	 * @param filter
+	 *            can be null
+	 *            {@link RestFoldersAdminController#ALL_CHANNEL_IN_ZONES} or id
+	 *            zone to filter
+	 * 
+	 * @return JSON file with folders
+	 */
+	public Map<String, Object> loadChannels(String filter) {
 		Map<String, Object> result = new HashMap<String, Object>();
 		List<FolderDto> folders = null;
 		List<FolderDto> previusFolders = null;
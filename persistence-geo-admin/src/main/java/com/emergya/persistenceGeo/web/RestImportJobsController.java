@@ -0,0 +1,367 @@
+/*
+ * RestImportJobsController.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.web;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Resource;
+
+import org.apache.log4j.Logger;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.emergya.persistenceGeo.dto.ImportJobDto;
+import com.emergya.persistenceGeo.exceptions.ImportJobRejectedException;
+import com.emergya.persistenceGeo.service.ImportJobService;
+import com.emergya.persistenceGeo.utils.SpooledUpload;
+import com.emergya.persistenceGeo.utils.UploadSpool;
+
+/**
+ * Rest controller to import uploaded files in background. Files are uploaded
+ * first to the upload spool; the import job takes them from it. The files are
+ * moved out of the spool to the local disk, so the jobs run in the node that
+ * received them. If the job can't be queued the upload is given back to the
+ * spool, so the import can be submitted again.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ */
+@Controller
+public class RestImportJobsController extends RestPersistenceGeoController
+		implements Serializable {
+
+	private static final Logger LOG = Logger
+			.getLogger(RestImportJobsController.class);
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -1459371904482175367L;
+
+	@Resource
+	private ImportJobService importJobService;
+
+	@Resource
+	private UploadSpool uploadSpool;
+
+	/**
+	 * Queue the import of an uploaded zip with a shapefile
+	 * 
+	 * @param uploadId
+	 *            id of the upload in the spool
+	 * @param tableName
+	 *            table to create
+	 * @param dropExisting
+	 *            replace the table if it exists
+	 * @param username
+	 *            user submitting the import
+	 * 
+	 * @return JSON with the job id
+	 */
+	@RequestMapping(value = "/persistenceGeo/importJobs/shp", method = RequestMethod.POST, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> submitShpImport(
+			@RequestParam("uploadId") Long uploadId,
+			@RequestParam("tableName") String tableName,
+			@RequestParam(value = "dropExisting", required = false) Boolean dropExisting,
+			@RequestParam(value = "username", required = false) String username) {
+		Map<String, Object> result = new HashMap<String, Object>();
+		// the importer reads the shapefile from the zip without extracting it
+		SpooledUpload upload = null;
+		File zip = null;
+		try {
+			zip = File.createTempFile("import", ".zip");
+			upload = uploadSpool.detach(uploadId, zip);
+			if (upload == null) {
+				return failure(result, "Upload " + uploadId + " not found");
+			}
+			Long jobId = importJobService.submitShpImport(zip, tableName,
+					Boolean.TRUE.equals(dropExisting), username);
+			// the job deletes the file when it ends
+			upload = null;
+			zip = null;
+			return submitted(result, jobId);
+		} catch (ImportJobRejectedException e) {
+			return failure(result, e.getMessage());
+		} catch (IOException e) {
+			LOG.error("Can't move upload " + uploadId, e);
+			return failure(result, "The upload can't be read");
+		} finally {
+			if (upload != null) {
+				uploadSpool.restore(upload, zip);
+			} else if (zip != null) {
+				zip.delete();
+			}
+		}
+	}
+
+	/**
+	 * Queue the publication of an uploaded GeoTIFF
+	 * 
+	 * @param uploadId
+	 *            id of the upload in the spool
+	 * @param workspaceName
+	 * @param layerName
+	 * @param crs
+	 *            native SRS of the image
+	 * @param username
+	 *            user submitting the import
+	 * 
+	 * @return JSON with the job id
+	 */
+	@RequestMapping(value = "/persistenceGeo/importJobs/geotiff", method = RequestMethod.POST, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> submitGeoTIFFImport(
+			@RequestParam("uploadId") Long uploadId,
+			@RequestParam("workspaceName") String workspaceName,
+			@RequestParam("layerName") String layerName,
+			@RequestParam("crs") String crs,
+			@RequestParam(value = "username", required = false) String username) {
+		Map<String, Object> result = new HashMap<String, Object>();
+		SpooledUpload upload = null;
+		File geotiff = null;
+		try {
+			geotiff = File.createTempFile("import", ".tif");
+			upload = uploadSpool.detach(uploadId, geotiff);
+			if (upload == null) {
+				return failure(result, "Upload " + uploadId + " not found");
+			}
+			Long jobId = importJobService.submitGeoTIFFImport(geotiff,
+					workspaceName, layerName, crs, username);
+			upload = null;
+			geotiff = null;
+			return submitted(result, jobId);
+		} catch (ImportJobRejectedException e) {
+			return failure(result, e.getMessage());
+		} catch (IOException e) {
+			LOG.error("Can't move upload " + uploadId, e);
+			return failure(result, "The upload can't be read");
+		} finally {
+			if (upload != null) {
+				uploadSpool.restore(upload, geotiff);
+			} else if (geotiff != null) {
+				geotiff.delete();
+			}
+		}
+	}
+
+	/**
+	 * Queue the import of an uploaded KML or GML file into a table and its
+	 * publication as a layer, so it's served by WMS and WFS instead of whole
+	 * 
+	 * @param uploadId
+	 *            id of the upload in the spool
+	 * @param workspaceName
+	 * @param tableName
+	 *            table and layer to create
+	 * @param srid
+	 *            SRID of the coordinates, by default the one in the file or
+	 *            4326
+	 * @param username
+	 *            user submitting the import
+	 * 
+	 * @return JSON with the job id
+	 */
+	@RequestMapping(value = "/persistenceGeo/importJobs/xml", method = RequestMethod.POST, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> submitXmlImport(
+			@RequestParam("uploadId") Long uploadId,
+			@RequestParam("workspaceName") String workspaceName,
+			@RequestParam("tableName") String tableName,
+			@RequestParam(value = "srid", required = false) Integer srid,
+			@RequestParam(value = "username", required = false) String username) {
+		Map<String, Object> result = new HashMap<String, Object>();
+		SpooledUpload upload = null;
+		File file = null;
+		try {
+			file = File.createTempFile("import", ".xml");
+			upload = uploadSpool.detach(uploadId, file);
+			if (upload == null) {
+				return failure(result, "Upload " + uploadId + " not found");
+			}
+			Long jobId = importJobService.submitXmlImport(file,
+					workspaceName, tableName, srid, username);
+			upload = null;
+			file = null;
+			return submitted(result, jobId);
+		} catch (ImportJobRejectedException e) {
+			return failure(result, e.getMessage());
+		} catch (IOException e) {
+			LOG.error("Can't move upload " + uploadId, e);
+			return failure(result, "The upload can't be read");
+		} finally {
+			if (upload != null) {
+				uploadSpool.restore(upload, file);
+			} else if (file != null) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Status of an import job
+	 * 
+	 * @param jobId
+	 * 
+	 * @return JSON with the job, including its progress percent
+	 */
+	@RequestMapping(value = "/persistenceGeo/importJobs/{jobId}", method = RequestMethod.GET, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> getJob(@PathVariable Long jobId) {
+		Map<String, Object> result = new HashMap<String, Object>();
+		ImportJobDto job = importJobService.getJob(jobId);
+		if (job == null) {
+			return failure(result, "Import job " + jobId + " not found");
+		}
+		result.put(SUCCESS, true);
+		result.put(RESULTS, 1);
+		result.put(ROOT, job);
+		return result;
+	}
+
+	/**
+	 * Progress of an import job
+	 * 
+	 * @param jobId
+	 * 
+	 * @return JSON with the status, the units done and total and the
+	 *         percent done
+	 */
+	@RequestMapping(value = "/persistenceGeo/importJobs/{jobId}/progress", method = RequestMethod.GET, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> getJobProgress(@PathVariable Long jobId) {
+		Map<String, Object> result = new HashMap<String, Object>();
+		ImportJobDto job = importJobService.getJob(jobId);
+		if (job == null) {
+			return failure(result, "Import job " + jobId + " not found");
+		}
+		Map<String, Object> progress = new HashMap<String, Object>();
+		progress.put("status", job.getStatus());
+		progress.put("done", job.getDone());
+		progress.put("total", job.getTotal());
+		progress.put("progress", job.getProgress());
+		result.put(SUCCESS, true);
+		result.put(RESULTS, 1);
+		result.put(ROOT, progress);
+		return result;
+	}
+
+	/**
+	 * Result of a finished import job
+	 * 
+	 * @param jobId
+	 * 
+	 * @return JSON with the final status and message. It fails if the job
+	 *         hasn't finished.
+	 */
+	@RequestMapping(value = "/persistenceGeo/importJobs/{jobId}/result", method = RequestMethod.GET, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> getJobResult(@PathVariable Long jobId) {
+		Map<String, Object> result = new HashMap<String, Object>();
+		ImportJobDto job = importJobService.getJob(jobId);
+		if (job == null) {
+			return failure(result, "Import job " + jobId + " not found");
+		}
+		if (job.getEndDate() == null) {
+			return failure(result, "Import job " + jobId + " is "
+					+ job.getStatus());
+		}
+		Map<String, Object> jobResult = new HashMap<String, Object>();
+		jobResult.put("status", job.getStatus());
+		jobResult.put("message", job.getMessage());
+		jobResult.put("targetName", job.getTargetName());
+		jobResult.put("endDate", job.getEndDate());
+		result.put(SUCCESS, true);
+		result.put(RESULTS, 1);
+		result.put(ROOT, jobResult);
+		return result;
+	}
+
+	/**
+	 * Cancel an import job
+	 * 
+	 * @param jobId
+	 * 
+	 * @return JSON with success true if the job will be cancelled
+	 */
+	@RequestMapping(value = "/persistenceGeo/importJobs/{jobId}/cancel", method = RequestMethod.POST, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> cancelJob(@PathVariable Long jobId) {
+		Map<String, Object> result = new HashMap<String, Object>();
+		boolean cancelled = importJobService.cancel(jobId);
+		result.put(SUCCESS, cancelled);
+		result.put(RESULTS, cancelled ? 1 : 0);
+		return result;
+	}
+
+	/**
+	 * Import workers and queue statistics
+	 * 
+	 * @return import queue metrics
+	 */
+	@RequestMapping(value = "/persistenceGeo/importJobs/stats", method = RequestMethod.GET, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody
+	Map<String, Object> getImportStats() {
+		return importJobService.getStats();
+	}
+
+	private Map<String, Object> submitted(Map<String, Object> result,
+			Long jobId) {
+		result.put(SUCCESS, true);
+		result.put(RESULTS, 1);
+		result.put(ROOT, jobId);
+		return result;
+	}
+
+	private Map<String, Object> failure(Map<String, Object> result,
+			String message) {
+		result.put(SUCCESS, false);
+		result.put(RESULTS, 0);
+		result.put(ROOT, message);
+		return result;
+	}
+
+}
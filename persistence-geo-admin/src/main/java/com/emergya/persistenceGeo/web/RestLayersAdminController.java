@@ -30,21 +30,21 @@
 package com.emergya.persistenceGeo.web;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.collections.ListUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
@@ -58,12 +58,19 @@ import org.springframework.web.servlet.ModelAndView;
 
 import com.emergya.persistenceGeo.dto.AuthorityDto;
 import com.emergya.persistenceGeo.dto.LayerDto;
+import com.emergya.persistenceGeo.dto.LayerSummary;
 import com.emergya.persistenceGeo.dto.MapConfigurationDto;
 import com.emergya.persistenceGeo.dto.SimplePropertyDto;
 import com.emergya.persistenceGeo.dto.UserDto;
+import com.emergya.persistenceGeo.service.CoalescedReadService;
 import com.emergya.persistenceGeo.service.GeoserverService;
 import com.emergya.persistenceGeo.service.LayerAdminService;
 import com.emergya.persistenceGeo.service.MapConfigurationAdminService;
+import com.emergya.persistenceGeo.utils.ContentDownload;
+import com.emergya.persistenceGeo.utils.ContentInfo;
+import com.emergya.persistenceGeo.utils.SpooledUpload;
+import com.emergya.persistenceGeo.utils.UploadRejectedException;
+import com.emergya.persistenceGeo.utils.UploadSpool;
 import org.apache.log4j.Logger;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -83,15 +90,19 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 	 * 
 	 */
 	private static final long serialVersionUID = 3028127910300105478L;
+
+	private static final String LAYER_CONTENT_TYPE = "application/xml";
+	private static final String LAYER_CONTENT_DISPOSITION = "attachment; filename=test.xml";
 	@Resource
 	private LayerAdminService layerAdminService;
 	@Resource
+	private CoalescedReadService coalescedReadService;
+	@Resource
 	private MapConfigurationAdminService mapConfigurationAdminService;	
 	@Resource
 	private GeoserverService geoserverService;
-		
-	private Map<Long, File> loadedLayers = new ConcurrentHashMap<Long, File>();
-	private Map<Long, File> loadFiles = new ConcurrentHashMap<Long, File>();
+	@Resource
+	private UploadSpool uploadSpool;
 
 	public static final String LOAD_FOLDERS_BY_USER = "user";
 	public static final String LOAD_FOLDERS_BY_GROUP = "group";
@@ -175,7 +186,7 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 	public @ResponseBody
 	Map<String, Object> loadLayers(@PathVariable String username){
 		Map<String, Object> result = new HashMap<String, Object>();
-		List<LayerDto> layers = null;
+		List<LayerSummary> layers = null;
 		try{
 			/*
 			//TODO: Secure with logged user
@@ -183,20 +194,14 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 					.getAuthentication().getPrincipal()).getUsername(); 
 			 */
 			if(username != null){
-				layers = new LinkedList<LayerDto>();
+				layers = new LinkedList<LayerSummary>();
 				UserDto userDto = userAdminService.obtenerUsuario(username);
 				if(userDto.getId() != null){
-					layers = layerAdminService.getLayersByUser(userDto.getId());
+					layers = setLayerResources(coalescedReadService
+							.getLayerSummariesByUser(userDto.getId()));
 				}else{
 					layers = ListUtils.EMPTY_LIST;
 				}
-				for(LayerDto layer: layers){
-					if(layer.getId() != null && layer.getData() != null){
-						loadedLayers.put(layer.getId(), layer.getData());
-						layer.setData(null);
-						layer.setServer_resource("rest/persistenceGeo/getLayerResource/"+layer.getId());
-					}
-				}
 			}
 			result.put(SUCCESS, true);
 		}catch (Exception e){
@@ -216,7 +221,7 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 	public @ResponseBody
 	Map<String, Object> loadPublicLayers(@PathVariable Long userId){
 		Map<String, Object> result = new HashMap<String, Object>();
-		List<LayerDto> layers = null;
+		List<LayerSummary> layers = null;
 		try{
 			
 //			//TODO: Secure with logged user
@@ -237,18 +242,14 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 						return result;
 					}
 					
-					layers = layerAdminService.getPublicLayers();
+					layers = setLayerResources(coalescedReadService
+							.getPublicLayerSummaries());
 				}else{
 					layers = ListUtils.EMPTY_LIST;
 				}
 				
-				for(LayerDto layer: layers){
+				for(LayerSummary layer: layers){
 					layer.setEnabled(false);
-					if(layer.getId() != null && layer.getData() != null){
-						loadedLayers.put(layer.getId(), layer.getData());
-						layer.setData(null);
-						layer.setServer_resource("rest/persistenceGeo/getLayerResource/"+layer.getId());
-					}
 				}
 			}
 			result.put(SUCCESS, true);
@@ -278,21 +279,15 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 	public @ResponseBody
 	Map<String, Object> loadLayersByGroup(@PathVariable String groupId){
 		Map<String, Object> result = new HashMap<String, Object>();
-		List<LayerDto> layers = null;
+		List<LayerSummary> layers = null;
 		try{
 			if(groupId != null 
 					&& canAccess(Long.decode(groupId))){
-				layers = layerAdminService.getLayersByAuthority(Long.decode(groupId));
+				layers = setLayerResources(coalescedReadService
+						.getLayerSummariesByAuthority(Long.decode(groupId)));
 			}else{
 				layers = ListUtils.EMPTY_LIST;
 			}
-			for(LayerDto layer: layers){
-				if(layer.getId() != null && layer.getData() != null){
-					loadedLayers.put(layer.getId(), layer.getData());
-					layer.setData(null);
-					layer.setServer_resource("rest/persistenceGeo/getLayerResource/"+layer.getId());
-				}
-			}
 			result.put(SUCCESS, true);
 		}catch (Exception e){
 			e.printStackTrace();
@@ -305,6 +300,29 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 		return result;
 	}
 
+	/**
+	 * Points the server resource of the layers with data to the layer
+	 * resource url. Data is loaded on demand in {@link #loadLayer}. The
+	 * summaries come from the layer list cache and are shared by concurrent
+	 * requests, so they are copied and the copies are changed
+	 * 
+	 * @param layers
+	 *            cached summaries
+	 * 
+	 * @return copies of the summaries for this response
+	 */
+	private List<LayerSummary> setLayerResources(List<LayerSummary> layers){
+		List<LayerSummary> copies = new ArrayList<LayerSummary>(layers.size());
+		for(LayerSummary layer: layers){
+			LayerSummary copy = layer.copy();
+			if(copy.getId() != null && copy.getHasData()){
+				copy.setServer_resource("rest/persistenceGeo/getLayerResource/"+copy.getId());
+			}
+			copies.add(copy);
+		}
+		return copies;
+	}
+
 	/**
 	 * This method loads json file related with a user
 	 * 
@@ -372,6 +390,7 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 	@RequestMapping(value = "/persistenceGeo/getLayerResource/{layerId}", method = RequestMethod.GET, 
 			produces = {MediaType.APPLICATION_JSON_VALUE})
 	public void loadLayer(@PathVariable String layerId,
+					HttpServletRequest request,
 					HttpServletResponse response){
 		try{
 			/*
@@ -379,12 +398,29 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 			String username = ((UserDetails) SecurityContextHolder.getContext()
 					.getAuthentication().getPrincipal()).getUsername(); 
 			 */
-			response.setContentType("application/xml");
-			response.setHeader("Content-Disposition",
-					"attachment; filename=test.xml");
-			IOUtils.copy(new FileInputStream(loadedLayers.get(Long.decode(layerId))), response
-						.getOutputStream());
-			response.flushBuffer();
+			final Long idLayer = Long.decode(layerId);
+			File data = uploadSpool.getFile(idLayer);
+			if(data != null){
+				// temporal layer not saved yet
+				ContentDownload.sendFile(request, response, data, 
+						LAYER_CONTENT_TYPE, LAYER_CONTENT_DISPOSITION);
+				return;
+			}
+			ContentInfo content = layerAdminService.getLayerContentInfo(idLayer);
+			if(content == null){
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+			ContentDownload.send(request, response, content.getETag(),
+					content.getUpdateDate() != null ? content.getUpdateDate().getTime() : -1,
+					content.getSize() != null ? content.getSize() : -1,
+					LAYER_CONTENT_TYPE, LAYER_CONTENT_DISPOSITION,
+					new ContentDownload.ContentWriter() {
+						public boolean write(long offset, long length,
+								OutputStream out) throws IOException {
+							return layerAdminService.writeLayerData(idLayer, offset, length, out);
+						}
+					});
 		}catch (Exception e){
 			e.printStackTrace();
 		}
@@ -487,9 +523,8 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 			
 			layer = (LayerDto) layerAdminService.update(layer);
 			
-			//Must already loaded in RestLayerAdminController
-			if(layer.getId() != null && layer.getData() != null){
-				layer.setData(null);
+			//Data is loaded on demand in getLayerResource
+			if(layer.getId() != null && BooleanUtils.isTrue(layer.getHasData())){
 				layer.setServer_resource("rest/persistenceGeo/getLayerResource/"+layer.getId());
 			}
 			
@@ -549,9 +584,8 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 			//layer update
 			layer = (LayerDto) layerAdminService.update(layer);
 			
-			//Must already loaded in RestLayerAdminController
-			if(layer.getId() != null && layer.getData() != null){
-				layer.setData(null);
+			//Data is loaded on demand in getLayerResource
+			if(layer.getId() != null && BooleanUtils.isTrue(layer.getHasData())){
 				layer.setServer_resource("rest/persistenceGeo/getLayerResource/"+layer.getId());
 			}
 			
@@ -608,8 +642,6 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 		}
 	}
 	
-	private static final Random RANDOM = new Random();
-	
 	/**
 	 * This method saves a layer related with a user
 	 * 
@@ -621,18 +653,16 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 		ModelAndView model = new ModelAndView();
 		String result = null;
 		if(uploadfile != null){
-			Long id = RANDOM.nextLong();
-			result = "{\"results\": 1, \"data\": \""+ id +"\", \"success\": true}";
-			byte[] data;
 			try {
-				data = IOUtils.toByteArray(uploadfile.getInputStream());
-				File temp = com.emergya.persistenceGeo.utils.FileUtils
-						.createFileTemp("tmp", "xml");
-				org.apache.commons.io.FileUtils.writeByteArrayToFile(temp, data);
-				loadFiles.put(id, temp);
+				SpooledUpload upload = uploadSpool.store(uploadfile.getInputStream(), 
+						uploadfile.getSize(), uploadfile.getOriginalFilename(), 
+						uploadfile.getContentType());
+				result = "{\"results\": 1, \"data\": \""+ upload.getId() +"\", \"success\": true}";
+			} catch (UploadRejectedException e) {
+				result = "{\"results\": 0, \"data\": \"" + e.getMessage() + "\", \"success\": false}";
 			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+				LOG.error("Error storing upload", e);
+				result = "{\"results\": 0, \"data\": \"\", \"success\": false}";
 			}
 		}else{
 			result = "{\"results\": 0, \"data\": \"\", \"success\": false}";
@@ -773,7 +803,7 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 			
 			//Only if a file has been saved
 			if(idFile != null){
-				File temp = loadFiles.get(Long.decode(idFile));
+				File temp = uploadSpool.getFile(Long.decode(idFile));
 				// Layer data
 				if (temp != null) {
 					layer.setData(temp);
@@ -788,22 +818,19 @@ public class RestLayersAdminController extends RestPersistenceGeoController
 					layer = (LayerDto) layerAdminService.create(layer);
 				}
 			}else{
-				// temp layer
-				loadedLayers.put(Long.decode(idFile), layer.getData());
+				// temp layer: data is kept in the upload spool
 				layer.setData(null);
 				layer.setServer_resource("rest/persistenceGeo/getLayerResource/"+idFile);
 			}
 			
-			if(layer.getId() != null && layer.getData() != null){
-				// 
-				loadedLayers.put(layer.getId(), layer.getData());
-				layer.setData(null);
+			if(layer.getId() != null && BooleanUtils.isTrue(layer.getHasData())){
+				// data is loaded on demand in getLayerResource
 				layer.setServer_resource("rest/persistenceGeo/getLayerResource/"+layer.getId());
 			}
 			
-			if(idFile != null 
-					&& loadFiles.containsKey(idFile)){
-				loadFiles.remove(idFile);
+			if(idFile != null && update != null){
+				// data is already saved in database
+				uploadSpool.delete(Long.decode(idFile));
 			}
 			
 			return layer;
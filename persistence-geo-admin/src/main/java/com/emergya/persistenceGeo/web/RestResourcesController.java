@@ -29,29 +29,32 @@
  */
 package com.emergya.persistenceGeo.web;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Map;
-import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.io.IOUtils;
 import org.springframework.http.MediaType;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.ModelAndView;
 
 import com.emergya.persistenceGeo.dto.ResourceDto;
 import com.emergya.persistenceGeo.service.ResourceService;
+import com.emergya.persistenceGeo.utils.ContentDownload;
+import com.emergya.persistenceGeo.utils.ContentInfo;
+import com.emergya.persistenceGeo.utils.SpooledUpload;
+import com.emergya.persistenceGeo.utils.UploadRejectedException;
+import com.emergya.persistenceGeo.utils.UploadSpool;
 
 /**
  * Rest controller to upload and obtain resources
@@ -70,18 +73,19 @@ public class RestResourcesController extends RestPersistenceGeoController
 	@Resource
 	private ResourceService resourceService;
 	
-	private Map<Long, ResourceDto> loadFiles = new ConcurrentHashMap<Long, ResourceDto>();
-	private static final Random RANDOM = new Random();
+	@Resource
+	private UploadSpool uploadSpool;
 	
 	/**
-	 * Clean temporary files
+	 * Uploads statistics
+	 * 
+	 * @return upload spool metrics
 	 */
-	@Scheduled(cron="0 15 04 * * ? *")
-	public void clearLoadFiles() {
-		for(ResourceDto resource: loadFiles.values()){
-			resource.getData().delete();
-		}
-		loadFiles.clear();
+	@RequestMapping(value = "/persistenceGeo/uploadStats", method = RequestMethod.GET, 
+			produces = {MediaType.APPLICATION_JSON_VALUE})
+	public @ResponseBody 
+	Map<String, Object> getUploadStats(){
+		return uploadSpool.getStats();
 	}
 	
 	/**
@@ -95,15 +99,25 @@ public class RestResourcesController extends RestPersistenceGeoController
 		ModelAndView model = new ModelAndView();
 		String result = null;
 		if(uploadfile != null){
+			SpooledUpload upload = null;
 			try {
-				Long id = RANDOM.nextLong();
-				result = "{\"results\": 1, \"data\": \""+ id + "_" + uploadfile.getOriginalFilename() + "\", \"success\": true}";
-				ResourceDto resource = multipartFileToResource(uploadfile, id);
-				loadFiles.put(id, resource);
+				upload = uploadSpool.store(uploadfile.getInputStream(), 
+						uploadfile.getSize(), uploadfile.getOriginalFilename(), 
+						uploadfile.getContentType());
+				ResourceDto resource = uploadToResource(upload);
 				resourceService.create(resource); //FIXME: only when a layer has been saved!!
+				result = "{\"results\": 1, \"data\": \""+ upload.getId() + "_" + uploadfile.getOriginalFilename() + "\", \"success\": true}";
+			} catch (UploadRejectedException e) {
+				result = "{\"results\": 0, \"data\": \"" + e.getMessage() + "\", \"success\": false}";
 			} catch (Exception e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
+				result = "{\"results\": 0, \"data\": \"\", \"success\": false}";
+			} finally {
+				if(upload != null){
+					// data is already saved in database
+					uploadSpool.delete(upload.getId());
+				}
 			}
 		}else{
 			result = "{\"results\": 0, \"data\": \"\", \"success\": false}";
@@ -123,65 +137,50 @@ public class RestResourcesController extends RestPersistenceGeoController
 	@RequestMapping(value = "/persistenceGeo/getResource/{resourceId}", method = RequestMethod.GET, 
 			produces = {MediaType.APPLICATION_JSON_VALUE})
 	public void getResource(@PathVariable String resourceId,
+					HttpServletRequest request,
 					HttpServletResponse response){
 		try{
-			Long accessId = Long.decode(resourceId.split("_")[0]);
-			ResourceDto resource = loadFiles.get(accessId);
-			if(resource == null){ // not loaded yet
-				resource = resourceService.getByAccessId(accessId);
-				loadFiles.put(accessId, resource);
+			final Long accessId = Long.decode(resourceId.split("_")[0]);
+			ResourceDto resource = resourceService.getByAccessId(accessId);
+			ContentInfo content = resource != null ? 
+					resourceService.getResourceContentInfo(accessId) : null;
+			if(content == null){
+				response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
 			}
-			response.setContentType(resource.getType());
-			response.setHeader("Content-Length", new Long(resource.getSize()).toString());
-			response.setHeader("Content-Disposition",
-					"inline; filename="+resource.getName());
-			IOUtils.copy(new FileInputStream(resource.getData()), response
-					.getOutputStream());
-			response.flushBuffer();
+			ContentDownload.send(request, response, content.getETag(),
+					content.getUpdateDate() != null ? content.getUpdateDate().getTime() : -1,
+					content.getSize() != null ? content.getSize() : -1,
+					resource.getType(), "inline; filename=" + resource.getName(),
+					new ContentDownload.ContentWriter() {
+						public boolean write(long offset, long length,
+								OutputStream out) throws IOException {
+							return resourceService.writeResourceData(accessId, offset, length, out);
+						}
+					});
 		}catch (Exception e){
 			e.printStackTrace();
 		}
 	}
 	
 	/**
-	 * Obtain a resource from a multipart file 
+	 * Obtain a resource from an upload 
 	 * 
-	 * @param file
-	 * @param resourceId
+	 * @param upload
 	 * 
 	 * @return resource
 	 */
-	private ResourceDto multipartFileToResource(MultipartFile file, Long resourceId){
+	private ResourceDto uploadToResource(SpooledUpload upload){
 
 		//
 		ResourceDto resource = new ResourceDto();
 
 		// simple properties
-		resource.setName(file.getOriginalFilename());
-		resource.setSize(file.getSize());
-		resource.setType(file.getContentType());
-		resource.setAccessId(resourceId);
-
-		// obtain data
-		byte[] data;
-		String extension = "png";
-		if(resource.getType() != null){
-			if(resource.getType().split("/").length > 0){
-				extension = resource.getType().split("/")[resource.getType().split("/").length-1];
-			}else{
-				extension = resource.getType();
-			}
-		}
-		try {
-			data = IOUtils.toByteArray(file.getInputStream());
-			File temp = com.emergya.persistenceGeo.utils.FileUtils
-					.createFileTemp(resource.getName(), extension);
-			org.apache.commons.io.FileUtils.writeByteArrayToFile(temp, data);
-			resource.setData(temp);
-		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+		resource.setName(upload.getName());
+		resource.setSize(upload.getSize());
+		resource.setType(upload.getContentType());
+		resource.setAccessId(upload.getId());
+		resource.setData(upload.getFile());
 		
 		return resource;
 	}
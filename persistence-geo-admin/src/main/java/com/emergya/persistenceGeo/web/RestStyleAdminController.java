@@ -35,6 +35,7 @@ import java.util.Map;
 
 import javax.annotation.Resource;
 
+import org.apache.commons.lang.BooleanUtils;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
@@ -102,9 +103,8 @@ public class RestStyleAdminController implements Serializable{
 			
 			layer = (LayerDto) layerAdminService.update(layer);
 			
-			//Must already loaded in RestLayerAdminController
-			if(layer.getId() != null && layer.getData() != null){
-				layer.setData(null);
+			//Data is loaded on demand in RestLayerAdminController
+			if(layer.getId() != null && BooleanUtils.isTrue(layer.getHasData())){
 				layer.setServer_resource("rest/persistenceGeo/getLayerResource/"+layer.getId());
 			}
 			
@@ -37,6 +37,8 @@ import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.collections.ListUtils;
 import org.apache.commons.lang.StringUtils;
@@ -54,8 +56,10 @@ import com.emergya.persistenceGeo.dto.FolderTypeDto;
 import com.emergya.persistenceGeo.dto.TreeFolderDto;
 import com.emergya.persistenceGeo.dto.Treeable;
 import com.emergya.persistenceGeo.service.FoldersAdminService;
+import com.emergya.persistenceGeo.utils.ContentVersion;
 import com.emergya.persistenceGeo.utils.FolderStyle;
 import com.emergya.persistenceGeo.utils.FoldersUtils;
+import com.emergya.persistenceGeo.utils.VersionedResponses;
 
 /**
  * Rest controller to show trees with folders
@@ -80,6 +84,9 @@ public class RestTreeFolderController extends RestPersistenceGeoController
 	@Resource
 	private RestFoldersAdminController restFoldersAdminController;
 
+	@Resource
+	private VersionedResponses versionedResponses;
+
 	// TODO: Those constants should be defined in a more concrete implementation
 	// of the tree service.
 	private static final String SHOW_UNASSIGNED_FOLDER_FILTER = "SHOW_UNASSIGNED_FOLDER";
@@ -128,37 +135,115 @@ public class RestTreeFolderController extends RestPersistenceGeoController
 	 * 
 	 * @return JSON node children of selected node
 	 */
+	public List<Treeable> treeService(String nodeId, String type, String filter) {
+		return treeService(nodeId, type, filter, null, null);
+	}
+
+	/**
+	 * Returns the children of a specific container node. The container type is
+	 * specified using the type parameter. The condition the returned nodes has
+	 * to meet is specified using the filter parameter. Folder nodes only load
+	 * their direct children, optionally paged.
+	 * 
+	 * @param node
+	 *            The node id
+	 * @param type
+	 *            The type of the node (zone, folderType(Long), folder)
+	 * @param filter
+	 *            The condition the returned nodes has to meet
+	 * @param start
+	 *            first children folder of a folder node, can be null
+	 * @param limit
+	 *            max children folders of a folder node, can be null
+	 * 
+	 * @return JSON node children of selected node or null if the client copy
+	 *         is still valid
+	 */
 	@SuppressWarnings("unchecked")
 	@RequestMapping(value = "/persistenceGeo/tree/treeService", produces = { MediaType.APPLICATION_JSON_VALUE })
 	public @ResponseBody
 	List<Treeable> treeService(
 			@RequestParam(value = "node", required = false) String nodeId,
 			@RequestParam(value = "type", required = false) String type,
-			@RequestParam(value = "filter", required = false) String filter) {
-
-		List<Treeable> nodes = new LinkedList<Treeable>();
-
-		try {
-
-			Long typeId = FoldersAdminService.DEFAULT_FOLDER_TYPE;
-			if (StringUtils.isNotBlank(type) && 
-				(StringUtils.isNumeric(type) || type.equals(ID_ANY_FOLDER_TYPE.toString()))) {
-				typeId = Long.decode(type);
+			@RequestParam(value = "filter", required = false) String filter,
+			@RequestParam(value = "start", required = false) Integer start,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			HttpServletRequest request, HttpServletResponse response) {
+		ContentVersion version = versionedResponses
+				.getVersion(ContentVersion.ALL);
+		if (versionedResponses.notModified(version, request, response)) {
+			return null;
+		}
+		String key = "tree:" + nodeId + ":" + type + ":" + filter + ":"
+				+ start + ":" + limit;
+		List<Treeable> nodes = (List<Treeable>) versionedResponses.get(key,
+				version);
+		if (nodes == null) {
+			try {
+				nodes = loadNodes(nodeId, type, filter, start, limit);
+			} catch (Exception e) {
+				LOG.error(e);
 			}
-
-			if (!StringUtils.isEmpty(nodeId)
-					&& (StringUtils.isNumeric(nodeId) || RestFoldersAdminController.UNASSIGNED_LAYERS_VIRTUAL_FOLDER_ID
-							.toString().equals(nodeId))) {
-				// The rest of types are consider like folders
-				nodes = (List<Treeable>) restFoldersAdminController
-						.loadFoldersById(nodeId, filter).get(ROOT);
-			} else {
-				// get root folder types
-				nodes.addAll(getFoldersByType(typeId, filter));
+			if (nodes == null) {
+				// errors aren't tagged
+				return new LinkedList<Treeable>();
 			}
+			versionedResponses.put(key, version, nodes);
+		}
+		versionedResponses.setHeaders(version, response);
+		return nodes;
+	}
 
+	/**
+	 * Returns the children of a specific container node. The container type is
+	 * specified using the type parameter. The condition the returned nodes has
+	 * to meet is specified using the filter parameter. Folder nodes only load
+	 * their direct children, optionally paged.
+	 * 
+	 * @param node
+	 *            The node id
+	 * @param type
+	 *            The type of the node (zone, folderType(Long), folder)
+	 * @param filter
+	 *            The condition the returned nodes has to meet
+	 * @param start
+	 *            first children folder of a folder node, can be null
+	 * @param limit
+	 *            max children folders of a folder node, can be null
+	 * 
+	 * @return JSON node children of selected node
+	 */
+	public List<Treeable> treeService(String nodeId, String type,
+			String filter, Integer start, Integer limit) {
+		try {
+			return loadNodes(nodeId, type, filter, start, limit);
 		} catch (Exception e) {
 			LOG.error(e);
+			return new LinkedList<Treeable>();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Treeable> loadNodes(String nodeId, String type,
+			String filter, Integer start, Integer limit) {
+
+		List<Treeable> nodes = new LinkedList<Treeable>();
+
+		Long typeId = FoldersAdminService.DEFAULT_FOLDER_TYPE;
+		if (StringUtils.isNotBlank(type) && 
+			(StringUtils.isNumeric(type) || type.equals(ID_ANY_FOLDER_TYPE.toString()))) {
+			typeId = Long.decode(type);
+		}
+
+		if (!StringUtils.isEmpty(nodeId)
+				&& (StringUtils.isNumeric(nodeId) || RestFoldersAdminController.UNASSIGNED_LAYERS_VIRTUAL_FOLDER_ID
+						.toString().equals(nodeId))) {
+			// The rest of types are consider like folders
+			nodes = (List<Treeable>) restFoldersAdminController
+					.loadFoldersById(nodeId, filter, start, limit).get(ROOT);
+		} else {
+			// get root folder types
+			nodes.addAll(getFoldersByType(typeId, filter));
 		}
 
 		return nodes;
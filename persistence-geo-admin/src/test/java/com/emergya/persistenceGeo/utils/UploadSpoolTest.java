@@ -0,0 +1,163 @@
+/*
+ * UploadSpoolTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Test for the upload spool
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+public class UploadSpoolTest {
+
+	private static final Log LOG = LogFactory.getLog(UploadSpoolTest.class);
+	
+	private UploadSpool spool;
+	
+	@Before
+	public void createSpool() {
+		spool = new UploadSpool();
+		ReflectionTestUtils.setField(spool, "directory", new File(
+				System.getProperty("java.io.tmpdir"), "uploadSpoolTest").getAbsolutePath());
+		ReflectionTestUtils.setField(spool, "maxFileSize", 100L);
+		ReflectionTestUtils.setField(spool, "maxBytes", 250L);
+		ReflectionTestUtils.setField(spool, "maxEntries", 3);
+		ReflectionTestUtils.setField(spool, "ttl", 3600L);
+		spool.init();
+	}
+	
+	@After
+	public void clearSpool() {
+		spool.clear();
+	}
+	
+	@Test
+	public void testStore() {
+		try{
+			byte[] data = "<kml></kml>".getBytes();
+			SpooledUpload upload = spool.store(new ByteArrayInputStream(data), 
+					data.length, "test.kml", "application/xml");
+			Assert.assertNotNull(upload.getId());
+			Assert.assertEquals(data.length, upload.getSize());
+			Assert.assertArrayEquals(data, FileUtils.readFileToByteArray(spool.getFile(upload.getId())));
+			Assert.assertEquals(data.length, spool.getStoredBytes());
+			Assert.assertEquals(0, spool.getReservedBytes());
+			Assert.assertTrue(spool.delete(upload.getId()));
+			Assert.assertFalse(upload.getFile().exists());
+			Assert.assertNull(spool.get(upload.getId()));
+			Assert.assertEquals(0, spool.getStoredBytes());
+		}catch (Exception e){
+			LOG.error(e);
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void testRejectTooBig() {
+		byte[] data = new byte[101];
+		try{
+			// size not known in advance
+			spool.store(new ByteArrayInputStream(data), -1, "big", null);
+			Assert.fail();
+		}catch (UploadRejectedException e){
+			Assert.assertEquals(0, spool.getEntryCount());
+			Assert.assertEquals(0, spool.getReservedBytes());
+		}catch (Exception e){
+			LOG.error(e);
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void testEvictLeastRecentlyUsed() {
+		try{
+			byte[] data = new byte[100];
+			SpooledUpload first = spool.store(new ByteArrayInputStream(data), 
+					data.length, "first", null);
+			SpooledUpload second = spool.store(new ByteArrayInputStream(data), 
+					data.length, "second", null);
+			// first is now the most recently used
+			Assert.assertNotNull(spool.get(first.getId()));
+			SpooledUpload third = spool.store(new ByteArrayInputStream(data), 
+					data.length, "third", null);
+			Assert.assertNull(spool.get(second.getId()));
+			Assert.assertFalse(second.getFile().exists());
+			Assert.assertNotNull(spool.get(first.getId()));
+			Assert.assertNotNull(spool.get(third.getId()));
+			Assert.assertEquals(200, spool.getStoredBytes());
+			Assert.assertEquals(1L, spool.getStats().get("evicted"));
+		}catch (Exception e){
+			LOG.error(e);
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void testDetachAndRestore() {
+		File target = null;
+		try{
+			byte[] data = "<kml></kml>".getBytes();
+			SpooledUpload upload = spool.store(new ByteArrayInputStream(data), 
+					data.length, "test.kml", "application/xml");
+			target = File.createTempFile("uploadSpoolTest", ".xml");
+			Assert.assertSame(upload, spool.detach(upload.getId(), target));
+			Assert.assertFalse(upload.getFile().exists());
+			Assert.assertArrayEquals(data, FileUtils.readFileToByteArray(target));
+			Assert.assertNull(spool.get(upload.getId()));
+			Assert.assertEquals(0, spool.getStoredBytes());
+			// the file couldn't be used: it's given back
+			spool.restore(upload, target);
+			Assert.assertFalse(target.exists());
+			Assert.assertArrayEquals(data, FileUtils.readFileToByteArray(spool.getFile(upload.getId())));
+			Assert.assertEquals(data.length, spool.getStoredBytes());
+			Assert.assertNull(spool.detach(-1L, target));
+		}catch (Exception e){
+			LOG.error(e);
+			Assert.fail();
+		}finally{
+			if(target != null){
+				target.delete();
+			}
+		}
+	}
+
+}
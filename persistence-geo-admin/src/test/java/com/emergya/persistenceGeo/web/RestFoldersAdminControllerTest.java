@@ -0,0 +1,207 @@
+/*
+ * RestFoldersAdminControllerTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.web;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.emergya.persistenceGeo.dto.FolderDto;
+import com.emergya.persistenceGeo.dto.UserDto;
+import com.emergya.persistenceGeo.service.CoalescedReadService;
+import com.emergya.persistenceGeo.service.ContentVersionService;
+import com.emergya.persistenceGeo.service.UserAdminService;
+import com.emergya.persistenceGeo.utils.ContentVersion;
+import com.emergya.persistenceGeo.utils.VersionedResponses;
+
+/**
+ * Test for the conditional requests of the folders
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class RestFoldersAdminControllerTest {
+
+	private static final String USERNAME = "user1";
+	private static final String USER_SCOPE = ContentVersion.userScope(USERNAME);
+	private static final String GROUP_SCOPE = ContentVersion.groupScope(3L);
+
+	private RestFoldersAdminController controller;
+	private ContentVersionService contentVersionService;
+	private UserAdminService userAdminService;
+	private CoalescedReadService coalescedReadService;
+
+	@Before
+	public void setUp() {
+		contentVersionService = mock(ContentVersionService.class);
+		userAdminService = mock(UserAdminService.class);
+		coalescedReadService = mock(CoalescedReadService.class);
+
+		VersionedResponses versionedResponses = new VersionedResponses();
+		ReflectionTestUtils.setField(versionedResponses,
+				"contentVersionService", contentVersionService);
+		ReflectionTestUtils.setField(versionedResponses, "cacheManager",
+				new ConcurrentMapCacheManager());
+
+		controller = new RestFoldersAdminController();
+		ReflectionTestUtils.setField(controller, "userAdminService",
+				userAdminService);
+		ReflectionTestUtils.setField(controller, "coalescedReadService",
+				coalescedReadService);
+		ReflectionTestUtils.setField(controller, "versionedResponses",
+				versionedResponses);
+
+		UserDto user = new UserDto();
+		user.setId(1L);
+		user.setUsername(USERNAME);
+		when(userAdminService.obtenerUsuario(USERNAME)).thenReturn(user);
+		when(coalescedReadService.getRootFolder(1L)).thenReturn(
+				folder(10L, "root"));
+		when(coalescedReadService.getRootGroupFolder(3L)).thenReturn(
+				folder(30L, "group"));
+		when(contentVersionService.getVersion(USER_SCOPE)).thenReturn(
+				new ContentVersion("1-2", 1000000L));
+		when(contentVersionService.getVersion(GROUP_SCOPE)).thenReturn(
+				new ContentVersion("1-5", 1000000L));
+	}
+
+	@Test
+	public void testTagged() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		Map<String, Object> result = controller.loadFolders(USERNAME, null,
+				new MockHttpServletRequest(), response);
+
+		Assert.assertEquals(Boolean.TRUE, result.get("success"));
+		Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		Assert.assertEquals("\"1-2\"", response.getHeader("ETag"));
+		Assert.assertEquals("no-cache", response.getHeader("Cache-Control"));
+		Assert.assertNotNull(response.getHeader("Last-Modified"));
+	}
+
+	@Test
+	public void testNotModified() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-None-Match", "\"1-2\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		Assert.assertNull(controller.loadFolders(USERNAME, null, request,
+				response));
+
+		Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED,
+				response.getStatus());
+		Assert.assertEquals("\"1-2\"", response.getHeader("ETag"));
+		// answered without loading the user or its folders
+		verify(userAdminService, never()).obtenerUsuario(anyString());
+		verify(coalescedReadService, never()).getRootFolder(anyLong());
+	}
+
+	@Test
+	public void testModified() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-None-Match", "\"1-1\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		Assert.assertNotNull(controller.loadFolders(USERNAME, null, request,
+				response));
+
+		Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		Assert.assertEquals("\"1-2\"", response.getHeader("ETag"));
+	}
+
+	@Test
+	public void testNotModifiedSince() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("If-Modified-Since", 1000000L);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		Assert.assertNull(controller.loadFoldersByGroup("3", null, request,
+				response));
+
+		Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED,
+				response.getStatus());
+		verify(coalescedReadService, never()).getRootGroupFolder(anyLong());
+	}
+
+	@Test
+	public void testResponseKeptByVersion() {
+		controller.loadFoldersByGroup("3", null, new MockHttpServletRequest(),
+				new MockHttpServletResponse());
+		controller.loadFoldersByGroup("3", null, new MockHttpServletRequest(),
+				new MockHttpServletResponse());
+		verify(coalescedReadService, times(1)).getRootGroupFolder(3L);
+
+		when(contentVersionService.getVersion(GROUP_SCOPE)).thenReturn(
+				new ContentVersion("1-6", 2000000L));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.loadFoldersByGroup("3", null, new MockHttpServletRequest(),
+				response);
+		verify(coalescedReadService, times(2)).getRootGroupFolder(3L);
+		Assert.assertEquals("\"1-6\"", response.getHeader("ETag"));
+	}
+
+	@Test
+	public void testErrorNotTagged() {
+		when(userAdminService.obtenerUsuario(USERNAME)).thenThrow(
+				new RuntimeException("unavailable"));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		Map<String, Object> result = controller.loadFolders(USERNAME, null,
+				new MockHttpServletRequest(), response);
+
+		Assert.assertEquals(Boolean.FALSE, result.get("success"));
+		Assert.assertNull(response.getHeader("ETag"));
+	}
+
+	private FolderDto folder(Long id, String name) {
+		FolderDto folder = new FolderDto();
+		folder.setId(id);
+		folder.setName(name);
+		folder.setIsChannel(false);
+		return folder;
+	}
+
+}
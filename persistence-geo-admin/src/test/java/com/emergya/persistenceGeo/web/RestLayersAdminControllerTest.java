@@ -0,0 +1,117 @@
+/*
+ * RestLayersAdminControllerTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.web;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.emergya.persistenceGeo.dto.LayerSummary;
+import com.emergya.persistenceGeo.dto.UserDto;
+import com.emergya.persistenceGeo.service.CoalescedReadService;
+import com.emergya.persistenceGeo.service.UserAdminService;
+
+/**
+ * Test for the layer lists built from the cached layer summaries
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class RestLayersAdminControllerTest {
+
+	private RestLayersAdminController controller;
+	private LayerSummary cached;
+
+	@Before
+	public void setUp() {
+		UserAdminService userAdminService = mock(UserAdminService.class);
+		CoalescedReadService coalescedReadService = mock(CoalescedReadService.class);
+		controller = new RestLayersAdminController();
+		ReflectionTestUtils.setField(controller, "userAdminService",
+				userAdminService);
+		ReflectionTestUtils.setField(controller, "coalescedReadService",
+				coalescedReadService);
+
+		UserDto user = new UserDto();
+		user.setId(1L);
+		user.setAdmin(true);
+		when(userAdminService.getById(1L)).thenReturn(user);
+		when(userAdminService.obtenerUsuario("user1")).thenReturn(user);
+
+		cached = new LayerSummary();
+		cached.setId(5L);
+		cached.setEnabled(true);
+		cached.setHasData(true);
+		List<LayerSummary> summaries = Arrays.asList(cached);
+		when(coalescedReadService.getPublicLayerSummaries()).thenReturn(
+				summaries);
+		when(coalescedReadService.getLayerSummariesByUser(1L)).thenReturn(
+				summaries);
+	}
+
+	@Test
+	public void testPublicLayersDontChangeCache() {
+		LayerSummary layer = getLayer(controller.loadPublicLayers(1L));
+
+		Assert.assertFalse(layer.getEnabled());
+		Assert.assertEquals("rest/persistenceGeo/getLayerResource/5",
+				layer.getServer_resource());
+		Assert.assertTrue(cached.getEnabled());
+		Assert.assertNull(cached.getServer_resource());
+	}
+
+	@Test
+	public void testUserLayersDontChangeCache() {
+		LayerSummary layer = getLayer(controller.loadLayers("user1"));
+
+		Assert.assertNotSame(cached, layer);
+		Assert.assertEquals("rest/persistenceGeo/getLayerResource/5",
+				layer.getServer_resource());
+		Assert.assertNull(cached.getServer_resource());
+	}
+
+	@SuppressWarnings("unchecked")
+	private LayerSummary getLayer(Map<String, Object> result) {
+		Assert.assertEquals(true, result.get("success"));
+		List<LayerSummary> layers = (List<LayerSummary>) result
+				.get("data");
+		Assert.assertEquals(1, layers.size());
+		return layers.get(0);
+	}
+
+}
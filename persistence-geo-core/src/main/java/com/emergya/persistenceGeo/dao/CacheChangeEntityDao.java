@@ -0,0 +1,66 @@
+/*
+ * CacheChangeEntityDao.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import com.emergya.persistenceGeo.model.CacheChangeEntity;
+
+/**
+ * DAO for the cache changes published by the nodes of the cluster
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface CacheChangeEntityDao extends
+		GenericDAO<CacheChangeEntity, Long> {
+
+	/**
+	 * Find the changes published by other nodes since a date ordered by id
+	 * 
+	 * @param since
+	 * @param node
+	 *            node whose changes are excluded
+	 * 
+	 * @return changes found
+	 */
+	public List<CacheChangeEntity> findSince(Date since, String node);
+
+	/**
+	 * Delete the changes published before a date
+	 * 
+	 * @param date
+	 * 
+	 * @return number of changes deleted
+	 */
+	public int deleteBefore(Date date);
+
+}
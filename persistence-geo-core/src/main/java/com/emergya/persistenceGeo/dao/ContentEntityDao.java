@@ -0,0 +1,85 @@
+/*
+ * ContentEntityDao.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of Proyecto persistenceGeo
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao;
+
+import java.io.File;
+import java.io.OutputStream;
+
+import com.emergya.persistenceGeo.metaModel.AbstractContentEntity;
+import com.emergya.persistenceGeo.utils.ContentInfo;
+
+/**
+ * DAO for layer and resource contents. Data is streamed from and to the
+ * database without loading the content entities.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface ContentEntityDao {
+
+	/**
+	 * Get the content metadata without its data
+	 * 
+	 * @param contentId
+	 * 
+	 * @return content metadata or null if it doesn't exist
+	 */
+	public ContentInfo getContentInfo(Long contentId);
+
+	/**
+	 * Stream a range of the content data
+	 * 
+	 * @param contentId
+	 * @param offset
+	 *            first byte to write
+	 * @param length
+	 *            number of bytes to write or a negative value to write until
+	 *            the end
+	 * @param out
+	 *            where the data is written
+	 * 
+	 * @return false if the content doesn't exist or hasn't data
+	 */
+	public boolean writeData(Long contentId, long offset, long length,
+			OutputStream out);
+
+	/**
+	 * Stream a file into the content data, replacing the previous data
+	 * 
+	 * @param contentId
+	 *            content to update or null to create a new content
+	 * @param file
+	 *            new data
+	 * 
+	 * @return the content, without loading its data
+	 */
+	public AbstractContentEntity saveData(Long contentId, File file);
+
+}
@@ -0,0 +1,85 @@
+/*
+ * ContentVersionEntityDao.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import com.emergya.persistenceGeo.model.ContentVersionEntity;
+
+/**
+ * DAO for the versions of the folders and layers by scope
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface ContentVersionEntityDao extends
+		GenericDAO<ContentVersionEntity, Long> {
+
+	/**
+	 * Find the versions of some scopes. The scopes without any change
+	 * haven't got version.
+	 * 
+	 * @param scopes
+	 * 
+	 * @return versions found
+	 */
+	public List<ContentVersionEntity> findByScopes(Collection<String> scopes);
+
+	/**
+	 * Find the sum of the versions of every scope and the date of the last
+	 * change, so the changes of any scope are counted without a shared row
+	 * 
+	 * @return total version, without scope
+	 */
+	public ContentVersionEntity findTotal();
+
+	/**
+	 * Increment the version of a scope. The row stays locked until the
+	 * current transaction ends.
+	 * 
+	 * @param scope
+	 * @param date
+	 *            date of the change
+	 * 
+	 * @return false if the scope hasn't got a version yet
+	 */
+	public boolean increment(String scope, Date date);
+
+	/**
+	 * Create the version of a scope. It fails with a constraint violation if
+	 * the scope already has one.
+	 * 
+	 * @param scope
+	 */
+	public void create(String scope);
+
+}
@@ -29,6 +29,8 @@
  */
 package com.emergya.persistenceGeo.dao;
 
+import java.util.Map;
+
 import com.emergya.persistenceGeo.utils.BoundingBox;
 import com.emergya.persistenceGeo.utils.GeometryType;
 
@@ -95,4 +97,13 @@ public interface DBManagementDao {
     public BoundingBox getTableBoundingBoxGeoColumn(String geoColumnName, String tableName);
 
     public boolean tableExists(String ohiggins, String tableName);
+
+    /**
+     * Hit, miss and put counts of the second level and query caches, in
+     * total and by region. Empty if the statistics aren't enabled
+     * (<code>hibernate.generate_statistics</code>).
+     *
+     * @return counters by name
+     */
+    public Map<String, Object> getCacheStatistics();
 }
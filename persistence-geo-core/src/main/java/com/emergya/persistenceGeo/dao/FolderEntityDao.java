@@ -32,6 +32,7 @@ package com.emergya.persistenceGeo.dao;
 import java.util.List;
 
 import com.emergya.persistenceGeo.metaModel.AbstractFolderEntity;
+import com.emergya.persistenceGeo.utils.FolderTreeEntry;
 
 /**
  * DAO that represents the folder
@@ -198,4 +199,65 @@ public interface FolderEntityDao extends GenericDAO<AbstractFolderEntity, Long>
 	 * 			Devuelve la lista de todos los folder types que tenga el mismo type id y no tengan padre
 	 */
 	public List<AbstractFolderEntity> rootFoldersByType(Long typeId);
+
+	/**
+	 * Get all folders of the subtree rooted at <code>rootId</code> (root
+	 * included) with the number of layers of each folder. The subtree is
+	 * fetched with one query over the folder path index; if the root isn't
+	 * indexed yet, it's fetched with one recursive query on PostgreSQL or with
+	 * one query per tree level on other databases.
+	 * 
+	 * @param rootId
+	 * 
+	 * @return subtree entries ordered by name, or an empty list if the root
+	 *         is not found
+	 */
+	public List<FolderTreeEntry> getFolderSubtree(Long rootId);
+
+	/**
+	 * Get the direct children of a folder with the number of layers and
+	 * children of each one in a single query
+	 * 
+	 * @param parentId
+	 *            parent folder
+	 * @param isEnabled
+	 *            filter by enabled (children counts are filtered too). Can be
+	 *            null
+	 * @param first
+	 *            first result. Can be null
+	 * @param max
+	 *            max results. Can be null
+	 * 
+	 * @return children entries ordered by name
+	 */
+	public List<FolderTreeEntry> getChildren(Long parentId, Boolean isEnabled,
+			Integer first, Integer max);
+
+	/**
+	 * Get all descendants of a folder with one query over the folder path
+	 * index
+	 * 
+	 * @param folderId
+	 * 
+	 * @return descendant folders (the folder itself is not included) ordered
+	 *         by path, so parents are always before their children
+	 */
+	public List<AbstractFolderEntity> getDescendants(Long folderId);
+
+	/**
+	 * Get all ancestors of a folder with one query by primary key
+	 * 
+	 * @param folderId
+	 * 
+	 * @return ancestor folders from the root to the parent folder
+	 */
+	public List<AbstractFolderEntity> getAncestors(Long folderId);
+
+	/**
+	 * Recalculates the path of all folders. Use it to fill the index for
+	 * folders created before it existed or to repair it.
+	 * 
+	 * @return number of folders updated
+	 */
+	public int rebuildPaths();
 }
@@ -0,0 +1,74 @@
+/*
+ * FolderTreeBulkDao.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of Proyecto persistenceGeo
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao;
+
+import com.emergya.persistenceGeo.utils.RemovedSubtree;
+
+/**
+ * Set based operations over whole folder subtrees (folders, layers, layer
+ * properties and styles). Each operation runs a constant number of SQL
+ * statements by table whatever the size of the subtree.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface FolderTreeBulkDao {
+
+	/**
+	 * Copy a folder with all its descendants, layers, layer properties and
+	 * styles to an user. Layer data isn't read by the application: it's
+	 * copied by the database and, where the column holds a large object
+	 * reference, shared by the original and the copied layer.
+	 * 
+	 * @param rootId
+	 *            folder to copy
+	 * @param targetUserId
+	 *            owner of the copy
+	 * @param targetParentId
+	 *            parent folder of the copy, can be null
+	 * 
+	 * @return id of the copied root folder or null if <code>rootId</code>
+	 *         doesn't exists
+	 */
+	public Long copySubtree(Long rootId, Long targetUserId, Long targetParentId);
+
+	/**
+	 * Remove a folder with all its descendants, layers, layer properties and
+	 * styles. Large objects of the layer data are unlinked on PostgreSQL when
+	 * no other content references them.
+	 * 
+	 * @param rootId
+	 *            folder to remove
+	 * 
+	 * @return ids of the removed folders and layers
+	 */
+	public RemovedSubtree deleteSubtree(Long rootId);
+
+}
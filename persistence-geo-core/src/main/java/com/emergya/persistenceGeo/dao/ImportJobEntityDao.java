@@ -0,0 +1,154 @@
+/*
+ * ImportJobEntityDao.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import com.emergya.persistenceGeo.metaModel.AbstractImportJobEntity;
+
+/**
+ * DAO for the asynchronous import jobs
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface ImportJobEntityDao extends
+		GenericDAO<AbstractImportJobEntity, Long> {
+
+	/**
+	 * Find the jobs in any of the given status ordered by id
+	 * 
+	 * @param status
+	 * 
+	 * @return jobs found
+	 */
+	public List<AbstractImportJobEntity> findByStatus(String... status);
+
+	/**
+	 * Change the status of a job only if it's in the expected status. The
+	 * start date is set when the job starts running and the end date when it
+	 * finishes.
+	 * 
+	 * @param id
+	 * @param expectedStatus
+	 *            current status of the job
+	 * @param status
+	 *            new status
+	 * @param message
+	 *            new message or null to keep the current one
+	 * 
+	 * @return true if the job has been changed
+	 */
+	public boolean changeStatus(Long id, String expectedStatus, String status,
+			String message);
+
+	/**
+	 * Update the progress of a job
+	 * 
+	 * @param id
+	 * @param done
+	 *            units processed
+	 * @param total
+	 *            units to process or null if they aren't known
+	 */
+	public void updateProgress(Long id, Long done, Long total);
+
+	/**
+	 * Find the queued jobs a node can run: the ones it received and the ones
+	 * without node, ordered by id
+	 * 
+	 * @param node
+	 * 
+	 * @return jobs found
+	 */
+	public List<AbstractImportJobEntity> findQueued(String node);
+
+	/**
+	 * Start running a queued job in a node, only if it's still queued and the
+	 * node can run it. The start date and the heartbeat are set.
+	 * 
+	 * @param id
+	 * @param node
+	 * 
+	 * @return true if the node has taken the job
+	 */
+	public boolean claim(Long id, String node);
+
+	/**
+	 * Renew the heartbeat of the jobs running in a node
+	 * 
+	 * @param node
+	 * @param ids
+	 *            jobs running in the node
+	 * 
+	 * @return jobs renewed
+	 */
+	public int renewLeases(String node, Collection<Long> ids);
+
+	/**
+	 * Change the status of the running jobs of the given types whose
+	 * heartbeat hasn't been renewed since a date, because their node is down.
+	 * The node of the jobs is kept.
+	 * 
+	 * @param heartbeatBefore
+	 *            last heartbeat of a live job
+	 * @param status
+	 *            new status
+	 * @param message
+	 *            new message
+	 * @param types
+	 *            job types to change
+	 * 
+	 * @return jobs changed
+	 */
+	public int expireLeases(Date heartbeatBefore, String status,
+			String message, String... types);
+
+	/**
+	 * Ask the node running a job to cancel it
+	 * 
+	 * @param id
+	 * 
+	 * @return true if the job is running
+	 */
+	public boolean requestCancel(Long id);
+
+	/**
+	 * Find the jobs running in a node that have been cancelled
+	 * 
+	 * @param node
+	 * 
+	 * @return ids of the jobs
+	 */
+	public List<Long> findCancelRequested(String node);
+
+}
@@ -0,0 +1,57 @@
+/*
+ * LayerBatchDao.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of Proyecto persistenceGeo
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao;
+
+import java.util.Collection;
+
+import com.emergya.persistenceGeo.utils.LayerGraph;
+
+/**
+ * Loads the associations of a set of layers together instead of walking the
+ * lazy collections of each layer.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface LayerBatchDao {
+
+	/**
+	 * Load owner names, layer properties, styles, rules and rule properties
+	 * of the layers. It runs a fixed number of <code>IN</code> queries per
+	 * level whatever the number of layers, styles or rules.
+	 * 
+	 * @param layerIds
+	 *            layers to be loaded
+	 * 
+	 * @return associations of the layers
+	 */
+	public LayerGraph loadLayerGraph(Collection<Long> layerIds);
+
+}
@@ -31,6 +31,7 @@ package com.emergya.persistenceGeo.dao;
 
 import java.util.List;
 
+import com.emergya.persistenceGeo.dto.LayerSummary;
 import com.emergya.persistenceGeo.metaModel.AbstractLayerEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractUserEntity;
 
@@ -158,4 +159,37 @@ public interface LayerEntityDao extends GenericDAO<AbstractLayerEntity, Long> {
 	 * @return
 	 */
 	public List<AbstractLayerEntity> getUnassignedLayers();
+
+	/**
+	 * Get a layer summaries list by user
+	 * 
+	 * @param <code>id</code>
+	 * 
+	 * @return summaries of the layers owned by the user
+	 */
+	public List<LayerSummary> findSummariesByUserId(Long id);
+
+	/**
+	 * Get a layer summaries list by authority
+	 * 
+	 * @param <code>id</code>
+	 * 
+	 * @return summaries of the layers associated with the authority
+	 */
+	public List<LayerSummary> findSummariesByAuthorityId(Long id);
+
+	/**
+	 * Gets summaries of all the public layers.
+	 * @return
+	 */
+	public List<LayerSummary> getPublicLayerSummaries();
+
+	/**
+	 * Get the id of the layer content without loading the layer
+	 * 
+	 * @param layerId
+	 * 
+	 * @return content id or null if the layer hasn't data
+	 */
+	public Long getContentId(Long layerId);
 }
@@ -54,5 +54,14 @@ public interface ResourceEntityDao extends GenericDAO<AbstractResourceEntity, Lo
 	 * @param accessId
 	 */
 	public void deleteByAccessId(Long accessId);
+
+	/**
+	 * Get the id of the resource content without loading the resource
+	 * 
+	 * @param accessId
+	 * 
+	 * @return content id or null if the resource hasn't data
+	 */
+	public Long getContentIdByAccessId(Long accessId);
 	
 }
@@ -68,4 +68,11 @@ public class AbstractResourceEntityDaoHibernateImpl extends GenericHibernateDAOI
 	public void deleteByAccessId(Long accessId) {
 		makePersistent(findByAccessId(accessId));
 	}
+	@Override
+	public Long getContentIdByAccessId(Long accessId) {
+		return (Long) getSession()
+				.createQuery("select r.content.id from " + persistentClass.getName()
+						+ " r where r." + ACCESS_ID + " = :accessId")
+				.setParameter("accessId", accessId).setMaxResults(1).uniqueResult();
+	}
 }
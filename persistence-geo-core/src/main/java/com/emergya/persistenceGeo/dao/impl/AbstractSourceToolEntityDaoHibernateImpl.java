@@ -25,6 +25,8 @@
  */
 package com.emergya.persistenceGeo.dao.impl;
 
+import java.util.List;
+
 import javax.annotation.Resource;
 
 import org.hibernate.SessionFactory;
@@ -53,4 +55,9 @@ public class AbstractSourceToolEntityDaoHibernateImpl extends GenericHibernateDA
         super.init(sessionFactory);
 		this.persistentClass = (Class<AbstractSourceToolEntity>) instancer.createSourceToolEntity().getClass();
     }
+
+	@Override
+	public List<AbstractSourceToolEntity> findAll() {
+		return findByCriteriaCached();
+	}
 }
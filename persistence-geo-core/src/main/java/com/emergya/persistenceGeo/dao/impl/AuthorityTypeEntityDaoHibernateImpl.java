@@ -29,6 +29,8 @@
  */
 package com.emergya.persistenceGeo.dao.impl;
 
+import java.util.List;
+
 import javax.annotation.Resource;
 
 import org.hibernate.SessionFactory;
@@ -59,6 +61,11 @@ public class AuthorityTypeEntityDaoHibernateImpl extends
 		this.persistentClass = (Class<AbstractAuthorityTypeEntity>) instancer.createAuthorityTypeEntity().getClass();
     }
 
+	@Override
+	public List<AbstractAuthorityTypeEntity> findAll() {
+		return findByCriteriaCached();
+	}
+
 	/**
 	 * Save an authority type in the system
 	 * 
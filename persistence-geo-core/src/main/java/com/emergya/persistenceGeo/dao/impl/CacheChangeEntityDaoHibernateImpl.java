@@ -0,0 +1,70 @@
+/*
+ * CacheChangeEntityDaoHibernateImpl.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao.impl;
+
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.springframework.stereotype.Repository;
+
+import com.emergya.persistenceGeo.dao.CacheChangeEntityDao;
+import com.emergya.persistenceGeo.model.CacheChangeEntity;
+
+/**
+ * Cache change DAO Hibernate Implementation
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@SuppressWarnings("unchecked")
+@Repository("cacheChangeEntityDao")
+public class CacheChangeEntityDaoHibernateImpl extends
+		GenericHibernateDAOImpl<CacheChangeEntity, Long> implements
+		CacheChangeEntityDao {
+
+	@Override
+	public List<CacheChangeEntity> findSince(Date since, String node) {
+		return getSession().createCriteria(persistentClass)
+				.add(Restrictions.ge("createDate", since))
+				.add(Restrictions.ne("node", node))
+				.addOrder(Order.asc("id")).list();
+	}
+
+	@Override
+	public int deleteBefore(Date date) {
+		return getSession()
+				.createQuery("delete from " + persistentClass.getName()
+								+ " where createDate < :date")
+				.setTimestamp("date", date).executeUpdate();
+	}
+
+}
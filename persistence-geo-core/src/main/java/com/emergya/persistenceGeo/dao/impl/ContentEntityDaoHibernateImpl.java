@@ -0,0 +1,252 @@
+/*
+ * ContentEntityDaoHibernateImpl.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of Proyecto persistenceGeo
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+import javax.annotation.Resource;
+
+import org.apache.commons.io.IOUtils;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.engine.jdbc.LobCreator;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.hibernate3.support.HibernateDaoSupport;
+import org.springframework.stereotype.Repository;
+
+import com.emergya.persistenceGeo.dao.ContentEntityDao;
+import com.emergya.persistenceGeo.metaModel.AbstractContentEntity;
+import com.emergya.persistenceGeo.metaModel.Instancer;
+import com.emergya.persistenceGeo.utils.ContentInfo;
+
+/**
+ * Hibernate implementation of {@link ContentEntityDao}. Data is read and
+ * written with JDBC streams on the blob column of the content table. On
+ * PostgreSQL the column holds a large object reference: replaced large
+ * objects are unlinked unless another content references them.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@Repository("contentEntityDao")
+public class ContentEntityDaoHibernateImpl extends HibernateDaoSupport
+		implements ContentEntityDao {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	@Resource
+	private Instancer instancer;
+
+	@Autowired
+	public void init(SessionFactory sessionFactory) {
+		setSessionFactory(sessionFactory);
+	}
+
+	/**
+	 * @return content class referenced by the layers of the
+	 *         {@link Instancer}
+	 */
+	private Class<?> getContentClass() {
+		return ((AbstractEntityPersister) getSessionFactory().getClassMetadata(
+				instancer.createLayer().getClass())).getPropertyType("content")
+				.getReturnedClass();
+	}
+
+	public ContentInfo getContentInfo(Long contentId) {
+		if (contentId == null) {
+			return null;
+		}
+		Object[] row = (Object[]) getSession()
+				.createQuery(
+						"select c.id, c.size, c.updateDate from "
+								+ getContentClass().getName()
+								+ " c where c.id = :id")
+				.setParameter("id", contentId).uniqueResult();
+		return row != null ? new ContentInfo((Long) row[0], (Long) row[1],
+				(Date) row[2]) : null;
+	}
+
+	public boolean writeData(final Long contentId, final long offset,
+			final long length, final OutputStream out) {
+		if (contentId == null) {
+			return false;
+		}
+		AbstractEntityPersister persister = (AbstractEntityPersister) getSessionFactory()
+				.getClassMetadata(getContentClass());
+		final String sql = "SELECT "
+				+ persister.getPropertyColumnNames("data")[0] + " FROM "
+				+ persister.getTableName() + " WHERE "
+				+ persister.getIdentifierColumnNames()[0] + " = ?";
+		final boolean[] found = new boolean[] { false };
+		getSession().doWork(new Work() {
+			public void execute(Connection connection) throws SQLException {
+				PreparedStatement statement = connection.prepareStatement(sql);
+				try {
+					statement.setLong(1, contentId);
+					ResultSet rs = statement.executeQuery();
+					if (rs.next()) {
+						Blob blob = rs.getBlob(1);
+						if (blob != null) {
+							InputStream in = blob.getBinaryStream();
+							try {
+								copyRange(in, offset, length, out);
+								found[0] = true;
+							} finally {
+								IOUtils.closeQuietly(in);
+							}
+						}
+					}
+					rs.close();
+				} catch (IOException e) {
+					throw new SQLException("Error writing data of content "
+							+ contentId, e);
+				} finally {
+					statement.close();
+				}
+			}
+		});
+		return found[0];
+	}
+
+	public AbstractContentEntity saveData(Long contentId, final File file) {
+		Class<?> contentClass = getContentClass();
+		AbstractEntityPersister persister = (AbstractEntityPersister) getSessionFactory()
+				.getClassMetadata(contentClass);
+		String table = persister.getTableName();
+		String id = persister.getIdentifierColumnNames()[0];
+		String data = persister.getPropertyColumnNames("data")[0];
+		String size = persister.getPropertyColumnNames("size")[0];
+		String date = persister.getPropertyColumnNames("updateDate")[0];
+		final boolean postgres = ((SessionFactoryImplementor) getSessionFactory())
+				.getDialect() instanceof PostgreSQLDialect;
+
+		final Long targetId;
+		final String sql;
+		if (contentId == null) {
+			targetId = ((Number) persister.getIdentifierGenerator().generate(
+					(SessionImplementor) getSession(), null)).longValue();
+			sql = "INSERT INTO " + table + " (" + data + ", " + size + ", "
+					+ date + ", " + id + ") VALUES (?, ?, ?, ?)";
+		} else {
+			targetId = contentId;
+			if (postgres) {
+				getSession()
+						.createSQLQuery(
+								"SELECT lo_unlink(c." + data + ") FROM " + table
+										+ " c WHERE c." + id + " = ? AND c."
+										+ data + " IS NOT NULL AND NOT EXISTS ("
+										+ "SELECT 1 FROM " + table + " o WHERE o."
+										+ data + " = c." + data + " AND o." + id
+										+ " <> c." + id + ")")
+						.setParameter(0, contentId).list();
+			}
+			sql = "UPDATE " + table + " SET " + data + " = ?, " + size
+					+ " = ?, " + date + " = ? WHERE " + id + " = ?";
+		}
+
+		final LobCreator lobCreator = Hibernate.getLobCreator(getSession());
+		getSession().doWork(new Work() {
+			public void execute(Connection connection) throws SQLException {
+				PreparedStatement statement = connection.prepareStatement(sql);
+				InputStream in = null;
+				try {
+					long length = file.length();
+					in = new FileInputStream(file);
+					if (postgres) {
+						// the driver writes a new large object from the stream
+						statement.setBlob(1, lobCreator.createBlob(in, length));
+					} else {
+						statement.setBinaryStream(1, in, (int) length);
+					}
+					statement.setLong(2, length);
+					statement.setTimestamp(3, new Timestamp(System
+							.currentTimeMillis()));
+					statement.setLong(4, targetId);
+					statement.executeUpdate();
+				} catch (IOException e) {
+					throw new SQLException("Error reading " + file, e);
+				} finally {
+					IOUtils.closeQuietly(in);
+					statement.close();
+				}
+			}
+		});
+		return (AbstractContentEntity) getSession().load(contentClass, targetId);
+	}
+
+	private void copyRange(InputStream in, long offset, long length,
+			OutputStream out) throws IOException {
+		long skipped = 0;
+		while (skipped < offset) {
+			long count = in.skip(offset - skipped);
+			if (count <= 0) {
+				// skip isn't supported by some blob streams
+				if (in.read() < 0) {
+					throw new IOException("Offset " + offset
+							+ " is beyond the end of the data");
+				}
+				count = 1;
+			}
+			skipped += count;
+		}
+		if (length < 0) {
+			IOUtils.copyLarge(in, out);
+			return;
+		}
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long remaining = length;
+		while (remaining > 0) {
+			int read = in.read(buffer, 0,
+					(int) Math.min(buffer.length, remaining));
+			if (read < 0) {
+				break;
+			}
+			out.write(buffer, 0, read);
+			remaining -= read;
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * ContentVersionEntityDaoHibernateImpl.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao.impl;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.transform.Transformers;
+import org.springframework.stereotype.Repository;
+
+import com.emergya.persistenceGeo.dao.ContentVersionEntityDao;
+import com.emergya.persistenceGeo.model.ContentVersionEntity;
+
+/**
+ * Content version DAO Hibernate Implementation
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@SuppressWarnings("unchecked")
+@Repository("contentVersionEntityDao")
+public class ContentVersionEntityDaoHibernateImpl extends
+		GenericHibernateDAOImpl<ContentVersionEntity, Long> implements
+		ContentVersionEntityDao {
+
+	@Override
+	public List<ContentVersionEntity> findByScopes(Collection<String> scopes) {
+		// projected, so the versions incremented by this session are read
+		return getSession()
+				.createCriteria(persistentClass)
+				.add(Restrictions.in("scope", scopes))
+				.setProjection(
+						Projections.projectionList()
+								.add(Projections.property("scope"), "scope")
+								.add(Projections.property("version"), "version")
+								.add(Projections.property("updateDate"),
+										"updateDate"))
+				.setResultTransformer(
+						Transformers.aliasToBean(persistentClass)).list();
+	}
+
+	@Override
+	public ContentVersionEntity findTotal() {
+		return (ContentVersionEntity) getSession()
+				.createCriteria(persistentClass)
+				.setProjection(
+						Projections.projectionList()
+								.add(Projections.sum("version"), "version")
+								.add(Projections.max("updateDate"),
+										"updateDate"))
+				.setResultTransformer(
+						Transformers.aliasToBean(persistentClass))
+				.uniqueResult();
+	}
+
+	@Override
+	public boolean increment(String scope, Date date) {
+		return getSession()
+				.createQuery("update " + persistentClass.getName()
+								+ " set version = version + 1, updateDate = :date"
+								+ " where scope = :scope")
+				.setTimestamp("date", date).setString("scope", scope)
+				.executeUpdate() > 0;
+	}
+
+	@Override
+	public void create(String scope) {
+		ContentVersionEntity entity = new ContentVersionEntity();
+		entity.setScope(scope);
+		entity.setVersion(0L);
+		getSession().save(entity);
+	}
+
+}
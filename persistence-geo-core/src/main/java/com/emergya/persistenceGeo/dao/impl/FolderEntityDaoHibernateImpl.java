@@ -29,16 +29,28 @@
  */
 package com.emergya.persistenceGeo.dao.impl;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Resource;
 
 import org.hibernate.Criteria;
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.Query;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Disjunction;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -47,6 +59,7 @@ import com.emergya.persistenceGeo.dao.FolderTypeEntityDao;
 import com.emergya.persistenceGeo.metaModel.AbstractFolderEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractFolderTypeEntity;
 import com.emergya.persistenceGeo.metaModel.Instancer;
+import com.emergya.persistenceGeo.utils.FolderTreeEntry;
 
 /**
  * Folder DAO Hibernate Implementation
@@ -84,6 +97,7 @@ public class FolderEntityDaoHibernateImpl extends
 		AbstractFolderEntity entity = instancer.createFolder();
 		entity.setName(nameFolder);
 		getHibernateTemplate().save(entity);
+		updatePath(entity);
 		return entity;
 	}
 
@@ -157,6 +171,7 @@ public class FolderEntityDaoHibernateImpl extends
 
 	private static String ZONE = "zone";
 	private static String PARENT = "parent";
+	private static String PATH_SEPARATOR = "/";
 
 	/**
 	 * Get all channel folders filtered
@@ -411,4 +426,392 @@ public class FolderEntityDaoHibernateImpl extends
     	return folderList;
 	}
 
+	/**
+	 * Recursive subtree query with the layer count of each folder. Params:
+	 * folder table, folder id column, folder parent column, folder name
+	 * column, layer table, layer id column and layer folder column
+	 */
+	private static final String SUBTREE_SQL = "WITH RECURSIVE subtree(id) AS ("
+			+ "SELECT %2$s FROM %1$s WHERE %2$s = :rootId "
+			+ "UNION SELECT c.%2$s FROM %1$s c JOIN subtree s ON c.%3$s = s.id) "
+			+ "SELECT {f.*}, (SELECT COUNT(l.%6$s) FROM %5$s l WHERE l.%7$s = f.%2$s) AS layer_count "
+			+ "FROM %1$s f JOIN subtree s ON f.%2$s = s.id ORDER BY f.%4$s";
+
+	/**
+	 * Get all folders of the subtree rooted at <code>rootId</code> (root
+	 * included) with the number of layers of each folder. The subtree is
+	 * fetched with one query over the folder path index; if the root isn't
+	 * indexed yet, it's fetched with one recursive query on PostgreSQL or with
+	 * one query per tree level on other databases.
+	 * 
+	 * @param rootId
+	 * 
+	 * @return subtree entries ordered by name, or an empty list if the root
+	 *         is not found
+	 */
+	public List<FolderTreeEntry> getFolderSubtree(Long rootId) {
+		if (rootId == null) {
+			return new LinkedList<FolderTreeEntry>();
+		}
+		String rootPath = getPath(rootId);
+		SessionFactoryImplementor sfi = (SessionFactoryImplementor) getSessionFactory();
+		if (rootPath != null) {
+			return getFolderSubtreeByPath(rootPath);
+		} else if (sfi.getDialect() instanceof PostgreSQLDialect) {
+			return getFolderSubtreeRecursive(rootId);
+		} else {
+			return getFolderSubtreeByLevels(rootId);
+		}
+	}
+
+	/**
+	 * Get the direct children of a folder with the number of layers and
+	 * children of each one in a single query. sql/folderChildren.sql creates
+	 * the indexes it needs
+	 * 
+	 * @param parentId
+	 *            parent folder
+	 * @param isEnabled
+	 *            filter by enabled (children counts are filtered too). Can be
+	 *            null
+	 * @param first
+	 *            first result. Can be null
+	 * @param max
+	 *            max results. Can be null
+	 * 
+	 * @return children entries ordered by name
+	 */
+	public List<FolderTreeEntry> getChildren(Long parentId, Boolean isEnabled,
+			Integer first, Integer max) {
+		String folderEntity = persistentClass.getName();
+		String hql = "select f, (select count(l) from "
+				+ instancer.createLayer().getClass().getName()
+				+ " l where l.folder = f), (select count(c) from "
+				+ folderEntity + " c where c.parent = f"
+				+ getEnabledCondition("c", isEnabled) + ") from "
+				+ folderEntity + " f where f.parent.id = :parentId"
+				+ getEnabledCondition("f", isEnabled) + " order by f.name";
+		Query query = getSession().createQuery(hql).setParameter("parentId",
+				parentId);
+		if (isEnabled != null) {
+			query.setParameter("enabled", isEnabled);
+		}
+		if (first != null) {
+			query.setFirstResult(first);
+		}
+		if (max != null) {
+			query.setMaxResults(max);
+		}
+
+		List<FolderTreeEntry> children = new LinkedList<FolderTreeEntry>();
+		for (Object[] row : (List<Object[]>) query.list()) {
+			children.add(new FolderTreeEntry((AbstractFolderEntity) row[0],
+					(Number) row[1], (Number) row[2]));
+		}
+		return children;
+	}
+
+	/**
+	 * Same filter as {@link #findByZone(Long, Long, Boolean)} for enabled
+	 */
+	private String getEnabledCondition(String alias, Boolean isEnabled) {
+		if (isEnabled == null) {
+			return "";
+		} else if (isEnabled) {
+			return " and " + alias + ".enabled = :enabled";
+		} else {
+			return " and (" + alias + ".enabled is null or " + alias
+					+ ".enabled = :enabled)";
+		}
+	}
+
+	private List<FolderTreeEntry> getFolderSubtreeByPath(String rootPath) {
+		String hql = "select f, (select count(l) from "
+				+ instancer.createLayer().getClass().getName()
+				+ " l where l.folder = f) from " + persistentClass.getName()
+				+ " f where f.path like :prefix order by f.name";
+		List<Object[]> rows = getSession().createQuery(hql)
+				.setParameter("prefix", rootPath + "%").list();
+		List<FolderTreeEntry> subtree = new LinkedList<FolderTreeEntry>();
+		for (Object[] row : rows) {
+			subtree.add(new FolderTreeEntry((AbstractFolderEntity) row[0],
+					(Number) row[1]));
+		}
+		return subtree;
+	}
+
+	private List<FolderTreeEntry> getFolderSubtreeRecursive(Long rootId) {
+		Class<?> layerClass = instancer.createLayer().getClass();
+		AbstractEntityPersister folderPersister = (AbstractEntityPersister) getSessionFactory()
+				.getClassMetadata(persistentClass);
+		AbstractEntityPersister layerPersister = (AbstractEntityPersister) getSessionFactory()
+				.getClassMetadata(layerClass);
+		String sql = String.format(SUBTREE_SQL,
+				folderPersister.getTableName(),
+				folderPersister.getIdentifierColumnNames()[0],
+				folderPersister.getPropertyColumnNames(PARENT)[0],
+				folderPersister.getPropertyColumnNames("name")[0],
+				layerPersister.getTableName(),
+				layerPersister.getIdentifierColumnNames()[0],
+				layerPersister.getPropertyColumnNames("folder")[0]);
+
+		List<Object[]> rows = getSession().createSQLQuery(sql)
+				.addEntity("f", persistentClass)
+				.addScalar("layer_count", Hibernate.LONG)
+				.addSynchronizedEntityClass(layerClass)
+				.setParameter("rootId", rootId).list();
+
+		List<FolderTreeEntry> subtree = new LinkedList<FolderTreeEntry>();
+		for (Object[] row : rows) {
+			subtree.add(new FolderTreeEntry((AbstractFolderEntity) row[0],
+					(Number) row[1]));
+		}
+		return subtree;
+	}
+
+	private List<FolderTreeEntry> getFolderSubtreeByLevels(Long rootId) {
+		String hql = "select f, (select count(l) from "
+				+ instancer.createLayer().getClass().getName()
+				+ " l where l.folder = f) from " + persistentClass.getName()
+				+ " f where ";
+		List<FolderTreeEntry> subtree = new LinkedList<FolderTreeEntry>();
+		Set<Long> visited = new HashSet<Long>();
+
+		List<Object[]> rows = getSession().createQuery(hql + "f.id = :rootId")
+				.setParameter("rootId", rootId).list();
+		while (!rows.isEmpty()) {
+			List<Long> levelIds = new LinkedList<Long>();
+			for (Object[] row : rows) {
+				FolderTreeEntry entry = new FolderTreeEntry(
+						(AbstractFolderEntity) row[0], (Number) row[1]);
+				// protects against cycles in corrupted trees
+				if (visited.add(entry.getId())) {
+					subtree.add(entry);
+					levelIds.add(entry.getId());
+				}
+			}
+			if (levelIds.isEmpty()) {
+				break;
+			}
+			rows = getSession()
+					.createQuery(hql + "f.parent.id in (:ids) order by f.name")
+					.setParameterList("ids", levelIds).list();
+		}
+		return subtree;
+	}
+
+	/**
+	 * Saves the folder and updates its path (and the paths of its
+	 * descendants if it has been moved)
+	 */
+	@Override
+	public AbstractFolderEntity makePersistent(AbstractFolderEntity entity) {
+		AbstractFolderEntity folder = super.makePersistent(entity);
+		updatePath(folder);
+		return folder;
+	}
+
+	/**
+	 * Get all descendants of a folder with one query over the folder path
+	 * index
+	 * 
+	 * @param folderId
+	 * 
+	 * @return descendant folders (the folder itself is not included) ordered
+	 *         by path, so parents are always before their children
+	 */
+	public List<AbstractFolderEntity> getDescendants(Long folderId) {
+		String path = getPath(folderId);
+		if (path == null) {
+			return new LinkedList<AbstractFolderEntity>();
+		}
+		return getSession()
+				.createQuery(
+						"from " + persistentClass.getName()
+								+ " f where f.path like :prefix"
+								+ " and f.id <> :id order by f.path")
+				.setParameter("prefix", path + "%")
+				.setParameter("id", folderId).list();
+	}
+
+	/**
+	 * Get all ancestors of a folder with one query by primary key
+	 * 
+	 * @param folderId
+	 * 
+	 * @return ancestor folders from the root to the parent folder
+	 */
+	public List<AbstractFolderEntity> getAncestors(Long folderId) {
+		List<Long> ids = pathToIds(getPath(folderId));
+		ids.remove(folderId);
+		if (ids.isEmpty()) {
+			return new LinkedList<AbstractFolderEntity>();
+		}
+		return getSession()
+				.createQuery(
+						"from " + persistentClass.getName()
+								+ " f where f.id in (:ids)"
+								+ " order by length(f.path)")
+				.setParameterList("ids", ids).list();
+	}
+
+	/**
+	 * Recalculates the path of all folders. Use it to fill the index for
+	 * folders created before it existed or to repair it.
+	 * 
+	 * @return number of folders updated
+	 */
+	public int rebuildPaths() {
+		List<Object[]> rows = getSession().createQuery(
+				"select f.id, f.parent.id, f.path from "
+						+ persistentClass.getName() + " f").list();
+
+		Map<Long, Long> parents = new HashMap<Long, Long>();
+		Map<Long, String> oldPaths = new HashMap<Long, String>();
+		for (Object[] row : rows) {
+			parents.put((Long) row[0], (Long) row[1]);
+			oldPaths.put((Long) row[0], (String) row[2]);
+		}
+
+		Map<Long, String> paths = new HashMap<Long, String>();
+		for (Long id : parents.keySet()) {
+			buildPath(id, parents, paths, new HashSet<Long>());
+		}
+
+		int updated = 0;
+		Query update = getSession().createQuery(
+				"update " + persistentClass.getName()
+						+ " set path = :path where id = :id");
+		for (Map.Entry<Long, String> entry : paths.entrySet()) {
+			if (!entry.getValue().equals(oldPaths.get(entry.getKey()))) {
+				updated += update.setParameter("path", entry.getValue())
+						.setParameter("id", entry.getKey()).executeUpdate();
+			}
+		}
+		if (updated > 0) {
+			syncSessionPaths(paths, null, null);
+		}
+		return updated;
+	}
+
+	private String buildPath(Long id, Map<Long, Long> parents,
+			Map<Long, String> paths, Set<Long> visiting) {
+		String path = paths.get(id);
+		if (path == null) {
+			Long parentId = parents.get(id);
+			String parentPath = PATH_SEPARATOR;
+			// a cycle or a missing parent makes the folder a root
+			if (parentId != null && parents.containsKey(parentId)
+					&& visiting.add(id)) {
+				parentPath = buildPath(parentId, parents, paths, visiting);
+			}
+			if (!paths.containsKey(id)) {
+				paths.put(id, parentPath + id + PATH_SEPARATOR);
+			}
+			path = paths.get(id);
+		}
+		return path;
+	}
+
+	private void updatePath(AbstractFolderEntity folder) {
+		if (folder == null || folder.getId() == null) {
+			return;
+		}
+		String parentPath = PATH_SEPARATOR;
+		if (folder.getParent() != null && folder.getParent().getId() != null) {
+			String path = folder.getParent().getPath();
+			if (path == null) {
+				// parent not indexed yet
+				updatePath(folder.getParent());
+				path = folder.getParent().getPath();
+			}
+			parentPath = path;
+		}
+		String oldPath = folder.getPath();
+		String newPath = parentPath + folder.getId() + PATH_SEPARATOR;
+		if (newPath.equals(oldPath)) {
+			return;
+		}
+		if (oldPath != null && parentPath.startsWith(oldPath)) {
+			throw new IllegalArgumentException("Folder " + folder.getId()
+					+ " can't be moved inside itself");
+		}
+
+		folder.setPath(newPath);
+		if (oldPath != null) {
+			// moved: rewrite the path prefix of the whole subtree
+			int moved = getSession()
+					.createQuery(
+							"update " + persistentClass.getName()
+									+ " set path = concat(:newPath,"
+									+ " substring(path, :from))"
+									+ " where path like :prefix and id <> :id")
+					.setParameter("newPath", newPath)
+					.setParameter("from", oldPath.length() + 1)
+					.setParameter("prefix", oldPath + "%")
+					.setParameter("id", folder.getId()).executeUpdate();
+			if (moved > 0) {
+				syncSessionPaths(null, oldPath, newPath);
+			}
+		}
+	}
+
+	/**
+	 * Bulk updates don't change the folders already loaded in the session, so
+	 * their paths are changed in memory too to avoid flushing stale values
+	 * 
+	 * @param paths
+	 *            new path by folder id
+	 * @param oldPrefix
+	 *            if <code>paths</code> is null, path prefix to replace
+	 * @param newPrefix
+	 *            replacement for <code>oldPrefix</code>
+	 */
+	private void syncSessionPaths(Map<Long, String> paths, String oldPrefix,
+			String newPrefix) {
+		Session session = getSession();
+		List<Object> keys = new LinkedList<Object>(session.getStatistics()
+				.getEntityKeys());
+		for (Object key : keys) {
+			EntityKey entityKey = (EntityKey) key;
+			if (persistentClass.getName().equals(entityKey.getEntityName())) {
+				AbstractFolderEntity folder = (AbstractFolderEntity) session
+						.get(persistentClass, entityKey.getIdentifier());
+				String path = folder.getPath();
+				if (paths != null) {
+					if (paths.containsKey(folder.getId())) {
+						folder.setPath(paths.get(folder.getId()));
+					}
+				} else if (path != null && !path.equals(newPrefix)
+						&& path.startsWith(oldPrefix)) {
+					folder.setPath(newPrefix
+							+ path.substring(oldPrefix.length()));
+				}
+			}
+		}
+	}
+
+	private String getPath(Long folderId) {
+		if (folderId == null) {
+			return null;
+		}
+		return (String) getSession()
+				.createQuery(
+						"select f.path from " + persistentClass.getName()
+								+ " f where f.id = :id")
+				.setParameter("id", folderId).uniqueResult();
+	}
+
+	private List<Long> pathToIds(String path) {
+		List<Long> ids = new LinkedList<Long>();
+		if (path != null) {
+			for (String id : path.split(PATH_SEPARATOR)) {
+				if (id.length() > 0) {
+					ids.add(Long.valueOf(id));
+				}
+			}
+		}
+		return ids;
+	}
+
 }
@@ -0,0 +1,746 @@
+/*
+ * FolderTreeBulkDaoHibernateImpl.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of Proyecto persistenceGeo
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao.impl;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.hibernate3.support.HibernateDaoSupport;
+import org.springframework.stereotype.Repository;
+
+import com.emergya.persistenceGeo.dao.FolderEntityDao;
+import com.emergya.persistenceGeo.dao.FolderTreeBulkDao;
+import com.emergya.persistenceGeo.metaModel.Instancer;
+import com.emergya.persistenceGeo.model.CopyMapEntity;
+import com.emergya.persistenceGeo.utils.RemovedSubtree;
+
+/**
+ * Hibernate implementation of {@link FolderTreeBulkDao}. Tables and columns
+ * are resolved from the hibernate mappings of the entities returned by the
+ * {@link Instancer}. Rows are selected with nested <code>IN</code> queries
+ * over the folder path index and removed with <code>DELETE</code> statements
+ * over the same selections. Copies write the old and new ids of each table to
+ * the {@link CopyMapEntity} work table with a JDBC batch and copy the table
+ * with one <code>INSERT ... SELECT</code> joining it.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@SuppressWarnings("unchecked")
+@Repository("folderTreeBulkDao")
+public class FolderTreeBulkDaoHibernateImpl extends HibernateDaoSupport
+		implements FolderTreeBulkDao {
+
+	private static final String PATH_SEPARATOR = "/";
+	private static final String NULL = "NULL";
+	/** Alias of the copied table and of its work rows */
+	private static final String SOURCE = "s.";
+	private static final String MAPPED = "m";
+	/** Max ids in a <code>IN</code> list */
+	private static final int MAX_IN_IDS = 500;
+
+	@Resource
+	private Instancer instancer;
+
+	@Resource
+	private FolderEntityDao folderDao;
+
+	@Autowired
+	public void init(SessionFactory sessionFactory) {
+		setSessionFactory(sessionFactory);
+	}
+
+	public Long copySubtree(Long rootId, Long targetUserId, Long targetParentId) {
+		// copies are done in database: pending changes must be there
+		getSession().flush();
+
+		String rootPath = getIndexedPath(rootId);
+		if (rootPath == null) {
+			return null;
+		}
+		String targetPath = PATH_SEPARATOR;
+		if (targetParentId != null) {
+			targetPath = getIndexedPath(targetParentId);
+			if (targetPath == null) {
+				throw new IllegalArgumentException("Folder " + targetParentId
+						+ " not found");
+			}
+		}
+		List<IdMap> maps = new LinkedList<IdMap>();
+
+		// Folders (sorted by path: parents are mapped before children)
+		AbstractEntityPersister folders = getPersister(instancer
+				.createFolder().getClass());
+		String folderId = folders.getIdentifierColumnNames()[0];
+		String folderParent = getColumn(folders, "parent");
+		String folderPath = getColumn(folders, "path");
+		String folderSelect = getFolderSelect();
+		String prefix = rootPath + "%";
+
+		List<Object[]> rows = getSession()
+				.createSQLQuery(
+						"SELECT " + folderId + ", " + folderParent + " FROM "
+								+ folders.getTableName() + " WHERE "
+								+ folderPath + " LIKE ? ORDER BY "
+								+ folderPath).setParameter(0, prefix).list();
+		IdMap folderIds = createIdMap(folders, maps);
+		for (Object[] row : rows) {
+			Long oldId = toLong(row[0]);
+			Long newParent = targetParentId;
+			String parentPath = targetPath;
+			if (!oldId.equals(rootId)) {
+				newParent = folderIds.get(toLong(row[1]));
+				parentPath = folderIds.getPath(toLong(row[1]));
+			}
+			Long newId = generateId(folders);
+			folderIds.put(oldId, newId, newParent, parentPath + newId
+					+ PATH_SEPARATOR);
+		}
+		Map<String, String> overrides = new LinkedHashMap<String, String>();
+		overrides.put(folderParent, folderIds.getRefColumn());
+		overrides.put(getColumn(folders, "user"), toSql(targetUserId));
+		overrides.put(folderPath, folderIds.getPathColumn());
+		overrides.put(getColumn(folders, "authority"), NULL);
+		folderIds.copy(overrides, "");
+
+		// Layers and its contents
+		Class<?> layerClass = instancer.createLayer().getClass();
+		AbstractEntityPersister layers = getPersister(layerClass);
+		String layerFolder = getColumn(layers, "folder");
+		String layerContent = getColumn(layers, "content");
+		String layerSelect = getLayerSelect();
+		AbstractEntityPersister contents = getContentPersister(layers);
+
+		rows = getSession()
+				.createSQLQuery(
+						"SELECT " + layers.getIdentifierColumnNames()[0] + ", "
+								+ layerContent + " FROM "
+								+ layers.getTableName() + " WHERE "
+								+ layerFolder + " IN (" + folderSelect + ")")
+				.setParameter(0, prefix).list();
+		IdMap layerIds = createIdMap(layers, maps);
+		IdMap contentIds = createIdMap(contents, maps);
+		for (Object[] row : rows) {
+			// each layer owns its content row
+			Long newContent = null;
+			if (row[1] != null) {
+				newContent = generateId(contents);
+				contentIds.put(toLong(row[1]), newContent, null, null);
+			}
+			layerIds.put(toLong(row[0]), generateId(layers), newContent, null);
+		}
+		// on PostgreSQL the copies share the large object of the original,
+		// it's unlinked with the last content referencing it
+		contentIds.copy(new LinkedHashMap<String, String>(), "");
+		overrides = new LinkedHashMap<String, String>();
+		overrides.put(layerFolder, "f." + folderIds.newId);
+		overrides.put(getColumn(layers, "user"), toSql(targetUserId));
+		overrides.put(layerContent, layerIds.getRefColumn());
+		overrides.put(getColumn(layers, "auth"), NULL);
+		layerIds.copy(overrides, folderIds.join("f", SOURCE + layerFolder));
+
+		// Layer properties and styles with its rules
+		CollectionTable layerStyles = getCollectionTable(layerClass,
+				"styleList");
+		CollectionTable styleRules = getCollectionTable(instancer
+				.createStyle().getClass(), "ruleList");
+		String styleSelect = layerStyles.getElementSelect(layerSelect);
+		copyCollection(getCollectionTable(layerClass, "properties"), layerIds,
+				layerSelect, prefix, maps);
+		IdMap styleIds = copyCollection(layerStyles, layerIds, layerSelect,
+				prefix, maps);
+		IdMap ruleIds = copyCollection(styleRules, styleIds, styleSelect,
+				prefix, maps);
+		copyCollection(getCollectionTable(instancer.createRule().getClass(),
+				"properties"), ruleIds, styleRules.getElementSelect(styleSelect),
+				prefix, maps);
+
+		// the work rows of this copy aren't needed any more
+		for (IdMap map : maps) {
+			map.clear();
+		}
+		return folderIds.get(rootId);
+	}
+
+	public RemovedSubtree deleteSubtree(Long rootId) {
+		// deletes are done in database: pending changes must be there
+		getSession().flush();
+
+		String rootPath = getIndexedPath(rootId);
+		if (rootPath == null) {
+			return new RemovedSubtree();
+		}
+		String prefix = rootPath + "%";
+		Class<?> folderClass = instancer.createFolder().getClass();
+		Class<?> layerClass = instancer.createLayer().getClass();
+		AbstractEntityPersister folders = getPersister(folderClass);
+		AbstractEntityPersister layers = getPersister(layerClass);
+		String folderSelect = getFolderSelect();
+		String layerSelect = getLayerSelect();
+
+		RemovedSubtree removed = new RemovedSubtree(
+				selectIds(folderSelect, prefix), selectIds(layerSelect, prefix));
+
+		// Styles with its rules and layer properties (deepest first)
+		CollectionTable layerStyles = getCollectionTable(layerClass,
+				"styleList");
+		CollectionTable styleRules = getCollectionTable(instancer
+				.createStyle().getClass(), "ruleList");
+		String styleSelect = layerStyles.getElementSelect(layerSelect);
+		deleteCollection(getCollectionTable(instancer.createRule().getClass(),
+				"properties"), styleRules.getElementSelect(styleSelect), prefix);
+		deleteCollection(styleRules, styleSelect, prefix);
+		deleteCollection(layerStyles, layerSelect, prefix);
+		deleteCollection(getCollectionTable(layerClass, "properties"),
+				layerSelect, prefix);
+
+		// Other links to the removed layers and folders
+		deleteLinksTo(layerClass, layerSelect, prefix);
+		deleteLinksTo(folderClass, folderSelect, prefix);
+
+		// Layers and its contents
+		String layerContent = getColumn(layers, "content");
+		AbstractEntityPersister contents = getContentPersister(layers);
+		List<Long> contentIds = selectIds("SELECT " + layerContent + " FROM "
+				+ layers.getTableName() + " WHERE " + layerContent
+				+ " IS NOT NULL AND " + getColumn(layers, "folder") + " IN ("
+				+ folderSelect + ")", prefix);
+		execute("DELETE FROM " + layers.getTableName() + " WHERE "
+				+ getColumn(layers, "folder") + " IN (" + folderSelect + ")",
+				prefix);
+		deleteContents(contents, contentIds);
+
+		// Folders: parent references are removed first because some
+		// databases check them row by row
+		String folderPath = getColumn(folders, "path");
+		execute("UPDATE " + folders.getTableName() + " SET "
+				+ getColumn(folders, "parent") + " = NULL WHERE " + folderPath
+				+ " LIKE ?", prefix);
+		execute("DELETE FROM " + folders.getTableName() + " WHERE "
+				+ folderPath + " LIKE ?", prefix);
+
+		evict(folderClass, removed.getFolderIds());
+		evict(layerClass, removed.getLayerIds());
+		evict(layers.getPropertyType("content").getReturnedClass(), contentIds);
+		return removed;
+	}
+
+	/**
+	 * @return sql to select the ids of the folders with a path starting with
+	 *         the <code>?</code> parameter
+	 */
+	private String getFolderSelect() {
+		AbstractEntityPersister folders = getPersister(instancer
+				.createFolder().getClass());
+		return "SELECT " + folders.getIdentifierColumnNames()[0] + " FROM "
+				+ folders.getTableName() + " WHERE "
+				+ getColumn(folders, "path") + " LIKE ?";
+	}
+
+	/**
+	 * @return sql to select the ids of the layers inside the folders of
+	 *         {@link #getFolderSelect()}
+	 */
+	private String getLayerSelect() {
+		AbstractEntityPersister layers = getPersister(instancer.createLayer()
+				.getClass());
+		return "SELECT " + layers.getIdentifierColumnNames()[0] + " FROM "
+				+ layers.getTableName() + " WHERE "
+				+ getColumn(layers, "folder") + " IN (" + getFolderSelect()
+				+ ")";
+	}
+
+	/**
+	 * Tables and columns of an entity collection
+	 */
+	private class CollectionTable {
+		private String table;
+		private String key;
+		private String element;
+		private boolean oneToMany;
+		private AbstractEntityPersister elements;
+
+		/**
+		 * @return sql to select the ids of the elements owned by
+		 *         <code>ownerSelect</code>
+		 */
+		private String getElementSelect(String ownerSelect) {
+			return "SELECT " + element + getFrom(ownerSelect);
+		}
+
+		private String getFrom(String ownerSelect) {
+			return " FROM " + table + " WHERE " + key + " IN (" + ownerSelect
+					+ ")";
+		}
+	}
+
+	private CollectionTable getCollectionTable(Class<?> ownerClass,
+			String property) {
+		return getCollectionTable((AbstractCollectionPersister) getSessionFactory()
+				.getCollectionMetadata(ownerClass.getName() + "." + property));
+	}
+
+	private CollectionTable getCollectionTable(
+			AbstractCollectionPersister collection) {
+		CollectionTable result = new CollectionTable();
+		result.table = collection.getTableName();
+		result.key = collection.getKeyColumnNames()[0];
+		result.oneToMany = collection.isOneToMany();
+		if (collection.getElementType().isEntityType()) {
+			result.elements = (AbstractEntityPersister) collection
+					.getElementPersister();
+		}
+		// with one to many the foreign key is in the element table
+		result.element = result.oneToMany ? result.elements
+				.getIdentifierColumnNames()[0] : collection
+				.getElementColumnNames()[0];
+		return result;
+	}
+
+	/**
+	 * Removes the links and the elements of a collection
+	 * 
+	 * @param collection
+	 * @param ownerSelect
+	 *            sql to select the owners
+	 * @param prefix
+	 *            path prefix parameter of <code>ownerSelect</code>
+	 */
+	private void deleteCollection(CollectionTable collection,
+			String ownerSelect, String prefix) {
+		if (collection.oneToMany) {
+			execute("DELETE" + collection.getFrom(ownerSelect), prefix);
+		} else {
+			List<Long> ids = selectIds(
+					collection.getElementSelect(ownerSelect), prefix);
+			execute("DELETE" + collection.getFrom(ownerSelect), prefix);
+			deleteByIds(collection.elements, ids);
+		}
+	}
+
+	/**
+	 * Removes the rows of the join tables of other entities pointing to the
+	 * selected entities
+	 * 
+	 * @param elementClass
+	 * @param elementSelect
+	 * @param prefix
+	 */
+	private void deleteLinksTo(Class<?> elementClass, String elementSelect,
+			String prefix) {
+		for (Object metadata : getSessionFactory().getAllCollectionMetadata()
+				.values()) {
+			AbstractCollectionPersister collection = (AbstractCollectionPersister) metadata;
+			if (!collection.isOneToMany()
+					&& collection.getElementType().isEntityType()
+					&& elementClass.getName().equals(
+							collection.getElementPersister().getEntityName())) {
+				execute("DELETE FROM " + collection.getTableName() + " WHERE "
+						+ collection.getElementColumnNames()[0] + " IN ("
+						+ elementSelect + ")", prefix);
+			}
+		}
+	}
+
+	private void deleteByIds(AbstractEntityPersister persister, List<Long> ids) {
+		String sql = "DELETE FROM " + persister.getTableName() + " WHERE "
+				+ persister.getIdentifierColumnNames()[0] + " IN (:ids)";
+		for (int i = 0; i < ids.size(); i += MAX_IN_IDS) {
+			getSession().createSQLQuery(sql)
+					.setParameterList("ids",
+							ids.subList(i, Math.min(ids.size(), i + MAX_IN_IDS)))
+					.executeUpdate();
+		}
+	}
+
+	/**
+	 * Removes content rows. On PostgreSQL their data are large objects: the
+	 * ones that aren't referenced by other contents are unlinked.
+	 */
+	private void deleteContents(AbstractEntityPersister contents,
+			List<Long> ids) {
+		if (!isPostgreSQL()) {
+			deleteByIds(contents, ids);
+			return;
+		}
+		String table = contents.getTableName();
+		String id = contents.getIdentifierColumnNames()[0];
+		String data = getColumn(contents, "data");
+		String unlink = "SELECT lo_unlink(d." + data
+				+ ") FROM (SELECT DISTINCT c." + data + " FROM " + table
+				+ " c WHERE c." + id + " IN (:ids) AND c." + data
+				+ " IS NOT NULL AND NOT EXISTS (SELECT 1 FROM " + table
+				+ " o WHERE o." + data + " = c." + data + " AND o." + id
+				+ " NOT IN (:ids))) d";
+		for (int i = 0; i < ids.size(); i += MAX_IN_IDS) {
+			List<Long> chunk = ids.subList(i,
+					Math.min(ids.size(), i + MAX_IN_IDS));
+			getSession().createSQLQuery(unlink).setParameterList("ids", chunk)
+					.list();
+			deleteByIds(contents, chunk);
+		}
+	}
+
+	private List<Long> selectIds(String sql, String prefix) {
+		List<Long> ids = new LinkedList<Long>();
+		for (Object id : getSession().createSQLQuery(sql)
+				.setParameter(0, prefix).list()) {
+			ids.add(toLong(id));
+		}
+		return ids;
+	}
+
+	private int execute(String sql, String prefix) {
+		return getSession().createSQLQuery(sql).setParameter(0, prefix)
+				.executeUpdate();
+	}
+
+	private int execute(String sql) {
+		return getSession().createSQLQuery(sql).executeUpdate();
+	}
+
+	/**
+	 * Removes from the session the entities deleted with sql
+	 */
+	private void evict(Class<?> entityClass, List<Long> ids) {
+		Session session = getSession();
+		Set<Long> removed = new HashSet<Long>(ids);
+		List<Object> keys = new LinkedList<Object>(session.getStatistics()
+				.getEntityKeys());
+		for (Object key : keys) {
+			EntityKey entityKey = (EntityKey) key;
+			if (entityClass.getName().equals(entityKey.getEntityName())
+					&& removed.contains(entityKey.getIdentifier())) {
+				session.evict(session.get(entityClass,
+						entityKey.getIdentifier()));
+			}
+		}
+	}
+
+	/**
+	 * Copy all elements of a collection
+	 * 
+	 * @param collection
+	 * @param ownerIds
+	 *            new owner ids
+	 * @param ownerSelect
+	 *            sql to select old owner ids
+	 * @param prefix
+	 *            path prefix parameter of <code>ownerSelect</code>
+	 * @param maps
+	 *            maps of the copy, the elements map is added
+	 * 
+	 * @return new element ids
+	 */
+	private IdMap copyCollection(CollectionTable collection, IdMap ownerIds,
+			String ownerSelect, String prefix, List<IdMap> maps) {
+		List<Object[]> rows = getSession()
+				.createSQLQuery(
+						"SELECT " + collection.key + ", " + collection.element
+								+ collection.getFrom(ownerSelect))
+				.setParameter(0, prefix).list();
+
+		IdMap ids = createIdMap(collection.elements, maps);
+		for (Object[] row : rows) {
+			Long oldId = toLong(row[1]);
+			if (ids.get(oldId) == null) {
+				// with one to many the new owner is written in the element
+				ids.put(oldId, generateId(collection.elements),
+						collection.oneToMany ? ownerIds.get(toLong(row[0]))
+								: null, null);
+			}
+		}
+
+		Map<String, String> overrides = new LinkedHashMap<String, String>();
+		if (collection.oneToMany) {
+			overrides.put(collection.key, ids.getRefColumn());
+		}
+		ids.copy(overrides, "");
+		if (!collection.oneToMany && !ids.isEmpty()) {
+			// links of the copied owners with the copied elements
+			execute("INSERT INTO " + collection.table + " (" + collection.key
+					+ ", " + collection.element + ") SELECT o." + ids.newId
+					+ ", e." + ids.newId + " FROM " + collection.table
+					+ " s" + ownerIds.join("o", SOURCE + collection.key)
+					+ ids.join("e", SOURCE + collection.element));
+		}
+		return ids;
+	}
+
+	/**
+	 * Old to new ids of the rows of one table in a copy. The map is kept in
+	 * memory and written to the {@link CopyMapEntity} work table, so each
+	 * table is copied with one <code>INSERT ... SELECT</code> joining the
+	 * work table.
+	 */
+	private class IdMap {
+		private AbstractEntityPersister persister;
+		private long copyId;
+		private Map<Long, Long> ids = new HashMap<Long, Long>();
+		private Map<Long, String> paths = new HashMap<Long, String>();
+		private List<Object[]> rows = new LinkedList<Object[]>();
+		// work table and columns
+		private String table;
+		private String id;
+		private String copy;
+		private String oldId;
+		private String newId;
+		private String refId;
+		private String path;
+
+		private void put(Long oldId, Long newId, Long refId, String path) {
+			ids.put(oldId, newId);
+			paths.put(oldId, path);
+			rows.add(new Object[] { generateId(getPersister(CopyMapEntity.class)),
+					copyId, oldId, newId, refId, path });
+		}
+
+		private Long get(Long oldId) {
+			return ids.get(oldId);
+		}
+
+		private String getPath(Long oldId) {
+			return paths.get(oldId);
+		}
+
+		private boolean isEmpty() {
+			return ids.isEmpty();
+		}
+
+		private String getRefColumn() {
+			return MAPPED + "." + refId;
+		}
+
+		private String getPathColumn() {
+			return MAPPED + "." + path;
+		}
+
+		/**
+		 * @return sql joining the work rows by the old id in
+		 *         <code>column</code>
+		 */
+		private String join(String alias, String column) {
+			return " INNER JOIN " + table + " " + alias + " ON " + alias + "."
+					+ oldId + " = " + column + " AND " + alias + "." + copy
+					+ " = " + copyId;
+		}
+
+		/**
+		 * Writes the work rows and copies the mapped rows of the table with
+		 * one statement
+		 * 
+		 * @param overrides
+		 *            sql expression by column name
+		 * @param joins
+		 *            other joins used by the overrides
+		 */
+		private void copy(Map<String, String> overrides, String joins) {
+			if (ids.isEmpty()) {
+				return;
+			}
+			executeBatch("INSERT INTO " + table + " (" + id + ", " + copy
+					+ ", " + oldId + ", " + newId + ", " + refId + ", " + path
+					+ ") VALUES (?, ?, ?, ?, ?, ?)", new int[] { Types.BIGINT,
+					Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.BIGINT,
+					Types.VARCHAR }, rows);
+			String sourceId = persister.getIdentifierColumnNames()[0];
+			StringBuilder columns = new StringBuilder(sourceId);
+			StringBuilder values = new StringBuilder(MAPPED + "." + newId);
+			for (Map.Entry<String, String> override : overrides.entrySet()) {
+				columns.append(", ").append(override.getKey());
+				values.append(", ").append(override.getValue());
+			}
+			for (String property : persister.getPropertyNames()) {
+				if (!persister.getPropertyType(property).isCollectionType()) {
+					for (String column : persister
+							.getPropertyColumnNames(property)) {
+						if (!overrides.containsKey(column)) {
+							columns.append(", ").append(column);
+							values.append(", ").append(SOURCE).append(column);
+						}
+					}
+				}
+			}
+			execute("INSERT INTO " + persister.getTableName() + " ("
+					+ columns + ") SELECT " + values + " FROM "
+					+ persister.getTableName() + " s"
+					+ join(MAPPED, SOURCE + sourceId) + joins);
+		}
+
+		/**
+		 * Removes the work rows
+		 */
+		private void clear() {
+			if (!ids.isEmpty()) {
+				execute("DELETE FROM " + table + " WHERE " + copy + " = "
+						+ copyId);
+			}
+		}
+	}
+
+	/**
+	 * Creates the id map of a table in a copy
+	 * 
+	 * @param persister
+	 *            entity of the table
+	 * @param maps
+	 *            maps of the copy, the new map is added
+	 * 
+	 * @return new map
+	 */
+	private IdMap createIdMap(AbstractEntityPersister persister,
+			List<IdMap> maps) {
+		AbstractEntityPersister work = getPersister(CopyMapEntity.class);
+		IdMap map = new IdMap();
+		map.persister = persister;
+		map.copyId = generateId(work);
+		map.table = work.getTableName();
+		map.id = work.getIdentifierColumnNames()[0];
+		map.copy = getColumn(work, "copyId");
+		map.oldId = getColumn(work, "oldId");
+		map.newId = getColumn(work, "newId");
+		map.refId = getColumn(work, "refId");
+		map.path = getColumn(work, "path");
+		maps.add(map);
+		return map;
+	}
+
+	private void executeBatch(final String sql, final int[] types,
+			final List<Object[]> params) {
+		if (params.isEmpty()) {
+			return;
+		}
+		getSession().doWork(new Work() {
+			public void execute(Connection connection) throws SQLException {
+				PreparedStatement statement = connection.prepareStatement(sql);
+				try {
+					for (Object[] row : params) {
+						for (int i = 0; i < row.length; i++) {
+							if (row[i] != null) {
+								statement.setObject(i + 1, row[i]);
+							} else {
+								statement.setNull(i + 1, types[i]);
+							}
+						}
+						statement.addBatch();
+					}
+					statement.executeBatch();
+				} finally {
+					statement.close();
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return folder path or null if the folder doesn't exist
+	 */
+	private String getIndexedPath(Long folderId) {
+		String path = getPath(folderId);
+		if (path == null && folderDao.findById(folderId, false) != null) {
+			throw new IllegalStateException("Folder " + folderId
+					+ " hasn't path: see sql/folderPaths.sql or "
+					+ "FoldersAdminService.rebuildFolderPaths");
+		}
+		return path;
+	}
+
+	private String getPath(Long folderId) {
+		return (String) getSession()
+				.createQuery(
+						"select f.path from "
+								+ instancer.createFolder().getClass()
+										.getName() + " f where f.id = :id")
+				.setParameter("id", folderId).uniqueResult();
+	}
+
+	private boolean isPostgreSQL() {
+		return ((SessionFactoryImplementor) getSessionFactory())
+				.getDialect() instanceof PostgreSQLDialect;
+	}
+
+	private AbstractEntityPersister getPersister(Class<?> entityClass) {
+		return (AbstractEntityPersister) getSessionFactory().getClassMetadata(
+				entityClass);
+	}
+
+	/**
+	 * @return persister of the content referenced by the layers
+	 */
+	private AbstractEntityPersister getContentPersister(
+			AbstractEntityPersister layers) {
+		return getPersister(layers.getPropertyType("content")
+				.getReturnedClass());
+	}
+
+	private String getColumn(AbstractEntityPersister persister, String property) {
+		return persister.getPropertyColumnNames(property)[0];
+	}
+
+	private Long generateId(AbstractEntityPersister persister) {
+		Serializable id = persister.getIdentifierGenerator().generate(
+				(SessionImplementor) getSession(), null);
+		return ((Number) id).longValue();
+	}
+
+	/**
+	 * @return sql literal of an id
+	 */
+	private String toSql(Long id) {
+		return id != null ? id.toString() : NULL;
+	}
+
+	private Long toLong(Object value) {
+		return value != null ? ((Number) value).longValue() : null;
+	}
+
+}
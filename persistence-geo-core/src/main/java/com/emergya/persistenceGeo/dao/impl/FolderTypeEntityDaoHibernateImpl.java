@@ -73,11 +73,16 @@ public class FolderTypeEntityDaoHibernateImpl extends
 				.createFolderType().getClass();
 	}
 
+	@Override
+	public List<AbstractFolderTypeEntity> findAll() {
+		return findByCriteriaCached();
+	}
+
 	/**
 	 * @return List<AbstractFolderTypeEntity> folder types without children
 	 */
 	public List<AbstractFolderTypeEntity> getNotParentFolderTypes() {
-		Criteria crit = getSession().createCriteria(persistentClass);
+		Criteria crit = cacheable(getSession().createCriteria(persistentClass));
 		return crit.add(
 				Subqueries.notExists(DetachedCriteria
 						.forClass(persistentClass, CHILD)
@@ -95,7 +100,7 @@ public class FolderTypeEntityDaoHibernateImpl extends
 	 *         identified by parentId
 	 */
 	public List<AbstractFolderTypeEntity> getFolderTypes(Long parentId) {
-		return getSession().createCriteria(persistentClass)
+		return cacheable(getSession().createCriteria(persistentClass))
 				.createAlias(PARENT, PARENT)
 				.add(Restrictions.eq(PARENT + DOT + ID, parentId)).list();
 	}
@@ -43,6 +43,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.orm.hibernate3.support.HibernateDaoSupport;
 
 import com.emergya.persistenceGeo.dao.GenericDAO;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Based on http://community.jboss.org/docs/DOC-13955
@@ -171,4 +172,27 @@ public abstract class GenericHibernateDAOImpl<T, ID extends Serializable> extend
 		return getHibernateTemplate().findByCriteria(crit);
 	}
 
+	/**
+	 * Same as {@link #findByCriteria(Criterion...)} but the result is stored
+	 * in the query cache. Only for reference entities.
+	 */
+	@SuppressWarnings("unchecked")
+	protected List<T> findByCriteriaCached(Criterion... criterions) {
+		Criteria crit = cacheable(getSession().createCriteria(persistentClass));
+		for (Criterion c : criterions) {
+			crit.add(c);
+		}
+		return crit.list();
+	}
+
+	/**
+	 * Stores the result of the criteria in the query cache region of the
+	 * reference entities. Use it only with entities cached in the second level
+	 * cache, otherwise every hit loads the entities one by one.
+	 */
+	protected Criteria cacheable(Criteria criteria) {
+		return criteria.setCacheable(true).setCacheRegion(
+				CacheRegions.REFERENCE_QUERIES);
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+/*
+ * HibernateCacheChangeListener.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao.impl;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import com.emergya.persistenceGeo.service.CacheChangeListener;
+import com.emergya.persistenceGeo.service.CacheInvalidationBus;
+import com.emergya.persistenceGeo.utils.CacheChange;
+import com.emergya.persistenceGeo.utils.CacheEntities;
+
+/**
+ * Evicts the hibernate second level and query caches when another node
+ * changes the reference entities. Hibernate only invalidates them for the
+ * changes made by this node, so the changes of this node are skipped.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@Repository
+public class HibernateCacheChangeListener implements CacheChangeListener {
+
+	@Resource
+	private CacheInvalidationBus cacheInvalidationBus;
+
+	private SessionFactory sessionFactory;
+
+	private Set<String> entityTypes = new HashSet<String>(Arrays.asList(
+			CacheEntities.LAYER_TYPE, CacheEntities.ZONE,
+			CacheEntities.USER_GROUP));
+
+	@Autowired
+	public void init(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+
+	@PostConstruct
+	public void subscribe() {
+		cacheInvalidationBus.subscribe(this);
+	}
+
+	@Override
+	public void onCacheChange(CacheChange change) {
+		if (entityTypes.contains(change.getEntityType())
+				&& !cacheInvalidationBus.getNodeId().equals(change.getNode())) {
+			Cache cache = sessionFactory.getCache();
+			cache.evictEntityRegions();
+			cache.evictCollectionRegions();
+			cache.evictQueryRegions();
+		}
+	}
+
+	/**
+	 * @param entityTypes
+	 *            types of the entities whose changes evict the hibernate
+	 *            caches
+	 */
+	public void setEntityTypes(Set<String> entityTypes) {
+		this.entityTypes = entityTypes;
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * ImportJobEntityDaoHibernateImpl.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao.impl;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.hibernate.Query;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.springframework.stereotype.Repository;
+
+import com.emergya.persistenceGeo.dao.ImportJobEntityDao;
+import com.emergya.persistenceGeo.metaModel.AbstractImportJobEntity;
+import com.emergya.persistenceGeo.model.ImportJobEntity;
+
+/**
+ * Import job DAO Hibernate Implementation
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@SuppressWarnings("unchecked")
+@Repository("importJobEntityDao")
+public class ImportJobEntityDaoHibernateImpl extends
+		GenericHibernateDAOImpl<AbstractImportJobEntity, Long> implements
+		ImportJobEntityDao {
+
+	public ImportJobEntityDaoHibernateImpl() {
+		this.persistentClass = (Class<AbstractImportJobEntity>) (Class<?>) ImportJobEntity.class;
+	}
+
+	@Override
+	public List<AbstractImportJobEntity> findByStatus(String... status) {
+		return getSession().createCriteria(persistentClass)
+				.add(Restrictions.in("status", status))
+				.addOrder(Order.asc("id")).list();
+	}
+
+	@Override
+	public boolean changeStatus(Long id, String expectedStatus,
+			String status, String message) {
+		StringBuilder hql = new StringBuilder("update ")
+				.append(persistentClass.getName())
+				.append(" set status = :status");
+		if (message != null) {
+			hql.append(", message = :message");
+		}
+		boolean dated = !AbstractImportJobEntity.STATUS_QUEUED.equals(status);
+		if (AbstractImportJobEntity.STATUS_RUNNING.equals(status)) {
+			hql.append(", startDate = :date");
+		} else if (dated) {
+			hql.append(", endDate = :date");
+		}
+		hql.append(" where id = :id and status = :expectedStatus");
+
+		Query query = getSession().createQuery(hql.toString())
+				.setString("status", status).setLong("id", id)
+				.setString("expectedStatus", expectedStatus);
+		if (message != null) {
+			query.setString("message", message);
+		}
+		if (dated) {
+			query.setTimestamp("date", new Date());
+		}
+		return query.executeUpdate() > 0;
+	}
+
+	@Override
+	public void updateProgress(Long id, Long done, Long total) {
+		StringBuilder hql = new StringBuilder("update ")
+				.append(persistentClass.getName()).append(" set done = :done");
+		if (total != null) {
+			hql.append(", total = :total");
+		}
+		hql.append(" where id = :id");
+
+		Query query = getSession().createQuery(hql.toString())
+				.setLong("done", done).setLong("id", id);
+		if (total != null) {
+			query.setLong("total", total);
+		}
+		query.executeUpdate();
+	}
+
+	@Override
+	public List<AbstractImportJobEntity> findQueued(String node) {
+		return getSession()
+				.createCriteria(persistentClass)
+				.add(Restrictions.eq("status",
+						AbstractImportJobEntity.STATUS_QUEUED))
+				.add(Restrictions.or(Restrictions.eq("node", node),
+						Restrictions.isNull("node")))
+				.addOrder(Order.asc("id")).list();
+	}
+
+	@Override
+	public boolean claim(Long id, String node) {
+		return getSession()
+				.createQuery(
+						"update " + persistentClass.getName()
+								+ " set status = :running, startDate = :date,"
+								+ " heartbeat = :date, node = :node"
+								+ " where id = :id and status = :queued"
+								+ " and (node = :node or node is null)")
+				.setString("running", AbstractImportJobEntity.STATUS_RUNNING)
+				.setTimestamp("date", new Date()).setString("node", node)
+				.setLong("id", id)
+				.setString("queued", AbstractImportJobEntity.STATUS_QUEUED)
+				.executeUpdate() > 0;
+	}
+
+	@Override
+	public int renewLeases(String node, Collection<Long> ids) {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		return getSession()
+				.createQuery(
+						"update " + persistentClass.getName()
+								+ " set heartbeat = :date"
+								+ " where id in (:ids) and node = :node"
+								+ " and status = :running")
+				.setTimestamp("date", new Date())
+				.setParameterList("ids", ids).setString("node", node)
+				.setString("running", AbstractImportJobEntity.STATUS_RUNNING)
+				.executeUpdate();
+	}
+
+	@Override
+	public int expireLeases(Date heartbeatBefore, String status,
+			String message, String... types) {
+		boolean dated = !AbstractImportJobEntity.STATUS_QUEUED.equals(status);
+		StringBuilder hql = new StringBuilder("update ")
+				.append(persistentClass.getName())
+				.append(" set status = :status, message = :message");
+		if (dated) {
+			hql.append(", endDate = :date");
+		}
+		hql.append(" where status = :running and type in (:types)")
+				.append(" and (heartbeat < :before or heartbeat is null)");
+
+		Query query = getSession().createQuery(hql.toString())
+				.setString("status", status).setString("message", message)
+				.setString("running", AbstractImportJobEntity.STATUS_RUNNING)
+				.setParameterList("types", types)
+				.setTimestamp("before", heartbeatBefore);
+		if (dated) {
+			query.setTimestamp("date", new Date());
+		}
+		return query.executeUpdate();
+	}
+
+	@Override
+	public boolean requestCancel(Long id) {
+		return getSession()
+				.createQuery(
+						"update " + persistentClass.getName()
+								+ " set cancelRequested = :cancel"
+								+ " where id = :id and status = :running")
+				.setBoolean("cancel", true).setLong("id", id)
+				.setString("running", AbstractImportJobEntity.STATUS_RUNNING)
+				.executeUpdate() > 0;
+	}
+
+	@Override
+	public List<Long> findCancelRequested(String node) {
+		return getSession()
+				.createQuery(
+						"select id from " + persistentClass.getName()
+								+ " where node = :node and status = :running"
+								+ " and cancelRequested = :cancel")
+				.setString("node", node)
+				.setString("running", AbstractImportJobEntity.STATUS_RUNNING)
+				.setBoolean("cancel", true).list();
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * LayerBatchDaoHibernateImpl.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of Proyecto persistenceGeo
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.hibernate3.support.HibernateDaoSupport;
+import org.springframework.stereotype.Repository;
+
+import com.emergya.persistenceGeo.dao.LayerBatchDao;
+import com.emergya.persistenceGeo.metaModel.AbstractLayerPropertyEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractRuleEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractRulePropertyEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractStyleEntity;
+import com.emergya.persistenceGeo.metaModel.Instancer;
+import com.emergya.persistenceGeo.utils.LayerGraph;
+
+/**
+ * Hibernate implementation of {@link LayerBatchDao}. Each level of the layer
+ * graph is loaded with one HQL query (one for each {@value #MAX_IN_IDS} ids)
+ * that selects the owner id together with the associated entity.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@SuppressWarnings("unchecked")
+@Repository("layerBatchDao")
+public class LayerBatchDaoHibernateImpl extends HibernateDaoSupport implements
+		LayerBatchDao {
+
+	/** Max ids in a <code>IN</code> list */
+	private static final int MAX_IN_IDS = 500;
+
+	@Resource
+	private Instancer instancer;
+
+	@Autowired
+	public void init(SessionFactory sessionFactory) {
+		setSessionFactory(sessionFactory);
+	}
+
+	public LayerGraph loadLayerGraph(Collection<Long> layerIds) {
+		LayerGraph graph = new LayerGraph();
+		Set<Long> ids = new LinkedHashSet<Long>(layerIds);
+		ids.remove(null);
+		if (ids.isEmpty()) {
+			return graph;
+		}
+		String layer = instancer.createLayer().getClass().getName();
+		String style = instancer.createStyle().getClass().getName();
+		String rule = instancer.createRule().getClass().getName();
+
+		// Owners
+		for (Object[] row : list("select l.id, u.nombreCompleto from "
+				+ layer + " l join l.user u where l.id in (:ids)", ids)) {
+			graph.putUserName((Long) row[0], (String) row[1]);
+		}
+
+		// Layer properties
+		for (Object[] row : list("select l.id, p from " + layer
+				+ " l join l.properties p where l.id in (:ids) order by p.id",
+				ids)) {
+			graph.addLayerProperty((Long) row[0],
+					(AbstractLayerPropertyEntity) row[1]);
+		}
+
+		// Styles
+		Set<Long> styleIds = new LinkedHashSet<Long>();
+		for (Object[] row : list("select l.id, s from " + layer
+				+ " l join l.styleList s where l.id in (:ids) order by s.id",
+				ids)) {
+			AbstractStyleEntity styleEntity = (AbstractStyleEntity) row[1];
+			graph.addStyle((Long) row[0], styleEntity);
+			styleIds.add(styleEntity.getId());
+		}
+		if (styleIds.isEmpty()) {
+			return graph;
+		}
+
+		// Rules
+		Set<Long> ruleIds = new LinkedHashSet<Long>();
+		for (Object[] row : list("select s.id, r from " + style
+				+ " s join s.ruleList r where s.id in (:ids) order by r.id",
+				styleIds)) {
+			AbstractRuleEntity ruleEntity = (AbstractRuleEntity) row[1];
+			graph.addRule((Long) row[0], ruleEntity);
+			ruleIds.add((Long) ruleEntity.getId());
+		}
+		if (ruleIds.isEmpty()) {
+			return graph;
+		}
+
+		// Rule properties
+		for (Object[] row : list("select r.id, p from " + rule
+				+ " r join r.properties p where r.id in (:ids) order by p.id",
+				ruleIds)) {
+			graph.addRuleProperty((Long) row[0],
+					(AbstractRulePropertyEntity) row[1]);
+		}
+
+		return graph;
+	}
+
+	/**
+	 * Run the query with the ids split in <code>IN</code> lists of
+	 * {@value #MAX_IN_IDS} elements
+	 */
+	private List<Object[]> list(String hql, Collection<Long> ids) {
+		List<Object[]> result = new LinkedList<Object[]>();
+		List<Long> chunk = new ArrayList<Long>(Math.min(ids.size(),
+				MAX_IN_IDS));
+		for (Long id : ids) {
+			chunk.add(id);
+			if (chunk.size() == MAX_IN_IDS) {
+				result.addAll(getSession().createQuery(hql)
+						.setParameterList("ids", chunk).list());
+				chunk.clear();
+			}
+		}
+		if (!chunk.isEmpty()) {
+			result.addAll(getSession().createQuery(hql)
+					.setParameterList("ids", chunk).list());
+		}
+		return result;
+	}
+
+}
@@ -29,19 +29,24 @@
  */
 package com.emergya.persistenceGeo.dao.impl;
 
+import java.util.LinkedList;
 import java.util.List;
 
 import javax.annotation.Resource;
 
 import org.hibernate.Criteria;
 import org.hibernate.SessionFactory;
+import org.hibernate.criterion.CriteriaSpecification;
 import org.hibernate.criterion.Disjunction;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.ProjectionList;
+import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import com.emergya.persistenceGeo.dao.LayerEntityDao;
+import com.emergya.persistenceGeo.dto.LayerSummary;
 import com.emergya.persistenceGeo.metaModel.AbstractLayerEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractUserEntity;
 import com.emergya.persistenceGeo.metaModel.Instancer;
@@ -130,28 +135,44 @@ public class LayerEntityDaoHibernateImpl extends GenericHibernateDAOImpl<Abstrac
 	@Override
 	public List<AbstractLayerEntity> findByUserId(Long id) {
 		
-		Criteria criteria = getSession().createCriteria(persistentClass)
-						.createAlias("user", "user")
-						.add(Restrictions.eq("user.id", id));
-		
+		Criteria criteria = createUserCriteria(id);
 		
 		addLayerSorting(criteria);
 		
 		return criteria.list();
 	}
 
+	@Override
+	public List<LayerSummary> findSummariesByUserId(Long id) {
+		return listSummaries(createUserCriteria(id));
+	}
+
+	private Criteria createUserCriteria(Long id) {
+		return getSession().createCriteria(persistentClass)
+						.createAlias("user", "user")
+						.add(Restrictions.eq("user.id", id));
+	}
+
 	@Override
 	public List<AbstractLayerEntity> findByAuthorityId(Long id) {
-		Criteria criteria = getSession().createCriteria(persistentClass)
-						.createAlias("auth", "auth")
-						.add(Restrictions.eq("auth.id", id));
-		
+		Criteria criteria = createAuthorityCriteria(id);
 		
 		addLayerSorting(criteria);
 		
 		return criteria.list();
 	}
 
+	@Override
+	public List<LayerSummary> findSummariesByAuthorityId(Long id) {
+		return listSummaries(createAuthorityCriteria(id));
+	}
+
+	private Criteria createAuthorityCriteria(Long id) {
+		return getSession().createCriteria(persistentClass)
+						.createAlias("auth", "auth")
+						.add(Restrictions.eq("auth.id", id));
+	}
+
 	
 	/**
 	 * Get a layers list by authority
@@ -235,6 +256,14 @@ public class LayerEntityDaoHibernateImpl extends GenericHibernateDAOImpl<Abstrac
 	 * @return all layers in a folder mark as channel
 	 */
 	public List<AbstractLayerEntity> getLayersByFolder(Long folderId, Boolean isChannel, Boolean isEnabled){
+		Criteria criteria = createFolderCriteria(folderId, isChannel, isEnabled);
+		
+		addLayerSorting(criteria);
+		
+		return criteria.list();
+	}
+
+	private Criteria createFolderCriteria(Long folderId, Boolean isChannel, Boolean isEnabled){
 		Criteria criteria = getSession().createCriteria(persistentClass)
 				.createAlias("folder", "folder")
 				.add(Restrictions.eq("folder.id", folderId));
@@ -259,10 +288,7 @@ public class LayerEntityDaoHibernateImpl extends GenericHibernateDAOImpl<Abstrac
 			criteria.add(dis);
 		}
 		
-		
-		addLayerSorting(criteria);
-		
-		return criteria.list();
+		return criteria;
 	}
 	
 	@Override
@@ -280,17 +306,83 @@ public class LayerEntityDaoHibernateImpl extends GenericHibernateDAOImpl<Abstrac
 
 	@Override
 	public List<AbstractLayerEntity> getPublicLayers() {
-		Criteria crit = getSession().createCriteria(persistentClass);
-		crit.add(Restrictions.eq("publicized", true));
+		Criteria crit = createPublicCriteria();
 		
 		addLayerSorting(crit);
 		
 		return crit.list();
 	}
 
+	@Override
+	public List<LayerSummary> getPublicLayerSummaries() {
+		return listSummaries(createPublicCriteria());
+	}
+
+	private Criteria createPublicCriteria() {
+		return getSession().createCriteria(persistentClass)
+				.add(Restrictions.eq("publicized", true));
+	}
+
+	/**
+	 * Projects the criteria on the summary columns. Type name is loaded with
+	 * a left join and content is only checked by its id, so the result is
+	 * obtained in one query without loading the entities
+	 * 
+	 * @param criteria
+	 * 
+	 * @return layer summaries sorted as the entities lists
+	 */
+	private List<LayerSummary> listSummaries(Criteria criteria) {
+		criteria.createAlias("type", "layerType", CriteriaSpecification.LEFT_JOIN);
+		ProjectionList projection = Projections.projectionList()
+				.add(Projections.id())
+				.add(Projections.property("name"))
+				.add(Projections.property("layerTitle"))
+				.add(Projections.property("order"))
+				.add(Projections.property("layerType.name"))
+				.add(Projections.property("layerType.id"))
+				.add(Projections.property("server_resource"))
+				.add(Projections.property("folder.id"))
+				.add(Projections.property("auth.id"))
+				.add(Projections.property("publicized"))
+				.add(Projections.property("enabled"))
+				.add(Projections.property("isChannel"))
+				.add(Projections.property("content.id"));
+		criteria.setProjection(projection);
+		
+		addLayerSorting(criteria);
+		
+		List<LayerSummary> result = new LinkedList<LayerSummary>();
+		for(Object[] row: (List<Object[]>) criteria.list()){
+			LayerSummary summary = new LayerSummary();
+			summary.setId((Long) row[0]);
+			summary.setName((String) row[1]);
+			summary.setLayerTitle((String) row[2]);
+			summary.setOrder((String) row[3]);
+			summary.setType((String) row[4]);
+			summary.setTypeId((Long) row[5]);
+			summary.setServer_resource((String) row[6]);
+			summary.setFolderId((Long) row[7]);
+			summary.setAuthId((Long) row[8]);
+			summary.setPublicized((Boolean) row[9]);
+			summary.setEnabled((Boolean) row[10]);
+			summary.setPertenece_a_canal((Boolean) row[11]);
+			summary.setHasData(row[12] != null);
+			result.add(summary);
+		}
+		return result;
+	}
+
 	private void addLayerSorting(Criteria crit) {
 		crit.addOrder(Order.asc("order"));
 		crit.addOrder(Order.asc("layerTitle"));
 		crit.addOrder(Order.asc("name"));
 	}
+
+	public Long getContentId(Long layerId) {
+		return (Long) getSession()
+				.createQuery("select l.content.id from " + persistentClass.getName()
+						+ " l where l.id = :id")
+				.setParameter("id", layerId).uniqueResult();
+	}
 }
@@ -66,19 +66,24 @@ public class LayerTypeEntityDaoHibernateImpl extends
 				.createLayerType().getClass();
 	}
 
+	@Override
+	public List<AbstractLayerTypeEntity> findAll() {
+		return findByCriteriaCached();
+	}
+
 	public List<AbstractLayerTypePropertyEntity> getLayerTypeProperties(
 			String layerTypeName) {
-		List<AbstractLayerTypeEntity> result = getSession()
-				.createCriteria(persistentClass)
-				.add(Restrictions.eq("name", layerTypeName)).list();
+		List<AbstractLayerTypeEntity> result = cacheable(
+				getSession().createCriteria(persistentClass)).add(
+				Restrictions.eq("name", layerTypeName)).list();
 		return (result != null && result.size() > 0) ? result.get(0)
 				.getDefaultProperties() : ListUtils.EMPTY_LIST;
 	}
 
 	public AbstractLayerTypeEntity getLayerType(String layerTypeName) {
-		List<AbstractLayerTypeEntity> result = getSession()
-				.createCriteria(persistentClass)
-				.add(Restrictions.eq("name", layerTypeName)).list();
+		List<AbstractLayerTypeEntity> result = cacheable(
+				getSession().createCriteria(persistentClass)).add(
+				Restrictions.eq("name", layerTypeName)).list();
 		return (result != null && result.size() > 0) ? result.get(0) : null;
 	}
 }
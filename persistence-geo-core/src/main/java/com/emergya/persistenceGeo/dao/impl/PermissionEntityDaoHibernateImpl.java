@@ -69,6 +69,11 @@ public class PermissionEntityDaoHibernateImpl extends GenericHibernateDAOImpl<Ab
         super.init(sessionFactory);
 		this.persistentClass = (Class<AbstractPermissionEntity>) instancer.createPermission().getClass();
     }
+
+	@Override
+	public List<AbstractPermissionEntity> findAll() {
+		return findByCriteriaCached();
+	}
 	
 	/**
 	 * Create a new permission in the system
@@ -92,7 +97,7 @@ public class PermissionEntityDaoHibernateImpl extends GenericHibernateDAOImpl<Ab
 	 * @return Entities list associated with the permission name or null if not found 
 	 */
 	public List<AbstractPermissionEntity> getPermissions(String permissionName) {
-		return findByCriteria(Restrictions.eq("name", permissionName));
+		return findByCriteriaCached(Restrictions.eq("name", permissionName));
 	}
 
 	/**
@@ -47,13 +47,17 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.beanutils.LazyDynaBean;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.SQLQuery;
 import org.hibernate.engine.SessionFactoryImplementor;
 import org.hibernate.jdbc.Work;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
 
 /**
  * Implementacion de ExecuterSQL dao para hibernate
@@ -77,6 +81,7 @@ public class PostgisDBManagementDaoHibernateImpl extends HibernateDaoSupport imp
     private static final String BBOX_SQL = "select cast(st_extent(geom) as varchar) from {0}.\"{1}\"";
     private static final String BBOX_SQL_GEOCOLUMN = "select cast(st_extent(\"{0}\") as varchar) from {1}.\"{2}\"";
     private static final String SRID_SQL = "select srid from geometry_columns where f_table_name = :NAME";
+    private static final String DEFAULT_SCHEMA = "public";
     private static final String CREATE_TABLE_SQL = "CREATE TABLE {0}.\"{1}\" ({2})";
     private static final String ADD_GEOMETRY_COLUMN_SQL = "SELECT AddGeometryColumn('%s', '%s', 'geom', %d, '%s', %d)";
 
@@ -345,6 +350,9 @@ public class PostgisDBManagementDaoHibernateImpl extends HibernateDaoSupport imp
 
         SessionFactoryImplementor sfi = (SessionFactoryImplementor) getSessionFactory();
         String schema = sfi.getSettings().getDefaultSchemaName();
+        if (schema == null) {
+            schema = DEFAULT_SCHEMA;
+        }
         final String sql = MessageFormat.format(CREATE_TABLE_SQL, schema,
                 tableName, columnsSQL.toString());
 
@@ -391,4 +399,29 @@ public class PostgisDBManagementDaoHibernateImpl extends HibernateDaoSupport imp
         return createLayerTable(tableName, columns, srsCode, geometryType);
     }
 
+    @Override
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        Statistics statistics = getSessionFactory().getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return result;
+        }
+        result.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        result.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        result.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        result.put("queryCachePuts", statistics.getQueryCachePutCount());
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(region);
+            Map<String, Object> counters = new LinkedHashMap<String, Object>();
+            counters.put("hits", regionStatistics.getHitCount());
+            counters.put("misses", regionStatistics.getMissCount());
+            counters.put("puts", regionStatistics.getPutCount());
+            counters.put("elementsInMemory", regionStatistics.getElementCountInMemory());
+            result.put(region, counters);
+        }
+        return result;
+    }
+
 }
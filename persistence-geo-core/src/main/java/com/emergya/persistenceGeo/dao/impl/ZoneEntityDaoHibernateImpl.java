@@ -67,6 +67,11 @@ public class ZoneEntityDaoHibernateImpl extends
 				.createZone().getClass();
     }
 
+	@Override
+	public List<AbstractZoneEntity> findAll() {
+		return findByCriteriaCached();
+	}
+
 	/**
 	 * Create a new zone in the system
 	 * 
@@ -89,7 +94,7 @@ public class ZoneEntityDaoHibernateImpl extends
 	 * @return Entities list associated with the zone name or null if not found 
 	 */
 	public List<AbstractZoneEntity> getZones(String zoneName) {
-		return findByCriteria(Restrictions.eq("name", zoneName));
+		return findByCriteriaCached(Restrictions.eq("name", zoneName));
 	}
 
 	/**
@@ -100,7 +105,7 @@ public class ZoneEntityDaoHibernateImpl extends
 	 * @return Entities list associated with the zone type or null if not found
 	 */
 	public List<AbstractZoneEntity> findByType(String zoneType) {
-		return findByCriteria(Restrictions.eq("type", zoneType));
+		return findByCriteriaCached(Restrictions.eq("type", zoneType));
 	}
 
 	/**
@@ -177,7 +182,7 @@ public class ZoneEntityDaoHibernateImpl extends
 	 * @return Entities 
 	 */
 	public List<AbstractZoneEntity> findAllEnabled(){
-		return findByCriteria(Restrictions.eq("enabled", Boolean.TRUE));
+		return findByCriteriaCached(Restrictions.eq("enabled", Boolean.TRUE));
 	}
 	
 	/**
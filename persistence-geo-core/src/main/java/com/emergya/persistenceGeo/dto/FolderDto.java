@@ -63,6 +63,8 @@ public class FolderDto extends AbstractDto implements Serializable, Cloneable{
 	protected List<FolderDto> folderList;
     protected Long zoneId;
     protected Long idFolderType;
+    protected Boolean hasChildren;
+    protected Long layerCount;
 
 	/**
 	 * @return the id
@@ -223,6 +225,30 @@ public class FolderDto extends AbstractDto implements Serializable, Cloneable{
 	public void setIdFolderType(Long idFolderType) {
 		this.idFolderType = idFolderType;
 	}
+	/**
+	 * @return if the folder has children folders or null if it's unknown
+	 */
+	public Boolean getHasChildren() {
+		return hasChildren;
+	}
+	/**
+	 * @param hasChildren the hasChildren to set
+	 */
+	public void setHasChildren(Boolean hasChildren) {
+		this.hasChildren = hasChildren;
+	}
+	/**
+	 * @return number of layers in the folder or null if it's unknown
+	 */
+	public Long getLayerCount() {
+		return layerCount;
+	}
+	/**
+	 * @param layerCount the layerCount to set
+	 */
+	public void setLayerCount(Long layerCount) {
+		this.layerCount = layerCount;
+	}
 	
 	/** 
 	 * Clone folder (id is always nulled)
@@ -262,6 +288,11 @@ public class FolderDto extends AbstractDto implements Serializable, Cloneable{
 		// clone zone
 		result.zoneId = this.zoneId != null ? new Long(this.zoneId) : null;
 
+		result.hasChildren = this.hasChildren != null ? new Boolean(
+				this.hasChildren) : null;
+		result.layerCount = this.layerCount != null ? new Long(this.layerCount)
+				: null;
+
 		return result;
 	}
 
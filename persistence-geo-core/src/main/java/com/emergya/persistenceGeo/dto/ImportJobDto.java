@@ -0,0 +1,358 @@
+/*
+ * ImportJobDto.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dto;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Import job data transfer object
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+public class ImportJobDto extends AbstractDto implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 8410635012938406421L;
+
+	protected Long id;
+	protected String type;
+	protected String status;
+	protected String sourcePath;
+	protected String targetName;
+	protected String workspaceName;
+	protected String crs;
+	protected Boolean dropExisting;
+	protected String owner;
+	protected Long total;
+	protected Long done;
+	protected String message;
+	protected Date createDate;
+	protected Date startDate;
+	protected Date endDate;
+	protected String node;
+	protected Date heartbeat;
+	protected Boolean cancelRequested;
+
+	/**
+	 * @return the id
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * @param id
+	 *            the id
+	 */
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	/**
+	 * @return the import type
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @param type
+	 *            the import type
+	 */
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	/**
+	 * @return the status
+	 */
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * @param status
+	 *            the status
+	 */
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	/**
+	 * @return the file imported
+	 */
+	public String getSourcePath() {
+		return sourcePath;
+	}
+
+	/**
+	 * @param sourcePath
+	 *            the file imported
+	 */
+	public void setSourcePath(String sourcePath) {
+		this.sourcePath = sourcePath;
+	}
+
+	/**
+	 * @return the table or layer created
+	 */
+	public String getTargetName() {
+		return targetName;
+	}
+
+	/**
+	 * @param targetName
+	 *            the table or layer created
+	 */
+	public void setTargetName(String targetName) {
+		this.targetName = targetName;
+	}
+
+	/**
+	 * @return the workspace the layer is published in
+	 */
+	public String getWorkspaceName() {
+		return workspaceName;
+	}
+
+	/**
+	 * @param workspaceName
+	 *            the workspace the layer is published in
+	 */
+	public void setWorkspaceName(String workspaceName) {
+		this.workspaceName = workspaceName;
+	}
+
+	/**
+	 * @return the native CRS of the data
+	 */
+	public String getCrs() {
+		return crs;
+	}
+
+	/**
+	 * @param crs
+	 *            the native CRS of the data
+	 */
+	public void setCrs(String crs) {
+		this.crs = crs;
+	}
+
+	/**
+	 * @return true to replace an existing table
+	 */
+	public Boolean getDropExisting() {
+		return dropExisting;
+	}
+
+	/**
+	 * @param dropExisting
+	 *            true to replace an existing table
+	 */
+	public void setDropExisting(Boolean dropExisting) {
+		this.dropExisting = dropExisting;
+	}
+
+	/**
+	 * @return the user who submitted the job
+	 */
+	public String getOwner() {
+		return owner;
+	}
+
+	/**
+	 * @param owner
+	 *            the user who submitted the job
+	 */
+	public void setOwner(String owner) {
+		this.owner = owner;
+	}
+
+	/**
+	 * @return the units to import: features or bytes
+	 */
+	public Long getTotal() {
+		return total;
+	}
+
+	/**
+	 * @param total
+	 *            the units to import: features or bytes
+	 */
+	public void setTotal(Long total) {
+		this.total = total;
+	}
+
+	/**
+	 * @return the units imported
+	 */
+	public Long getDone() {
+		return done;
+	}
+
+	/**
+	 * @param done
+	 *            the units imported
+	 */
+	public void setDone(Long done) {
+		this.done = done;
+	}
+
+	/**
+	 * @return the result message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @param message
+	 *            the result message
+	 */
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	/**
+	 * @return the submission date
+	 */
+	public Date getCreateDate() {
+		return createDate;
+	}
+
+	/**
+	 * @param createDate
+	 *            the submission date
+	 */
+	public void setCreateDate(Date createDate) {
+		this.createDate = createDate;
+	}
+
+	/**
+	 * @return the start date
+	 */
+	public Date getStartDate() {
+		return startDate;
+	}
+
+	/**
+	 * @param startDate
+	 *            the start date
+	 */
+	public void setStartDate(Date startDate) {
+		this.startDate = startDate;
+	}
+
+	/**
+	 * @return the end date
+	 */
+	public Date getEndDate() {
+		return endDate;
+	}
+
+	/**
+	 * @param endDate
+	 *            the end date
+	 */
+	public void setEndDate(Date endDate) {
+		this.endDate = endDate;
+	}
+
+	/**
+	 * @return the node that received the file and runs the job
+	 */
+	public String getNode() {
+		return node;
+	}
+
+	/**
+	 * @param node
+	 *            the node that runs the job
+	 */
+	public void setNode(String node) {
+		this.node = node;
+	}
+
+	/**
+	 * @return the last time the running node renewed the job
+	 */
+	public Date getHeartbeat() {
+		return heartbeat;
+	}
+
+	/**
+	 * @param heartbeat
+	 *            the last time the running node renewed the job
+	 */
+	public void setHeartbeat(Date heartbeat) {
+		this.heartbeat = heartbeat;
+	}
+
+	/**
+	 * @return true if the job has been cancelled while running
+	 */
+	public Boolean getCancelRequested() {
+		return cancelRequested;
+	}
+
+	/**
+	 * @param cancelRequested
+	 *            true if the job has been cancelled while running
+	 */
+	public void setCancelRequested(Boolean cancelRequested) {
+		this.cancelRequested = cancelRequested;
+	}
+
+	/**
+	 * @return the target name
+	 */
+	public String getName() {
+		return targetName;
+	}
+
+	/**
+	 * @return percent of the units imported or null if the total isn't
+	 *         known yet
+	 */
+	public Integer getProgress() {
+		if (total == null || done == null) {
+			return null;
+		}
+		if (total <= 0) {
+			return 100;
+		}
+		return (int) Math.min(100, done * 100 / total);
+	}
+
+}
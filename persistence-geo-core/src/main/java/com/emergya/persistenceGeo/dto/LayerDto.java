@@ -58,6 +58,7 @@ public class LayerDto extends AbstractDto implements Serializable, Cloneable {
     private Long typeId;
     protected String server_resource;
     protected File data;
+    protected Boolean hasData;
     protected Boolean published;
     protected Boolean enabled;
     protected Boolean pertenece_a_canal;
@@ -178,6 +179,23 @@ public class LayerDto extends AbstractDto implements Serializable, Cloneable {
         this.data = data;
     }
 
+    /**
+     * Data stored in database isn't loaded in the dto, it can be read with
+     * {@link com.emergya.persistenceGeo.service.LayerAdminService#writeLayerData(Long, java.io.OutputStream)}
+     * 
+     * @return true if the layer has data stored in database
+     */
+    public Boolean getHasData() {
+        return hasData;
+    }
+
+    /**
+     * @param hasData true if the layer has data stored in database
+     */
+    public void setHasData(Boolean hasData) {
+        this.hasData = hasData;
+    }
+
     /**
      * @return the authId
      */
@@ -0,0 +1,264 @@
+/*
+ * LayerSummary.java
+ *
+ * Copyright (C) 2012
+ *
+ * This file is part of Proyecto persistenceGeo
+ *
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ *
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ *
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dto;
+
+import java.io.Serializable;
+
+/**
+ * Lightweight layer read model used in layer lists. It's loaded with a single
+ * projection query so no lazy association nor layer data are touched. Property
+ * names are the same than in {@link LayerDto}
+ *
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+public class LayerSummary extends AbstractDto implements Serializable {
+
+	private static final long serialVersionUID = 4470143928411723946L;
+
+	private Long id;
+	private String name;
+	private String layerTitle;
+	private String order;
+	private String type;
+	private Long typeId;
+	private String server_resource;
+	private Long folderId;
+	private Long authId;
+	private Boolean publicized;
+	private Boolean enabled;
+	private Boolean pertenece_a_canal;
+	private boolean hasData;
+
+	/**
+	 * @return the id
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * @param id the id to set
+	 */
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @param name the name to set
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the layerTitle
+	 */
+	public String getLayerTitle() {
+		return layerTitle;
+	}
+
+	/**
+	 * @param layerTitle the layerTitle to set
+	 */
+	public void setLayerTitle(String layerTitle) {
+		this.layerTitle = layerTitle;
+	}
+
+	/**
+	 * @return the order
+	 */
+	public String getOrder() {
+		return order;
+	}
+
+	/**
+	 * @param order the order to set
+	 */
+	public void setOrder(String order) {
+		this.order = order;
+	}
+
+	/**
+	 * @return the layer type name
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @param type the layer type name to set
+	 */
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	/**
+	 * @return the typeId
+	 */
+	public Long getTypeId() {
+		return typeId;
+	}
+
+	/**
+	 * @param typeId the typeId to set
+	 */
+	public void setTypeId(Long typeId) {
+		this.typeId = typeId;
+	}
+
+	/**
+	 * @return the server_resource
+	 */
+	public String getServer_resource() {
+		return server_resource;
+	}
+
+	/**
+	 * @param server_resource the server_resource to set
+	 */
+	public void setServer_resource(String server_resource) {
+		this.server_resource = server_resource;
+	}
+
+	/**
+	 * @return the folderId
+	 */
+	public Long getFolderId() {
+		return folderId;
+	}
+
+	/**
+	 * @param folderId the folderId to set
+	 */
+	public void setFolderId(Long folderId) {
+		this.folderId = folderId;
+	}
+
+	/**
+	 * @return the authId
+	 */
+	public Long getAuthId() {
+		return authId;
+	}
+
+	/**
+	 * @param authId the authId to set
+	 */
+	public void setAuthId(Long authId) {
+		this.authId = authId;
+	}
+
+	/**
+	 * @return the publicized
+	 */
+	public Boolean getPublicized() {
+		return publicized;
+	}
+
+	/**
+	 * @param publicized the publicized to set
+	 */
+	public void setPublicized(Boolean publicized) {
+		this.publicized = publicized;
+	}
+
+	/**
+	 * @return the enabled
+	 */
+	public Boolean getEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param enabled the enabled to set
+	 */
+	public void setEnabled(Boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return the pertenece_a_canal
+	 */
+	public Boolean getPertenece_a_canal() {
+		return pertenece_a_canal;
+	}
+
+	/**
+	 * @param pertenece_a_canal the pertenece_a_canal to set
+	 */
+	public void setPertenece_a_canal(Boolean pertenece_a_canal) {
+		this.pertenece_a_canal = pertenece_a_canal;
+	}
+
+	/**
+	 * @return true if the layer has data stored in database
+	 */
+	public boolean getHasData() {
+		return hasData;
+	}
+
+	/**
+	 * @param hasData true if the layer has data stored in database
+	 */
+	public void setHasData(boolean hasData) {
+		this.hasData = hasData;
+	}
+
+	/**
+	 * @return a copy to change without changing the summary, that can be
+	 *         shared by a cached list
+	 */
+	public LayerSummary copy() {
+		LayerSummary copy = new LayerSummary();
+		copy.id = id;
+		copy.name = name;
+		copy.layerTitle = layerTitle;
+		copy.order = order;
+		copy.type = type;
+		copy.typeId = typeId;
+		copy.server_resource = server_resource;
+		copy.folderId = folderId;
+		copy.authId = authId;
+		copy.publicized = publicized;
+		copy.enabled = enabled;
+		copy.pertenece_a_canal = pertenece_a_canal;
+		copy.hasData = hasData;
+		return copy;
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * AbstractContentEntity.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of Proyecto persistenceGeo
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General public abstract License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General public abstract License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General public abstract License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General public abstract License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General public abstract License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.metaModel;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Binary content of a layer or a resource. It's stored apart from its owner
+ * so the owner can be loaded without loading the content.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public abstract class AbstractContentEntity extends AbstractEntity {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 5105846591834236128L;
+
+	protected Long id;
+	protected byte[] data;
+	protected Long size;
+	protected Date updateDate;
+
+	public abstract byte[] getData();
+	public abstract Long getSize();
+	public abstract Date getUpdateDate();
+
+	public void setId(Serializable id) {
+		this.id = (Long) id;
+	}
+
+	public void setData(byte[] data) {
+		this.data = data;
+	}
+
+	public void setSize(Long size) {
+		this.size = size;
+	}
+
+	public void setUpdateDate(Date updateDate) {
+		this.updateDate = updateDate;
+	}
+
+	/**
+	 * Replace the content data updating its size and update date
+	 * 
+	 * @param data
+	 */
+	public void updateData(byte[] data) {
+		this.data = data;
+		this.size = data != null ? Long.valueOf(data.length) : null;
+		this.updateDate = new Date();
+	}
+
+}
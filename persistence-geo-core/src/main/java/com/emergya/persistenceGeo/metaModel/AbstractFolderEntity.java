@@ -57,6 +57,7 @@ public abstract class AbstractFolderEntity extends AbstractEntity {
 	protected AbstractFolderEntity parent;
 	protected Integer folderOrder;
 	protected AbstractFolderTypeEntity folderType;
+	protected String path;
 
 	public AbstractFolderEntity(){
 		
@@ -115,6 +116,13 @@ public abstract class AbstractFolderEntity extends AbstractEntity {
 	 * @return the folder type
 	 */
 	public abstract AbstractFolderTypeEntity getFolderType();
+	/**
+	 * Materialized path with the ids of all ancestors and the folder itself,
+	 * for example <code>/1/5/9/</code>
+	 * 
+	 * @return the path
+	 */
+	public abstract String getPath();
 	
 	/**
 	 * @param id the id to set
@@ -198,4 +206,11 @@ public abstract class AbstractFolderEntity extends AbstractEntity {
 	public void setFolderType(AbstractFolderTypeEntity folderType) {
 		this.folderType = folderType;
 	}
+
+	/**
+	 * @param path the path to set
+	 */
+	public void setPath(String path) {
+		this.path = path;
+	}
 }
@@ -0,0 +1,170 @@
+/*
+ * AbstractImportJobEntity.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.metaModel;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Asynchronous import of a data file into a layer. Jobs are kept in the
+ * database so queued jobs are resumed after a restart. A job is run by the
+ * node that received its file, which renews the heartbeat of the job while
+ * it's running.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public abstract class AbstractImportJobEntity extends AbstractEntity {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -6903615428411395312L;
+
+	public static final String TYPE_SHP = "shp";
+	public static final String TYPE_GEOTIFF = "geotiff";
+	public static final String TYPE_XML = "xml";
+
+	public static final String STATUS_QUEUED = "QUEUED";
+	public static final String STATUS_RUNNING = "RUNNING";
+	public static final String STATUS_DONE = "DONE";
+	public static final String STATUS_FAILED = "FAILED";
+	public static final String STATUS_CANCELLED = "CANCELLED";
+
+	protected Long id;
+	protected String type;
+	protected String status;
+	protected String sourcePath;
+	protected String targetName;
+	protected String workspaceName;
+	protected String crs;
+	protected Boolean dropExisting;
+	protected String owner;
+	protected Long total;
+	protected Long done;
+	protected String message;
+	protected Date createDate;
+	protected Date startDate;
+	protected Date endDate;
+	protected String node;
+	protected Date heartbeat;
+	protected Boolean cancelRequested;
+
+	public abstract String getType();
+	public abstract String getStatus();
+	public abstract String getSourcePath();
+	public abstract String getTargetName();
+	public abstract String getWorkspaceName();
+	public abstract String getCrs();
+	public abstract Boolean getDropExisting();
+	public abstract String getOwner();
+	public abstract Long getTotal();
+	public abstract Long getDone();
+	public abstract String getMessage();
+	public abstract Date getCreateDate();
+	public abstract Date getStartDate();
+	public abstract Date getEndDate();
+	public abstract String getNode();
+	public abstract Date getHeartbeat();
+	public abstract Boolean getCancelRequested();
+
+	public void setId(Serializable id) {
+		this.id = (Long) id;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public void setSourcePath(String sourcePath) {
+		this.sourcePath = sourcePath;
+	}
+
+	public void setTargetName(String targetName) {
+		this.targetName = targetName;
+	}
+
+	public void setWorkspaceName(String workspaceName) {
+		this.workspaceName = workspaceName;
+	}
+
+	public void setCrs(String crs) {
+		this.crs = crs;
+	}
+
+	public void setDropExisting(Boolean dropExisting) {
+		this.dropExisting = dropExisting;
+	}
+
+	public void setOwner(String owner) {
+		this.owner = owner;
+	}
+
+	public void setTotal(Long total) {
+		this.total = total;
+	}
+
+	public void setDone(Long done) {
+		this.done = done;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	public void setCreateDate(Date createDate) {
+		this.createDate = createDate;
+	}
+
+	public void setStartDate(Date startDate) {
+		this.startDate = startDate;
+	}
+
+	public void setEndDate(Date endDate) {
+		this.endDate = endDate;
+	}
+
+	public void setNode(String node) {
+		this.node = node;
+	}
+
+	public void setHeartbeat(Date heartbeat) {
+		this.heartbeat = heartbeat;
+	}
+
+	public void setCancelRequested(Boolean cancelRequested) {
+		this.cancelRequested = cancelRequested;
+	}
+
+}
@@ -55,7 +55,7 @@ public abstract class AbstractLayerEntity extends AbstractEntity implements Clon
     protected String order;
     protected AbstractLayerTypeEntity type;
     protected String server_resource;
-    protected byte[] data;
+    protected AbstractContentEntity content;
 
     protected Boolean publicized;
     protected Boolean enabled;
@@ -146,10 +146,15 @@ public abstract class AbstractLayerEntity extends AbstractEntity implements Clon
     public abstract AbstractFolderEntity getFolder();
 
     /**
-     * @return the data
+     * @return the data, loaded from the layer content
      */
     public abstract byte[] getData();
 
+    /**
+     * @return the content with the layer data
+     */
+    public abstract AbstractContentEntity getContent();
+
     /**
      * @return the properties
      */
@@ -258,10 +263,15 @@ public abstract class AbstractLayerEntity extends AbstractEntity implements Clon
     }
 
     /**
-     * @param data the data to set
+     * @param data the data to set in the layer content
+     */
+    public abstract void setData(byte[] data);
+
+    /**
+     * @param content the content to set
      */
-    public void setData(byte[] data) {
-	this.data = data;
+    public void setContent(AbstractContentEntity content) {
+	this.content = content;
     }
 
     /**
@@ -306,7 +316,8 @@ public abstract class AbstractLayerEntity extends AbstractEntity implements Clon
 	layer.name = this.getName() != null ? new String(this.name) : null;
 	layer.order = this.getOrder() != null ? new String(this.order) : null;
 	layer.server_resource = this.getServer_resource() != null ? new String(this.server_resource) : null;
-	layer.data = this.getData() != null ? data.clone() : null;
+	layer.content = null;
+	layer.setData(this.getData() != null ? this.getData().clone() : null);
 
 	layer.publicized = this.getPublicized() != null ? new Boolean(this.publicized) : null;
 	layer.enabled = this.getEnabled() != null ? new Boolean(this.enabled) : null;
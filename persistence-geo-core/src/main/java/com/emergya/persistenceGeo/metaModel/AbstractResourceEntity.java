@@ -49,13 +49,14 @@ public abstract class AbstractResourceEntity extends AbstractEntity{
 	protected Long size;
 	protected String type;
 	protected Long accessId;
-	protected byte[] data;
+	protected AbstractContentEntity content;
 
 	public abstract String getName();
 	public abstract Long getSize();
 	public abstract String getType();
 	public abstract Long getAccessId();
 	public abstract byte[] getData();
+	public abstract AbstractContentEntity getContent();
 
 	public void setName(String name) {
 		this.name = name;
@@ -77,8 +78,10 @@ public abstract class AbstractResourceEntity extends AbstractEntity{
 		this.accessId = accessId;
 	}
 
-	public void setData(byte[] data) {
-		this.data = data;
+	public abstract void setData(byte[] data);
+
+	public void setContent(AbstractContentEntity content) {
+		this.content = content;
 	}
 
 }
@@ -45,7 +45,11 @@ import javax.persistence.OneToMany;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.emergya.persistenceGeo.metaModel.AbstractAuthorityTypeEntity;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Entity that represents the types users group
@@ -55,6 +59,7 @@ import com.emergya.persistenceGeo.metaModel.AbstractAuthorityTypeEntity;
  */
 @SuppressWarnings("unchecked")
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 @Table(name = "gis_authority_type")
 public class AuthorityTypeEntity extends AbstractAuthorityTypeEntity {
 	
@@ -106,6 +111,7 @@ public class AuthorityTypeEntity extends AbstractAuthorityTypeEntity {
 	@JoinColumn(name = "auth_type_id"),
 	inverseJoinColumns =
 	@JoinColumn(name = "permission_id"))
+	@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 	public List<PermissionEntity> getPermissionList() {
 		return permissionList;
 	}
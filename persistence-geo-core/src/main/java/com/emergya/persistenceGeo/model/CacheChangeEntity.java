@@ -0,0 +1,118 @@
+/*
+ * CacheChangeEntity.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * Change of an entity published by a node of the cluster, polled by the
+ * other nodes to evict their cached copies
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+@Entity
+@Table(name = "gis_cache_change")
+public class CacheChangeEntity implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -4305372145915720614L;
+
+	private Long id;
+	private String entityType;
+	private String entityId;
+	private String node;
+	private Date createDate;
+
+	@Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.AUTO, 
+    				generator = "gis_cache_change_seq")
+    @SequenceGenerator(name="gis_cache_change_seq", 
+    					sequenceName = "gis_cache_change_seq", allocationSize = 1)  
+	public Long getId() {
+		return id;
+	}
+
+	@Column(name = "entity_type", length = 255)
+	public String getEntityType() {
+		return entityType;
+	}
+
+	/**
+	 * @return id of the entity changed or null if it isn't known
+	 */
+	@Column(name = "entity_id", length = 1024)
+	public String getEntityId() {
+		return entityId;
+	}
+
+	@Column(name = "node", length = 255)
+	public String getNode() {
+		return node;
+	}
+
+	@Column(name = "create_date")
+	public Date getCreateDate() {
+		return createDate;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public void setEntityType(String entityType) {
+		this.entityType = entityType;
+	}
+
+	public void setEntityId(String entityId) {
+		this.entityId = entityId;
+	}
+
+	public void setNode(String node) {
+		this.node = node;
+	}
+
+	public void setCreateDate(Date createDate) {
+		this.createDate = createDate;
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * ContentEntity.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of Proyecto persistenceGeo
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Type;
+
+import com.emergya.persistenceGeo.metaModel.AbstractContentEntity;
+
+/**
+ * Layer and resource content entity mapping
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+@Entity
+@Table(name = "gis_content")
+public class ContentEntity extends AbstractContentEntity {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -4329165806216563049L;
+
+	public ContentEntity(){
+		
+	}
+
+	public ContentEntity(byte[] data){
+		updateData(data);
+	}
+
+	@Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.AUTO, 
+    				generator = "gis_content_seq")
+    @SequenceGenerator(name="gis_content_seq", 
+    					sequenceName = "gis_content_seq")  
+	public Long getId() {
+		return this.id;
+	}
+
+	@Column(name = "data", nullable=true)
+	@Type(type="org.hibernate.type.PrimitiveByteArrayBlobType") //Needed for oracle/postgresql compatibility
+	@Lob //Needed for oracle/postgresql compatibility
+	public byte[] getData() {
+		return data;
+	}
+
+	@Column(name = "content_size")
+	public Long getSize() {
+		return size;
+	}
+
+	@Column(name = "update_date")
+	public Date getUpdateDate() {
+		return updateDate;
+	}
+
+}
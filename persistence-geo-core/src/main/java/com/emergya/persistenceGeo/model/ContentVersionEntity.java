@@ -0,0 +1,105 @@
+/*
+ * ContentVersionEntity.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * Version of the folders and layers of a scope, shared by the nodes of the
+ * cluster
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+@Entity
+@Table(name = "gis_content_version")
+public class ContentVersionEntity implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 6802334710945522377L;
+
+	private Long id;
+	private String scope;
+	private Long version;
+	private Date updateDate;
+
+	@Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.AUTO, 
+    				generator = "gis_content_version_seq")
+    @SequenceGenerator(name="gis_content_version_seq", 
+    					sequenceName = "gis_content_version_seq", allocationSize = 1)  
+	public Long getId() {
+		return id;
+	}
+
+	@Column(name = "scope", length = 255, nullable = false, unique = true)
+	public String getScope() {
+		return scope;
+	}
+
+	@Column(name = "version")
+	public Long getVersion() {
+		return version;
+	}
+
+	@Column(name = "update_date")
+	public Date getUpdateDate() {
+		return updateDate;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public void setScope(String scope) {
+		this.scope = scope;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public void setUpdateDate(Date updateDate) {
+		this.updateDate = updateDate;
+	}
+
+}
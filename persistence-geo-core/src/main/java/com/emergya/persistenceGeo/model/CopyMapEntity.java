@@ -0,0 +1,132 @@
+/*
+ * CopyMapEntity.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.model;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.Index;
+
+/**
+ * Work table of the subtree copies: new id (and new parent/reference and
+ * path) of each copied row by its old id. Rows of a copy share a copy id and
+ * are removed when the copy ends.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+@Entity
+@Table(name = "gis_copy_map")
+public class CopyMapEntity implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 2958041706453260871L;
+
+	private Long id;
+	private Long copyId;
+	private Long oldId;
+	private Long newId;
+	private Long refId;
+	private String path;
+
+	@Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.AUTO, 
+    				generator = "gis_copy_map_seq")
+    @SequenceGenerator(name="gis_copy_map_seq", 
+    					sequenceName = "gis_copy_map_seq", allocationSize = 500)  
+	public Long getId() {
+		return id;
+	}
+
+	@Column(name = "copy_id")
+	@Index(name = "gis_copy_map_idx")
+	public Long getCopyId() {
+		return copyId;
+	}
+
+	@Column(name = "old_id")
+	@Index(name = "gis_copy_map_idx")
+	public Long getOldId() {
+		return oldId;
+	}
+
+	@Column(name = "new_id")
+	public Long getNewId() {
+		return newId;
+	}
+
+	/**
+	 * @return new id of the parent or of a referenced row, if any
+	 */
+	@Column(name = "ref_id")
+	public Long getRefId() {
+		return refId;
+	}
+
+	@Column(name = "path", length = 1024)
+	public String getPath() {
+		return path;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public void setCopyId(Long copyId) {
+		this.copyId = copyId;
+	}
+
+	public void setOldId(Long oldId) {
+		this.oldId = oldId;
+	}
+
+	public void setNewId(Long newId) {
+		this.newId = newId;
+	}
+
+	public void setRefId(Long refId) {
+		this.refId = refId;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+}
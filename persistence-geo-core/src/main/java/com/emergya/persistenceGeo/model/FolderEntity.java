@@ -44,6 +44,8 @@ import javax.persistence.ManyToOne;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Index;
+
 import com.emergya.persistenceGeo.metaModel.AbstractFolderEntity;
 
 /**
@@ -98,6 +100,13 @@ public class FolderEntity extends AbstractFolderEntity {
 	public Date getUpdateDate() {
 		return updateDate;
 	}
+
+	// sql/folderPaths.sql creates it with varchar_pattern_ops for LIKE
+	@Column(name = "folder_path", length = 1024)
+	@Index(name = "gis_folder_path_idx")
+	public String getPath() {
+		return path;
+	}
 	
 	@Id
     @Column(name = "id")
@@ -43,7 +43,11 @@ import javax.persistence.ManyToOne;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.emergya.persistenceGeo.metaModel.AbstractFolderTypeEntity;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Entidad de tipo de carpeta
@@ -52,6 +56,7 @@ import com.emergya.persistenceGeo.metaModel.AbstractFolderTypeEntity;
  * 
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 @Table(name = "gis_folder_type")
 public class FolderTypeEntity extends AbstractFolderTypeEntity {
 
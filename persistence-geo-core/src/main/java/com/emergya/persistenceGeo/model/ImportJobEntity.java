@@ -0,0 +1,154 @@
+/*
+ * ImportJobEntity.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import com.emergya.persistenceGeo.metaModel.AbstractImportJobEntity;
+
+/**
+ * Import job entity mapping
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+@Entity
+@Table(name = "gis_import_job")
+public class ImportJobEntity extends AbstractImportJobEntity {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 2716905473168230914L;
+
+	@Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.AUTO, 
+    				generator = "gis_import_job_seq")
+    @SequenceGenerator(name="gis_import_job_seq", 
+    					sequenceName = "gis_import_job_seq")  
+	public Long getId() {
+		return this.id;
+	}
+
+	@Column(name = "type", length = 20)
+	public String getType() {
+		return type;
+	}
+
+	@Column(name = "status", length = 20)
+	public String getStatus() {
+		return status;
+	}
+
+	@Column(name = "source_path", length = 1024)
+	public String getSourcePath() {
+		return sourcePath;
+	}
+
+	@Column(name = "target_name")
+	public String getTargetName() {
+		return targetName;
+	}
+
+	@Column(name = "workspace_name")
+	public String getWorkspaceName() {
+		return workspaceName;
+	}
+
+	@Column(name = "crs", length = 50)
+	public String getCrs() {
+		return crs;
+	}
+
+	@Column(name = "drop_existing")
+	public Boolean getDropExisting() {
+		return dropExisting;
+	}
+
+	@Column(name = "owner")
+	public String getOwner() {
+		return owner;
+	}
+
+	@Column(name = "total")
+	public Long getTotal() {
+		return total;
+	}
+
+	@Column(name = "done")
+	public Long getDone() {
+		return done;
+	}
+
+	@Column(name = "message", length = 2048)
+	public String getMessage() {
+		return message;
+	}
+
+	@Column(name = "create_date")
+	public Date getCreateDate() {
+		return createDate;
+	}
+
+	@Column(name = "start_date")
+	public Date getStartDate() {
+		return startDate;
+	}
+
+	@Column(name = "end_date")
+	public Date getEndDate() {
+		return endDate;
+	}
+
+	@Column(name = "node")
+	public String getNode() {
+		return node;
+	}
+
+	@Column(name = "heartbeat")
+	public Date getHeartbeat() {
+		return heartbeat;
+	}
+
+	@Column(name = "cancel_requested")
+	public Boolean getCancelRequested() {
+		return cancelRequested;
+	}
+
+}
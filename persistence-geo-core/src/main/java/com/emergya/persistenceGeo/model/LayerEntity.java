@@ -41,13 +41,12 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
-import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
-
-import org.hibernate.annotations.Type;
+import javax.persistence.Transient;
 
 import com.emergya.persistenceGeo.metaModel.AbstractLayerEntity;
 
@@ -155,11 +154,26 @@ public class LayerEntity extends AbstractLayerEntity {
 		return (FolderEntity) folder;
 	}
 
-	@Column(name = "data", nullable=true)
-	@Type(type="org.hibernate.type.PrimitiveByteArrayBlobType") //Needed for oracle/postgresql compatibility
-	@Lob //Needed for oracle/postgresql compatibility
+	@OneToOne(fetch = FetchType.LAZY, orphanRemoval = true,
+			cascade = {CascadeType.ALL})
+	@JoinColumn(name = "layer_content_id")
+	public ContentEntity getContent() {
+		return (ContentEntity) content;
+	}
+
+	@Transient
 	public byte[] getData() {
-		return data;
+		return content != null ? content.getData() : null;
+	}
+
+	public void setData(byte[] data) {
+		if(data == null){
+			content = null;
+		}else if(content != null){
+			content.updateData(data);
+		}else{
+			content = new ContentEntity(data);
+		}
 	}
 
 	@Override
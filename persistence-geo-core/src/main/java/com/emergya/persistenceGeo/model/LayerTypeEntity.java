@@ -44,7 +44,11 @@ import javax.persistence.ManyToMany;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.emergya.persistenceGeo.metaModel.AbstractLayerTypeEntity;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Layer type entity
@@ -53,6 +57,7 @@ import com.emergya.persistenceGeo.metaModel.AbstractLayerTypeEntity;
  *
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 @Table(name = "gis_layer_type")
 public class LayerTypeEntity extends AbstractLayerTypeEntity {
 
@@ -79,6 +84,7 @@ public class LayerTypeEntity extends AbstractLayerTypeEntity {
 			fetch = FetchType.EAGER,
 			cascade = {CascadeType.ALL})
 	@JoinTable(name = "gis_property_in_layer_type")
+	@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 	public List<LayerTypePropertyEntity> getDefaultProperties() {
 		return defaultProperties;
 	}
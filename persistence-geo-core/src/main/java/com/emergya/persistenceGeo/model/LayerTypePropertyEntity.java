@@ -39,7 +39,11 @@ import javax.persistence.Id;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.emergya.persistenceGeo.metaModel.AbstractLayerTypePropertyEntity;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Layer type property entity mapping
@@ -48,6 +52,7 @@ import com.emergya.persistenceGeo.metaModel.AbstractLayerTypePropertyEntity;
  *
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 @Table(name = "gis_layer_type_property")
 public class LayerTypePropertyEntity extends AbstractLayerTypePropertyEntity {
 
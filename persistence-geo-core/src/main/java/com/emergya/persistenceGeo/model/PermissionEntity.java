@@ -42,7 +42,11 @@ import javax.persistence.ManyToMany;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.emergya.persistenceGeo.metaModel.AbstractPermissionEntity;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Entidad de permisos
@@ -52,6 +56,7 @@ import com.emergya.persistenceGeo.metaModel.AbstractPermissionEntity;
  */
 @SuppressWarnings("unchecked")
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 @Table(name = "gis_permission")
 public class PermissionEntity extends AbstractPermissionEntity {
 
@@ -107,6 +112,7 @@ public class PermissionEntity extends AbstractPermissionEntity {
 	}
 
 	@ManyToMany(fetch = FetchType.LAZY, mappedBy = "permissionList")
+	@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 	public List<AuthorityTypeEntity> getAuthTypeList() {
 		return authTypeList;
 	}
@@ -29,16 +29,18 @@
  */
 package com.emergya.persistenceGeo.model;
 
+import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.Lob;
+import javax.persistence.JoinColumn;
+import javax.persistence.OneToOne;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
-
-import org.hibernate.annotations.Type;
+import javax.persistence.Transient;
 
 import com.emergya.persistenceGeo.metaModel.AbstractResourceEntity;
 
@@ -86,11 +88,27 @@ public class ResourceEntity extends AbstractResourceEntity {
 	public Long getAccessId() {
 		return accessId;
 	}
-	@Column(name = "data", nullable=true)
-	@Type(type="org.hibernate.type.PrimitiveByteArrayBlobType") //Needed for oracle/postgresql compatibility
-	@Lob //Needed for oracle/postgresql compatibility
+
+	@OneToOne(fetch = FetchType.LAZY, orphanRemoval = true,
+			cascade = {CascadeType.ALL})
+	@JoinColumn(name = "resource_content_id")
+	public ContentEntity getContent() {
+		return (ContentEntity) content;
+	}
+
+	@Transient
 	public byte[] getData() {
-		return data;
+		return content != null ? content.getData() : null;
+	}
+
+	public void setData(byte[] data) {
+		if(data == null){
+			content = null;
+		}else if(content != null){
+			content.updateData(data);
+		}else{
+			content = new ContentEntity(data);
+		}
 	}
 
 }
@@ -35,7 +35,11 @@ import javax.persistence.Id;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.emergya.persistenceGeo.metaModel.AbstractSourceToolEntity;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Source tool entity
@@ -44,6 +48,7 @@ import com.emergya.persistenceGeo.metaModel.AbstractSourceToolEntity;
  *
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 @Table(name = "gis_source")
 public class SourceToolEntity extends AbstractSourceToolEntity {
 	
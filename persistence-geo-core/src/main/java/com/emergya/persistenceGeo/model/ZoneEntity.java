@@ -45,7 +45,11 @@ import javax.persistence.OneToMany;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.emergya.persistenceGeo.metaModel.AbstractZoneEntity;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Entidad de ámbito territorial
@@ -55,6 +59,7 @@ import com.emergya.persistenceGeo.metaModel.AbstractZoneEntity;
  */
 @SuppressWarnings("unchecked")
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 @Table(name = "gis_zone")
 public class ZoneEntity extends AbstractZoneEntity {
 
@@ -125,6 +130,7 @@ public class ZoneEntity extends AbstractZoneEntity {
 	@JoinColumn(name = "zone_id"),
 	inverseJoinColumns =
 	@JoinColumn(name = "subzone_id"))
+	@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = CacheRegions.REFERENCE_ENTITIES)
 	public List<ZoneEntity> getZoneList() {
 		return zoneList;
 	}
@@ -0,0 +1,63 @@
+/*
+ * CacheChangeTransport.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service;
+
+import java.util.List;
+
+import com.emergya.persistenceGeo.utils.CacheChange;
+
+/**
+ * Carries the cache changes between the nodes of the cluster. The default
+ * implementation polls a database table; another transport only has to be
+ * declared as the <code>cacheChangeTransport</code> bean.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface CacheChangeTransport {
+
+	/**
+	 * Send a change to the other nodes
+	 * 
+	 * @param change
+	 */
+	public void send(CacheChange change);
+
+	/**
+	 * Changes sent by other nodes and not received yet by this one
+	 * 
+	 * @param node
+	 *            node receiving the changes
+	 * 
+	 * @return changes in the order they were sent, never null
+	 */
+	public List<CacheChange> receive(String node);
+
+}
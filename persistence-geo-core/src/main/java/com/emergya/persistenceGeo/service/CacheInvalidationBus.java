@@ -0,0 +1,67 @@
+/*
+ * CacheInvalidationBus.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service;
+
+import com.emergya.persistenceGeo.utils.CacheEntities;
+
+/**
+ * Publishes the entity changes made by this node and delivers them, and the
+ * ones made by the other nodes of the cluster, to the subscribed listeners
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface CacheInvalidationBus {
+
+	/**
+	 * Publish the change of an entity. It's delivered to the listeners of
+	 * this node when the current transaction commits and sent to the other
+	 * nodes with it.
+	 * 
+	 * @param entityType
+	 *            see {@link CacheEntities}
+	 * @param entityId
+	 *            id of the entity or null if it isn't known
+	 */
+	public void publish(String entityType, Object entityId);
+
+	/**
+	 * Subscribe to the changes made by this and the other nodes
+	 * 
+	 * @param listener
+	 */
+	public void subscribe(CacheChangeListener listener);
+
+	/**
+	 * @return identifier of this node in the cluster
+	 */
+	public String getNodeId();
+
+}
@@ -0,0 +1,92 @@
+/*
+ * CoalescedReadService.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service;
+
+import java.util.List;
+
+import com.emergya.persistenceGeo.dto.FolderDto;
+import com.emergya.persistenceGeo.dto.LayerDto;
+import com.emergya.persistenceGeo.dto.LayerSummary;
+
+/**
+ * Cacheable folder tree and layer list reads of {@link FoldersAdminService}
+ * and {@link LayerAdminService} with the concurrent calls of the same key
+ * coalesced, so a burst of cache misses results in one database load.
+ * 
+ * The calls are coalesced before the transaction of the services is opened:
+ * the waiting callers don't hold a database connection. Use it from code not
+ * running in a transaction, like the controllers.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface CoalescedReadService {
+
+	/**
+	 * @see FoldersAdminService#getRootFolder(Long)
+	 */
+	public FolderDto getRootFolder(Long idUser);
+
+	/**
+	 * @see FoldersAdminService#getRootGroupFolder(Long)
+	 */
+	public FolderDto getRootGroupFolder(Long idGroup);
+
+	/**
+	 * @see LayerAdminService#getLayersByUser(Long)
+	 */
+	public List<LayerDto> getLayersByUser(Long idUser);
+
+	/**
+	 * @see LayerAdminService#getLayersByAuthority(Long)
+	 */
+	public List<LayerDto> getLayersByAuthority(Long id);
+
+	/**
+	 * @see LayerAdminService#getPublicLayers()
+	 */
+	public List<LayerDto> getPublicLayers();
+
+	/**
+	 * @see LayerAdminService#getLayerSummariesByUser(Long)
+	 */
+	public List<LayerSummary> getLayerSummariesByUser(Long idUser);
+
+	/**
+	 * @see LayerAdminService#getLayerSummariesByAuthority(Long)
+	 */
+	public List<LayerSummary> getLayerSummariesByAuthority(Long id);
+
+	/**
+	 * @see LayerAdminService#getPublicLayerSummaries()
+	 */
+	public List<LayerSummary> getPublicLayerSummaries();
+
+}
@@ -0,0 +1,68 @@
+/*
+ * ContentVersionService.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service;
+
+import com.emergya.persistenceGeo.utils.ContentVersion;
+
+/**
+ * Versions of the folders and layers by user and group, changed by every
+ * folder or layer change
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public interface ContentVersionService {
+
+	/**
+	 * Get the current version of a scope
+	 * 
+	 * @param scope
+	 *            {@link ContentVersion#ALL}, a user or a group scope
+	 * 
+	 * @return the version
+	 */
+	public ContentVersion getVersion(String scope);
+
+	/**
+	 * Change the version of a scope and of {@link ContentVersion#ALL} in the
+	 * current transaction
+	 * 
+	 * @param scope
+	 *            user or group scope
+	 */
+	public void changed(String scope);
+
+	/**
+	 * Change the version of every scope in the current transaction. For the
+	 * changes whose user or group isn't known.
+	 */
+	public void changedAll();
+
+}
@@ -29,6 +29,7 @@
  */
 package com.emergya.persistenceGeo.service;
 
+import java.util.Map;
 
 /**
  * Database access service
@@ -51,5 +52,12 @@ public interface DBManagementService {
 	 * @return resultado de la consulta como cadena de texto
 	 */
 	String getTableSizeText(String table_name);
+
+	/**
+	 * Hit, miss and put counts of the hibernate second level and query caches
+	 * 
+	 * @return counters by name, with one entry by cache region
+	 */
+	Map<String, Object> getCacheStatistics();
 	
 }
@@ -33,6 +33,7 @@ import java.util.List;
 
 import com.emergya.persistenceGeo.dto.FolderDto;
 import com.emergya.persistenceGeo.dto.FolderTypeDto;
+import com.emergya.persistenceGeo.utils.RemovedSubtree;
 
 /**
  * Layers Administration Interface 
@@ -73,8 +74,19 @@ public interface FoldersAdminService extends AbstractService{
 	 * Delete all user folders and layers 
 	 * 
 	 * @param userId user's <code>id</code>
+	 * 
+	 * @return ids of the removed folders and layers
+	 */
+	public RemovedSubtree deleteUserContext(Long userId);
+
+	/**
+	 * Delete a folder with all its children and layers
+	 * 
+	 * @param folderId folder's <code>id</code>
+	 * 
+	 * @return ids of the removed folders and layers
 	 */
-	public void deleteUserContext(Long userId);
+	public RemovedSubtree deleteFolder(Long folderId);
 	
 	/**
 	 * Copy user folders and layers 
@@ -176,6 +188,20 @@ public interface FoldersAdminService extends AbstractService{
      * @return Entities list associated with the zoneId or null if not found
      */
     public List<FolderDto> findByZone(Long zoneId, Long parentId, Boolean isEnabled);
+
+    /**
+     * Get the direct children of a folder without their subtrees. Each
+     * folder has <code>hasChildren</code> and <code>layerCount</code>
+     * loaded, everything with a single query.
+     *
+     * @param parentId parent folder
+     * @param isEnabled filter by enabled, can be null
+     * @param first first result, can be null
+     * @param max max results, can be null
+     *
+     * @return children ordered by name
+     */
+    public List<FolderDto> getFolderChildren(Long parentId, Boolean isEnabled, Integer first, Integer max);
     
     /**
 	 * @return List<FolderTypeDto>
@@ -226,5 +252,12 @@ public interface FoldersAdminService extends AbstractService{
 	 * 			Devuelve la lista de todos los folder types que tenga el mismo type id y no tengan padre
 	 */
 	public List<FolderDto> rootFoldersByType(Long typeId);
+
+	/**
+	 * Recalculates the ancestry index (path) of all folders
+	 * 
+	 * @return number of folders updated
+	 */
+	public int rebuildFolderPaths();
     
 }
@@ -29,9 +29,12 @@
  */
 package com.emergya.persistenceGeo.service;
 
+import java.io.OutputStream;
 import java.util.List;
 
 import com.emergya.persistenceGeo.dto.LayerDto;
+import com.emergya.persistenceGeo.dto.LayerSummary;
+import com.emergya.persistenceGeo.utils.ContentInfo;
 
 /**
  * Layers Administration Interface 
@@ -218,4 +221,63 @@ public interface LayerAdminService extends AbstractService {
 	 * @return 
 	 */
 	public List<LayerDto> getUnassignedLayers();
+
+	/**
+	 * Get a layer summaries list by user id. Summaries are loaded in one
+	 * query and don't include styles, properties nor layer data. Summary
+	 * lists are cached and shared by the callers
+	 * 
+	 * @param idUser
+	 * 
+	 * @return list
+	 */
+	public List<LayerSummary> getLayerSummariesByUser(Long idUser);
+
+	/**
+	 * Get a layer summaries list by authority id
+	 * 
+	 * @param id
+	 * 
+	 * @return list
+	 */
+	public List<LayerSummary> getLayerSummariesByAuthority(Long id);
+
+	/**
+	 * Gets summaries of all public layers.
+	 * 
+	 * @return summaries of all stored public layers.
+	 */
+	public List<LayerSummary> getPublicLayerSummaries();
+
+	/**
+	 * Write the layer data stored in database. Data is streamed from the
+	 * database, it isn't loaded in memory nor copied to temporal files
+	 * 
+	 * @param layerId
+	 * @param out
+	 * 
+	 * @return false if the layer hasn't data
+	 */
+	public boolean writeLayerData(Long layerId, OutputStream out);
+
+	/**
+	 * Get the metadata of the layer data without reading it
+	 * 
+	 * @param layerId
+	 * 
+	 * @return data metadata or null if the layer hasn't data
+	 */
+	public ContentInfo getLayerContentInfo(Long layerId);
+
+	/**
+	 * Write a range of the layer data stored in database
+	 * 
+	 * @param layerId
+	 * @param offset first byte to write
+	 * @param length number of bytes to write or a negative value to write until the end
+	 * @param out
+	 * 
+	 * @return false if the layer hasn't data
+	 */
+	public boolean writeLayerData(Long layerId, long offset, long length, OutputStream out);
 }
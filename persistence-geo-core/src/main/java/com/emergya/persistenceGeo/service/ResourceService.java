@@ -29,7 +29,10 @@
  */
 package com.emergya.persistenceGeo.service;
 
+import java.io.OutputStream;
+
 import com.emergya.persistenceGeo.dto.ResourceDto;
+import com.emergya.persistenceGeo.utils.ContentInfo;
 
 /**
  * CRUD service for resources
@@ -54,5 +57,26 @@ public interface ResourceService extends AbstractService{
 	 * @param accessId
 	 */
 	public void removeByAccessId(Long accessId);
+
+	/**
+	 * Get the metadata of the resource data without reading it
+	 * 
+	 * @param accessId
+	 * 
+	 * @return data metadata or null if the resource hasn't data
+	 */
+	public ContentInfo getResourceContentInfo(Long accessId);
+
+	/**
+	 * Write a range of the resource data stored in database
+	 * 
+	 * @param accessId
+	 * @param offset first byte to write
+	 * @param length number of bytes to write or a negative value to write until the end
+	 * @param out
+	 * 
+	 * @return false if the resource hasn't data
+	 */
+	public boolean writeResourceData(Long accessId, long offset, long length, OutputStream out);
 	
 }
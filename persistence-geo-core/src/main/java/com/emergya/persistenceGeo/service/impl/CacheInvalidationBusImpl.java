@@ -0,0 +1,166 @@
+/*
+ * CacheInvalidationBusImpl.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.Resource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.emergya.persistenceGeo.service.CacheChangeListener;
+import com.emergya.persistenceGeo.service.CacheChangeTransport;
+import com.emergya.persistenceGeo.service.CacheInvalidationBus;
+import com.emergya.persistenceGeo.utils.CacheChange;
+
+/**
+ * Cache invalidation bus over a {@link CacheChangeTransport}. The changes of
+ * the other nodes are received every five seconds. The transport is only used
+ * when <code>cache.cluster</code> is true, so single node deployments don't
+ * need it.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@Repository("cacheInvalidationBus")
+public class CacheInvalidationBusImpl implements CacheInvalidationBus {
+
+	private static final Log LOG = LogFactory
+			.getLog(CacheInvalidationBusImpl.class);
+
+	@Resource
+	private CacheChangeTransport cacheChangeTransport;
+
+	private final List<CacheChangeListener> listeners = new CopyOnWriteArrayList<CacheChangeListener>();
+
+	private String nodeId = createNodeId();
+
+	@Value("${cache.cluster:false}")
+	private boolean enabled;
+
+	@Override
+	public void publish(String entityType, Object entityId) {
+		final CacheChange change = new CacheChange(entityType,
+				entityId != null ? entityId.toString() : null, nodeId);
+		if (enabled) {
+			// committed with the change
+			cacheChangeTransport.send(change);
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+						@Override
+						public void afterCommit() {
+							deliver(change);
+						}
+					});
+		} else {
+			deliver(change);
+		}
+	}
+
+	@Override
+	public void subscribe(CacheChangeListener listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	/**
+	 * Deliver the changes made by the other nodes to the listeners
+	 */
+	@Scheduled(fixedDelay = 5000)
+	public void poll() {
+		if (!enabled) {
+			return;
+		}
+		List<CacheChange> changes;
+		try {
+			changes = cacheChangeTransport.receive(nodeId);
+		} catch (RuntimeException e) {
+			LOG.warn("Couldn't receive the cache changes", e);
+			return;
+		}
+		for (CacheChange change : changes) {
+			deliver(change);
+		}
+	}
+
+	/**
+	 * @param nodeId
+	 *            identifier of this node, unique in the cluster. By default
+	 *            the host name followed by a random identifier.
+	 */
+	public void setNodeId(String nodeId) {
+		this.nodeId = nodeId;
+	}
+
+	/**
+	 * @param enabled
+	 *            true to send and receive the changes of the other nodes
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	private void deliver(CacheChange change) {
+		for (CacheChangeListener listener : listeners) {
+			try {
+				listener.onCacheChange(change);
+			} catch (RuntimeException e) {
+				LOG.warn("Couldn't apply the cache change " + change, e);
+			}
+		}
+	}
+
+	private static String createNodeId() {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			host = "localhost";
+		}
+		return host + "-" + UUID.randomUUID().toString();
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * CoalescedReadServiceImpl.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Repository;
+
+import com.emergya.persistenceGeo.dto.FolderDto;
+import com.emergya.persistenceGeo.dto.LayerDto;
+import com.emergya.persistenceGeo.dto.LayerSummary;
+import com.emergya.persistenceGeo.service.CoalescedReadService;
+import com.emergya.persistenceGeo.service.FoldersAdminService;
+import com.emergya.persistenceGeo.service.LayerAdminService;
+import com.emergya.persistenceGeo.utils.SingleFlight;
+
+/**
+ * CoalescedReadService implementation over {@link SingleFlight}. It isn't
+ * transactional on purpose: only the caller running the call opens the
+ * transaction of the service, through its cache.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@Repository("coalescedReadService")
+public class CoalescedReadServiceImpl implements CoalescedReadService {
+
+	@Resource
+	private FoldersAdminService foldersAdminService;
+	@Resource
+	private LayerAdminService layerAdminService;
+	@Resource
+	private SingleFlight singleFlight;
+
+	@Override
+	public FolderDto getRootFolder(final Long idUser) {
+		return singleFlight.execute("rootFolder", idUser,
+				new SingleFlight.Call<FolderDto>() {
+					public FolderDto call() {
+						return foldersAdminService.getRootFolder(idUser);
+					}
+				});
+	}
+
+	@Override
+	public FolderDto getRootGroupFolder(final Long idGroup) {
+		return singleFlight.execute("rootGroupFolder", idGroup,
+				new SingleFlight.Call<FolderDto>() {
+					public FolderDto call() {
+						return foldersAdminService.getRootGroupFolder(idGroup);
+					}
+				});
+	}
+
+	@Override
+	public List<LayerDto> getLayersByUser(final Long idUser) {
+		return singleFlight.execute("userLayers", idUser,
+				new SingleFlight.Call<List<LayerDto>>() {
+					public List<LayerDto> call() {
+						return layerAdminService.getLayersByUser(idUser);
+					}
+				});
+	}
+
+	@Override
+	public List<LayerDto> getLayersByAuthority(final Long id) {
+		return singleFlight.execute("authorityLayers", id,
+				new SingleFlight.Call<List<LayerDto>>() {
+					public List<LayerDto> call() {
+						return layerAdminService.getLayersByAuthority(id);
+					}
+				});
+	}
+
+	@Override
+	public List<LayerDto> getPublicLayers() {
+		return singleFlight.execute("publicLayers", null,
+				new SingleFlight.Call<List<LayerDto>>() {
+					public List<LayerDto> call() {
+						return layerAdminService.getPublicLayers();
+					}
+				});
+	}
+
+	@Override
+	public List<LayerSummary> getLayerSummariesByUser(final Long idUser) {
+		return singleFlight.execute("userLayerSummaries", idUser,
+				new SingleFlight.Call<List<LayerSummary>>() {
+					public List<LayerSummary> call() {
+						return layerAdminService.getLayerSummariesByUser(idUser);
+					}
+				});
+	}
+
+	@Override
+	public List<LayerSummary> getLayerSummariesByAuthority(final Long id) {
+		return singleFlight.execute("authorityLayerSummaries", id,
+				new SingleFlight.Call<List<LayerSummary>>() {
+					public List<LayerSummary> call() {
+						return layerAdminService
+								.getLayerSummariesByAuthority(id);
+					}
+				});
+	}
+
+	@Override
+	public List<LayerSummary> getPublicLayerSummaries() {
+		return singleFlight.execute("publicLayerSummaries", null,
+				new SingleFlight.Call<List<LayerSummary>>() {
+					public List<LayerSummary> call() {
+						return layerAdminService.getPublicLayerSummaries();
+					}
+				});
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * ContentVersionServiceImpl.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.emergya.persistenceGeo.dao.ContentVersionEntityDao;
+import com.emergya.persistenceGeo.model.ContentVersionEntity;
+import com.emergya.persistenceGeo.service.CacheChangeListener;
+import com.emergya.persistenceGeo.service.CacheInvalidationBus;
+import com.emergya.persistenceGeo.service.ContentVersionService;
+import com.emergya.persistenceGeo.utils.CacheChange;
+import com.emergya.persistenceGeo.utils.CacheEntities;
+import com.emergya.persistenceGeo.utils.ContentVersion;
+
+/**
+ * Version counters kept in the database, so every node of the cluster sends
+ * the same version for the same contents. The counters are incremented in
+ * the transaction of the change, so a version is never read with the
+ * contents previous to its change. The changes of every scope are counted by
+ * the {@link #SHARED} row, that is part of every version, and
+ * {@link ContentVersion#ALL} is the sum of all the rows.
+ * 
+ * Every node keeps the versions read in memory, so a conditional request
+ * doesn't touch the database. They are forgotten when a change is
+ * published in the {@link CacheInvalidationBus}: after the commit in this
+ * node and, with <code>cache.cluster=true</code>, when the other nodes
+ * poll it. The versions read inside a transaction aren't kept, because they
+ * can include changes not committed yet.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@Repository("contentVersionService")
+@Transactional
+public class ContentVersionServiceImpl implements ContentVersionService,
+		CacheChangeListener {
+
+	/**
+	 * Scope of the changes of every scope
+	 */
+	static final String SHARED = "*";
+
+	@Resource
+	private ContentVersionEntityDao contentVersionEntityDao;
+
+	@Resource
+	private CacheInvalidationBus cacheInvalidationBus;
+
+	private TransactionTemplate readTransaction;
+	private TransactionTemplate newTransaction;
+
+	private final ConcurrentMap<String, ContentVersionEntity> versions = new ConcurrentHashMap<String, ContentVersionEntity>();
+
+	/** Incremented by every change, so the loads older than it aren't kept */
+	private final AtomicLong changes = new AtomicLong();
+
+	@Autowired
+	public void init(PlatformTransactionManager transactionManager) {
+		readTransaction = new TransactionTemplate(transactionManager);
+		readTransaction.setReadOnly(true);
+		newTransaction = new TransactionTemplate(transactionManager);
+		newTransaction
+				.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	@PostConstruct
+	public void subscribe() {
+		cacheInvalidationBus.subscribe(this);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public ContentVersion getVersion(final String scope) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return toVersion(scope, load(scope));
+		}
+		Map<String, ContentVersionEntity> current = new HashMap<String, ContentVersionEntity>();
+		for (String key : getKeys(scope)) {
+			current.put(key, versions.get(key));
+		}
+		if (current.containsValue(null)) {
+			long loadedAfter = changes.get();
+			current = readTransaction
+					.execute(new TransactionCallback<Map<String, ContentVersionEntity>>() {
+						public Map<String, ContentVersionEntity> doInTransaction(
+								TransactionStatus status) {
+							return load(scope);
+						}
+					});
+			if (changes.get() == loadedAfter) {
+				versions.putAll(current);
+			}
+		}
+		return toVersion(scope, current);
+	}
+
+	@Override
+	public void changed(String scope) {
+		increment(scope);
+		cacheInvalidationBus.publish(CacheEntities.CONTENT_VERSION, scope);
+	}
+
+	@Override
+	public void changedAll() {
+		increment(SHARED);
+		cacheInvalidationBus.publish(CacheEntities.CONTENT_VERSION, SHARED);
+	}
+
+	/**
+	 * Forget the versions changed
+	 */
+	@Override
+	public void onCacheChange(CacheChange change) {
+		if (!CacheEntities.CONTENT_VERSION.equals(change.getEntityType())) {
+			return;
+		}
+		changes.incrementAndGet();
+		if (SHARED.equals(change.getEntityId())
+				|| change.getEntityId() == null) {
+			versions.clear();
+		} else {
+			versions.remove(change.getEntityId());
+			versions.remove(ContentVersion.ALL);
+		}
+	}
+
+	/**
+	 * Read the versions of a scope and of {@link #SHARED}, or the total for
+	 * {@link ContentVersion#ALL}. The scopes without any change get version
+	 * 0.
+	 */
+	private Map<String, ContentVersionEntity> load(String scope) {
+		Map<String, ContentVersionEntity> result = new HashMap<String, ContentVersionEntity>();
+		if (ContentVersion.ALL.equals(scope)) {
+			result.put(scope, contentVersionEntityDao.findTotal());
+		} else {
+			for (ContentVersionEntity entity : contentVersionEntityDao
+					.findByScopes(Arrays.asList(SHARED, scope))) {
+				result.put(entity.getScope(), entity);
+			}
+		}
+		for (String key : getKeys(scope)) {
+			ContentVersionEntity entity = result.get(key);
+			if (entity == null) {
+				entity = new ContentVersionEntity();
+				result.put(key, entity);
+			}
+			if (entity.getVersion() == null) {
+				entity.setVersion(0L);
+			}
+		}
+		return result;
+	}
+
+	private static List<String> getKeys(String scope) {
+		return ContentVersion.ALL.equals(scope) ? Arrays.asList(scope)
+				: Arrays.asList(SHARED, scope);
+	}
+
+	private ContentVersion toVersion(String scope,
+			Map<String, ContentVersionEntity> current) {
+		ContentVersionEntity entity = current.get(scope);
+		long lastModified = 0;
+		String version;
+		if (ContentVersion.ALL.equals(scope)) {
+			// the total already counts the shared changes
+			version = entity.getVersion().toString();
+			lastModified = getTime(entity);
+		} else {
+			ContentVersionEntity shared = current.get(SHARED);
+			version = shared.getVersion() + "-" + entity.getVersion();
+			lastModified = Math.max(getTime(shared), getTime(entity));
+		}
+		return new ContentVersion(version, lastModified);
+	}
+
+	private static long getTime(ContentVersionEntity entity) {
+		return entity.getUpdateDate() != null ? entity.getUpdateDate()
+				.getTime() : 0;
+	}
+
+	/**
+	 * Increment the version of a scope, creating it in its own transaction
+	 * when needed. Another transaction creating it at the same time makes
+	 * the creation fail, but not the change.
+	 */
+	private void increment(final String scope) {
+		Date date = new Date();
+		if (contentVersionEntityDao.increment(scope, date)) {
+			return;
+		}
+		try {
+			newTransaction.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(
+						TransactionStatus status) {
+					contentVersionEntityDao.create(scope);
+				}
+			});
+		} catch (DataIntegrityViolationException e) {
+			// created by a concurrent transaction
+		}
+		if (!contentVersionEntityDao.increment(scope, date)) {
+			throw new IllegalStateException("Couldn't create the version of "
+					+ scope);
+		}
+	}
+
+}
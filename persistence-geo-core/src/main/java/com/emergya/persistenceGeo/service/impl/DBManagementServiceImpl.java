@@ -31,6 +31,7 @@ package com.emergya.persistenceGeo.service.impl;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
@@ -66,4 +67,10 @@ public class DBManagementServiceImpl implements DBManagementService{
 	public String getTableSizeText(String table_name) {
 		return dbManagementDao.getTableSizeText(table_name);
 	}
+
+
+	@Override
+	public Map<String, Object> getCacheStatistics() {
+		return dbManagementDao.getCacheStatistics();
+	}
 }
@@ -0,0 +1,131 @@
+/*
+ * DatabaseCacheChangeTransport.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Resource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.emergya.persistenceGeo.dao.CacheChangeEntityDao;
+import com.emergya.persistenceGeo.model.CacheChangeEntity;
+import com.emergya.persistenceGeo.service.CacheChangeTransport;
+import com.emergya.persistenceGeo.utils.CacheChange;
+
+/**
+ * Transport of the cache changes through the <code>gis_cache_change</code>
+ * table, so it works without any infrastructure besides the database.
+ * 
+ * Every receive reads the changes of the last minutes and skips the ones
+ * already received: the ids of the changes aren't committed in order, and the
+ * window covers the transactions still open and the clock differences between
+ * the nodes.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@Repository("cacheChangeTransport")
+@Transactional
+public class DatabaseCacheChangeTransport implements CacheChangeTransport {
+
+	@Resource
+	private CacheChangeEntityDao cacheChangeEntityDao;
+
+	private long windowMillis = 300000;
+	private long retentionMillis = 3600000;
+
+	private final Map<Long, Date> received = new HashMap<Long, Date>();
+
+	@Override
+	public void send(CacheChange change) {
+		CacheChangeEntity entity = new CacheChangeEntity();
+		entity.setEntityType(change.getEntityType());
+		entity.setEntityId(change.getEntityId());
+		entity.setNode(change.getNode());
+		entity.setCreateDate(new Date());
+		cacheChangeEntityDao.makePersistent(entity);
+	}
+
+	@Override
+	public synchronized List<CacheChange> receive(String node) {
+		Date since = new Date(System.currentTimeMillis() - windowMillis);
+		List<CacheChange> changes = new LinkedList<CacheChange>();
+		for (CacheChangeEntity entity : cacheChangeEntityDao.findSince(since,
+				node)) {
+			if (received.put(entity.getId(), entity.getCreateDate()) == null) {
+				changes.add(new CacheChange(entity.getEntityType(), entity
+						.getEntityId(), entity.getNode()));
+			}
+		}
+		// changes out of the window won't be read again
+		Iterator<Date> dates = received.values().iterator();
+		while (dates.hasNext()) {
+			if (dates.next().before(since)) {
+				dates.remove();
+			}
+		}
+		return changes;
+	}
+
+	/**
+	 * Delete the changes that every node has already received
+	 */
+	@Scheduled(fixedDelay = 600000)
+	public void purge() {
+		cacheChangeEntityDao.deleteBefore(new Date(System.currentTimeMillis()
+				- Math.max(retentionMillis, windowMillis)));
+	}
+
+	/**
+	 * @param windowMillis
+	 *            age of the changes read by every receive. Five minutes by
+	 *            default.
+	 */
+	public void setWindowMillis(long windowMillis) {
+		this.windowMillis = windowMillis;
+	}
+
+	/**
+	 * @param retentionMillis
+	 *            age of the changes deleted by the purge. One hour by default.
+	 */
+	public void setRetentionMillis(long retentionMillis) {
+		this.retentionMillis = retentionMillis;
+	}
+
+}
@@ -30,8 +30,11 @@
 package com.emergya.persistenceGeo.service.impl;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
@@ -42,6 +45,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.emergya.persistenceGeo.dao.AbstractGenericDao;
 import com.emergya.persistenceGeo.dao.AuthorityEntityDao;
 import com.emergya.persistenceGeo.dao.FolderEntityDao;
+import com.emergya.persistenceGeo.dao.FolderTreeBulkDao;
 import com.emergya.persistenceGeo.dao.FolderTypeEntityDao;
 import com.emergya.persistenceGeo.dao.GenericDAO;
 import com.emergya.persistenceGeo.dao.LayerEntityDao;
@@ -54,14 +58,31 @@ import com.emergya.persistenceGeo.metaModel.AbstractFolderTypeEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractLayerEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractUserEntity;
 import com.emergya.persistenceGeo.metaModel.Instancer;
+import com.emergya.persistenceGeo.service.CacheInvalidationBus;
+import com.emergya.persistenceGeo.service.CoalescedReadService;
+import com.emergya.persistenceGeo.service.ContentVersionService;
 import com.emergya.persistenceGeo.service.FoldersAdminService;
 import com.emergya.persistenceGeo.service.LayerAdminService;
+import com.emergya.persistenceGeo.utils.CacheEntities;
+import com.emergya.persistenceGeo.utils.CacheRegions;
+import com.emergya.persistenceGeo.utils.ContentVersion;
+import com.emergya.persistenceGeo.utils.FolderTreeEntry;
+import com.emergya.persistenceGeo.utils.RemovedSubtree;
 import org.apache.commons.lang3.BooleanUtils;
 
 /**
  * FoldersAdminService transactional implementation based on daos uses
  * {@link AbstractGenericDao}
  * 
+ * Root folder trees and the folder lists read by the tree and channel
+ * endpoints are cached in {@link CacheRegions#FOLDER_TREES}. Every change of
+ * folders is published in the {@link CacheInvalidationBus} as a change of
+ * the contents of their user or group, or of the folder when it isn't known,
+ * and changes the {@link ContentVersion} of that user, group or everyone.
+ * 
+ * Concurrent misses are coalesced in front of the transaction by
+ * {@link CoalescedReadService}.
+ * 
  * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
  * 
  */
@@ -85,22 +106,30 @@ public class FoldersAdminServiceImpl extends
 	private ZoneEntityDao zoneDao;
 	@Resource
 	private FolderTypeEntityDao folderTypeDao;
+	@Resource
+	private FolderTreeBulkDao folderTreeBulkDao;
 
 	@Resource
 	private LayerAdminService layerAdminService;
 
+	@Resource
+	private ContentVersionService contentVersionService;
+
+	@Resource
+	private CacheInvalidationBus cacheInvalidationBus;
+
 	public FoldersAdminServiceImpl() {
 		super();
 	}
 
 	@Override
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.FOLDER_TREES, key = "'user:' + #idUser")
 	public FolderDto getRootFolder(Long idUser) {
 		return entityToDto(folderDao.findRootByUser(idUser));
 	}
 
 	@Override
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.FOLDER_TREES, key = "'group:' + #idGroup")
 	public FolderDto getRootGroupFolder(Long idGroup) {
 		return entityToDto(folderDao.findRootByGroup(idGroup));
 	}
@@ -112,6 +141,7 @@ public class FoldersAdminServiceImpl extends
 	 */
         @Override
 	public FolderDto saveFolder(FolderDto folder) {
+		folderChanged(folder);
 		AbstractFolderEntity entity = dtoToEntity(folder);
 		return entityToDto(folderDao.makePersistent(entity));
 	}
@@ -121,26 +151,43 @@ public class FoldersAdminServiceImpl extends
 	 */
 	@Override
 	public void delete(Serializable dto) {
-		FolderDto folder = (FolderDto) dto;
+		deleteFolder(((FolderDto) dto).getId());
+	}
 
-		// Cascade remove
-		if (folder.getFolderList() != null) {
-			// children remove
-			for (FolderDto child : folder.getFolderList()) {
-				delete(child);
-			}
-		}
+	@Override
+	public Serializable create(Serializable dto) {
+		folderChanged((FolderDto) dto);
+		return super.create(dto);
+	}
 
-		// Remove layers
-		List<AbstractLayerEntity> layers = layerDao.getLayersByFolder(folder
-				.getId());
-		if (layers != null) {			
-                    for (AbstractLayerEntity layer : layers) {
-                            layerDao.makeTransient(layer);
-                    }
-		}
+	@Override
+	public Serializable update(Serializable dto) {
+		// the user and group before and after the update
+		changed(((FolderDto) dto).getId());
+		Serializable updated = super.update(dto);
+		changed(((FolderDto) dto).getId());
+		return updated;
+	}
 
-		super.delete(dto);
+	/**
+	 * Delete a folder with all its children and layers with set based
+	 * statements
+	 * 
+	 * @param folderId
+	 *            folder's <code>id</code>
+	 * 
+	 * @return ids of the removed folders and layers
+	 */
+	@Override
+	public RemovedSubtree deleteFolder(Long folderId) {
+		changed(folderId);
+		return folderTreeBulkDao.deleteSubtree(folderId);
+	}
+
+	@Override
+	public int rebuildFolderPaths() {
+		changed(null);
+		return folderDao.rebuildPaths();
 	}
 
 	/**
@@ -158,12 +205,16 @@ public class FoldersAdminServiceImpl extends
         @Override
 	public FolderDto copyUserContext(Long originUserId, Long targetUserId,
 			boolean merge) {
-		FolderDto toCopy = getRootFolder(originUserId);
+		userChanged(targetUserId);
+		AbstractFolderEntity toCopy = folderDao.findRootByUser(originUserId);
 		if (!merge) {
 			deleteUserContext(targetUserId);
 		}
+		if (toCopy == null) {
+			return null;
+		}
 		// copy root folder
-		return copyFolder(targetUserId, toCopy);
+		return copyFolder(targetUserId, toCopy.getId(), null);
 	}
 
 	/**
@@ -171,14 +222,20 @@ public class FoldersAdminServiceImpl extends
 	 * 
 	 * @param userId
 	 *            user's <code>id</code>
+	 * 
+	 * @return ids of the removed folders and layers
 	 */
         @Override
-	public void deleteUserContext(Long userId) {
-		FolderDto rootFolder = getRootFolder(userId);
+	public RemovedSubtree deleteUserContext(Long userId) {
+		userChanged(userId);
+		RemovedSubtree removed = new RemovedSubtree();
+		AbstractFolderEntity rootFolder = folderDao.findRootByUser(userId);
 		while (rootFolder != null) {
-			delete(rootFolder);
-			rootFolder = getRootFolder(userId);
+			// only the contents of the user change
+			removed.add(folderTreeBulkDao.deleteSubtree(rootFolder.getId()));
+			rootFolder = folderDao.findRootByUser(userId);
 		}
+		return removed;
 	}
 
 	/**
@@ -191,6 +248,7 @@ public class FoldersAdminServiceImpl extends
 	 */
         @Override
 	public FolderDto copyFolder(Long targetUserId, FolderDto originFolder) {
+		userChanged(targetUserId);
 		return copyFolder(targetUserId, originFolder, null);
 	}
 
@@ -205,49 +263,108 @@ public class FoldersAdminServiceImpl extends
 	 */
 	public FolderDto copyFolder(Long targetUserId, FolderDto originFolder,
 			Long idParent) {
-		try {
-			FolderDto result = (FolderDto) originFolder.clone();
-			result.setIdUser(targetUserId);
-			result.setIdAuth(null);
-			result.setIdParent(idParent);
-			result = saveFolder(result);
-
-			// Cascade copy
-			if (originFolder.getFolderList() != null) {
-				List<FolderDto> children = new LinkedList<FolderDto>();
-				// children copy
-				for (FolderDto child : originFolder.getFolderList()) {
-					children.add(copyFolder(targetUserId, child, result.getId()));
-				}
-				result.setFolderList(children);
-			}
+		if (idParent == null) {
+			userChanged(targetUserId);
+		} else {
+			// the parent can belong to another user or group
+			changed(idParent);
+		}
+		return copyFolder(targetUserId, originFolder.getId(), idParent);
+	}
 
-			// Copy layers
-			List<AbstractLayerEntity> layers = layerDao
-					.getLayersByFolder(originFolder.getId());
-			if (layers != null) {
-				AbstractUserEntity user = userDao.findById(targetUserId, false);
-				AbstractFolderEntity folder = folderDao.findById(
-						result.getId(), false);
-				
-                                // layers copy
-                                for (AbstractLayerEntity layer : layers) {
-                                        AbstractLayerEntity clonedLayer = (AbstractLayerEntity) layer
-                                                        .clone();
-                                        clonedLayer.setUser(user);
-                                        clonedLayer.setFolder(folder);
-                                        layerDao.save(clonedLayer);
-                                }
-			}
+	/**
+	 * Publish the change of the contents of the user or group of a new
+	 * folder, or of the folder when it already exists
+	 * 
+	 * @param folder
+	 */
+	private void folderChanged(FolderDto folder) {
+		if (folder.getId() != null
+				|| (folder.getIdUser() == null && folder.getIdAuth() == null)) {
+			changed(folder.getId());
+			return;
+		}
+		if (folder.getIdUser() != null) {
+			userChanged(folder.getIdUser());
+		}
+		if (folder.getIdAuth() != null) {
+			groupChanged(folder.getIdAuth());
+		}
+	}
 
-			return entityToDto(folderDao.findById(result.getId(), false));
+	/**
+	 * Publish the change of the contents of a group
+	 * 
+	 * @param groupId
+	 */
+	private void groupChanged(Long groupId) {
+		contentVersionService.changed(ContentVersion.groupScope(groupId));
+		cacheInvalidationBus.publish(CacheEntities.GROUP_CONTENTS, groupId);
+	}
 
-		} catch (Exception e) {
-			e.printStackTrace();
-			return null;
+	/**
+	 * Publish the change of the contents of a user, or of everyone when it
+	 * isn't found
+	 * 
+	 * @param userId
+	 */
+	private void userChanged(Long userId) {
+		AbstractUserEntity user = userDao.findById(userId, false);
+		if (user != null) {
+			contentVersionService.changed(ContentVersion.userScope(user
+					.getUsername()));
+			cacheInvalidationBus.publish(CacheEntities.USER_CONTENTS, userId);
+		} else {
+			changed(null);
 		}
 	}
 
+	/**
+	 * Publish the change of the contents of the user and group of a folder,
+	 * or of every content when it hasn't got any of them or it isn't known
+	 * 
+	 * @param folderId
+	 *            folder changed or null
+	 */
+	private void changed(Long folderId) {
+		AbstractFolderEntity folder = folderId != null ? folderDao.findById(
+				folderId, false) : null;
+		if (folder == null
+				|| (folder.getUser() == null && folder.getAuthority() == null)) {
+			contentVersionService.changedAll();
+			cacheInvalidationBus.publish(CacheEntities.FOLDER, folderId);
+			return;
+		}
+		if (folder.getUser() != null) {
+			contentVersionService.changed(ContentVersion.userScope(folder
+					.getUser().getUsername()));
+			cacheInvalidationBus.publish(CacheEntities.USER_CONTENTS, folder
+					.getUser().getId());
+		}
+		if (folder.getAuthority() != null) {
+			groupChanged(folder.getAuthority().getId());
+		}
+	}
+
+	/**
+	 * Copy folder, its descendants and their layers to an user with one
+	 * statement by table
+	 * 
+	 * @param targetUserId
+	 * @param originFolderId
+	 * @param idParent
+	 * 
+	 * @return copied
+	 */
+	private FolderDto copyFolder(Long targetUserId, Long originFolderId,
+			Long idParent) {
+		// errors are propagated to roll back the partial copy
+		Long copiedId = folderTreeBulkDao.copySubtree(originFolderId,
+				targetUserId, idParent);
+		return copiedId != null ? entityToDto(folderDao.findById(copiedId,
+				false)) : null;
+	}
+
 	/**
 	 * Get all channel folders filterd
 	 * 
@@ -321,6 +438,7 @@ public class FoldersAdminServiceImpl extends
 	 */
 	@SuppressWarnings("unchecked")
         @Override
+	@Cacheable(value = CacheRegions.FOLDER_TREES, key = "'channels:' + #inZone + ':' + #idZone + ':' + #isEnabled")
 	public List<FolderDto> getChannelFolders(Boolean inZone, Long idZone,
 			Boolean isEnabled) {
 		return (List<FolderDto>) entitiesToDtos(folderDao.getChannelFolders(
@@ -339,6 +457,7 @@ public class FoldersAdminServiceImpl extends
 	 */
 	@SuppressWarnings("unchecked")
         @Override
+	@Cacheable(value = CacheRegions.FOLDER_TREES, key = "'channelsByType:' + #inZone + ':' + #idZone + ':' + #isEnabled + ':' + #folderType")
 	public List<FolderDto> getChannelFolders(Boolean inZone, Long idZone, Boolean isEnabled, Long folderType){
 		return (List<FolderDto>) entitiesToDtos(folderDao.getChannelFolders(
 				inZone, idZone, isEnabled, folderType));
@@ -355,6 +474,7 @@ public class FoldersAdminServiceImpl extends
 	 */
 	@SuppressWarnings("unchecked")
         @Override
+	@Cacheable(value = CacheRegions.FOLDER_TREES, key = "'zone:' + #zoneId + ':' + #isEnabled")
 	public List<FolderDto> findByZone(Long zoneId, Boolean isEnabled) {
 		return (List<FolderDto>) entitiesToDtos(folderDao.findByZone(zoneId,
 				isEnabled));
@@ -373,78 +493,132 @@ public class FoldersAdminServiceImpl extends
 	 */
 	@SuppressWarnings("unchecked")
         @Override
+	@Cacheable(value = CacheRegions.FOLDER_TREES, key = "'zoneChildren:' + #zoneId + ':' + #parentId + ':' + #isEnabled")
 	public List<FolderDto> findByZone(Long zoneId, Long parentId,
 			Boolean isEnabled) {
 		return (List<FolderDto>) entitiesToDtos(folderDao.findByZone(zoneId,
 				parentId, isEnabled));
 	}
 
+	@Override
+	public List<FolderDto> getFolderChildren(Long parentId, Boolean isEnabled,
+			Integer first, Integer max) {
+		List<FolderDto> children = new LinkedList<FolderDto>();
+		for (FolderTreeEntry entry : folderDao.getChildren(parentId,
+				isEnabled, first, max)) {
+			FolderDto dto = copyFolderFields(entry.getFolder());
+			dto.setHasChildren(entry.hasChildren());
+			dto.setLayerCount(entry.getLayerCount());
+			setIsChannel(dto, entry.hasChildren(), entry.getLayerCount());
+			children.add(dto);
+		}
+		return children;
+	}
+
         @Override
 	protected FolderDto entityToDto(AbstractFolderEntity entity) {
 		FolderDto dto = null;
 		if (entity != null) {
-			dto = new FolderDto();
-			dto.setEnabled(entity.getEnabled());
-			dto.setIsChannel(entity.getIsChannel());
-			dto.setUpdateDate(entity.getUpdateDate());
-			dto.setCreateDate(entity.getCreateDate());
-			dto.setId(entity.getId());
-			dto.setName(entity.getName());
-			dto.setOrder(entity.getFolderOrder());
-
-			// Children
-			List<AbstractFolderEntity> children = folderDao.getFolders(entity
-					.getId());
-			if (children != null && !children.isEmpty()) {
-				dto.setIsChannel(false);
-				List<FolderDto> subFolders = new LinkedList<FolderDto>();
-				for (AbstractFolderEntity child : children) {
-					// Recursive case
-					subFolders.add(entityToDto(child));
-				}
-				dto.setFolderList(subFolders);
+			List<FolderTreeEntry> subtree = entity.getId() != null ? folderDao
+					.getFolderSubtree(entity.getId()) : null;
+			if (subtree == null || subtree.isEmpty()) {
+				// not persisted: nothing to load
+				dto = copyFolderFields(entity);
 			} else {
-				// only is channel if have layers
-				List<AbstractLayerEntity> layers = layerDao
-						.getLayersByFolder(entity.getId());
-				if (layers != null && !layers.isEmpty()) {
-					dto.setIsChannel(true);
-				} else {
-					if (entity.getIsChannel() != null && entity.getIsChannel()) {
-						dto.setIsChannel(entity.getIsChannel());
-					} else {
-						dto.setIsChannel(false);
-					}
-				}
+				dto = subtreeToDto(entity.getId(), subtree);
 			}
+		}
+		return dto;
+	}
 
-			// Parent
-			if (entity.getParent() != null
-					&& entity.getParent().getId() != null) {
-				dto.setIdParent(entity.getParent().getId());
-			}
+	/**
+	 * Builds the folder dto graph of a subtree loaded with
+	 * {@link FolderEntityDao#getFolderSubtree(Long)} without more queries
+	 * 
+	 * @param rootId
+	 * @param subtree
+	 * 
+	 * @return root folder dto with all children
+	 */
+	private FolderDto subtreeToDto(Long rootId, List<FolderTreeEntry> subtree) {
+		Map<Long, FolderDto> dtos = new LinkedHashMap<Long, FolderDto>();
+		Map<Long, Long> layerCounts = new HashMap<Long, Long>();
+		for (FolderTreeEntry entry : subtree) {
+			dtos.put(entry.getId(), copyFolderFields(entry.getFolder()));
+			layerCounts.put(entry.getId(), entry.getLayerCount());
+		}
 
-			// Auth
-			if (entity.getAuthority() != null
-					&& entity.getAuthority().getId() != null) {
-				dto.setIdAuth(entity.getAuthority().getId());
+		// Children (entries are sorted by name)
+		for (FolderTreeEntry entry : subtree) {
+			FolderDto parent = dtos.get(entry.getParentId());
+			if (!rootId.equals(entry.getId()) && parent != null) {
+				if (parent.getFolderList() == null) {
+					parent.setFolderList(new LinkedList<FolderDto>());
+				}
+				parent.getFolderList().add(dtos.get(entry.getId()));
 			}
+		}
 
-			// User
-			if (entity.getUser() != null && entity.getUser().getId() != null) {
-				dto.setIdUser((Long) entity.getUser().getId());
-			}
+		for (FolderDto dto : dtos.values()) {
+			setIsChannel(dto, dto.getFolderList() != null
+					&& !dto.getFolderList().isEmpty(),
+					layerCounts.get(dto.getId()));
+		}
 
-			// Zone
-			if (entity.getZone() != null && entity.getZone().getId() != null) {
-				dto.setZoneId((Long) entity.getZone().getId());
-			}
+		return dtos.get(rootId);
+	}
 
-			// Folder Type
-			if (entity.getFolderType() != null
-					&& entity.getFolderType().getId() != null) {
-				dto.setIdFolderType(entity.getFolderType().getId());
-			}
+	/**
+	 * A folder with children is never a channel and a folder with layers is
+	 * always a channel
+	 */
+	private void setIsChannel(FolderDto dto, boolean hasChildren,
+			long layerCount) {
+		if (hasChildren) {
+			dto.setIsChannel(false);
+		} else if (layerCount > 0) {
+			// only is channel if have layers
+			dto.setIsChannel(true);
+		} else {
+			dto.setIsChannel(BooleanUtils.isTrue(dto.getIsChannel()));
+		}
+	}
+
+	private FolderDto copyFolderFields(AbstractFolderEntity entity) {
+		FolderDto dto = new FolderDto();
+		dto.setEnabled(entity.getEnabled());
+		dto.setIsChannel(entity.getIsChannel());
+		dto.setUpdateDate(entity.getUpdateDate());
+		dto.setCreateDate(entity.getCreateDate());
+		dto.setId(entity.getId());
+		dto.setName(entity.getName());
+		dto.setOrder(entity.getFolderOrder());
+
+		// Parent
+		if (entity.getParent() != null && entity.getParent().getId() != null) {
+			dto.setIdParent(entity.getParent().getId());
+		}
+
+		// Auth
+		if (entity.getAuthority() != null
+				&& entity.getAuthority().getId() != null) {
+			dto.setIdAuth(entity.getAuthority().getId());
+		}
+
+		// User
+		if (entity.getUser() != null && entity.getUser().getId() != null) {
+			dto.setIdUser((Long) entity.getUser().getId());
+		}
+
+		// Zone
+		if (entity.getZone() != null && entity.getZone().getId() != null) {
+			dto.setZoneId((Long) entity.getZone().getId());
+		}
+
+		// Folder Type
+		if (entity.getFolderType() != null
+				&& entity.getFolderType().getId() != null) {
+			dto.setIdFolderType(entity.getFolderType().getId());
 		}
 		return dto;
 	}
@@ -564,6 +738,7 @@ public class FoldersAdminServiceImpl extends
 	}
 
         @Override
+	@Cacheable(value = CacheRegions.FOLDER_TREES, key = "'type:' + #typeId")
 	public List<FolderDto> findFoldersByType(Long typeId) {
 		List<FolderDto> dtoList = new LinkedList<FolderDto>();
 		List<AbstractFolderEntity> dtoTemp;
@@ -612,6 +787,7 @@ public class FoldersAdminServiceImpl extends
 	 * 			Devuelve la lista de todos los folder types que tenga el mismo type id y no tengan padre
 	 */
         @Override
+	@Cacheable(value = CacheRegions.FOLDER_TREES, key = "'roots:' + #typeId")
 	public List<FolderDto> rootFoldersByType(Long typeId){
 
 		List<FolderDto> dtoList = new LinkedList<FolderDto>();
@@ -632,6 +808,7 @@ public class FoldersAdminServiceImpl extends
 	 * @return 
 	 */
 	@Override
+	@Cacheable(value = CacheRegions.FOLDER_TREES, key = "'roots'")
 	public List<FolderDto> rootFolders() {
 	    List<FolderDto> dtoList = new LinkedList<FolderDto>();
 	    
@@ -0,0 +1,177 @@
+/*
+ * ImportJobAdminServiceImpl.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.emergya.persistenceGeo.dao.GenericDAO;
+import com.emergya.persistenceGeo.dao.ImportJobEntityDao;
+import com.emergya.persistenceGeo.dto.ImportJobDto;
+import com.emergya.persistenceGeo.metaModel.AbstractImportJobEntity;
+import com.emergya.persistenceGeo.model.ImportJobEntity;
+import com.emergya.persistenceGeo.service.ImportJobAdminService;
+
+/**
+ * Transactional implementation of {@link ImportJobAdminService}
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@Repository
+@Transactional
+public class ImportJobAdminServiceImpl extends
+		AbstractServiceImpl<ImportJobDto, AbstractImportJobEntity> implements
+		ImportJobAdminService {
+
+	@Resource
+	private ImportJobEntityDao importJobDao;
+
+	@Override
+	protected GenericDAO<AbstractImportJobEntity, Long> getDao() {
+		return importJobDao;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<ImportJobDto> findByStatus(String... status) {
+		return (List<ImportJobDto>) entitiesToDtos(importJobDao
+				.findByStatus(status));
+	}
+
+	@Override
+	public boolean changeStatus(Long id, String expectedStatus,
+			String status, String message) {
+		return importJobDao.changeStatus(id, expectedStatus, status, message);
+	}
+
+	@Override
+	public void updateProgress(Long id, Long done, Long total) {
+		importJobDao.updateProgress(id, done, total);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<ImportJobDto> findQueued(String node) {
+		return (List<ImportJobDto>) entitiesToDtos(importJobDao
+				.findQueued(node));
+	}
+
+	@Override
+	public boolean claim(Long id, String node) {
+		return importJobDao.claim(id, node);
+	}
+
+	@Override
+	public int renewLeases(String node, Collection<Long> ids) {
+		return importJobDao.renewLeases(node, ids);
+	}
+
+	@Override
+	public int expireLeases(Date heartbeatBefore, String status,
+			String message, String... types) {
+		return importJobDao.expireLeases(heartbeatBefore, status, message,
+				types);
+	}
+
+	@Override
+	public boolean requestCancel(Long id) {
+		return importJobDao.requestCancel(id);
+	}
+
+	@Override
+	public List<Long> findCancelRequested(String node) {
+		return importJobDao.findCancelRequested(node);
+	}
+
+	@Override
+	protected ImportJobDto entityToDto(AbstractImportJobEntity entity) {
+		ImportJobDto dto = null;
+		if (entity != null) {
+			dto = new ImportJobDto();
+			dto.setId((Long) entity.getId());
+			dto.setType(entity.getType());
+			dto.setStatus(entity.getStatus());
+			dto.setSourcePath(entity.getSourcePath());
+			dto.setTargetName(entity.getTargetName());
+			dto.setWorkspaceName(entity.getWorkspaceName());
+			dto.setCrs(entity.getCrs());
+			dto.setDropExisting(entity.getDropExisting());
+			dto.setOwner(entity.getOwner());
+			dto.setTotal(entity.getTotal());
+			dto.setDone(entity.getDone());
+			dto.setMessage(entity.getMessage());
+			dto.setCreateDate(entity.getCreateDate());
+			dto.setStartDate(entity.getStartDate());
+			dto.setEndDate(entity.getEndDate());
+			dto.setNode(entity.getNode());
+			dto.setHeartbeat(entity.getHeartbeat());
+			dto.setCancelRequested(entity.getCancelRequested());
+		}
+		return dto;
+	}
+
+	@Override
+	protected AbstractImportJobEntity dtoToEntity(ImportJobDto dto) {
+		AbstractImportJobEntity entity = null;
+		if (dto != null) {
+			if (dto.getId() != null) {
+				entity = importJobDao.findById(dto.getId(), false);
+			} else {
+				entity = new ImportJobEntity();
+			}
+			entity.setType(dto.getType());
+			entity.setStatus(dto.getStatus());
+			entity.setSourcePath(dto.getSourcePath());
+			entity.setTargetName(dto.getTargetName());
+			entity.setWorkspaceName(dto.getWorkspaceName());
+			entity.setCrs(dto.getCrs());
+			entity.setDropExisting(dto.getDropExisting());
+			entity.setOwner(dto.getOwner());
+			entity.setTotal(dto.getTotal());
+			entity.setDone(dto.getDone());
+			entity.setMessage(dto.getMessage());
+			entity.setCreateDate(dto.getCreateDate());
+			entity.setStartDate(dto.getStartDate());
+			entity.setEndDate(dto.getEndDate());
+			entity.setNode(dto.getNode());
+			entity.setHeartbeat(dto.getHeartbeat());
+			entity.setCancelRequested(dto.getCancelRequested());
+		}
+		return entity;
+	}
+
+}
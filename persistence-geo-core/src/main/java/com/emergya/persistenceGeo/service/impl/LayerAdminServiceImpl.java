@@ -29,7 +29,8 @@
  */
 package com.emergya.persistenceGeo.service.impl;
 
-import java.io.File;
+import java.io.OutputStream;
+import java.io.Serializable;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -38,15 +39,18 @@ import java.util.Map;
 
 import javax.annotation.Resource;
 
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.emergya.persistenceGeo.dao.AbstractGenericDao;
 import com.emergya.persistenceGeo.dao.AuthorityEntityDao;
+import com.emergya.persistenceGeo.dao.ContentEntityDao;
 import com.emergya.persistenceGeo.dao.FolderEntityDao;
 import com.emergya.persistenceGeo.dao.GenericDAO;
+import com.emergya.persistenceGeo.dao.LayerBatchDao;
 import com.emergya.persistenceGeo.dao.LayerEntityDao;
 import com.emergya.persistenceGeo.dao.LayerTypeEntityDao;
 import com.emergya.persistenceGeo.dao.RuleEntityDao;
@@ -54,9 +58,11 @@ import com.emergya.persistenceGeo.dao.StyleEntityDao;
 import com.emergya.persistenceGeo.dao.UserEntityDao;
 import com.emergya.persistenceGeo.dto.FolderDto;
 import com.emergya.persistenceGeo.dto.LayerDto;
+import com.emergya.persistenceGeo.dto.LayerSummary;
 import com.emergya.persistenceGeo.dto.RuleDto;
 import com.emergya.persistenceGeo.dto.StyleDto;
 import com.emergya.persistenceGeo.metaModel.AbstractAuthorityEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractContentEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractFolderEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractLayerEntity;
@@ -70,12 +76,28 @@ import com.emergya.persistenceGeo.metaModel.AbstractUserEntity;
 import com.emergya.persistenceGeo.metaModel.Instancer;
 import com.emergya.persistenceGeo.model.LayerEntity;
 import com.emergya.persistenceGeo.model.LayerTypeEntity;
+import com.emergya.persistenceGeo.service.CacheInvalidationBus;
+import com.emergya.persistenceGeo.service.CoalescedReadService;
+import com.emergya.persistenceGeo.service.ContentVersionService;
 import com.emergya.persistenceGeo.service.LayerAdminService;
+import com.emergya.persistenceGeo.utils.CacheEntities;
+import com.emergya.persistenceGeo.utils.CacheRegions;
+import com.emergya.persistenceGeo.utils.ContentInfo;
+import com.emergya.persistenceGeo.utils.ContentVersion;
+import com.emergya.persistenceGeo.utils.LayerGraph;
 
 /**
  * LayerAdminService transactional implementation based on daos uses
  * {@link AbstractGenericDao}
  * 
+ * Layer lists are cached in {@link CacheRegions#LAYER_LISTS} and layer types
+ * in {@link CacheRegions#LAYER_TYPES}. Every change of layers is published
+ * in the {@link CacheInvalidationBus} as a change of the contents of their
+ * user and group, or of the layer when it hasn't got any, which evicts their
+ * layer lists and folder trees.
+ * Concurrent misses are coalesced in front of the transaction by
+ * {@link CoalescedReadService}.
+ * 
  * @author <a href="mailto:marcos@emergya.com">marcos</a>
  * 
  */
@@ -85,6 +107,8 @@ import com.emergya.persistenceGeo.service.LayerAdminService;
 public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, AbstractLayerEntity>
 		implements LayerAdminService {
 
+	private static final Log LOG = LogFactory.getLog(LayerAdminServiceImpl.class);
+
 	@Resource
 	private Instancer instancer;
 	@Resource
@@ -101,6 +125,14 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	private AuthorityEntityDao authDao;
 	@Resource
 	private FolderEntityDao folderDao;
+	@Resource
+	private LayerBatchDao layerBatchDao;
+	@Resource
+	private ContentEntityDao contentDao;
+	@Resource
+	private ContentVersionService contentVersionService;
+	@Resource
+	private CacheInvalidationBus cacheInvalidationBus;
 	
 	public LayerAdminServiceImpl(){
 		super();
@@ -113,7 +145,7 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	 * 
 	 * @return If not found, it's created
 	 */
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.LAYER_LISTS, key = "'name:' + #layerName")
 	public List<LayerDto> getLayersByName(String layerName) {
 		List<LayerDto> layersDto = new LinkedList<LayerDto>();
 		LayerDto dto = null;
@@ -135,7 +167,7 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	 * 
 	 * @return If not found, it's created
 	 */
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.LAYER_LISTS, key = "'names:' + #namesList")
 	public List<LayerDto> getLayersByName(List<String> namesList) {
 		List<LayerDto> layersDto = new LinkedList<LayerDto>();
 		for(String name: namesList){
@@ -152,6 +184,9 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	 * 
 	 */
 	public void addRuleToStyleLayer(Long styleID, Long ruleID) {
+		contentVersionService.changedAll();
+		// the layers of the style aren't known
+		cacheInvalidationBus.publish(CacheEntities.LAYER, null);
 		AbstractStyleEntity styleEntity = styleDao.findById(styleID, false);
 		List<AbstractRuleEntity> rules = styleEntity.getRuleList();
 		if(rules == null){
@@ -179,6 +214,7 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	 * 
 	 */
 	public void addStyleToLayer(Long layerID, Long styleID) {
+		layerChanged(layerID);
 		AbstractLayerEntity layerEntity = layerDao.findById(layerID, false);
 		AbstractStyleEntity style = styleDao.findById(styleID, false);
 		layerEntity.setStyleList(addToList(layerEntity.getStyleList(), style));
@@ -193,6 +229,8 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	 * 
 	 */
 	public void addAuthoritiesToLayer(Long auth_id, Long layer_id) {
+		layerChanged(layer_id);
+		groupChanged(auth_id);
 		AbstractLayerEntity entity = layerDao.findById(layer_id, false);
 		AbstractAuthorityEntity authority = entity.getAuth();
 		if(authority == null){
@@ -217,8 +255,10 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	 * 
 	 */
 	public void addUserToLayer(Long user_id, Long layer_id) {
+		layerChanged(layer_id);
 		AbstractLayerEntity entity = layerDao.findById(layer_id, false);
 		AbstractUserEntity user = userDao.findById(user_id, false);
+		ownerChanged(user, null, CacheEntities.USER_CONTENTS, user_id);
 		entity.setUser(user);
 		layerDao.save(entity);
 	}
@@ -231,8 +271,13 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	 * 
 	 */
 	public void addFolderToLayer(Long folder_id, Long layer_id){
+		layerChanged(layer_id);
 		AbstractLayerEntity entity = layerDao.findById(layer_id, false);
 		AbstractFolderEntity folder = folderDao.findById(folder_id, false);
+		if (folder != null) {
+			ownerChanged(folder.getUser(), folder.getAuthority(),
+					CacheEntities.FOLDER, folder.getId());
+		}
 		entity.setFolder(folder);
 		layerDao.save(entity);
 	}
@@ -261,7 +306,37 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 		return (List<LayerDto>) entitiesToDtos(layerDao.getLayersByFolder(folderId, isChannel, isEnabled));
 	}
 
+	/**
+	 * Converts a layer list loading styles, rules and properties of all the
+	 * layers together with {@link LayerBatchDao}
+	 */
+	@Override
+	protected List<? extends Serializable> entitiesToDtos(List<AbstractLayerEntity> entities) {
+		List<Long> ids = new LinkedList<Long>();
+		for(AbstractLayerEntity entity: entities){
+			ids.add(entity.getId());
+		}
+		LayerGraph graph = layerBatchDao.loadLayerGraph(ids);
+		List<LayerDto> dtos = new LinkedList<LayerDto>();
+		for(AbstractLayerEntity entity: entities){
+			dtos.add(entityToDto(entity, graph));
+		}
+		return dtos;
+	}
+
 	protected LayerDto entityToDto(AbstractLayerEntity entity) {
+		return entityToDto(entity, null);
+	}
+
+	/**
+	 * Converts a layer
+	 * 
+	 * @param entity
+	 * @param graph layer associations already loaded. If it's null they're loaded from the entity
+	 * 
+	 * @return layer dto
+	 */
+	private LayerDto entityToDto(AbstractLayerEntity entity, LayerGraph graph) {
 		LayerDto dto = null;
 		if(entity != null){
 			dto = new LayerDto();
@@ -286,30 +361,28 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 				dto.setTypeId(type.getId());
 			}
 			
-			if(entity.getData() != null){
-				try {
-					File file = com.emergya.persistenceGeo.utils.FileUtils.createFileTemp(entity.getName(), entity.getType() != null ? entity.getType().getName() : "xml");
-					FileUtils.writeByteArrayToFile(file, entity.getData());
-					dto.setData(file);
-				} catch (Exception e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-			}
+			// Data is read on demand with writeLayerData
+			dto.setHasData(entity.getContent() != null);
 			
 			// Add relational parameters
 			// Add users
-			AbstractUserEntity user = layerDao.findByLayer(entity.getId());
-			if(user != null){
-				dto.setUser(user.getNombreCompleto());
+			if(graph != null){
+				dto.setUser(graph.getUserName(entity.getId()));
+			}else{
+				AbstractUserEntity user = layerDao.findByLayer(entity.getId());
+				if(user != null){
+					dto.setUser(user.getNombreCompleto());
+				}
 			}
 			// Add authority
 			dto.setAuthId(entity.getAuth() != null ? entity.getAuth().getId() : null);
 			// Add style
 			Map<StyleDto, Map<RuleDto, Map<String, String>>> styles = new HashMap<StyleDto, Map<RuleDto, Map<String, String>>>();
-			if(entity.getStyleList() != null){
-				for (Object style: entity.getStyleList()){
-					StyleDto styleDto = entityStyleToDto((AbstractStyleEntity) style);
+			List<AbstractStyleEntity> styleList = graph != null ? graph
+					.getStyles(entity.getId()) : entity.getStyleList();
+			if(styleList != null){
+				for (AbstractStyleEntity style: styleList){
+					StyleDto styleDto = entityStyleToDto(style, graph);
 					styles.put(styleDto, styleDto.getRules());
 				}
 			}
@@ -318,9 +391,10 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 			dto.setFolderId(entity.getFolder() != null ? entity.getFolder().getId(): null);
 			
 			// Properties
-			if(entity.getProperties() != null && entity.getProperties().size()>0){
+			List<AbstractLayerPropertyEntity> propertiesList = graph != null ? graph
+					.getLayerProperties(entity.getId()) : entity.getProperties();
+			if(propertiesList != null && propertiesList.size()>0){
 				Map<String, String> properties = new HashMap<String, String>();
-				List<AbstractLayerPropertyEntity> propertiesList = entity.getProperties();
 				for(AbstractLayerPropertyEntity property: propertiesList){
 					properties.put(property.getName(), property.getValue());
 				}
@@ -371,13 +445,12 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 				entity.setType(layerTypeDao.getLayerType(dto.getType()));
 			}
 			
-			//Layer data
-			if(dto.getData() != null){
-				try {
-					entity.setData(FileUtils.readFileToByteArray(dto.getData()));
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+			//Layer data, streamed from the file to its content
+			if(dto.getData() != null && dto.getData().isFile()){
+				entity.setContent(contentDao.saveData(getContentId(entity.getContent()), 
+						dto.getData()));
+			}else if(dto.getData() != null){
+				LOG.warn("Layer data " + dto.getData() + " not found");
 			}
 			
 			// Add relational parameters
@@ -410,7 +483,7 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 		return entity;
 	}
 
-	private StyleDto entityStyleToDto(AbstractStyleEntity entity){
+	private StyleDto entityStyleToDto(AbstractStyleEntity entity, LayerGraph graph){
 		StyleDto dto = null;
 		if(entity != null){
 			dto = new StyleDto();
@@ -428,11 +501,13 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 //			}
 			// Add rules
 			Map<RuleDto, Map<String, String>> rulesDto = new HashMap<RuleDto, Map<String,String>>();
-			List<AbstractRuleEntity> rules = entity.getRuleList();
+			List<AbstractRuleEntity> rules = graph != null ? graph
+					.getRules(entity.getId()) : entity.getRuleList();
 			if(rules != null){
 				for(AbstractRuleEntity ruleEntity: rules){
 					Map<String, String> properties = new HashMap<String, String>();
-					List<AbstractRulePropertyEntity> ruleProperties = ruleEntity.getProperties();
+					List<AbstractRulePropertyEntity> ruleProperties = graph != null ? graph
+							.getRuleProperties((Long) ruleEntity.getId()) : ruleEntity.getProperties();
 					for(AbstractRulePropertyEntity property: ruleProperties){
 						properties.put(property.getName(), property.getValue());
 					}
@@ -462,19 +537,19 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	}
 
 	@Override
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.LAYER_LISTS, key = "'user:' + #idUser")
 	public List<LayerDto> getLayersByUser(Long idUser) {
 		return (List<LayerDto>) entitiesToDtos(layerDao.findByUserId(idUser));
 	}
 
 	@Override
-	@Cacheable("persistenceGeo")
-	public List<LayerDto> getPublicLayers() {		
+	@Cacheable(value = CacheRegions.LAYER_LISTS, key = "'public'")
+	public List<LayerDto> getPublicLayers() {
 		return (List<LayerDto>) entitiesToDtos(layerDao.getPublicLayers());
 	}
 	
 	@Override
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.LAYER_LISTS, key = "'authority:' + #id")
 	public List<LayerDto> getLayersByAuthority(Long id) {
 		return (List<LayerDto>) entitiesToDtos(layerDao.findByAuthorityId(id));
 	}
@@ -491,7 +566,36 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 		return (List<LayerDto>) entitiesToDtos(layerDao.findByAuthorityId(id, isChannel));
 	}
 
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.LAYER_LISTS, key = "'summaries:user:' + #idUser")
+	public List<LayerSummary> getLayerSummariesByUser(Long idUser) {
+		return layerDao.findSummariesByUserId(idUser);
+	}
+
+	@Cacheable(value = CacheRegions.LAYER_LISTS, key = "'summaries:authority:' + #id")
+	public List<LayerSummary> getLayerSummariesByAuthority(Long id) {
+		return layerDao.findSummariesByAuthorityId(id);
+	}
+
+	@Cacheable(value = CacheRegions.LAYER_LISTS, key = "'summaries:public'")
+	public List<LayerSummary> getPublicLayerSummaries() {
+		return layerDao.getPublicLayerSummaries();
+	}
+
+	public boolean writeLayerData(Long layerId, OutputStream out) {
+		return writeLayerData(layerId, 0, -1, out);
+	}
+
+	public ContentInfo getLayerContentInfo(Long layerId) {
+		return contentDao.getContentInfo(layerDao.getContentId(layerId));
+	}
+
+	public boolean writeLayerData(Long layerId, long offset, long length,
+			OutputStream out) {
+		return contentDao.writeData(layerDao.getContentId(layerId), offset,
+				length, out);
+	}
+
+	@Cacheable(value = CacheRegions.LAYER_TYPES, key = "'all'")
 	public List<String> getAllLayerTypes() {
 		List<String> result = new LinkedList<String>();
 		
@@ -502,7 +606,7 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 		return result;
 	}
 
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.LAYER_TYPES, key = "'properties:' + #layerType")
 	public List<String> getAllLayerTypeProperties(String layerType) {
 		List<String> result = new LinkedList<String>();
 		
@@ -523,6 +627,19 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 	 * @return saved folder
 	 */
 	public FolderDto saveFolder(FolderDto folder){
+		if (folder.getId() != null) {
+			AbstractFolderEntity stored = folderDao.findById(folder.getId(),
+					false);
+			ownerChanged(stored != null ? stored.getUser() : null,
+					stored != null ? stored.getAuthority() : null,
+					CacheEntities.FOLDER, folder.getId());
+		} else {
+			ownerChanged(folder.getIdUser() != null ? userDao.findById(
+					folder.getIdUser(), false) : null,
+					folder.getIdAuth() != null ? authDao.findById(
+							folder.getIdAuth(), false) : null,
+					CacheEntities.FOLDER, null);
+		}
 		AbstractFolderEntity entity = dtoFolderToEntity(folder);
 		return entityFolderToDto(folderDao.makePersistent(entity));
 	}
@@ -695,13 +812,91 @@ public class LayerAdminServiceImpl extends AbstractServiceImpl<LayerDto, Abstrac
 		return entity;
 	}
 
+	private Long getContentId(AbstractContentEntity content) {
+		return content != null ? (Long) content.getId() : null;
+	}
+
+	/**
+	 * Publish the change of the contents of the user and group of a layer
+	 * 
+	 * @param layerId
+	 *            layer changed, null if it isn't known
+	 */
+	private void layerChanged(Long layerId) {
+		AbstractLayerEntity entity = layerId != null ? layerDao.findById(
+				layerId, false) : null;
+		if (entity != null) {
+			ownerChanged(entity.getUser(), entity.getAuth(),
+					CacheEntities.LAYER, layerId);
+		} else {
+			contentVersionService.changedAll();
+			cacheInvalidationBus.publish(CacheEntities.LAYER, layerId);
+		}
+	}
+
+	/**
+	 * Publish the change of the contents of a group
+	 * 
+	 * @param authId
+	 */
+	private void groupChanged(Long authId) {
+		contentVersionService.changed(ContentVersion.groupScope(authId));
+		cacheInvalidationBus.publish(CacheEntities.GROUP_CONTENTS, authId);
+	}
+
+	/**
+	 * Publish the change of the contents of a user and a group, or of the
+	 * entity when it hasn't got any of them. Only the versions of the user
+	 * and the group change, every version changes for the entities without
+	 * them.
+	 */
+	private void ownerChanged(AbstractUserEntity user,
+			AbstractAuthorityEntity auth, String entityType, Long id) {
+		if (user != null) {
+			contentVersionService.changed(ContentVersion.userScope(user
+					.getUsername()));
+			cacheInvalidationBus.publish(CacheEntities.USER_CONTENTS,
+					user.getId());
+		}
+		if (auth != null) {
+			groupChanged(auth.getId());
+		}
+		if (user == null && auth == null) {
+			contentVersionService.changedAll();
+			cacheInvalidationBus.publish(entityType, id);
+		}
+	}
+
 	@Override
 	protected GenericDAO<AbstractLayerEntity, Long> getDao() {
 		return layerDao;
 	}
 
+	@Override
+	public Serializable create(Serializable dto) {
+		LayerDto created = (LayerDto) super.create(dto);
+		layerChanged(created.getId());
+		return created;
+	}
+
+	@Override
+	public Serializable update(Serializable dto) {
+		// the user and group before and after the update
+		layerChanged(((LayerDto) dto).getId());
+		LayerDto updated = (LayerDto) super.update(dto);
+		layerChanged(updated.getId());
+		return updated;
+	}
+
+	@Override
+	public void delete(Serializable dto) {
+		layerChanged(((LayerDto) dto).getId());
+		super.delete(dto);
+	}
+
 	@Override
 	public void deleteLayerById(Long layerId) {
+		layerChanged(layerId);
 		// Delete the layer properties
 		
 		layerDao.delete(layerId);
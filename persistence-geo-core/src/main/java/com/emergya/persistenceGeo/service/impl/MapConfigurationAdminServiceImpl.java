@@ -25,6 +25,8 @@
  */
 package com.emergya.persistenceGeo.service.impl;
 
+import java.io.Serializable;
+
 import javax.annotation.Resource;
 
 import org.springframework.cache.annotation.Cacheable;
@@ -37,7 +39,10 @@ import com.emergya.persistenceGeo.dao.MapConfigurationEntityDao;
 import com.emergya.persistenceGeo.dto.MapConfigurationDto;
 import com.emergya.persistenceGeo.metaModel.AbstractMapConfigurationEntity;
 import com.emergya.persistenceGeo.metaModel.Instancer;
+import com.emergya.persistenceGeo.service.CacheInvalidationBus;
 import com.emergya.persistenceGeo.service.MapConfigurationAdminService;
+import com.emergya.persistenceGeo.utils.CacheEntities;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * MapConfigurationAdminServiceImpl transactional implementation based on daos
@@ -59,6 +64,9 @@ public class MapConfigurationAdminServiceImpl
 	@Resource
 	private Instancer instancer;
 
+	@Resource
+	private CacheInvalidationBus cacheInvalidationBus;
+
 	public MapConfigurationAdminServiceImpl() {
 		super();
 	}
@@ -80,12 +88,16 @@ public class MapConfigurationAdminServiceImpl
 	@Override
 	public void updateMapConfiguration(Long mapConfigurationID, String bbox,
 			String projection, String resolutions) {
+		cacheInvalidationBus.publish(CacheEntities.MAP_CONFIGURATION,
+				mapConfigurationID);
 		mapConfigurationDao.updateMapConfiguration(mapConfigurationID, bbox,
 				projection, resolutions);
 	}
 
 	@Override
 	public void removeMapConfiguration(Long mapConfigurationID) {
+		cacheInvalidationBus.publish(CacheEntities.MAP_CONFIGURATION,
+				mapConfigurationID);
 		mapConfigurationDao.removeMapConfiguration(mapConfigurationID);
 
 	}
@@ -95,6 +107,28 @@ public class MapConfigurationAdminServiceImpl
 		return mapConfigurationDao;
 	}
 
+	@Override
+	public Serializable create(Serializable dto) {
+		MapConfigurationDto created = (MapConfigurationDto) super.create(dto);
+		cacheInvalidationBus.publish(CacheEntities.MAP_CONFIGURATION,
+				created.getId());
+		return created;
+	}
+
+	@Override
+	public Serializable update(Serializable dto) {
+		cacheInvalidationBus.publish(CacheEntities.MAP_CONFIGURATION,
+				((MapConfigurationDto) dto).getId());
+		return super.update(dto);
+	}
+
+	@Override
+	public void delete(Serializable dto) {
+		cacheInvalidationBus.publish(CacheEntities.MAP_CONFIGURATION,
+				((MapConfigurationDto) dto).getId());
+		super.delete(dto);
+	}
+
 	@Override
 	protected MapConfigurationDto entityToDto(
 			AbstractMapConfigurationEntity entity) {
@@ -157,7 +191,7 @@ public class MapConfigurationAdminServiceImpl
 	}
 
 	@Override
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.MAP_CONFIGURATION, key = "'current'")
 	public MapConfigurationDto loadConfiguration() {
 		return entityToDto(mapConfigurationDao.loadConfiguration());
 	}
@@ -29,21 +29,25 @@
  */
 package com.emergya.persistenceGeo.service.impl;
 
-import java.io.File;
+import java.io.OutputStream;
 
 import javax.annotation.Resource;
 
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.emergya.persistenceGeo.dao.AbstractGenericDao;
+import com.emergya.persistenceGeo.dao.ContentEntityDao;
 import com.emergya.persistenceGeo.dao.GenericDAO;
 import com.emergya.persistenceGeo.dao.ResourceEntityDao;
 import com.emergya.persistenceGeo.dto.ResourceDto;
+import com.emergya.persistenceGeo.metaModel.AbstractContentEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractResourceEntity;
 import com.emergya.persistenceGeo.metaModel.Instancer;
 import com.emergya.persistenceGeo.service.ResourceService;
+import com.emergya.persistenceGeo.utils.ContentInfo;
 
 /**
  * ResourceService transactional implementation based on daos uses
@@ -57,10 +61,14 @@ import com.emergya.persistenceGeo.service.ResourceService;
 public class ResourceServiceImpl extends AbstractServiceImpl<ResourceDto, AbstractResourceEntity>
 		implements ResourceService {
 
+	private static final Log LOG = LogFactory.getLog(ResourceServiceImpl.class);
+
 	@Resource
 	private Instancer instancer;
 	@Resource
 	private ResourceEntityDao resourceDao;
+	@Resource
+	private ContentEntityDao contentDao;
 	
 	public ResourceServiceImpl(){
 		super();
@@ -81,6 +89,18 @@ public class ResourceServiceImpl extends AbstractServiceImpl<ResourceDto, Abstra
 		resourceDao.deleteByAccessId(accessId);
 	}
 
+	@Override
+	public ContentInfo getResourceContentInfo(Long accessId) {
+		return contentDao.getContentInfo(resourceDao.getContentIdByAccessId(accessId));
+	}
+
+	@Override
+	public boolean writeResourceData(Long accessId, long offset, long length,
+			OutputStream out) {
+		return contentDao.writeData(resourceDao.getContentIdByAccessId(accessId), 
+				offset, length, out);
+	}
+
 	protected ResourceDto entityToDto(AbstractResourceEntity entity) {
 		ResourceDto dto = null;
 		if(entity != null){
@@ -92,24 +112,7 @@ public class ResourceServiceImpl extends AbstractServiceImpl<ResourceDto, Abstra
 			dto.setType(entity.getType());
 			dto.setAccessId(entity.getAccessId());
 			
-			if(entity.getData() != null){
-				try {
-					String extension = "png";
-					if(entity.getType() != null){
-						if(entity.getType().split("/").length > 0){
-							extension = entity.getType().split("/")[entity.getType().split("/").length-1];
-						}else{
-							extension = entity.getType();
-						}
-					}
-					File file = com.emergya.persistenceGeo.utils.FileUtils.createFileTemp(entity.getName(), extension);
-					FileUtils.writeByteArrayToFile(file, entity.getData());
-					dto.setData(file);
-				} catch (Exception e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-			}
+			// Data is read on demand with writeResourceData
 		}
 		return dto;
 	}
@@ -128,13 +131,13 @@ public class ResourceServiceImpl extends AbstractServiceImpl<ResourceDto, Abstra
 			entity.setType(dto.getType());
 			entity.setAccessId(dto.getAccessId());
 			
-			//Layer data
-			if(dto.getData() != null){
-				try {
-					entity.setData(FileUtils.readFileToByteArray(dto.getData()));
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+			//Resource data, streamed from the file to its content
+			if(dto.getData() != null && !dto.getData().isFile()){
+				LOG.warn("Resource data " + dto.getData() + " not found");
+			}else if(dto.getData() != null){
+				AbstractContentEntity content = entity.getContent();
+				entity.setContent(contentDao.saveData(content != null ? (Long) content.getId() : null, 
+						dto.getData()));
 			}
 		}
 		return entity;
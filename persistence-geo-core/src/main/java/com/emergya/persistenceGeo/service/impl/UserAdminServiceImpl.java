@@ -29,6 +29,7 @@
  */
 package com.emergya.persistenceGeo.service.impl;
 
+import java.io.Serializable;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -52,12 +53,20 @@ import com.emergya.persistenceGeo.metaModel.AbstractAuthorityEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractUserEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractZoneEntity;
 import com.emergya.persistenceGeo.metaModel.Instancer;
+import com.emergya.persistenceGeo.service.CacheInvalidationBus;
 import com.emergya.persistenceGeo.service.UserAdminService;
+import com.emergya.persistenceGeo.utils.CacheEntities;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Implementacion transacional de UserAdminService basada en el uso de daos
  * {@link AbstractGenericDao}
  * 
+ * Los usuarios se cachean en {@link CacheRegions#USERS} y los grupos en
+ * {@link CacheRegions#USER_GROUPS}. Cualquier cambio de usuarios o grupos
+ * vacía ambas regiones, ya que cada usuario incluye su grupo y cada grupo sus
+ * usuarios.
+ * 
  * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
  * 
  */
@@ -74,6 +83,8 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	private AuthorityEntityDao authorityDao;
 	@Resource
 	private ZoneEntityDao zoneDao;
+	@Resource
+	private CacheInvalidationBus cacheInvalidationBus;
 
 	public UserAdminServiceImpl() {
 		super();
@@ -87,7 +98,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * 
 	 * @return si no existia lo crea sin grupo de usuarios
 	 */
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.USERS, key = "'name:' + #name")
 	public UserDto obtenerUsuario(String name) {
 		UserDto dto = entityToDto(userDao.getUser(name));
 		return dto;
@@ -103,7 +114,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * 
 	 * @return si no existia lo crea sin grupo de usuarios
 	 */
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.USERS, key = "'login:' + #name + ':' + #password")
 	public UserDto obtenerUsuario(String name, String password) {
 		UserDto dto = entityToDto(userDao.getUser(name, password));
 		if (dto == null) {
@@ -117,7 +128,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * 
 	 * @return usuarios del sistema
 	 */
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.USERS, key = "'all'")
 	public List<UserDto> obtenerUsuarios() {
 		List<UserDto> result = new LinkedList<UserDto>();
 		for (AbstractUserEntity entity : userDao.findAll()) {
@@ -131,7 +142,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * 
 	 * @return grupos de usuario del sistema
 	 */
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.USER_GROUPS, key = "'all'")
 	public List<AuthorityDto> obtenerGruposUsuarios() {
 		List<AuthorityDto> result = new LinkedList<AuthorityDto>();
 		for (AbstractAuthorityEntity entity : authorityDao.findAll()) {
@@ -148,7 +159,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * 
 	 * @return grupo de usuarios asociado al id o null si no lo encuentra
 	 */
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.USER_GROUPS, key = "'id:' + #id")
 	public AuthorityDto obtenerGrupoUsuarios(Long id) {
 		return entityGPToDto(authorityDao.findById(id, false));
 	}
@@ -162,6 +173,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 */
 	public Long crearGrupoUsuarios(AuthorityDto dto) {
 		AbstractAuthorityEntity entity = authorityDao.makePersistent(dtoToEntity(dto));
+		cacheInvalidationBus.publish(CacheEntities.USER_GROUP, entity.getId());
 		return entity.getId();
 	}
 	
@@ -202,6 +214,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * @param usuario
 	 */
 	public void addUsuarioAGrupo(Long idGrupo, String usuario) {
+		cacheInvalidationBus.publish(CacheEntities.USER, usuario);
 		AbstractAuthorityEntity AbstractAuthorityEntity = authorityDao.findById(idGrupo, false);
 		Set<AbstractUserEntity> usuarios = AbstractAuthorityEntity.getPeople();
 		if (usuarios == null) {
@@ -228,6 +241,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * @param usuario
 	 */
 	public void eliminaUsuarioDeGrupo(Long idGrupo, String usuario) {
+		cacheInvalidationBus.publish(CacheEntities.USER, usuario);
 		AbstractAuthorityEntity AbstractAuthorityEntity = authorityDao.findById(idGrupo, false);
 		Set<AbstractUserEntity> usuarios = AbstractAuthorityEntity.getPeople();
 		if (usuarios == null) {
@@ -253,6 +267,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * @param idgrupo
 	 */
 	public void eliminarGrupoUsuarios(Long idgrupo) {
+		cacheInvalidationBus.publish(CacheEntities.USER_GROUP, idgrupo);
 		authorityDao.delete(idgrupo);
 	}
 
@@ -262,6 +277,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * @param dto
 	 */
 	public void modificarGrupoUsuarios(AuthorityDto dto) {
+		cacheInvalidationBus.publish(CacheEntities.USER_GROUP, dto.getId());
 		//authorityDao.save(dtoToEntity(dto));
 		authorityDao.makePersistent(dtoToEntity(dto));
 	}
@@ -273,7 +289,7 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	 * 
 	 * @return users of a group
 	 */
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.USERS, key = "'group:' + #idGroup")
 	public List<UserDto> getUsersByGroup(Long idGroup){
 		return (List<UserDto>) entitiesToDtos(userDao.findByAuthID(idGroup));
 	}
@@ -423,4 +439,42 @@ public class UserAdminServiceImpl extends AbstractServiceImpl<UserDto, AbstractU
 	protected GenericDAO<AbstractUserEntity, Long> getDao() {
 		return userDao;
 	}
+
+	@Override
+	public Serializable create(Serializable dto) {
+		userChanged((UserDto) dto);
+		return super.create(dto);
+	}
+
+	@Override
+	public Serializable update(Serializable dto) {
+		userChanged((UserDto) dto);
+		return super.update(dto);
+	}
+
+	@Override
+	public void delete(Serializable dto) {
+		userChanged((UserDto) dto);
+		super.delete(dto);
+	}
+
+	/**
+	 * Publish the change of a user by its new and its stored name
+	 * 
+	 * @param dto
+	 */
+	private void userChanged(UserDto dto) {
+		if (dto.getUsername() != null) {
+			cacheInvalidationBus.publish(CacheEntities.USER, dto.getUsername());
+		}
+		AbstractUserEntity stored = dto.getId() != null ? userDao.findById(
+				dto.getId(), false) : null;
+		if (stored != null && stored.getUsername() != null
+				&& !stored.getUsername().equals(dto.getUsername())) {
+			cacheInvalidationBus.publish(CacheEntities.USER,
+					stored.getUsername());
+		} else if (stored == null && dto.getUsername() == null) {
+			cacheInvalidationBus.publish(CacheEntities.USER, null);
+		}
+	}
 }
@@ -45,7 +45,10 @@ import com.emergya.persistenceGeo.dao.ZoneEntityDao;
 import com.emergya.persistenceGeo.dto.ZoneDto;
 import com.emergya.persistenceGeo.metaModel.AbstractZoneEntity;
 import com.emergya.persistenceGeo.metaModel.Instancer;
+import com.emergya.persistenceGeo.service.CacheInvalidationBus;
 import com.emergya.persistenceGeo.service.ZoneAdminService;
+import com.emergya.persistenceGeo.utils.CacheEntities;
+import com.emergya.persistenceGeo.utils.CacheRegions;
 
 /**
  * Implementacion transacional de ZoneAdminService basada en el uso de daos
@@ -66,6 +69,9 @@ public class ZoneAdminServiceImpl
 	@Resource
 	private Instancer instancer;
 
+	@Resource
+	private CacheInvalidationBus cacheInvalidationBus;
+
 	@Override
 	protected GenericDAO<AbstractZoneEntity, Long> getDao() {
 		return zoneDao;
@@ -74,12 +80,31 @@ public class ZoneAdminServiceImpl
 	/* (non-Javadoc)
 	 * @see com.emergya.persistenceGeo.service.impl.AbstractServiceImpl#getAll()
 	 */
-	@Cacheable("persistenceGeo")
+	@Cacheable(value = CacheRegions.ZONES, key = "'all'")
 	public List<? extends Serializable> getAll() {
 		// TODO Auto-generated method stub
 		return super.getAll();
 	}
 
+	@Override
+	public Serializable create(Serializable dto) {
+		ZoneDto created = (ZoneDto) super.create(dto);
+		cacheInvalidationBus.publish(CacheEntities.ZONE, created.getId());
+		return created;
+	}
+
+	@Override
+	public Serializable update(Serializable dto) {
+		cacheInvalidationBus.publish(CacheEntities.ZONE, ((ZoneDto) dto).getId());
+		return super.update(dto);
+	}
+
+	@Override
+	public void delete(Serializable dto) {
+		cacheInvalidationBus.publish(CacheEntities.ZONE, ((ZoneDto) dto).getId());
+		super.delete(dto);
+	}
+
 	/**
 	 * Find zone by id
 	 * 
@@ -88,6 +113,7 @@ public class ZoneAdminServiceImpl
 	 * 
 	 * @return zones
 	 */
+    @Cacheable(value = CacheRegions.ZONES, key = "{'type', #type, #isEnabled}")
     public List<ZoneDto> findByType(String type, Boolean isEnabled){
     	List<ZoneDto> zonesDto = new LinkedList<ZoneDto>();
         List<AbstractZoneEntity> zones = zoneDao.findByType(type);
@@ -115,6 +141,7 @@ public class ZoneAdminServiceImpl
 	 * @return zones enabled
 	 */
     @SuppressWarnings("unchecked")
+    @Cacheable(value = CacheRegions.ZONES, key = "'enabled'")
 	public List<ZoneDto> findAllEnabled(){
     	return (List<ZoneDto>) entitiesToDtos(zoneDao.findAllEnabled());
     }
@@ -128,6 +155,7 @@ public class ZoneAdminServiceImpl
 	 * @return zones
 	 */
     @SuppressWarnings("unchecked")
+    @Cacheable(value = CacheRegions.ZONES, key = "'parent:' + #idZone")
     public List<ZoneDto> findByParent(Long idZone){
     	return (List<ZoneDto>) entitiesToDtos(zoneDao.findByParent(idZone));	
     }
@@ -0,0 +1,162 @@
+/*
+ * BroadcastingCacheManager.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.ehcache.Ehcache;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import com.emergya.persistenceGeo.service.CacheChangeListener;
+import com.emergya.persistenceGeo.service.CacheInvalidationBus;
+
+/**
+ * Cache manager that evicts the keys affected by the entity changes of the
+ * {@link CacheInvalidationBus}: the changes of this node once their
+ * transaction commits and, with <code>cache.cluster=true</code>, the changes
+ * of the other nodes of the cluster. The keys affected by every change are
+ * given by {@link CacheEntities}. The cache manager of the application wraps
+ * it, so the puts are still made after the commit:
+ * 
+ * <pre>
+ * &lt;bean id="cacheManager" class="com.emergya.persistenceGeo.utils.TransactionAwareCacheManager"&gt;
+ *     &lt;property name="targetCacheManager"&gt;
+ *         &lt;bean class="com.emergya.persistenceGeo.utils.BroadcastingCacheManager"&gt;
+ *             &lt;property name="cacheInvalidationBus" ref="cacheInvalidationBus" /&gt;
+ *             &lt;property name="targetCacheManager"&gt;
+ *                 &lt;bean class="org.springframework.cache.ehcache.EhCacheCacheManager"&gt;
+ *                     ...
+ *                 &lt;/bean&gt;
+ *             &lt;/property&gt;
+ *         &lt;/bean&gt;
+ *     &lt;/property&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class BroadcastingCacheManager implements CacheManager,
+		CacheChangeListener, InitializingBean {
+
+	private CacheManager targetCacheManager;
+	private CacheInvalidationBus cacheInvalidationBus;
+
+	@Override
+	public void afterPropertiesSet() {
+		if (targetCacheManager == null || cacheInvalidationBus == null) {
+			throw new IllegalArgumentException(
+					"targetCacheManager and cacheInvalidationBus are required");
+		}
+		cacheInvalidationBus.subscribe(this);
+	}
+
+	@Override
+	public Cache getCache(String name) {
+		return targetCacheManager.getCache(name);
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		return targetCacheManager.getCacheNames();
+	}
+
+	/**
+	 * Evict the keys affected by the change
+	 */
+	@Override
+	public void onCacheChange(CacheChange change) {
+		for (Map.Entry<String, List<String>> region : CacheEntities.getKeys(
+				change.getEntityType(), change.getEntityId()).entrySet()) {
+			Cache cache = targetCacheManager.getCache(region.getKey());
+			if (cache == null) {
+				continue;
+			}
+			for (String key : region.getValue()) {
+				if (key.endsWith("*")) {
+					evictPrefix(cache, key.substring(0, key.length() - 1));
+				} else {
+					cache.evict(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param targetCacheManager
+	 *            cache manager of this node
+	 */
+	public void setTargetCacheManager(CacheManager targetCacheManager) {
+		this.targetCacheManager = targetCacheManager;
+	}
+
+	/**
+	 * @param cacheInvalidationBus
+	 *            bus shared with the other nodes
+	 */
+	public void setCacheInvalidationBus(
+			CacheInvalidationBus cacheInvalidationBus) {
+		this.cacheInvalidationBus = cacheInvalidationBus;
+	}
+
+	/**
+	 * Evict the string keys starting with a prefix. The caches whose keys
+	 * can't be listed are cleared.
+	 */
+	@SuppressWarnings("rawtypes")
+	private void evictPrefix(Cache cache, String prefix) {
+		if (prefix.isEmpty()) {
+			cache.clear();
+			return;
+		}
+		Object nativeCache = cache.getNativeCache();
+		List<?> keys;
+		if (nativeCache instanceof Ehcache) {
+			keys = ((Ehcache) nativeCache).getKeys();
+		} else if (nativeCache instanceof Map) {
+			keys = new ArrayList<Object>(((Map) nativeCache).keySet());
+		} else {
+			cache.clear();
+			return;
+		}
+		for (Object key : keys) {
+			if (key instanceof String && ((String) key).startsWith(prefix)) {
+				cache.evict(key);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+/*
+ * CacheChange.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.Serializable;
+
+/**
+ * Change of an entity made by a node of the cluster. Every node evicts the
+ * cache keys affected by it, see {@link CacheEntities}.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class CacheChange implements Serializable {
+
+	private static final long serialVersionUID = 5167004216939713624L;
+
+	private String entityType;
+	private String entityId;
+	private String node;
+
+	/**
+	 * @param entityType
+	 *            type of the entity changed, see {@link CacheEntities}
+	 * @param entityId
+	 *            id of the entity changed or null if it isn't known
+	 * @param node
+	 *            node that made the change
+	 */
+	public CacheChange(String entityType, String entityId, String node) {
+		this.entityType = entityType;
+		this.entityId = entityId;
+		this.node = node;
+	}
+
+	/**
+	 * @return type of the entity changed
+	 */
+	public String getEntityType() {
+		return entityType;
+	}
+
+	/**
+	 * @return id of the entity changed or null if it isn't known
+	 */
+	public String getEntityId() {
+		return entityId;
+	}
+
+	/**
+	 * @return node that made the change
+	 */
+	public String getNode() {
+		return node;
+	}
+
+	@Override
+	public String toString() {
+		return entityType + "/" + (entityId != null ? entityId : "*") + "@"
+				+ node;
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * CacheEntities.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Types of the entity changes published in the cache invalidation bus and the
+ * keys of the {@link CacheRegions} affected by each of them.
+ * 
+ * A key ending with <code>*</code> stands for every key with that prefix and
+ * <code>{id}</code> is replaced by the id of the entity. When the id isn't
+ * known, the keys with <code>{id}</code> are taken as prefixes. The lists
+ * that may contain any entity of a type, like the root folders or the public
+ * layers, are evicted by every change of that type.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public final class CacheEntities {
+
+	/**
+	 * Folder by id whose owner isn't known: its subtree and layers can be in
+	 * any folder tree or layer list
+	 */
+	public static final String FOLDER = "folder";
+
+	/** Layer by id without user or group */
+	public static final String LAYER = "layer";
+
+	/** Folders or layers of a user by user id */
+	public static final String USER_CONTENTS = "userContents";
+
+	/** Folders or layers of a group by group id */
+	public static final String GROUP_CONTENTS = "groupContents";
+
+	/** User by name */
+	public static final String USER = "user";
+
+	/** User group by id */
+	public static final String USER_GROUP = "userGroup";
+
+	/** Zone by id */
+	public static final String ZONE = "zone";
+
+	/** Layer type by name */
+	public static final String LAYER_TYPE = "layerType";
+
+	/** Map configuration by id */
+	public static final String MAP_CONFIGURATION = "mapConfiguration";
+
+	/**
+	 * Content version by scope, kept in memory by every node. It doesn't
+	 * evict any cache key.
+	 */
+	public static final String CONTENT_VERSION = "contentVersion";
+
+	private static final String ID = "{id}";
+	private static final String ALL_KEYS = "*";
+
+	/** Folder lists with folders of every user, group and zone */
+	private static final String[] SHARED_FOLDER_LISTS = { "channels:*",
+			"channelsByType:*", "zone:*", "zoneChildren:*", "type:*", "roots*" };
+
+	/** Layer lists with layers of every user and group */
+	private static final String[] SHARED_LAYER_LISTS = { "name:*", "names:*",
+			"public", "summaries:public" };
+
+	private static final Map<String, Map<String, List<String>>> KEYS = new HashMap<String, Map<String, List<String>>>();
+
+	static {
+		keys(FOLDER, CacheRegions.FOLDER_TREES, ALL_KEYS);
+		keys(FOLDER, CacheRegions.LAYER_LISTS, ALL_KEYS);
+		keys(LAYER, CacheRegions.FOLDER_TREES, ALL_KEYS);
+		keys(LAYER, CacheRegions.LAYER_LISTS, ALL_KEYS);
+		keys(USER_CONTENTS, CacheRegions.FOLDER_TREES, "user:{id}");
+		keys(USER_CONTENTS, CacheRegions.FOLDER_TREES, SHARED_FOLDER_LISTS);
+		keys(USER_CONTENTS, CacheRegions.LAYER_LISTS, "user:{id}",
+				"summaries:user:{id}");
+		keys(USER_CONTENTS, CacheRegions.LAYER_LISTS, SHARED_LAYER_LISTS);
+		keys(GROUP_CONTENTS, CacheRegions.FOLDER_TREES, "group:{id}");
+		keys(GROUP_CONTENTS, CacheRegions.FOLDER_TREES, SHARED_FOLDER_LISTS);
+		keys(GROUP_CONTENTS, CacheRegions.LAYER_LISTS, "authority:{id}",
+				"summaries:authority:{id}");
+		keys(GROUP_CONTENTS, CacheRegions.LAYER_LISTS, SHARED_LAYER_LISTS);
+		// the groups of the user before the change aren't known
+		keys(USER, CacheRegions.USERS, "name:{id}", "login:{id}:*", "all",
+				"group:*");
+		keys(USER, CacheRegions.USER_GROUPS, ALL_KEYS);
+		keys(USER_GROUP, CacheRegions.USER_GROUPS, "id:{id}", "all");
+		// the users of the group have its name
+		keys(USER_GROUP, CacheRegions.USERS, ALL_KEYS);
+		// zone lists by type and parent, and channels by zone
+		keys(ZONE, CacheRegions.ZONES, ALL_KEYS);
+		keys(ZONE, CacheRegions.FOLDER_TREES, "channels:*",
+				"channelsByType:*", "zone:*", "zoneChildren:*");
+		keys(LAYER_TYPE, CacheRegions.LAYER_TYPES, ALL_KEYS);
+		keys(MAP_CONFIGURATION, CacheRegions.MAP_CONFIGURATION, ALL_KEYS);
+	}
+
+	private CacheEntities() {
+	}
+
+	/**
+	 * Get the keys affected by a change
+	 * 
+	 * @param entityType
+	 * @param entityId
+	 *            id of the entity or null if it isn't known
+	 * 
+	 * @return keys by region, ending with <code>*</code> if they are prefixes
+	 *         of the keys affected. Empty for an unknown type.
+	 */
+	public static Map<String, List<String>> getKeys(String entityType,
+			String entityId) {
+		Map<String, List<String>> templates = KEYS.get(entityType);
+		if (templates == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+		for (Map.Entry<String, List<String>> region : templates.entrySet()) {
+			List<String> keys = new LinkedList<String>();
+			for (String template : region.getValue()) {
+				int id = template.indexOf(ID);
+				if (id < 0) {
+					keys.add(template);
+				} else if (entityId != null) {
+					keys.add(template.replace(ID, entityId));
+				} else {
+					keys.add(template.substring(0, id) + ALL_KEYS);
+				}
+			}
+			result.put(region.getKey(), keys);
+		}
+		return result;
+	}
+
+	/**
+	 * @return regions affected by the changes of every type
+	 */
+	public static List<String> getRegions() {
+		List<String> regions = new LinkedList<String>();
+		for (Map<String, List<String>> templates : KEYS.values()) {
+			for (String region : templates.keySet()) {
+				if (!regions.contains(region)) {
+					regions.add(region);
+				}
+			}
+		}
+		return regions;
+	}
+
+	private static void keys(String entityType, String region, String... keys) {
+		Map<String, List<String>> templates = KEYS.get(entityType);
+		if (templates == null) {
+			templates = new LinkedHashMap<String, List<String>>();
+			KEYS.put(entityType, templates);
+		}
+		List<String> regionKeys = templates.get(region);
+		if (regionKeys == null) {
+			regionKeys = new LinkedList<String>();
+			templates.put(region, regionKeys);
+		}
+		regionKeys.addAll(Arrays.asList(keys));
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * CacheRegions.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+/**
+ * Names of the cache regions used by the services. Every region is
+ * configured in <code>ehcache.xml</code> and every key of a region is
+ * prefixed by the method that stores it, so methods with the same
+ * parameters can't read each other's values.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public final class CacheRegions {
+
+	/**
+	 * Folder trees by user or group and the folder lists of the tree and
+	 * channel endpoints
+	 */
+	public static final String FOLDER_TREES = "folderTrees";
+
+	/** Layer lists by user, authority, name or public */
+	public static final String LAYER_LISTS = "layerLists";
+
+	/** Layer types and their properties */
+	public static final String LAYER_TYPES = "layerTypes";
+
+	/** Users by name, all the users and users by group */
+	public static final String USERS = "users";
+
+	/** User groups */
+	public static final String USER_GROUPS = "userGroups";
+
+	/** Zones and zone lists */
+	public static final String ZONES = "zones";
+
+	/** Map configuration */
+	public static final String MAP_CONFIGURATION = "mapConfiguration";
+
+	/** Folder and tree responses by their content version */
+	public static final String RESPONSES = "responses";
+
+	/**
+	 * Hibernate second level cache region of the reference entities (layer,
+	 * folder and authority types, zones, permissions and sources) and their
+	 * collections
+	 */
+	public static final String REFERENCE_ENTITIES = "referenceEntities";
+
+	/** Hibernate query cache region of the queries over reference entities */
+	public static final String REFERENCE_QUERIES = "referenceQueries";
+
+	private CacheRegions() {
+	}
+
+}
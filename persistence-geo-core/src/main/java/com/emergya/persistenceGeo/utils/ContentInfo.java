@@ -0,0 +1,87 @@
+/*
+ * ContentInfo.java
+ *
+ * Copyright (C) 2012
+ *
+ * This file is part of Proyecto persistenceGeo
+ *
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ *
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ *
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Metadata of a layer or resource content, loaded without its data. It's
+ * enough to answer conditional and range requests before reading the data.
+ *
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+public class ContentInfo implements Serializable {
+
+	private static final long serialVersionUID = 2981360418263746155L;
+
+	private Long id;
+	private Long size;
+	private Date updateDate;
+
+	public ContentInfo(Long id, Long size, Date updateDate) {
+		this.id = id;
+		this.size = size;
+		this.updateDate = updateDate;
+	}
+
+	/**
+	 * @return the content id
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * @return data size in bytes or null if it's unknown
+	 */
+	public Long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return last time the data was replaced, can be null
+	 */
+	public Date getUpdateDate() {
+		return updateDate;
+	}
+
+	/**
+	 * @return strong entity tag of the data. It changes when the data is
+	 *         replaced
+	 */
+	public String getETag() {
+		return "\"" + Long.toHexString(id) + "-"
+				+ Long.toHexString(updateDate != null ? updateDate.getTime() : 0)
+				+ "-" + Long.toHexString(size != null ? size : 0) + "\"";
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * ContentVersion.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.Serializable;
+
+/**
+ * Version of the folders and layers seen by a user, a group or everyone,
+ * used to answer conditional requests
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class ContentVersion implements Serializable {
+
+	private static final long serialVersionUID = -2398176005541622304L;
+
+	/** Scope of the contents of every user and group */
+	public static final String ALL = "all";
+
+	private String version;
+	private long lastModified;
+
+	/**
+	 * @param version
+	 *            opaque version, different after every change
+	 * @param lastModified
+	 *            time of the last change in milliseconds
+	 */
+	public ContentVersion(String version, long lastModified) {
+		this.version = version;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * Scope of the contents of a user by name, so the version of a user can
+	 * be checked without loading it
+	 * 
+	 * @param username
+	 * 
+	 * @return scope of the contents of a user
+	 */
+	public static String userScope(String username) {
+		return "user:" + username;
+	}
+
+	/**
+	 * @param groupId
+	 * 
+	 * @return scope of the contents of a group
+	 */
+	public static String groupScope(Long groupId) {
+		return "group:" + groupId;
+	}
+
+	/**
+	 * @return the version
+	 */
+	public String getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return strong entity tag of the version
+	 */
+	public String getETag() {
+		return "\"" + version + "\"";
+	}
+
+	/**
+	 * @return time of the last change in milliseconds
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+}
@@ -94,6 +94,8 @@ public class FileUtils {
 
 	/**
 	 * Unzip a file into a temporal directory an returns that directory.
+	 * Shapefiles can be imported from the zip without unzipping it with
+	 * <code>IShpImporter#importShpZip</code>.
 	 * 
 	 * @param zipFile
 	 *            the file to unzip.
@@ -114,7 +116,13 @@ public class FileUtils {
 			if (!ze.isDirectory()) {
 				final File file = new File(tempDir, fileName);
 				Files.createParentDirs(file);
-				Files.write(ByteStreams.toByteArray(zis), file);
+				// copied with a fixed buffer, entries aren't held in memory
+				FileOutputStream out = new FileOutputStream(file);
+				try {
+					ByteStreams.copy(zis, out);
+				} finally {
+					out.close();
+				}
 			}
 
 			ze = zis.getNextEntry();
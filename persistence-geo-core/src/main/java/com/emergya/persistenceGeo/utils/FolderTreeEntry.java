@@ -0,0 +1,105 @@
+/*
+ * FolderTreeEntry.java
+ *
+ * Copyright (C) 2012
+ *
+ * This file is part of Proyecto persistenceGeo
+ *
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ *
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ *
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.Serializable;
+
+import com.emergya.persistenceGeo.metaModel.AbstractFolderEntity;
+
+/**
+ * Folder loaded in a tree query together with the number of layers it
+ * contains and, when it's known, the number of children folders
+ *
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+public class FolderTreeEntry implements Serializable {
+
+	private static final long serialVersionUID = -1876024339507150214L;
+
+	private AbstractFolderEntity folder;
+	private long layerCount;
+	private Long childCount;
+
+	public FolderTreeEntry(AbstractFolderEntity folder, Number layerCount) {
+		this.folder = folder;
+		this.layerCount = layerCount != null ? layerCount.longValue() : 0;
+	}
+
+	public FolderTreeEntry(AbstractFolderEntity folder, Number layerCount,
+			Number childCount) {
+		this(folder, layerCount);
+		this.childCount = childCount != null ? childCount.longValue() : 0;
+	}
+
+	/**
+	 * @return the folder
+	 */
+	public AbstractFolderEntity getFolder() {
+		return folder;
+	}
+
+	/**
+	 * @return number of layers directly inside the folder
+	 */
+	public long getLayerCount() {
+		return layerCount;
+	}
+
+	/**
+	 * @return number of children folders or null if it hasn't been loaded
+	 */
+	public Long getChildCount() {
+		return childCount;
+	}
+
+	/**
+	 * @return true if the folder has children folders
+	 */
+	public boolean hasChildren() {
+		return childCount != null && childCount > 0;
+	}
+
+	/**
+	 * @return the folder id
+	 */
+	public Long getId() {
+		return folder != null ? folder.getId() : null;
+	}
+
+	/**
+	 * @return the parent folder id or null if it's a root folder
+	 */
+	public Long getParentId() {
+		return folder != null && folder.getParent() != null ? folder
+				.getParent().getId() : null;
+	}
+
+}
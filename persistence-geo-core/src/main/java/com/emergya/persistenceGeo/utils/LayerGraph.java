@@ -0,0 +1,135 @@
+/*
+ * LayerGraph.java
+ *
+ * Copyright (C) 2012
+ *
+ * This file is part of Proyecto persistenceGeo
+ *
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ *
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ *
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.emergya.persistenceGeo.metaModel.AbstractLayerPropertyEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractRuleEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractRulePropertyEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractStyleEntity;
+
+/**
+ * Associations of a set of layers loaded together: owner names, layer
+ * properties, styles, style rules and rule properties, indexed by the id of
+ * the owner entity. Lists are never null.
+ *
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+public class LayerGraph {
+
+	private Map<Long, String> userNames = new HashMap<Long, String>();
+	private Map<Long, List<AbstractLayerPropertyEntity>> layerProperties = new HashMap<Long, List<AbstractLayerPropertyEntity>>();
+	private Map<Long, List<AbstractStyleEntity>> styles = new HashMap<Long, List<AbstractStyleEntity>>();
+	private Map<Long, List<AbstractRuleEntity>> rules = new HashMap<Long, List<AbstractRuleEntity>>();
+	private Map<Long, List<AbstractRulePropertyEntity>> ruleProperties = new HashMap<Long, List<AbstractRulePropertyEntity>>();
+
+	/**
+	 * @param layerId
+	 * @return full name of the layer owner or null if it hasn't owner
+	 */
+	public String getUserName(Long layerId) {
+		return userNames.get(layerId);
+	}
+
+	public void putUserName(Long layerId, String userName) {
+		userNames.put(layerId, userName);
+	}
+
+	/**
+	 * @param layerId
+	 * @return properties of the layer
+	 */
+	public List<AbstractLayerPropertyEntity> getLayerProperties(Long layerId) {
+		return get(layerProperties, layerId);
+	}
+
+	public void addLayerProperty(Long layerId,
+			AbstractLayerPropertyEntity property) {
+		add(layerProperties, layerId, property);
+	}
+
+	/**
+	 * @param layerId
+	 * @return styles of the layer
+	 */
+	public List<AbstractStyleEntity> getStyles(Long layerId) {
+		return get(styles, layerId);
+	}
+
+	public void addStyle(Long layerId, AbstractStyleEntity style) {
+		add(styles, layerId, style);
+	}
+
+	/**
+	 * @param styleId
+	 * @return rules of the style
+	 */
+	public List<AbstractRuleEntity> getRules(Long styleId) {
+		return get(rules, styleId);
+	}
+
+	public void addRule(Long styleId, AbstractRuleEntity rule) {
+		add(rules, styleId, rule);
+	}
+
+	/**
+	 * @param ruleId
+	 * @return properties of the rule
+	 */
+	public List<AbstractRulePropertyEntity> getRuleProperties(Long ruleId) {
+		return get(ruleProperties, ruleId);
+	}
+
+	public void addRuleProperty(Long ruleId,
+			AbstractRulePropertyEntity property) {
+		add(ruleProperties, ruleId, property);
+	}
+
+	private static <T> List<T> get(Map<Long, List<T>> map, Long id) {
+		List<T> list = map.get(id);
+		return list != null ? list : Collections.<T> emptyList();
+	}
+
+	private static <T> void add(Map<Long, List<T>> map, Long id, T element) {
+		List<T> list = map.get(id);
+		if (list == null) {
+			list = new LinkedList<T>();
+			map.put(id, list);
+		}
+		list.add(element);
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * RemovedSubtree.java
+ *
+ * Copyright (C) 2012
+ *
+ * This file is part of Proyecto persistenceGeo
+ *
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ *
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ *
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Ids of the folders and layers removed by a subtree delete, used to evict
+ * them from caches
+ *
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+public class RemovedSubtree implements Serializable {
+
+	private static final long serialVersionUID = 4263381062837601853L;
+
+	private List<Long> folderIds = new LinkedList<Long>();
+	private List<Long> layerIds = new LinkedList<Long>();
+
+	public RemovedSubtree() {
+	}
+
+	public RemovedSubtree(List<Long> folderIds, List<Long> layerIds) {
+		this.folderIds.addAll(folderIds);
+		this.layerIds.addAll(layerIds);
+	}
+
+	/**
+	 * Adds the ids of other removed subtree
+	 * 
+	 * @param other
+	 */
+	public void add(RemovedSubtree other) {
+		if (other != null) {
+			folderIds.addAll(other.getFolderIds());
+			layerIds.addAll(other.getLayerIds());
+		}
+	}
+
+	/**
+	 * @return ids of the removed folders
+	 */
+	public List<Long> getFolderIds() {
+		return folderIds;
+	}
+
+	/**
+	 * @return ids of the removed layers
+	 */
+	public List<Long> getLayerIds() {
+		return layerIds;
+	}
+
+	/**
+	 * @return true if nothing has been removed
+	 */
+	public boolean isEmpty() {
+		return folderIds.isEmpty() && layerIds.isEmpty();
+	}
+
+}
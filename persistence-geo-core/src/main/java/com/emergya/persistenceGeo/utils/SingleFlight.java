@@ -0,0 +1,194 @@
+/*
+ * SingleFlight.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the call
+ * and the others wait for its result (or its exception) instead of running
+ * their own copy. It's used in front of the expensive cacheable reads, so a
+ * burst of cache misses for the same tree or layer list results in one
+ * database load. Use it outside of any transaction, or the waiting callers
+ * hold their database connections.
+ * 
+ * Nothing is kept once the call has finished, callers arriving later run a
+ * new call (they usually find the value in the cache before getting here).
+ * Calls of the same key made by the thread that is already running it are
+ * run directly.
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@Component("singleFlight")
+public class SingleFlight {
+
+	private static final Log LOG = LogFactory.getLog(SingleFlight.class);
+
+	public static final String EXECUTED = "executed";
+	public static final String COALESCED = "coalesced";
+	public static final String IN_FLIGHT = "inFlight";
+
+	/**
+	 * Call to coalesce
+	 */
+	public interface Call<V> {
+		public V call();
+	}
+
+	private final ConcurrentMap<String, FutureTask<Object>> inFlight = new ConcurrentHashMap<String, FutureTask<Object>>();
+
+	private final ConcurrentMap<String, AtomicLong[]> counters = new ConcurrentHashMap<String, AtomicLong[]>();
+
+	private final ThreadLocal<Set<String>> running = new ThreadLocal<Set<String>>() {
+		@Override
+		protected Set<String> initialValue() {
+			return new HashSet<String>();
+		}
+	};
+
+	/**
+	 * Runs a call or waits for the same call already running in another
+	 * thread
+	 * 
+	 * @param name
+	 *            name of the call, used for the statistics
+	 * @param key
+	 *            key of the call arguments
+	 * @param call
+	 *            call to run
+	 * 
+	 * @return call result
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> V execute(String name, Object key, final Call<V> call) {
+		String flightKey = name + ":" + key;
+		Set<String> own = running.get();
+		if (own.contains(flightKey)) {
+			return call.call();
+		}
+		FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+			public Object call() {
+				return call.call();
+			}
+		});
+		FutureTask<Object> current = inFlight.putIfAbsent(flightKey, task);
+		AtomicLong[] nameCounters = getCounters(name);
+		if (current == null) {
+			nameCounters[0].incrementAndGet();
+			own.add(flightKey);
+			try {
+				task.run();
+			} finally {
+				own.remove(flightKey);
+				inFlight.remove(flightKey, task);
+			}
+			current = task;
+		} else {
+			nameCounters[1].incrementAndGet();
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Waiting for " + flightKey + " in flight");
+			}
+		}
+		return (V) getResult(current);
+	}
+
+	/**
+	 * Statistics of the calls: number of {@link #EXECUTED} and
+	 * {@link #COALESCED} calls in total and by call name, and number of calls
+	 * {@link #IN_FLIGHT} now
+	 * 
+	 * @return statistics map
+	 */
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new HashMap<String, Object>();
+		long executed = 0;
+		long coalesced = 0;
+		for (Map.Entry<String, AtomicLong[]> entry : counters.entrySet()) {
+			Map<String, Object> nameStatistics = new HashMap<String, Object>();
+			long nameExecuted = entry.getValue()[0].get();
+			long nameCoalesced = entry.getValue()[1].get();
+			nameStatistics.put(EXECUTED, nameExecuted);
+			nameStatistics.put(COALESCED, nameCoalesced);
+			statistics.put(entry.getKey(), nameStatistics);
+			executed += nameExecuted;
+			coalesced += nameCoalesced;
+		}
+		statistics.put(EXECUTED, executed);
+		statistics.put(COALESCED, coalesced);
+		statistics.put(IN_FLIGHT, inFlight.size());
+		return statistics;
+	}
+
+	private AtomicLong[] getCounters(String name) {
+		AtomicLong[] nameCounters = counters.get(name);
+		if (nameCounters == null) {
+			AtomicLong[] created = new AtomicLong[] { new AtomicLong(),
+					new AtomicLong() };
+			nameCounters = counters.putIfAbsent(name, created);
+			if (nameCounters == null) {
+				nameCounters = created;
+			}
+		}
+		return nameCounters;
+	}
+
+	private static Object getResult(FutureTask<Object> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted waiting for a call in flight", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+}
@@ -0,0 +1,183 @@
+/*
+ * TransactionAwareCacheManager.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache manager that delays the puts, evictions and clears made inside a
+ * transaction until it commits, and drops them if it rolls back. Otherwise a
+ * request reading between the eviction and the commit would cache the data
+ * the transaction is about to change.
+ * 
+ * <pre>
+ * &lt;bean id="cacheManager" class="com.emergya.persistenceGeo.utils.TransactionAwareCacheManager"&gt;
+ *     &lt;property name="targetCacheManager" ref="ehCacheCacheManager" /&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class TransactionAwareCacheManager implements CacheManager,
+		InitializingBean {
+
+	private CacheManager targetCacheManager;
+
+	private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<String, Cache>();
+
+	@Override
+	public void afterPropertiesSet() {
+		if (targetCacheManager == null) {
+			throw new IllegalArgumentException(
+					"targetCacheManager is required");
+		}
+	}
+
+	@Override
+	public Cache getCache(String name) {
+		Cache cache = caches.get(name);
+		if (cache == null) {
+			Cache target = targetCacheManager.getCache(name);
+			if (target == null) {
+				return null;
+			}
+			cache = new TransactionAwareCache(target);
+			Cache previous = caches.putIfAbsent(name, cache);
+			if (previous != null) {
+				cache = previous;
+			}
+		}
+		return cache;
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		return targetCacheManager.getCacheNames();
+	}
+
+	/**
+	 * @param targetCacheManager
+	 *            cache manager the changes are applied to
+	 */
+	public void setTargetCacheManager(CacheManager targetCacheManager) {
+		this.targetCacheManager = targetCacheManager;
+	}
+
+	/**
+	 * Cache applying its changes after the commit of the current transaction
+	 */
+	private static class TransactionAwareCache implements Cache {
+
+		private final Cache target;
+
+		private TransactionAwareCache(Cache target) {
+			this.target = target;
+		}
+
+		@Override
+		public String getName() {
+			return target.getName();
+		}
+
+		@Override
+		public Object getNativeCache() {
+			return target.getNativeCache();
+		}
+
+		@Override
+		public ValueWrapper get(Object key) {
+			return target.get(key);
+		}
+
+		@Override
+		public void put(final Object key, final Object value) {
+			if (!afterCommit(new Runnable() {
+				@Override
+				public void run() {
+					target.put(key, value);
+				}
+			})) {
+				target.put(key, value);
+			}
+		}
+
+		@Override
+		public void evict(final Object key) {
+			if (!afterCommit(new Runnable() {
+				@Override
+				public void run() {
+					target.evict(key);
+				}
+			})) {
+				target.evict(key);
+			}
+		}
+
+		@Override
+		public void clear() {
+			if (!afterCommit(new Runnable() {
+				@Override
+				public void run() {
+					target.clear();
+				}
+			})) {
+				target.clear();
+			}
+		}
+
+		/**
+		 * @return false if there's no transaction to wait for
+		 */
+		private boolean afterCommit(final Runnable change) {
+			if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+				return false;
+			}
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+						@Override
+						public void afterCommit() {
+							change.run();
+						}
+					});
+			return true;
+		}
+
+	}
+
+}
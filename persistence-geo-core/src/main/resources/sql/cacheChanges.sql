@@ -0,0 +1,14 @@
+-- Entity changes polled by the nodes of a cluster (PostgreSQL)
+
+CREATE SEQUENCE gis_cache_change_seq;
+
+CREATE TABLE gis_cache_change (
+    id int8 NOT NULL,
+    entity_type varchar(255),
+    entity_id varchar(1024),
+    node varchar(255),
+    create_date timestamp,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX gis_cache_change_date_idx ON gis_cache_change (create_date);
@@ -0,0 +1,17 @@
+-- Versions of the folders and layers shared by the nodes of a cluster (PostgreSQL)
+
+CREATE SEQUENCE gis_content_version_seq;
+
+CREATE TABLE gis_content_version (
+    id int8 NOT NULL,
+    scope varchar(255) NOT NULL,
+    version int8,
+    update_date timestamp,
+    PRIMARY KEY (id),
+    UNIQUE (scope)
+);
+
+-- changes whose user or group isn't known; the version of everyone is the
+-- sum of all the rows
+INSERT INTO gis_content_version (id, scope, version, update_date)
+    VALUES (nextval('gis_content_version_seq'), '*', 0, now());
@@ -0,0 +1,37 @@
+-- Moves layer and resource data to gis_content (PostgreSQL)
+
+CREATE SEQUENCE gis_content_seq;
+
+CREATE TABLE gis_content (
+    id int8 NOT NULL,
+    data oid,
+    content_size int8,
+    update_date timestamp,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE gis_layer ADD COLUMN layer_content_id int8 UNIQUE;
+UPDATE gis_layer SET layer_content_id = nextval('gis_content_seq')
+    WHERE data IS NOT NULL;
+INSERT INTO gis_content(id, data, update_date)
+    SELECT layer_content_id, data, coalesce(update_date, now()) FROM gis_layer
+    WHERE layer_content_id IS NOT NULL;
+ALTER TABLE gis_layer ADD CONSTRAINT gis_layer_content_fk
+    FOREIGN KEY (layer_content_id) REFERENCES gis_content;
+ALTER TABLE gis_layer DROP COLUMN data;
+
+ALTER TABLE gis_resource ADD COLUMN resource_content_id int8 UNIQUE;
+UPDATE gis_resource SET resource_content_id = nextval('gis_content_seq')
+    WHERE data IS NOT NULL;
+INSERT INTO gis_content(id, data, update_date)
+    SELECT resource_content_id, data, now() FROM gis_resource
+    WHERE resource_content_id IS NOT NULL;
+ALTER TABLE gis_resource ADD CONSTRAINT gis_resource_content_fk
+    FOREIGN KEY (resource_content_id) REFERENCES gis_content;
+ALTER TABLE gis_resource DROP COLUMN data;
+
+-- Size of the migrated large objects: seek to the end of each one opened for
+-- reading (262144 = INV_READ, 2 = SEEK_END). Unlike pg_largeobject it only
+-- needs to be the owner of the large objects, not superuser (PostgreSQL 9.3+)
+UPDATE gis_content SET content_size = lo_lseek64(lo_open(data, 262144), 0, 2)
+    WHERE data IS NOT NULL;
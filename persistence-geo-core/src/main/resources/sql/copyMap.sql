@@ -0,0 +1,15 @@
+-- Work table of the folder subtree copies (PostgreSQL)
+
+CREATE SEQUENCE gis_copy_map_seq;
+
+CREATE TABLE gis_copy_map (
+    id int8 NOT NULL,
+    copy_id int8,
+    old_id int8,
+    new_id int8,
+    ref_id int8,
+    path varchar(1024),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX gis_copy_map_idx ON gis_copy_map (copy_id, old_id);
@@ -0,0 +1,10 @@
+-- Indexes of the folder children queries (PostgreSQL)
+
+-- Children of a folder ordered by name, also used by the children count
+-- subquery (PostgreSQL doesn't index the foreign keys by itself)
+DROP INDEX IF EXISTS gis_folder_parent_idx;
+CREATE INDEX gis_folder_parent_idx ON gis_folder (folder_parent_id, name);
+
+-- Layer count subquery of the folder children
+DROP INDEX IF EXISTS gis_layer_folder_idx;
+CREATE INDEX gis_layer_folder_idx ON gis_layer (layer_folder_id);
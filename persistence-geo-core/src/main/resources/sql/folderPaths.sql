@@ -0,0 +1,23 @@
+-- Materialized path of the folders (PostgreSQL 8.4+)
+
+ALTER TABLE gis_folder ADD COLUMN folder_path varchar(1024);
+
+-- Fills the path of the existing folders: /<root id>/.../<folder id>/
+WITH RECURSIVE tree(id, folder_path) AS (
+    SELECT id, '/' || id || '/' FROM gis_folder
+    WHERE folder_parent_id IS NULL
+  UNION ALL
+    SELECT f.id, t.folder_path || f.id || '/'
+    FROM gis_folder f JOIN tree t ON f.folder_parent_id = t.id
+)
+UPDATE gis_folder SET folder_path = tree.folder_path
+    FROM tree WHERE gis_folder.id = tree.id;
+
+-- Folders outside any tree (missing parents or cycles) are handled as roots
+UPDATE gis_folder SET folder_path = '/' || id || '/'
+    WHERE folder_path IS NULL;
+
+-- varchar_pattern_ops lets "folder_path LIKE 'prefix%'" use the index with
+-- any database collation (a plain index only works with the C collation)
+DROP INDEX IF EXISTS gis_folder_path_idx;
+CREATE INDEX gis_folder_path_idx ON gis_folder (folder_path varchar_pattern_ops);
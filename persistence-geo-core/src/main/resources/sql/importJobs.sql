@@ -0,0 +1,27 @@
+-- Asynchronous import jobs (PostgreSQL)
+
+CREATE SEQUENCE gis_import_job_seq;
+
+CREATE TABLE gis_import_job (
+    id int8 NOT NULL,
+    type varchar(20),
+    status varchar(20),
+    source_path varchar(1024),
+    target_name varchar(255),
+    workspace_name varchar(255),
+    crs varchar(50),
+    drop_existing bool,
+    owner varchar(255),
+    total int8,
+    done int8,
+    message varchar(2048),
+    create_date timestamp,
+    start_date timestamp,
+    end_date timestamp,
+    node varchar(255),
+    heartbeat timestamp,
+    cancel_requested bool,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX gis_import_job_status_idx ON gis_import_job (status, node);
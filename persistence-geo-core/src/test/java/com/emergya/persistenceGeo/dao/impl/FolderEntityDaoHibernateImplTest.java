@@ -50,6 +50,7 @@ import com.emergya.persistenceGeo.dao.FolderEntityDao;
 import com.emergya.persistenceGeo.dao.ZoneEntityDao;
 import com.emergya.persistenceGeo.metaModel.AbstractFolderEntity;
 import com.emergya.persistenceGeo.metaModel.AbstractZoneEntity;
+import com.emergya.persistenceGeo.utils.FolderTreeEntry;
 
 
 /**
@@ -182,4 +183,89 @@ public class FolderEntityDaoHibernateImplTest {
 		}
 	}
 
+	@Test
+	public void testGetFolderSubtree() {
+
+		try {
+
+			AbstractFolderEntity root = folderDao.createFolder(testProperties
+					.getProperty(PR_1_PARAM_1) + "test");
+			root = folderDao.makePersistent(root);
+
+			AbstractFolderEntity child = folderDao.createFolder(testProperties
+					.getProperty(PR_1_PARAM_2) + "test");
+			child.setParent(root);
+			child = folderDao.makePersistent(child);
+
+			AbstractFolderEntity grandChild = folderDao.createFolder(testProperties
+					.getProperty(PR_1_PARAM_3) + "test");
+			grandChild.setParent(child);
+			grandChild = folderDao.makePersistent(grandChild);
+
+			List<FolderTreeEntry> subtree = folderDao.getFolderSubtree(root.getId());
+			Assert.assertEquals(3, subtree.size());
+			for (FolderTreeEntry entry : subtree) {
+				Assert.assertEquals(0, entry.getLayerCount());
+				if (entry.getId().equals(grandChild.getId())) {
+					Assert.assertEquals(child.getId(), entry.getParentId());
+				} else if (entry.getId().equals(child.getId())) {
+					Assert.assertEquals(root.getId(), entry.getParentId());
+				}
+			}
+
+			Assert.assertEquals(1, folderDao.getFolderSubtree(grandChild.getId()).size());
+
+		} catch (Exception e) {
+			LOG.error("Error  \n", e);
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void testMoveFolderPaths() {
+
+		try {
+
+			AbstractFolderEntity root = folderDao.createFolder(testProperties
+					.getProperty(PR_1_PARAM_1) + "test");
+			AbstractFolderEntity other = folderDao.createFolder(testProperties
+					.getProperty(PR_1_PARAM_1) + "test");
+
+			AbstractFolderEntity child = folderDao.createFolder(testProperties
+					.getProperty(PR_1_PARAM_2) + "test");
+			child.setParent(root);
+			child = folderDao.makePersistent(child);
+
+			AbstractFolderEntity grandChild = folderDao.createFolder(testProperties
+					.getProperty(PR_1_PARAM_3) + "test");
+			grandChild.setParent(child);
+			grandChild = folderDao.makePersistent(grandChild);
+
+			Assert.assertEquals(2, folderDao.getDescendants(root.getId()).size());
+			Assert.assertEquals(root.getPath() + child.getId() + "/"
+					+ grandChild.getId() + "/", grandChild.getPath());
+
+			// move child (and grand child) to other folder
+			child.setParent(other);
+			child = folderDao.makePersistent(child);
+
+			Assert.assertTrue(folderDao.getDescendants(root.getId()).isEmpty());
+			Assert.assertEquals(2, folderDao.getDescendants(other.getId()).size());
+			List<AbstractFolderEntity> ancestors = folderDao.getAncestors(grandChild.getId());
+			Assert.assertEquals(2, ancestors.size());
+			Assert.assertEquals(other.getId(), ancestors.get(0).getId());
+			Assert.assertEquals(child.getId(), ancestors.get(1).getId());
+
+			String path = grandChild.getPath();
+			folderDao.rebuildPaths();
+			Assert.assertEquals(path, grandChild.getPath());
+			Assert.assertEquals(other.getPath() + child.getId() + "/"
+					+ grandChild.getId() + "/", path);
+
+		} catch (Exception e) {
+			LOG.error("Error  \n", e);
+			Assert.fail();
+		}
+	}
+
 }
@@ -0,0 +1,180 @@
+/*
+ * FolderTreeBulkDaoHibernateImplTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.dao.impl;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.emergya.persistenceGeo.dao.FolderEntityDao;
+import com.emergya.persistenceGeo.dao.FolderTreeBulkDao;
+import com.emergya.persistenceGeo.dao.LayerEntityDao;
+import com.emergya.persistenceGeo.dao.UserEntityDao;
+import com.emergya.persistenceGeo.metaModel.AbstractFolderEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractLayerEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractLayerPropertyEntity;
+import com.emergya.persistenceGeo.metaModel.AbstractUserEntity;
+import com.emergya.persistenceGeo.metaModel.Instancer;
+import com.emergya.persistenceGeo.utils.RemovedSubtree;
+
+/**
+ * Test para FolderTreeBulkDao
+ *
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = {"classpath:modelContext.xml"})
+@TransactionConfiguration(defaultRollback = true, transactionManager = "transactionManager")
+@Transactional
+public class FolderTreeBulkDaoHibernateImplTest {
+
+	private static final Log LOG = LogFactory.getLog(FolderTreeBulkDaoHibernateImplTest.class);
+
+	private static final byte[] DATA = "layer data".getBytes();
+
+	@Resource
+	private FolderTreeBulkDao folderTreeBulkDao;
+	@Resource
+	private FolderEntityDao folderDao;
+	@Resource
+	private LayerEntityDao layerDao;
+	@Resource
+	private UserEntityDao userDao;
+	@Resource
+	private Instancer instancer;
+
+	@Test
+	public void testCopySubtree() {
+		try {
+			AbstractUserEntity target = userDao.createUser("bulkTarget", "bulkTarget");
+			AbstractFolderEntity root = createTree();
+			AbstractFolderEntity child = folderDao.getDescendants(root.getId()).get(0);
+			AbstractLayerEntity layer = layerDao.getLayersByFolder(child.getId()).get(0);
+
+			Long copyId = folderTreeBulkDao.copySubtree(root.getId(), (Long) target.getId(), null);
+			Assert.assertNotNull(copyId);
+			Assert.assertFalse(copyId.equals(root.getId()));
+
+			AbstractFolderEntity copy = folderDao.findById(copyId, false);
+			Assert.assertEquals(root.getName(), copy.getName());
+			Assert.assertEquals("/" + copyId + "/", copy.getPath());
+			Assert.assertEquals(target.getId(), copy.getUser().getId());
+
+			List<AbstractFolderEntity> descendants = folderDao.getDescendants(copyId);
+			Assert.assertEquals(1, descendants.size());
+			AbstractFolderEntity childCopy = descendants.get(0);
+			Assert.assertEquals(child.getName(), childCopy.getName());
+			Assert.assertEquals(copyId, childCopy.getParent().getId());
+			Assert.assertEquals(copy.getPath() + childCopy.getId() + "/", childCopy.getPath());
+
+			List<AbstractLayerEntity> layers = layerDao.getLayersByFolder(childCopy.getId());
+			Assert.assertEquals(1, layers.size());
+			AbstractLayerEntity layerCopy = layers.get(0);
+			Assert.assertFalse(layer.getId().equals(layerCopy.getId()));
+			Assert.assertEquals(layer.getName(), layerCopy.getName());
+			Assert.assertEquals(target.getId(), layerCopy.getUser().getId());
+			Assert.assertFalse(layer.getContent().getId().equals(layerCopy.getContent().getId()));
+			Assert.assertArrayEquals(DATA, layerCopy.getData());
+			Assert.assertEquals(1, layerCopy.getProperties().size());
+			AbstractLayerPropertyEntity property = (AbstractLayerPropertyEntity) layerCopy.getProperties().get(0);
+			Assert.assertEquals("property", property.getName());
+			Assert.assertFalse(property.getId().equals(((AbstractLayerPropertyEntity) layer.getProperties().get(0)).getId()));
+
+			// the original tree is untouched
+			Assert.assertEquals(1, folderDao.getDescendants(root.getId()).size());
+			Assert.assertEquals(1, layerDao.getLayersByFolder(child.getId()).size());
+		} catch (Exception e) {
+			LOG.error("Error  \n", e);
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void testCopyUnknownFolder() {
+		Assert.assertNull(folderTreeBulkDao.copySubtree(-1L, null, null));
+	}
+
+	@Test
+	public void testDeleteSubtree() {
+		try {
+			AbstractFolderEntity root = createTree();
+			AbstractFolderEntity child = folderDao.getDescendants(root.getId()).get(0);
+			AbstractLayerEntity layer = layerDao.getLayersByFolder(child.getId()).get(0);
+			Long copyId = folderTreeBulkDao.copySubtree(root.getId(), null, null);
+
+			RemovedSubtree removed = folderTreeBulkDao.deleteSubtree(copyId);
+			Assert.assertEquals(2, removed.getFolderIds().size());
+			Assert.assertEquals(1, removed.getLayerIds().size());
+			Assert.assertNull(folderDao.findById(copyId, false));
+
+			// the original data is still there
+			Assert.assertEquals(1, layerDao.getLayersByFolder(child.getId()).size());
+			Assert.assertArrayEquals(DATA, layerDao.findById(layer.getId(), false).getData());
+		} catch (Exception e) {
+			LOG.error("Error  \n", e);
+			Assert.fail();
+		}
+	}
+
+	/**
+	 * @return root folder with a child folder with a layer
+	 */
+	private AbstractFolderEntity createTree() {
+		AbstractFolderEntity root = folderDao.createFolder("bulk root");
+		AbstractFolderEntity child = folderDao.createFolder("bulk child");
+		child.setParent(root);
+		child = folderDao.makePersistent(child);
+
+		AbstractLayerEntity layer = layerDao.createLayer("bulk layer");
+		layer.setFolder(child);
+		layer.setData(DATA);
+		AbstractLayerPropertyEntity property = instancer.createLayerProperty();
+		property.setName("property");
+		property.setValue("value");
+		List<AbstractLayerPropertyEntity> properties = new LinkedList<AbstractLayerPropertyEntity>();
+		properties.add(property);
+		layer.setProperties(properties);
+		layerDao.makePersistent(layer);
+		return root;
+	}
+
+}
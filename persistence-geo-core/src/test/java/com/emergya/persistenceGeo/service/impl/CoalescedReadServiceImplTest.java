@@ -0,0 +1,163 @@
+/*
+ * CoalescedReadServiceImplTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.emergya.persistenceGeo.dto.LayerSummary;
+import com.emergya.persistenceGeo.service.FoldersAdminService;
+import com.emergya.persistenceGeo.service.LayerAdminService;
+import com.emergya.persistenceGeo.utils.SingleFlight;
+
+/**
+ * Test for CoalescedReadServiceImpl
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class CoalescedReadServiceImplTest {
+
+	private static final int CALLERS = 8;
+
+	private CoalescedReadServiceImpl coalescedReadService;
+	private LayerAdminService layerAdminService;
+	private SingleFlight singleFlight;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		layerAdminService = mock(LayerAdminService.class);
+		singleFlight = new SingleFlight();
+		coalescedReadService = new CoalescedReadServiceImpl();
+		ReflectionTestUtils.setField(coalescedReadService,
+				"foldersAdminService", mock(FoldersAdminService.class));
+		ReflectionTestUtils.setField(coalescedReadService,
+				"layerAdminService", layerAdminService);
+		ReflectionTestUtils.setField(coalescedReadService, "singleFlight",
+				singleFlight);
+		executor = Executors.newFixedThreadPool(CALLERS);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testSummariesAreCoalesced() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<LayerSummary> summaries = new ArrayList<LayerSummary>();
+		when(layerAdminService.getPublicLayerSummaries()).thenAnswer(
+				new Answer<List<LayerSummary>>() {
+					public List<LayerSummary> answer(InvocationOnMock invocation)
+							throws Throwable {
+						release.await(5, TimeUnit.SECONDS);
+						return summaries;
+					}
+				});
+
+		List<Future<List<LayerSummary>>> futures = new ArrayList<Future<List<LayerSummary>>>();
+		for (int i = 0; i < CALLERS; i++) {
+			futures.add(executor.submit(new Callable<List<LayerSummary>>() {
+				public List<LayerSummary> call() {
+					return coalescedReadService.getPublicLayerSummaries();
+				}
+			}));
+		}
+		waitCoalesced(CALLERS - 1);
+		release.countDown();
+
+		for (Future<List<LayerSummary>> future : futures) {
+			assertSame(summaries, future.get(5, TimeUnit.SECONDS));
+		}
+		verify(layerAdminService, times(1)).getPublicLayerSummaries();
+	}
+
+	@Test
+	public void testKeysAreNotShared() {
+		coalescedReadService.getLayerSummariesByUser(1L);
+		coalescedReadService.getLayerSummariesByUser(2L);
+		coalescedReadService.getLayerSummariesByAuthority(1L);
+
+		verify(layerAdminService).getLayerSummariesByUser(1L);
+		verify(layerAdminService).getLayerSummariesByUser(2L);
+		verify(layerAdminService).getLayerSummariesByAuthority(1L);
+	}
+
+	@Test
+	public void testNotTransactional() {
+		// waiting callers mustn't hold a connection
+		assertNull(AnnotationUtils.findAnnotation(
+				CoalescedReadServiceImpl.class, Transactional.class));
+		for (Method method : CoalescedReadServiceImpl.class
+				.getDeclaredMethods()) {
+			assertNull(method.getName() + " is transactional",
+					AnnotationUtils.findAnnotation(method, Transactional.class));
+		}
+	}
+
+	private void waitCoalesced(long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!Long.valueOf(expected).equals(
+				singleFlight.getStatistics().get(SingleFlight.COALESCED))) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("Callers weren't coalesced: "
+						+ singleFlight.getStatistics());
+			}
+			Thread.sleep(10);
+		}
+	}
+
+}
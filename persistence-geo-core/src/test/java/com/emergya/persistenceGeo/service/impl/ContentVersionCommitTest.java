@@ -0,0 +1,250 @@
+/*
+ * ContentVersionCommitTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.emergya.persistenceGeo.dao.ContentVersionEntityDao;
+import com.emergya.persistenceGeo.dao.impl.ContentVersionEntityDaoHibernateImpl;
+import com.emergya.persistenceGeo.model.ContentVersionEntity;
+import com.emergya.persistenceGeo.utils.ContentVersion;
+
+/**
+ * Test for ContentVersionServiceImpl with committed transactions: versions
+ * kept in memory and concurrent creation of the version of a scope
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "classpath:modelContext.xml" })
+public class ContentVersionCommitTest {
+
+	private static final int THREADS = 2;
+
+	@Resource
+	private ContentVersionEntityDao contentVersionEntityDao;
+
+	@Resource
+	private SessionFactory sessionFactory;
+
+	@Resource
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transaction;
+	private CacheInvalidationBusImpl bus;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		transaction = new TransactionTemplate(transactionManager);
+		bus = new CacheInvalidationBusImpl();
+		executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentFirstIncrements() throws Exception {
+		final ContentVersionServiceImpl service = createService(contentVersionEntityDao);
+		final String scope = newScope();
+		final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(new Callable<Object>() {
+				public Object call() throws Exception {
+					barrier.await(5, TimeUnit.SECONDS);
+					changed(service, scope);
+					return null;
+				}
+			}));
+		}
+		for (Future<Object> future : futures) {
+			future.get(10, TimeUnit.SECONDS);
+		}
+
+		Assert.assertEquals(Long.valueOf(THREADS), storedVersion(scope));
+	}
+
+	@Test
+	public void testCreatedByAnotherTransaction() {
+		final String scope = newScope();
+		// another transaction creates the scope after the first update
+		ContentVersionEntityDaoHibernateImpl dao = new ContentVersionEntityDaoHibernateImpl() {
+			private boolean first = true;
+
+			@Override
+			public boolean increment(String incremented, Date date) {
+				if (first) {
+					first = false;
+					createScope(scope);
+					return false;
+				}
+				return super.increment(incremented, date);
+			}
+		};
+		dao.init(sessionFactory);
+
+		changed(createService(dao), scope);
+
+		Assert.assertEquals(Long.valueOf(1), storedVersion(scope));
+	}
+
+	@Test
+	public void testVersionKeptInMemory() {
+		ContentVersionServiceImpl service = createService(contentVersionEntityDao);
+		final String scope = newScope();
+		changed(service, scope);
+		ContentVersion read = service.getVersion(scope);
+
+		// not published, so the version in memory is kept
+		transaction.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				contentVersionEntityDao.increment(scope, new Date());
+			}
+		});
+		Assert.assertEquals(read.getETag(), service.getVersion(scope)
+				.getETag());
+
+		changed(service, scope);
+		Assert.assertFalse(read.getETag().equals(
+				service.getVersion(scope).getETag()));
+		Assert.assertEquals(Long.valueOf(3), storedVersion(scope));
+	}
+
+	@Test
+	public void testUncommittedVersionNotKept() {
+		final ContentVersionServiceImpl service = createService(contentVersionEntityDao);
+		final String scope = newScope();
+		changed(service, scope);
+		final ContentVersion read = service.getVersion(scope);
+
+		String uncommitted = transaction
+				.execute(new TransactionCallback<String>() {
+					public String doInTransaction(TransactionStatus status) {
+						service.changed(scope);
+						status.setRollbackOnly();
+						return service.getVersion(scope).getETag();
+					}
+				});
+
+		Assert.assertFalse(read.getETag().equals(uncommitted));
+		Assert.assertEquals(read.getETag(), service.getVersion(scope)
+				.getETag());
+	}
+
+	@Test
+	public void testAllCountsEveryScope() {
+		ContentVersionServiceImpl service = createService(contentVersionEntityDao);
+		String all = service.getVersion(ContentVersion.ALL).getETag();
+
+		changed(service, newScope());
+
+		Assert.assertFalse(all.equals(service.getVersion(ContentVersion.ALL)
+				.getETag()));
+	}
+
+	private ContentVersionServiceImpl createService(ContentVersionEntityDao dao) {
+		ContentVersionServiceImpl service = new ContentVersionServiceImpl();
+		ReflectionTestUtils.setField(service, "contentVersionEntityDao", dao);
+		ReflectionTestUtils.setField(service, "cacheInvalidationBus", bus);
+		service.init(transactionManager);
+		service.subscribe();
+		return service;
+	}
+
+	private void changed(final ContentVersionServiceImpl service,
+			final String scope) {
+		transaction.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				service.changed(scope);
+			}
+		});
+	}
+
+	private void createScope(final String scope) {
+		TransactionTemplate newTransaction = new TransactionTemplate(
+				transactionManager);
+		newTransaction
+				.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+		newTransaction.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				contentVersionEntityDao.create(scope);
+			}
+		});
+	}
+
+	private Long storedVersion(final String scope) {
+		return transaction.execute(new TransactionCallback<Long>() {
+			public Long doInTransaction(TransactionStatus status) {
+				List<ContentVersionEntity> found = contentVersionEntityDao
+						.findByScopes(Arrays.asList(scope));
+				return found.isEmpty() ? null : found.get(0).getVersion();
+			}
+		});
+	}
+
+	private static String newScope() {
+		return ContentVersion.userScope("commit" + System.nanoTime());
+	}
+
+}
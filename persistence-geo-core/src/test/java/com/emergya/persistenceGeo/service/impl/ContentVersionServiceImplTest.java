@@ -0,0 +1,121 @@
+/*
+ * ContentVersionServiceImplTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import javax.annotation.Resource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.emergya.persistenceGeo.dao.ContentVersionEntityDao;
+import com.emergya.persistenceGeo.service.ContentVersionService;
+import com.emergya.persistenceGeo.utils.ContentVersion;
+
+/**
+ * Test for ContentVersionServiceImpl
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "classpath:modelContext.xml" })
+@TransactionConfiguration(defaultRollback = true, transactionManager = "transactionManager")
+@Transactional
+public class ContentVersionServiceImplTest {
+
+	private static final String USER_1 = ContentVersion.userScope("user1");
+	private static final String USER_2 = ContentVersion.userScope("user2");
+
+	@Resource
+	private ContentVersionService contentVersionService;
+
+	@Resource
+	private ContentVersionEntityDao contentVersionEntityDao;
+
+	@Test
+	public void testUserChange() {
+		String user1 = version(USER_1);
+		String user2 = version(USER_2);
+		String all = version(ContentVersion.ALL);
+
+		contentVersionService.changed(USER_1);
+
+		Assert.assertFalse(user1.equals(version(USER_1)));
+		Assert.assertEquals(user2, version(USER_2));
+		Assert.assertFalse(all.equals(version(ContentVersion.ALL)));
+	}
+
+	@Test
+	public void testChangeAll() {
+		String user1 = version(USER_1);
+		String all = version(ContentVersion.ALL);
+
+		contentVersionService.changedAll();
+
+		Assert.assertFalse(user1.equals(version(USER_1)));
+		Assert.assertFalse(all.equals(version(ContentVersion.ALL)));
+	}
+
+	@Test
+	public void testLastModified() {
+		long before = System.currentTimeMillis() - 1000;
+
+		contentVersionService.changed(USER_1);
+
+		Assert.assertTrue(contentVersionService.getVersion(USER_1)
+				.getLastModified() >= before);
+	}
+
+	@Test
+	public void testVersionSharedByNodes() {
+		ContentVersionServiceImpl otherNode = new ContentVersionServiceImpl();
+		ReflectionTestUtils.setField(otherNode, "contentVersionEntityDao",
+				contentVersionEntityDao);
+
+		contentVersionService.changed(USER_1);
+		contentVersionService.changed(USER_1);
+
+		ContentVersion version = contentVersionService.getVersion(USER_1);
+		ContentVersion other = otherNode.getVersion(USER_1);
+		Assert.assertEquals(version.getETag(), other.getETag());
+		Assert.assertEquals(version.getLastModified(), other.getLastModified());
+	}
+
+	private String version(String scope) {
+		return contentVersionService.getVersion(scope).getETag();
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * DatabaseCacheChangeTransportTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.emergya.persistenceGeo.dao.CacheChangeEntityDao;
+import com.emergya.persistenceGeo.service.CacheChangeListener;
+import com.emergya.persistenceGeo.utils.CacheChange;
+import com.emergya.persistenceGeo.utils.CacheEntities;
+
+/**
+ * Test for DatabaseCacheChangeTransport with the buses of three nodes polling
+ * the same database
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "classpath:modelContext.xml" })
+@TransactionConfiguration(defaultRollback = true, transactionManager = "transactionManager")
+@Transactional
+public class DatabaseCacheChangeTransportTest {
+
+	@Resource
+	private CacheChangeEntityDao cacheChangeEntityDao;
+
+	private RecordingListener listenerA;
+	private RecordingListener listenerB;
+	private RecordingListener listenerC;
+	private CacheInvalidationBusImpl busA;
+	private CacheInvalidationBusImpl busB;
+	private CacheInvalidationBusImpl busC;
+
+	@Before
+	public void setUp() {
+		listenerA = new RecordingListener();
+		listenerB = new RecordingListener();
+		listenerC = new RecordingListener();
+		busA = createBus("a", listenerA);
+		busB = createBus("b", listenerB);
+		busC = createBus("c", listenerC);
+	}
+
+	@Test
+	public void testPollReceivesOnce() {
+		busA.publish(CacheEntities.ZONE, 1L);
+
+		busB.poll();
+		busB.poll();
+		busC.poll();
+
+		Assert.assertEquals(1, listenerB.changes.size());
+		CacheChange change = listenerB.changes.get(0);
+		Assert.assertEquals(CacheEntities.ZONE, change.getEntityType());
+		Assert.assertEquals("1", change.getEntityId());
+		Assert.assertEquals("a", change.getNode());
+		Assert.assertEquals(1, listenerC.changes.size());
+	}
+
+	@Test
+	public void testOwnChangesNotReceived() {
+		busA.publish(CacheEntities.USER, "pepe");
+
+		busA.poll();
+
+		// delivered to this node after the commit, not by the poll
+		Assert.assertTrue(listenerA.changes.isEmpty());
+	}
+
+	@Test
+	public void testChangeWithoutId() {
+		busA.publish(CacheEntities.LAYER, null);
+
+		busB.poll();
+
+		Assert.assertEquals(1, listenerB.changes.size());
+		Assert.assertNull(listenerB.changes.get(0).getEntityId());
+	}
+
+	@Test
+	public void testDisabledBusDoesntSend() {
+		busA.setEnabled(false);
+		busA.publish(CacheEntities.ZONE, 1L);
+
+		busB.poll();
+
+		Assert.assertTrue(listenerB.changes.isEmpty());
+	}
+
+	@Test
+	public void testLaterChangesReceived() {
+		busA.publish(CacheEntities.ZONE, 1L);
+		busB.poll();
+		busA.publish(CacheEntities.ZONE, 2L);
+		busB.poll();
+
+		Assert.assertEquals(2, listenerB.changes.size());
+		Assert.assertEquals("2", listenerB.changes.get(1).getEntityId());
+	}
+
+	private CacheInvalidationBusImpl createBus(String node,
+			CacheChangeListener listener) {
+		// every node has its own transport, sharing the database
+		DatabaseCacheChangeTransport transport = new DatabaseCacheChangeTransport();
+		ReflectionTestUtils.setField(transport, "cacheChangeEntityDao",
+				cacheChangeEntityDao);
+		CacheInvalidationBusImpl bus = new CacheInvalidationBusImpl();
+		bus.setNodeId(node);
+		bus.setEnabled(true);
+		ReflectionTestUtils.setField(bus, "cacheChangeTransport", transport);
+		bus.subscribe(listener);
+		return bus;
+	}
+
+	private static class RecordingListener implements CacheChangeListener {
+
+		private final List<CacheChange> changes = new ArrayList<CacheChange>();
+
+		@Override
+		public void onCacheChange(CacheChange change) {
+			changes.add(change);
+		}
+	}
+
+}
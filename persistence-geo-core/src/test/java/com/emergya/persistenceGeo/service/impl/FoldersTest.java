@@ -31,6 +31,7 @@ package com.emergya.persistenceGeo.service.impl;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.List;
 import java.util.Properties;
 
 import javax.annotation.Resource;
@@ -49,6 +50,7 @@ import com.emergya.persistenceGeo.dto.FolderDto;
 import com.emergya.persistenceGeo.dto.UserDto;
 import com.emergya.persistenceGeo.service.FoldersAdminService;
 import com.emergya.persistenceGeo.service.UserAdminService;
+import com.emergya.persistenceGeo.utils.RemovedSubtree;
 
 
 /**
@@ -168,6 +170,75 @@ public class FoldersTest{
 		}
 	}
 	
+	@Test
+	public void testGetFolderChildrenPaged() {
+		try{
+			FolderDto folder = new FolderDto();
+			folder.setName("test");
+			folder.setEnabled(true);
+			folder = foldersAdminService.saveFolder(folder);
+			FolderDto child = new FolderDto();
+			child.setName("test_child_a");
+			child.setEnabled(true);
+			child.setIdParent(folder.getId());
+			child = foldersAdminService.saveFolder(child);
+			FolderDto other = new FolderDto();
+			other.setName("test_child_b");
+			other.setEnabled(true);
+			other.setIdParent(folder.getId());
+			other = foldersAdminService.saveFolder(other);
+			FolderDto grandChild = new FolderDto();
+			grandChild.setName("test_grand_child");
+			grandChild.setEnabled(true);
+			grandChild.setIdParent(child.getId());
+			foldersAdminService.saveFolder(grandChild);
+
+			List<FolderDto> children = foldersAdminService.getFolderChildren(folder.getId(), Boolean.TRUE, null, null);
+			Assert.assertEquals(2, children.size());
+			Assert.assertEquals(child.getId(), children.get(0).getId());
+			Assert.assertTrue(children.get(0).getHasChildren());
+			Assert.assertNull(children.get(0).getFolderList());
+			Assert.assertFalse(children.get(1).getHasChildren());
+			Assert.assertEquals(new Long(0), children.get(1).getLayerCount());
+
+			children = foldersAdminService.getFolderChildren(folder.getId(), Boolean.TRUE, 1, 1);
+			Assert.assertEquals(1, children.size());
+			Assert.assertEquals(other.getId(), children.get(0).getId());
+		}catch (Exception e){
+			LOG.error(e);
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void testDeleteFolderTree() {
+		try{
+			FolderDto folder = new FolderDto();
+			folder.setName("test");
+			folder.setEnabled(true);
+			folder = foldersAdminService.saveFolder(folder);
+			FolderDto child = new FolderDto();
+			child.setName("test_child");
+			child.setEnabled(true);
+			child.setIdParent(folder.getId());
+			child = foldersAdminService.saveFolder(child);
+			FolderDto grandChild = new FolderDto();
+			grandChild.setName("test_grand_child");
+			grandChild.setEnabled(true);
+			grandChild.setIdParent(child.getId());
+			grandChild = foldersAdminService.saveFolder(grandChild);
+
+			RemovedSubtree removed = foldersAdminService.deleteFolder(folder.getId());
+			Assert.assertEquals(3, removed.getFolderIds().size());
+			Assert.assertTrue(removed.getFolderIds().contains(grandChild.getId()));
+			Assert.assertTrue(removed.getLayerIds().isEmpty());
+			Assert.assertNull(foldersAdminService.getById(child.getId()));
+		}catch (Exception e){
+			LOG.error(e);
+			Assert.fail();
+		}
+	}
+	
 	@Test
 	public void testUpdateFolder() {
 		try{
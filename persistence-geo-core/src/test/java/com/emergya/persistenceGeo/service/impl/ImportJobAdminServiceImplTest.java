@@ -0,0 +1,177 @@
+/*
+ * ImportJobAdminServiceImplTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.hibernate.SessionFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.emergya.persistenceGeo.dto.ImportJobDto;
+import com.emergya.persistenceGeo.metaModel.AbstractImportJobEntity;
+import com.emergya.persistenceGeo.service.ImportJobAdminService;
+
+/**
+ * Test for ImportJobAdminService
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "classpath:modelContext.xml" })
+@TransactionConfiguration(defaultRollback = true, transactionManager = "transactionManager")
+@Transactional
+public class ImportJobAdminServiceImplTest {
+
+	@Resource
+	private ImportJobAdminService importJobAdminService;
+
+	@Resource
+	private SessionFactory sessionFactory;
+
+	@Test
+	public void testJobLifecycle() {
+		ImportJobDto job = new ImportJobDto();
+		job.setType(AbstractImportJobEntity.TYPE_SHP);
+		job.setStatus(AbstractImportJobEntity.STATUS_QUEUED);
+		job.setSourcePath("/tmp/shapefile");
+		job.setTargetName("import_job_test");
+		job.setDone(0L);
+		job.setCreateDate(new Date());
+		job = (ImportJobDto) importJobAdminService.create(job);
+		Assert.assertNotNull(job.getId());
+
+		Assert.assertTrue(containsJob(importJobAdminService
+				.findByStatus(AbstractImportJobEntity.STATUS_QUEUED), job));
+
+		// only one worker can take the job
+		Assert.assertTrue(importJobAdminService.changeStatus(job.getId(),
+				AbstractImportJobEntity.STATUS_QUEUED,
+				AbstractImportJobEntity.STATUS_RUNNING, null));
+		Assert.assertFalse(importJobAdminService.changeStatus(job.getId(),
+				AbstractImportJobEntity.STATUS_QUEUED,
+				AbstractImportJobEntity.STATUS_RUNNING, null));
+
+		importJobAdminService.updateProgress(job.getId(), 50L, 200L);
+		Assert.assertTrue(importJobAdminService.changeStatus(job.getId(),
+				AbstractImportJobEntity.STATUS_RUNNING,
+				AbstractImportJobEntity.STATUS_DONE, "imported"));
+
+		// bulk updates don't refresh the loaded entities
+		sessionFactory.getCurrentSession().clear();
+		ImportJobDto done = (ImportJobDto) importJobAdminService.getById(job
+				.getId());
+		Assert.assertEquals(AbstractImportJobEntity.STATUS_DONE,
+				done.getStatus());
+		Assert.assertEquals("imported", done.getMessage());
+		Assert.assertEquals(Integer.valueOf(25), done.getProgress());
+		Assert.assertNotNull(done.getStartDate());
+		Assert.assertNotNull(done.getEndDate());
+		Assert.assertFalse(containsJob(importJobAdminService
+				.findByStatus(AbstractImportJobEntity.STATUS_QUEUED,
+						AbstractImportJobEntity.STATUS_RUNNING), job));
+	}
+
+	@Test
+	public void testClaimAndLeases() {
+		ImportJobDto job = new ImportJobDto();
+		job.setType(AbstractImportJobEntity.TYPE_SHP);
+		job.setStatus(AbstractImportJobEntity.STATUS_QUEUED);
+		job.setSourcePath("/tmp/shapefile");
+		job.setTargetName("import_job_lease_test");
+		job.setNode("node1");
+		job.setDone(0L);
+		job.setCreateDate(new Date());
+		job = (ImportJobDto) importJobAdminService.create(job);
+
+		// the job is pinned to the node that has its file
+		Assert.assertTrue(containsJob(importJobAdminService.findQueued("node1"),
+				job));
+		Assert.assertFalse(containsJob(
+				importJobAdminService.findQueued("node2"), job));
+		Assert.assertFalse(importJobAdminService.claim(job.getId(), "node2"));
+		Assert.assertTrue(importJobAdminService.claim(job.getId(), "node1"));
+		Assert.assertFalse(importJobAdminService.claim(job.getId(), "node1"));
+
+		Assert.assertEquals(1, importJobAdminService.renewLeases("node1",
+				Arrays.asList(job.getId())));
+		Assert.assertEquals(0, importJobAdminService.renewLeases("node2",
+				Arrays.asList(job.getId())));
+
+		// cancelled from another node
+		Assert.assertTrue(importJobAdminService.findCancelRequested("node1")
+				.isEmpty());
+		Assert.assertTrue(importJobAdminService.requestCancel(job.getId()));
+		Assert.assertEquals(Arrays.asList(job.getId()),
+				importJobAdminService.findCancelRequested("node1"));
+
+		// a live lease isn't expired
+		Date past = new Date(System.currentTimeMillis() - 60000);
+		Assert.assertEquals(0, importJobAdminService.expireLeases(past,
+				AbstractImportJobEntity.STATUS_QUEUED, "expired",
+				AbstractImportJobEntity.TYPE_SHP));
+		Date future = new Date(System.currentTimeMillis() + 60000);
+		Assert.assertEquals(0, importJobAdminService.expireLeases(future,
+				AbstractImportJobEntity.STATUS_FAILED, "expired",
+				AbstractImportJobEntity.TYPE_GEOTIFF));
+		Assert.assertEquals(1, importJobAdminService.expireLeases(future,
+				AbstractImportJobEntity.STATUS_QUEUED, "expired",
+				AbstractImportJobEntity.TYPE_SHP));
+
+		sessionFactory.getCurrentSession().clear();
+		ImportJobDto expired = (ImportJobDto) importJobAdminService
+				.getById(job.getId());
+		Assert.assertEquals(AbstractImportJobEntity.STATUS_QUEUED,
+				expired.getStatus());
+		Assert.assertEquals("node1", expired.getNode());
+		Assert.assertTrue(containsJob(
+				importJobAdminService.findQueued("node1"), expired));
+	}
+
+	private boolean containsJob(List<ImportJobDto> jobs, ImportJobDto job) {
+		for (ImportJobDto found : jobs) {
+			if (job.getId().equals(found.getId())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -25,9 +25,11 @@
  */
 package com.emergya.persistenceGeo.service.impl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +38,7 @@ import java.util.Random;
 
 import javax.annotation.Resource;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.junit.Assert;
@@ -47,9 +50,11 @@ import org.springframework.test.context.transaction.TransactionConfiguration;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.emergya.persistenceGeo.dto.LayerDto;
+import com.emergya.persistenceGeo.dto.LayerSummary;
 import com.emergya.persistenceGeo.dto.RuleDto;
 import com.emergya.persistenceGeo.dto.StyleDto;
 import com.emergya.persistenceGeo.service.LayerAdminService;
+import com.emergya.persistenceGeo.utils.ContentInfo;
 
 
 /**
@@ -138,4 +143,118 @@ public class UpdateLayerTest{
 		}
 	}
 
+	@Test
+	public void testGetPublicLayerSummaries() {
+		try{
+			LayerDto layer = new LayerDto();
+			layer.setName(PR_2_LAYER_NAME);
+			layer.setData(new File(PR_2_LAYER_DATA));
+			layer.setType(LayerAdminService.TYPE_KML);
+			layer.setPublicized(true);
+			layer = (LayerDto) layerAdminService.create(layer);
+			LayerSummary found = null;
+			for(LayerSummary summary: layerAdminService.getPublicLayerSummaries()){
+				if(layer.getId().equals(summary.getId())){
+					found = summary;
+				}
+			}
+			Assert.assertNotNull(found);
+			Assert.assertEquals(found.getName(), PR_2_LAYER_NAME);
+			Assert.assertEquals(found.getType(), LayerAdminService.TYPE_KML);
+			Assert.assertTrue(found.getPublicized());
+			Assert.assertTrue(found.getHasData());
+		}catch (Exception e){
+			e.printStackTrace();
+			LOG.error(e);
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void testGetLayersListWithStyles() {
+		try{
+			LayerDto layer = new LayerDto();
+			layer.setName(PR_2_LAYER_NAME);
+			layer.setType(LayerAdminService.TYPE_KML);
+			Map<String, String> layerProperties = new HashMap<String, String>();
+			layerProperties.put(PR_2_STYLE_PROPERTY_NAME, PR_2_STYLE_PROPERTY_VALUE);
+			layer.setProperties(layerProperties);
+			StyleDto style = new StyleDto();
+			style.setName(PR_2_STYLE_NAME);
+			Map<RuleDto, Map<String, String>> rules = new HashMap<RuleDto, Map<String,String>>();
+			RuleDto rule = new RuleDto();
+			rule.setFilter("true");
+			Map<String, String> properties = new HashMap<String, String>();
+			properties.put(PR_2_STYLE_PROPERTY_NAME, PR_2_STYLE_PROPERTY_VALUE);
+			rules.put(rule, properties);
+			style.setRules(rules);
+			Map<StyleDto, Map<RuleDto, Map<String, String>>> styles = new HashMap<StyleDto, Map<RuleDto,Map<String,String>>>();
+			styles.put(style, rules);
+			layer.setStyles(styles);
+			layer = (LayerDto) layerAdminService.create(layer);
+			LayerDto found = null;
+			for(Object dto: layerAdminService.getAll()){
+				if(layer.getId().equals(((LayerDto) dto).getId())){
+					found = (LayerDto) dto;
+				}
+			}
+			Assert.assertNotNull(found);
+			Assert.assertEquals(found.getProperties().get(PR_2_STYLE_PROPERTY_NAME), PR_2_STYLE_PROPERTY_VALUE);
+			Assert.assertEquals(found.getStyles().size(), 1);
+			for (StyleDto styleDto: found.getStyles().keySet()){
+				Assert.assertEquals(styleDto.getRules().size(), 1);
+				for(Map<String, String> ruleProperties: styleDto.getRules().values()){
+					Assert.assertEquals(ruleProperties.get(PR_2_STYLE_PROPERTY_NAME), PR_2_STYLE_PROPERTY_VALUE);
+				}
+			}
+		}catch (Exception e){
+			e.printStackTrace();
+			LOG.error(e);
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void testWriteLayerData() {
+		try{
+			LayerDto layer = new LayerDto();
+			layer.setName(PR_2_LAYER_NAME);
+			layer.setType(LayerAdminService.TYPE_KML);
+			layer.setData(new File(PR_2_LAYER_DATA));
+			layer = (LayerDto) layerAdminService.create(layer);
+			Assert.assertNull(layer.getData());
+			Assert.assertTrue(layer.getHasData());
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			Assert.assertTrue(layerAdminService.writeLayerData(layer.getId(), out));
+			Assert.assertArrayEquals(FileUtils.readFileToByteArray(new File(PR_2_LAYER_DATA)), out.toByteArray());
+		}catch (Exception e){
+			e.printStackTrace();
+			LOG.error(e);
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void testWriteLayerDataRange() {
+		try{
+			LayerDto layer = new LayerDto();
+			layer.setName(PR_2_LAYER_NAME);
+			layer.setType(LayerAdminService.TYPE_KML);
+			layer.setData(new File(PR_2_LAYER_DATA));
+			layer = (LayerDto) layerAdminService.create(layer);
+			byte[] data = FileUtils.readFileToByteArray(new File(PR_2_LAYER_DATA));
+			ContentInfo content = layerAdminService.getLayerContentInfo(layer.getId());
+			Assert.assertNotNull(content);
+			Assert.assertEquals(Long.valueOf(data.length), content.getSize());
+			Assert.assertNotNull(content.getETag());
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			Assert.assertTrue(layerAdminService.writeLayerData(layer.getId(), 10, 20, out));
+			Assert.assertArrayEquals(Arrays.copyOfRange(data, 10, 30), out.toByteArray());
+		}catch (Exception e){
+			e.printStackTrace();
+			LOG.error(e);
+			Assert.fail();
+		}
+	}
+
 }
@@ -0,0 +1,195 @@
+/*
+ * BroadcastingCacheManagerTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.emergya.persistenceGeo.service.CacheChangeTransport;
+import com.emergya.persistenceGeo.service.impl.CacheInvalidationBusImpl;
+
+/**
+ * Entity changes between two nodes sharing an in memory transport
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class BroadcastingCacheManagerTest {
+
+	private MemoryTransport transport;
+	private CacheInvalidationBusImpl busA;
+	private CacheInvalidationBusImpl busB;
+	private BroadcastingCacheManager nodeA;
+	private BroadcastingCacheManager nodeB;
+
+	@Before
+	public void setUp() {
+		transport = new MemoryTransport();
+		busA = createBus("a");
+		busB = createBus("b");
+		nodeA = createManager(busA);
+		nodeB = createManager(busB);
+	}
+
+	@Test
+	public void testUserContentsEvictsUserKeys() {
+		Cache folders = nodeA.getCache(CacheRegions.FOLDER_TREES);
+		folders.put("user:1", "a");
+		folders.put("user:2", "a");
+		folders.put("roots:true", "a");
+		folders.put("zone:3:true", "a");
+		Cache layers = nodeA.getCache(CacheRegions.LAYER_LISTS);
+		layers.put("summaries:user:1", "a");
+		layers.put("summaries:user:2", "a");
+		layers.put("public", "a");
+
+		busA.publish(CacheEntities.USER_CONTENTS, 1L);
+
+		assertNull(folders.get("user:1"));
+		assertNotNull(folders.get("user:2"));
+		assertNull(folders.get("roots:true"));
+		assertNull(folders.get("zone:3:true"));
+		assertNull(layers.get("summaries:user:1"));
+		assertNotNull(layers.get("summaries:user:2"));
+		assertNull(layers.get("public"));
+	}
+
+	@Test
+	public void testChangeReachesOtherNode() {
+		nodeB.getCache(CacheRegions.USERS).put("name:pepe", "b");
+		nodeB.getCache(CacheRegions.USERS).put("name:juan", "b");
+		nodeB.getCache(CacheRegions.FOLDER_TREES).put("user:1", "b");
+
+		busA.publish(CacheEntities.USER, "pepe");
+		assertNotNull(nodeB.getCache(CacheRegions.USERS).get("name:pepe"));
+		busB.poll();
+
+		assertNull(nodeB.getCache(CacheRegions.USERS).get("name:pepe"));
+		assertNotNull(nodeB.getCache(CacheRegions.USERS).get("name:juan"));
+		assertNotNull(nodeB.getCache(CacheRegions.FOLDER_TREES).get("user:1"));
+	}
+
+	@Test
+	public void testChangeWithoutIdEvictsEveryId() {
+		nodeB.getCache(CacheRegions.USERS).put("name:pepe", "b");
+		nodeB.getCache(CacheRegions.USERS).put("all", "b");
+
+		busA.publish(CacheEntities.USER, null);
+		busB.poll();
+
+		assertNull(nodeB.getCache(CacheRegions.USERS).get("name:pepe"));
+		assertNull(nodeB.getCache(CacheRegions.USERS).get("all"));
+	}
+
+	@Test
+	public void testChangeAppliedOnce() {
+		nodeB.getCache(CacheRegions.ZONES).put("zone:1", "b");
+
+		busA.publish(CacheEntities.ZONE, 1L);
+		busA.poll();
+		busB.poll();
+		busA.poll();
+
+		assertNull(nodeB.getCache(CacheRegions.ZONES).get("zone:1"));
+		// received changes aren't published again
+		assertEquals(1, transport.changes.size());
+	}
+
+	@Test
+	public void testDisabledBusIsLocal() {
+		busA.setEnabled(false);
+		nodeA.getCache(CacheRegions.ZONES).put("zone:1", "a");
+		nodeB.getCache(CacheRegions.ZONES).put("zone:1", "b");
+
+		busA.publish(CacheEntities.ZONE, 1L);
+		busB.poll();
+
+		assertNull(nodeA.getCache(CacheRegions.ZONES).get("zone:1"));
+		assertNotNull(nodeB.getCache(CacheRegions.ZONES).get("zone:1"));
+		assertTrue(transport.changes.isEmpty());
+	}
+
+	private CacheInvalidationBusImpl createBus(String node) {
+		CacheInvalidationBusImpl bus = new CacheInvalidationBusImpl();
+		bus.setNodeId(node);
+		bus.setEnabled(true);
+		ReflectionTestUtils.setField(bus, "cacheChangeTransport", transport);
+		return bus;
+	}
+
+	private BroadcastingCacheManager createManager(CacheInvalidationBusImpl bus) {
+		BroadcastingCacheManager manager = new BroadcastingCacheManager();
+		manager.setTargetCacheManager(new ConcurrentMapCacheManager(
+				CacheRegions.USERS, CacheRegions.ZONES,
+				CacheRegions.FOLDER_TREES, CacheRegions.LAYER_LISTS));
+		manager.setCacheInvalidationBus(bus);
+		manager.afterPropertiesSet();
+		return manager;
+	}
+
+	private static class MemoryTransport implements CacheChangeTransport {
+
+		private final List<CacheChange> changes = new ArrayList<CacheChange>();
+		private final Map<String, Integer> read = new HashMap<String, Integer>();
+
+		@Override
+		public void send(CacheChange change) {
+			changes.add(change);
+		}
+
+		@Override
+		public List<CacheChange> receive(String node) {
+			Integer from = read.get(node);
+			List<CacheChange> result = new ArrayList<CacheChange>();
+			for (CacheChange change : changes.subList(from != null ? from
+					: 0, changes.size())) {
+				if (!node.equals(change.getNode())) {
+					result.add(change);
+				}
+			}
+			read.put(node, changes.size());
+			return result;
+		}
+	}
+
+}
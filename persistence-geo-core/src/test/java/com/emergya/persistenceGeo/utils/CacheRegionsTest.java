@@ -0,0 +1,195 @@
+/*
+ * CacheRegionsTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.hibernate.annotations.Cache;
+import org.junit.Test;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+
+import com.emergya.persistenceGeo.model.AuthorityTypeEntity;
+import com.emergya.persistenceGeo.model.FolderTypeEntity;
+import com.emergya.persistenceGeo.model.LayerTypeEntity;
+import com.emergya.persistenceGeo.model.LayerTypePropertyEntity;
+import com.emergya.persistenceGeo.model.PermissionEntity;
+import com.emergya.persistenceGeo.model.SourceToolEntity;
+import com.emergya.persistenceGeo.model.ZoneEntity;
+import com.emergya.persistenceGeo.service.impl.FoldersAdminServiceImpl;
+import com.emergya.persistenceGeo.service.impl.LayerAdminServiceImpl;
+import com.emergya.persistenceGeo.service.impl.MapConfigurationAdminServiceImpl;
+import com.emergya.persistenceGeo.service.impl.UserAdminServiceImpl;
+import com.emergya.persistenceGeo.service.impl.ZoneAdminServiceImpl;
+
+/**
+ * Checks the cache annotations of the services against the regions of
+ * <code>ehcache.xml</code>
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class CacheRegionsTest {
+
+	private static final Class<?>[] SERVICES = { FoldersAdminServiceImpl.class,
+			LayerAdminServiceImpl.class, UserAdminServiceImpl.class,
+			ZoneAdminServiceImpl.class, MapConfigurationAdminServiceImpl.class };
+
+	private static final String[] ENTITY_TYPES = { CacheEntities.FOLDER,
+			CacheEntities.LAYER, CacheEntities.USER_CONTENTS,
+			CacheEntities.GROUP_CONTENTS, CacheEntities.USER,
+			CacheEntities.USER_GROUP, CacheEntities.ZONE,
+			CacheEntities.LAYER_TYPE, CacheEntities.MAP_CONFIGURATION };
+
+	private static final Class<?>[] REFERENCE_ENTITIES = {
+			LayerTypeEntity.class, LayerTypePropertyEntity.class,
+			FolderTypeEntity.class, ZoneEntity.class, PermissionEntity.class,
+			AuthorityTypeEntity.class, SourceToolEntity.class };
+
+	@Test
+	public void testKeysDontCollide() {
+		Map<String, String> keys = new HashMap<String, String>();
+		for (Class<?> service : SERVICES) {
+			for (Method method : service.getDeclaredMethods()) {
+				Cacheable cacheable = method.getAnnotation(Cacheable.class);
+				if (cacheable == null) {
+					continue;
+				}
+				String name = service.getSimpleName() + "." + method.getName();
+				assertFalse(name + " has no explicit key",
+						cacheable.key().isEmpty());
+				String prefix = cacheable.key().split("#")[0];
+				for (String region : cacheable.value()) {
+					String previous = keys.put(region + "/" + prefix, name);
+					assertTrue(name + " and " + previous
+							+ " share the keys of " + region, previous == null
+							|| previous.equals(name));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRegionsAreConfigured() throws IOException {
+		String config = readConfig();
+		for (Class<?> service : SERVICES) {
+			for (Method method : service.getDeclaredMethods()) {
+				String[] regions = new String[0];
+				if (method.getAnnotation(Cacheable.class) != null) {
+					regions = method.getAnnotation(Cacheable.class).value();
+				} else if (method.getAnnotation(CacheEvict.class) != null) {
+					regions = method.getAnnotation(CacheEvict.class).value();
+				}
+				for (String region : regions) {
+					assertTrue(region + " isn't configured",
+							config.contains("name=\"" + region + "\""));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCachedKeysAreEvicted() {
+		for (Class<?> service : SERVICES) {
+			for (Method method : service.getDeclaredMethods()) {
+				Cacheable cacheable = method.getAnnotation(Cacheable.class);
+				if (cacheable == null) {
+					continue;
+				}
+				String name = service.getSimpleName() + "." + method.getName();
+				// literal start of the key, empty for the other expressions
+				String literal = cacheable.key().startsWith("'") ? cacheable
+						.key().split("'")[1] : "";
+				for (String region : cacheable.value()) {
+					assertTrue(name + " isn't evicted by any entity change",
+							isEvicted(region, literal));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testEntityRegionsAreConfigured() throws IOException {
+		String config = readConfig();
+		for (String region : CacheEntities.getRegions()) {
+			assertTrue(region + " isn't configured",
+					config.contains("name=\"" + region + "\""));
+		}
+	}
+
+	@Test
+	public void testReferenceEntitiesAreCached() throws IOException {
+		String config = readConfig();
+		for (Class<?> entity : REFERENCE_ENTITIES) {
+			Cache cache = entity.getAnnotation(Cache.class);
+			assertTrue(entity.getSimpleName() + " isn't cached", cache != null);
+			assertTrue(cache.region() + " isn't configured",
+					config.contains("name=\"" + cache.region() + "\""));
+		}
+		assertTrue(CacheRegions.REFERENCE_QUERIES + " isn't configured",
+				config.contains("name=\"" + CacheRegions.REFERENCE_QUERIES
+						+ "\""));
+	}
+
+	private boolean isEvicted(String region, String literal) {
+		for (String entityType : ENTITY_TYPES) {
+			List<String> keys = CacheEntities.getKeys(entityType, null).get(
+					region);
+			if (keys == null) {
+				continue;
+			}
+			for (String key : keys) {
+				if (key.endsWith("*") ? literal.startsWith(key.substring(0,
+						key.length() - 1)) : key.equals(literal)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private String readConfig() throws IOException {
+		InputStream in = getClass().getResourceAsStream("/ehcache.xml");
+		try {
+			return IOUtils.toString(in, "UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+}
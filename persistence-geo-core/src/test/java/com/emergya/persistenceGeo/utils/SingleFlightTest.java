@@ -0,0 +1,189 @@
+/*
+ * SingleFlightTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Concurrent calls coalesced by {@link SingleFlight}
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class SingleFlightTest {
+
+	private static final int CALLERS = 8;
+
+	private SingleFlight singleFlight;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		singleFlight = new SingleFlight();
+		executor = Executors.newFixedThreadPool(CALLERS);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentCallsAreCoalesced() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger loads = new AtomicInteger();
+		final Object result = new Object();
+		List<Future<Object>> futures = submit(new SingleFlight.Call<Object>() {
+			public Object call() {
+				loads.incrementAndGet();
+				await(release);
+				return result;
+			}
+		});
+
+		waitCoalesced(CALLERS - 1);
+		release.countDown();
+
+		for (Future<Object> future : futures) {
+			assertSame(result, future.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+		Map<String, Object> statistics = singleFlight.getStatistics();
+		assertEquals(1L, statistics.get(SingleFlight.EXECUTED));
+		assertEquals((long) CALLERS - 1, statistics.get(SingleFlight.COALESCED));
+		assertEquals(0, statistics.get(SingleFlight.IN_FLIGHT));
+	}
+
+	@Test
+	public void testExceptionReachesWaitingCallers() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		List<Future<Object>> futures = submit(new SingleFlight.Call<Object>() {
+			public Object call() {
+				await(release);
+				throw new IllegalArgumentException("load failed");
+			}
+		});
+
+		waitCoalesced(CALLERS - 1);
+		release.countDown();
+
+		for (Future<Object> future : futures) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+				fail("Exception expected");
+			} catch (ExecutionException e) {
+				assertEquals(IllegalArgumentException.class, e.getCause()
+						.getClass());
+			}
+		}
+	}
+
+	@Test
+	public void testSequentialCallsAreExecuted() {
+		final AtomicInteger loads = new AtomicInteger();
+		SingleFlight.Call<Integer> call = new SingleFlight.Call<Integer>() {
+			public Integer call() {
+				return loads.incrementAndGet();
+			}
+		};
+
+		assertEquals(Integer.valueOf(1), singleFlight.execute("tree", 1L, call));
+		assertEquals(Integer.valueOf(2), singleFlight.execute("tree", 1L, call));
+		assertEquals(Integer.valueOf(3), singleFlight.execute("tree", 2L, call));
+		assertEquals(0L, singleFlight.getStatistics().get(SingleFlight.COALESCED));
+	}
+
+	@Test
+	public void testReentrantCallIsExecuted() {
+		String result = singleFlight.execute("tree", 1L,
+				new SingleFlight.Call<String>() {
+					public String call() {
+						return singleFlight.execute("tree", 1L,
+								new SingleFlight.Call<String>() {
+									public String call() {
+										return "inner";
+									}
+								});
+					}
+				});
+
+		assertEquals("inner", result);
+	}
+
+	private List<Future<Object>> submit(final SingleFlight.Call<Object> call) {
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+		for (int i = 0; i < CALLERS; i++) {
+			futures.add(executor.submit(new Callable<Object>() {
+				public Object call() {
+					return singleFlight.execute("tree", 1L, call);
+				}
+			}));
+		}
+		return futures;
+	}
+
+	private void waitCoalesced(long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!Long.valueOf(expected).equals(
+				singleFlight.getStatistics().get(SingleFlight.COALESCED))) {
+			if (System.currentTimeMillis() > deadline) {
+				fail("Callers weren't coalesced: " + singleFlight.getStatistics());
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * TransactionAwareCacheManagerTest.java
+ * 
+ * Copyright (C) 2013
+ * 
+ * This file is part of persistenceGeo project
+ * 
+ * This software is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any
+ * later version.
+ * 
+ * This software is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this library; if not, write to the Free Software Foundation, Inc., 51
+ * Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ * 
+ * As a special exception, if you link this library with other files to produce
+ * an executable, this library does not by itself cause the resulting executable
+ * to be covered by the GNU General Public License. This exception does not
+ * however invalidate any other reasons why the executable file might be covered
+ * by the GNU General Public License.
+ * 
+ * Authors:: Alejandro Díaz Torres (mailto:adiaz@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache changes made inside and outside a transaction
+ * 
+ * @author <a href="mailto:adiaz@emergya.com">adiaz</a>
+ * 
+ */
+public class TransactionAwareCacheManagerTest {
+
+	private ConcurrentMapCacheManager target;
+	private TransactionAwareCacheManager cacheManager;
+
+	@Before
+	public void setUp() {
+		target = new ConcurrentMapCacheManager();
+		cacheManager = new TransactionAwareCacheManager();
+		cacheManager.setTargetCacheManager(target);
+		cacheManager.afterPropertiesSet();
+		target.getCache(CacheRegions.USERS).put("user:1", "a");
+	}
+
+	@After
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testWithoutTransaction() {
+		Cache users = cacheManager.getCache(CacheRegions.USERS);
+		users.evict("user:1");
+		users.put("user:2", "b");
+		assertNull(target.getCache(CacheRegions.USERS).get("user:1"));
+		assertEquals("b", users.get("user:2").get());
+	}
+
+	@Test
+	public void testEvictAfterCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		Cache users = cacheManager.getCache(CacheRegions.USERS);
+		users.evict("user:1");
+		users.clear();
+		assertNotNull("Evicted before the commit", users.get("user:1"));
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+				.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+		assertNull(users.get("user:1"));
+	}
+
+	@Test
+	public void testRollbackKeepsCache() {
+		TransactionSynchronizationManager.initSynchronization();
+		cacheManager.getCache(CacheRegions.USERS).evict("user:1");
+		cacheManager.getCache(CacheRegions.USERS).put("user:2", "b");
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+				.getSynchronizations()) {
+			synchronization
+					.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+		Cache users = target.getCache(CacheRegions.USERS);
+		assertEquals("a", users.get("user:1").get());
+		assertNull(users.get("user:2"));
+	}
+}
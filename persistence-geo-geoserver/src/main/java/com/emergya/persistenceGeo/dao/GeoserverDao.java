@@ -29,12 +29,15 @@
 package com.emergya.persistenceGeo.dao;
 
 import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
 import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
 
 import java.io.File;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
+import com.emergya.persistenceGeo.exceptions.GeoserverException;
 import com.emergya.persistenceGeo.utils.GsCoverageDetails;
 import com.emergya.persistenceGeo.utils.GsCoverageStoreData;
 import com.emergya.persistenceGeo.utils.GsFeatureDescriptor;
@@ -338,4 +341,24 @@ public interface GeoserverDao {
 	public String getLayerWorkspace(String layerName);
 
     public RESTLayer getLayerInfo(String layerName);
+
+	/**
+	 * Resource (feature type or coverage) published by a layer, with its
+	 * native name and the URL of its store
+	 * 
+	 * @param layerName
+	 * @return the resource or null if the layer doesn't exist
+	 * @throws GeoserverException
+	 *             if GeoServer can't be reached or fails, so the layer may
+	 *             still exist
+	 */
+	public RESTFeatureType getFeatureType(String layerName);
+
+	/**
+	 * Latency of the calls to the GeoServer REST API by operation and usage
+	 * of the connection pool
+	 * 
+	 * @return REST client metrics
+	 */
+	public Map<String, Object> getRestStats();
 }
@@ -32,17 +32,19 @@ import it.geosolutions.geoserver.rest.GeoServerRESTManager;
 import it.geosolutions.geoserver.rest.GeoServerRESTPublisher;
 import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.ParameterConfigure;
 import it.geosolutions.geoserver.rest.GeoServerRESTReader;
-import it.geosolutions.geoserver.rest.HTTPUtils;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverageList;
 import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
 import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+import it.geosolutions.geoserver.rest.decoder.RESTResource;
+import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
 import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
 import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
 import it.geosolutions.geoserver.rest.encoder.GSLayerEncoder;
 import it.geosolutions.geoserver.rest.encoder.GSResourceEncoder.ProjectionPolicy;
 import it.geosolutions.geoserver.rest.encoder.coverage.GSCoverageEncoder;
 import it.geosolutions.geoserver.rest.encoder.datastore.GSPostGISDatastoreEncoder;
-import it.geosolutions.geoserver.rest.manager.GeoServerRESTStoreManager;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -50,8 +52,13 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.httpclient.NameValuePair;
@@ -64,6 +71,7 @@ import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import com.emergya.persistenceGeo.dao.GeoserverDao;
 import com.emergya.persistenceGeo.exceptions.GeoserverException;
@@ -76,6 +84,7 @@ import com.emergya.persistenceGeo.utils.GsCoverageStoreData;
 import com.emergya.persistenceGeo.utils.GsFeatureDescriptor;
 import com.emergya.persistenceGeo.utils.GsLayerDescriptor;
 import com.emergya.persistenceGeo.utils.GsRestApiConfiguration;
+import com.emergya.persistenceGeo.utils.GsRestClient;
 import com.sun.org.apache.xerces.internal.impl.xs.identity.Selector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -87,6 +96,15 @@ import java.util.regex.Pattern;
  * geoserver-manager de Geosolutions para la conexión con Geoserver. Requiere de
  * un objeto {@link com.emergya.persistenceGeo.utils.GsRestApiConfiguration} .
  * 
+ * Se mantiene un único cliente por configuración: las lecturas y la
+ * creación y borrado de workspaces, datastores y capas PostGIS usan un
+ * {@link GsRestClient} con un pool de conexiones persistentes; el resto de
+ * escrituras (estilos, coberturas) el publicador de geoserver-manager. Los
+ * tiempos de conexión y lectura y el tamaño del pool se configuran con las
+ * propiedades <code>geoserver.rest.connectionTimeout</code>,
+ * <code>geoserver.rest.readTimeout</code> y
+ * <code>geoserver.rest.maxConnections</code>.
+ * 
  * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
  * 
  */
@@ -97,12 +115,33 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	private static final Pattern LAYER_WORKSPACE_PATTERN = Pattern.compile("^.*/rest/workspaces/(.*)/.*stores/.*$");
 	private static final String GET_COVERAGE_DETAILS_URL = "/rest/workspaces/%s/coveragestores/%s/coverages/%s.xml";
 	private static final String GET_COVERAGE_STORE_DATA_URL = "/rest/workspaces/%s/coveragestores/%s.xml";
-	private static final String SET_LAYER_STYLE_URL = "/rest/layers/%s:%s";
+	private static final String WORKSPACE_LAYER_URL = "/rest/layers/%s:%s";
+	private static final String CREATE_WORKSPACE_URL = "/rest/workspaces";
+	private static final String CREATE_WORKSPACE_PAYLOAD = "<workspace><name>%s</name></workspace>";
+	private static final String DELETE_WORKSPACE_URL = "/rest/workspaces/%s?recurse=true";
+	private static final String CREATE_DATASTORE_URL = "/rest/workspaces/%s/datastores.xml";
+	private static final String FEATURE_TYPES_URL = "/rest/workspaces/%s/datastores/%s/featuretypes";
+	private static final String FEATURE_TYPE_URL = FEATURE_TYPES_URL + "/%s";
 	private static final String SET_LAYER_STYLE_PAYLOAD = "<layer><enabled>true</enabled><defaultStyle><name>%s</name></defaultStyle></layer>";
+	private static final String GET_LAYER_URL = "/rest/layers/%s.xml";
+	private static final String GET_LAYERS_URL = "/rest/layers.xml";
+	private static final String GET_STYLES_URL = "/rest/styles.xml";
+	private static final String GET_STYLE_SLD_URL = "/rest/styles/%s.sld";
+	private static final String GET_WORKSPACES_URL = "/rest/workspaces.xml";
 
 	@Autowired
 	private GsRestApiConfiguration gsConfiguration;
 
+	@Value("${geoserver.rest.connectionTimeout:5000}")
+	private int connectionTimeout = 5000;
+	@Value("${geoserver.rest.readTimeout:60000}")
+	private int readTimeout = 60000;
+	@Value("${geoserver.rest.maxConnections:20}")
+	private int maxConnections = 20;
+
+	private GeoServerRESTManager manager;
+	private GsRestClient restClient;
+
 	/**
 	 * @return the gsConfiguration
 	 */
@@ -114,8 +153,74 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 * @param gsConfiguration
 	 *            the gsConfiguration to set
 	 */
-	public void setGsConfiguration(GsRestApiConfiguration gsConfiguration) {
+	public synchronized void setGsConfiguration(
+			GsRestApiConfiguration gsConfiguration) {
 		this.gsConfiguration = gsConfiguration;
+		destroy();
+	}
+
+	/**
+	 * @param connectionTimeout
+	 *            milliseconds to wait for a connection to GeoServer
+	 */
+	public void setConnectionTimeout(int connectionTimeout) {
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	/**
+	 * @param readTimeout
+	 *            milliseconds to wait for GeoServer response data
+	 */
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * @param maxConnections
+	 *            persistent connections kept with GeoServer
+	 */
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	/**
+	 * Close the pooled connections. The clients are created again if the
+	 * DAO is used afterwards.
+	 */
+	@PreDestroy
+	public synchronized void destroy() {
+		if (restClient != null) {
+			restClient.shutdown();
+		}
+		restClient = null;
+		manager = null;
+	}
+
+	private synchronized GeoServerRESTManager getManager()
+			throws MalformedURLException {
+		if (manager == null) {
+			if (LOG.isTraceEnabled()) {
+				LOG.trace("Creating GeoServerRESTManager.");
+			}
+			manager = new GeoServerRESTManager(new URL(
+					gsConfiguration.getServerUrl()),
+					gsConfiguration.getAdminUsername(),
+					gsConfiguration.getAdminPassword());
+		}
+		return manager;
+	}
+
+	private synchronized GsRestClient getRestClient() {
+		if (restClient == null) {
+			if (LOG.isTraceEnabled()) {
+				LOG.trace("Creating GsRestClient.");
+			}
+			restClient = new GsRestClient(gsConfiguration.getServerUrl(),
+					gsConfiguration.getAdminUsername(),
+					gsConfiguration.getAdminPassword(), connectionTimeout,
+					readTimeout, maxConnections);
+		}
+		return restClient;
 	}
 
 	/**
@@ -123,40 +228,34 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 * @throws MalformedURLException
 	 */
 	private GeoServerRESTPublisher getPublisher() throws MalformedURLException {
-		if (LOG.isTraceEnabled()) {
-			LOG.trace("Creating GeoServerRESTPublisher.");
-		}
-		GeoServerRESTManager manager = new GeoServerRESTManager(new URL(
-				gsConfiguration.getServerUrl()),
-				gsConfiguration.getAdminUsername(),
-				gsConfiguration.getAdminPassword());
-		GeoServerRESTPublisher publisher = manager.getPublisher();
-		return publisher;
+		return getManager().getPublisher();
 	}
 
 	private GeoServerRESTReader getReader() throws MalformedURLException {
-		if (LOG.isTraceEnabled()) {
-			LOG.trace("Creating GeoServerRESTReader.");
-		}
-		GeoServerRESTManager manager = new GeoServerRESTManager(new URL(
-				gsConfiguration.getServerUrl()),
-				gsConfiguration.getAdminUsername(),
-				gsConfiguration.getAdminPassword());
-		GeoServerRESTReader reader = manager.getReader();
-		return reader;
+		return getManager().getReader();
 	}
 
-	private GeoServerRESTStoreManager getDatastoreManager()
-			throws MalformedURLException {
-		if (LOG.isTraceEnabled()) {
-			LOG.trace("Creating GeoServerRESTStoreManager.");
-		}
-		GeoServerRESTManager manager = new GeoServerRESTManager(new URL(
-				gsConfiguration.getServerUrl()),
-				gsConfiguration.getAdminUsername(),
-				gsConfiguration.getAdminPassword());
-		GeoServerRESTStoreManager dsManager = manager.getStoreManager();
-		return dsManager;
+	/**
+	 * Record the latency of a call made with geoserver-manager
+	 */
+	private boolean record(String operation, long start, boolean result) {
+		getRestClient().record(operation, start, result);
+		return result;
+	}
+
+	private RESTLayer getLayer(String operation, String layerName) {
+		return RESTLayer.build(getRestClient().get(operation,
+				String.format(GET_LAYER_URL, layerName)));
+	}
+
+	private RESTFeatureType getFeatureType(String operation, RESTLayer layer) {
+		return layer != null ? RESTFeatureType.build(getRestClient().get(
+				operation, layer.getResourceUrl())) : null;
+	}
+
+	@Override
+	public Map<String, Object> getRestStats() {
+		return getRestClient().getStats();
 	}
 
 	/**
@@ -215,17 +314,10 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Creating workspace [name=" + name + "].");
 		}
-		boolean result = true;
 		String sanitizedName = GeoserverUtils.createName(name);
-		try {
-			GeoServerRESTPublisher publisher = getPublisher();
-			result = publisher.createWorkspace(sanitizedName);
-		} catch (IllegalArgumentException e) {
-			result = false;
-		} catch (MalformedURLException e) {
-			result = false;
-		}
-		return result;
+		return getRestClient().post("createWorkspace", CREATE_WORKSPACE_URL,
+				String.format(CREATE_WORKSPACE_PAYLOAD, sanitizedName),
+				"text/xml") != null;
 	}
 
 	@Override
@@ -233,18 +325,8 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Retrieving workspace list.");
 		}
-		GeoServerRESTReader reader;
-		RESTWorkspaceList list = null;
-		try {
-			reader = getReader();
-			list = reader.getWorkspaces();
-
-		} catch (MalformedURLException e) {
-			LOG.error("Malformed Geoserver REST API URL", e);
-			throw new GeoserverException("Malformed Geoserver REST API URL", e);
-		}
-
-		return list;
+		return RESTWorkspaceList.build(getRestClient().get(
+				"getWorkspaceList", GET_WORKSPACES_URL));
 	}
 
 	@Override
@@ -253,17 +335,10 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 			LOG.debug("Deleting workspace [name=" + name
 					+ "] and all its content (layers, datasources, ...)");
 		}
-		boolean result = false;
-		try {
-			GeoServerRESTPublisher publisher = getPublisher();
-			// Elimina el workspace y su contenido de forma recursiva
-			// (datastores, coverages, featureTypes, ...)
-			result = publisher.removeWorkspace(name, true);
-		} catch (MalformedURLException e) {
-			LOG.error("Malformed Geoserver REST API URL", e);
-			throw new GeoserverException("Malformed Geoserver REST API URL", e);
-		}
-		return result;
+		// Elimina el workspace y su contenido de forma recursiva
+		// (datastores, coverages, featureTypes, ...)
+		return getRestClient().delete("deleteWorkspace",
+				String.format(DELETE_WORKSPACE_URL, name));
 	}
 
 	/*
@@ -304,32 +379,21 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 					+ ", datastoreName=" + datastoreName + "]");
 		}
 
-		boolean result = false;
-		GeoServerRESTStoreManager dsManager;
-
 		String sanitizedName = GeoserverUtils.createName(datastoreName);
 
-		try {
-			dsManager = getDatastoreManager();
-			GSPostGISDatastoreEncoder properties = new GSPostGISDatastoreEncoder(
-					sanitizedName);
-			properties.setHost(gsConfiguration.getDbHost());
-			properties.setPort(gsConfiguration.getDbPort());
-			properties.setDatabase(gsConfiguration.getDbName());
-			if (gsConfiguration.getDbSchema() != null
-					&& !gsConfiguration.getDbSchema().isEmpty()) {
-				properties.setSchema(gsConfiguration.getDbSchema());
-			}
-			properties.setUser(gsConfiguration.getDbUser());
-			properties.setPassword(gsConfiguration.getDbPassword());
-
-			result = dsManager.create(workspaceName, properties);
-		} catch (MalformedURLException e) {
-			LOG.error("Malformed Geoserver REST API URL", e);
-			throw new GeoserverException("Malformed Geoserver REST API URL", e);
+		GSPostGISDatastoreEncoder properties = new GSPostGISDatastoreEncoder(
+				sanitizedName);
+		properties.setHost(gsConfiguration.getDbHost());
+		properties.setPort(gsConfiguration.getDbPort());
+		properties.setDatabase(gsConfiguration.getDbName());
+		if (gsConfiguration.getDbSchema() != null
+				&& !gsConfiguration.getDbSchema().isEmpty()) {
+			properties.setSchema(gsConfiguration.getDbSchema());
 		}
+		properties.setUser(gsConfiguration.getDbUser());
+		properties.setPassword(gsConfiguration.getDbPassword());
 
-		return result;
+		return postDatastore(workspaceName, properties);
 	}
 
 	public boolean createDatastoreJndi(String workspaceName,
@@ -339,31 +403,27 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 					+ ", datastoreName=" + datastoreName + "]");
 		}
 
-		boolean result = false;
-		GeoServerRESTStoreManager dsManager;
 		String sanitizedName = GeoserverUtils.createName(datastoreName);
-		try {
-			dsManager = getDatastoreManager();
-			GSPostGISDatastoreEncoder properties = new GSPostGISDatastoreEncoder(
-					sanitizedName);
-
-			properties.setDatabaseType(gsConfiguration.getDbType());
-			if (gsConfiguration.getDbSchema() != null
-					&& !gsConfiguration.getDbSchema().isEmpty()) {
-				properties.setSchema(gsConfiguration.getDbSchema());
-			}
-			properties.setType(gsConfiguration.getDatasourceType());
-			properties.setJndiReferenceName(gsConfiguration
-					.getJndiReferenceName());
-			properties.setPreparedStatements(true);
+		GSPostGISDatastoreEncoder properties = new GSPostGISDatastoreEncoder(
+				sanitizedName);
 
-			result = dsManager.create(workspaceName, properties);
-		} catch (MalformedURLException e) {
-			LOG.error("Malformed Geoserver REST API URL", e);
-			throw new GeoserverException("Malformed Geoserver REST API URL", e);
+		properties.setDatabaseType(gsConfiguration.getDbType());
+		if (gsConfiguration.getDbSchema() != null
+				&& !gsConfiguration.getDbSchema().isEmpty()) {
+			properties.setSchema(gsConfiguration.getDbSchema());
 		}
+		properties.setType(gsConfiguration.getDatasourceType());
+		properties.setJndiReferenceName(gsConfiguration.getJndiReferenceName());
+		properties.setPreparedStatements(true);
 
-		return result;
+		return postDatastore(workspaceName, properties);
+	}
+
+	private boolean postDatastore(String workspaceName,
+			GSPostGISDatastoreEncoder properties) {
+		return getRestClient().post("createDatastore",
+				String.format(CREATE_DATASTORE_URL, workspaceName),
+				properties.toString(), "text/xml") != null;
 	}
 
 	/*
@@ -395,26 +455,24 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 					+ ", storeName=" + storename + ", tableName="
 					+ featureDescriptor.getNativeName() + "]");
 		}
-		boolean result = false;
-		GeoServerRESTPublisher gsPublisher;
-
-		try {
-			gsPublisher = getPublisher();
-			GSFeatureTypeNativeNameEncoder fte = this
-					.tranformToGSFeatureTypeEncoder(featureDescriptor);
-
-			GSLayerEncoder layerEncoder = this
-					.tranformToGSLayerEncoder(layerDescriptor);
-
-			result = gsPublisher.publishDBLayer(workspace, storename, fte,
-					layerEncoder);
-		} catch (MalformedURLException murle) {
-			LOG.error("Malformed Geoserver REST API URL", murle);
-			throw new GeoserverException("Malformed Geoserver REST API URL",
-					murle);
+		GSFeatureTypeNativeNameEncoder fte = this
+				.tranformToGSFeatureTypeEncoder(featureDescriptor);
+
+		GSLayerEncoder layerEncoder = this
+				.tranformToGSLayerEncoder(layerDescriptor);
+
+		// the feature type creates the layer, which is configured afterwards
+		GsRestClient client = getRestClient();
+		if (client.post("publishPostgisLayer",
+				String.format(FEATURE_TYPES_URL, workspace, storename),
+				fte.toString(), "text/xml") == null) {
+			LOG.warn("Error creating the feature type "
+					+ featureDescriptor.getName());
+			return false;
 		}
-
-		return result;
+		return client.put("publishPostgisLayer", String.format(
+				WORKSPACE_LAYER_URL, workspace, featureDescriptor.getName()),
+				layerEncoder.toString(), "text/xml") != null;
 	}
 
 	/*
@@ -431,21 +489,16 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 			LOG.debug("Deleting Postgis Layer [workspace=" + workspaceName
 					+ ", datastore=" + datastoreName + "]");
 		}
-		boolean result = false;
-		GeoServerRESTPublisher gsPublisher;
-
-		try {
-			gsPublisher = getPublisher();
-			result = gsPublisher.unpublishFeatureType(workspaceName,
-					datastoreName, layerName);
-
-		} catch (MalformedURLException murle) {
-			LOG.error("Malformed Geoserver REST API URL", murle);
-			throw new GeoserverException("Malformed Geoserver REST API URL",
-					murle);
+		// the layer has to be removed before its feature type
+		GsRestClient client = getRestClient();
+		if (!client.delete("deletePostgisFeatureType",
+				String.format(WORKSPACE_LAYER_URL, workspaceName, layerName))) {
+			LOG.warn("Error deleting the layer " + workspaceName + ":"
+					+ layerName);
+			return false;
 		}
-
-		return result;
+		return client.delete("deletePostgisFeatureType", String.format(
+				FEATURE_TYPE_URL, workspaceName, datastoreName, layerName));
 	}
 
 	@Override
@@ -480,26 +533,8 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 */
 	@Override
 	public boolean existsLayerInWorkspace(String layerName, String workspaceName) {
-		boolean result = false;
-		try {
-			GeoServerRESTManager manager = new GeoServerRESTManager(new URL(
-					gsConfiguration.getServerUrl()),
-					gsConfiguration.getAdminUsername(),
-					gsConfiguration.getAdminPassword());
-			result = manager.getReader().getLayer(
-					workspaceName + ":" + layerName) != null;
-
-		} catch (IllegalArgumentException e) {
-			LOG.error(
-					"URL de geoserver incorrecta: "
-							+ gsConfiguration.getServerUrl(), e);
-		} catch (MalformedURLException e) {
-			LOG.error(
-					"URL de geoserver incorrecta: "
-							+ gsConfiguration.getServerUrl(), e);
-		}
-
-		return result;
+		return getLayer("existsLayerInWorkspace", workspaceName + ":"
+				+ layerName) != null;
 	}
 
 	@Override
@@ -684,33 +719,17 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("### Retrieving CS from " + url);
 		}
-		return GsCoverageStoreData.build(load(url));
+		return GsCoverageStoreData.build(load("getCoverageStoreData", url));
 	}
 
-	private String load(String url) {
+	private String load(String operation, String url) {
 		LOG.info("Loading from REST path " + url);
-		String baseurl = this.gsConfiguration.getServerUrl();
-		String username = this.gsConfiguration.getAdminUsername();
-		String password = this.gsConfiguration.getAdminPassword();
-		try {
-			String response = HTTPUtils.get(baseurl + url, username, password);
-			return response;
-		} catch (MalformedURLException ex) {
-			LOG.warn("Bad URL", ex);
-		}
-
-		return null;
+		return getRestClient().get(operation, url);
 	}
 
-	private String put(String url, String content) {
+	private String put(String operation, String url, String content) {
 		LOG.info("Loading from REST path " + url);
-		String baseurl = this.gsConfiguration.getServerUrl();
-		String username = this.gsConfiguration.getAdminUsername();
-		String password = this.gsConfiguration.getAdminPassword();
-
-		String response = HTTPUtils.put(baseurl + url, content, "text/xml",
-				username, password);
-		return response;
+		return getRestClient().put(operation, url, content, "text/xml");
 	}
 
 	/*
@@ -748,7 +767,7 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("### Retrieving CS from " + url);
 		}
-		return GsCoverageDetails.build(load(url));
+		return GsCoverageDetails.build(load("getCoverageDetails", url));
 	}
 
 	/*
@@ -758,19 +777,12 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 */
 	@Override
 	public String getLayerStyle(String layerName) {
-		GeoServerRESTReader reader;
-		try {
-			reader = this.getReader();
-		} catch (MalformedURLException e) {
-			LOG.error("Malformed Geoserver REST API URL", e);
-			throw new GeoserverException("Malformed Geoserver REST API URL", e);
-		}
-
-		RESTLayer layer = reader.getLayer(layerName);
+		RESTLayer layer = getLayer("getLayerStyle", layerName);
                 if(layer==null) {
                     return null;
                 }
-		return reader.getSLD(layer.getDefaultStyle());
+		return getRestClient().get("getLayerStyle",
+				String.format(GET_STYLE_SLD_URL, layer.getDefaultStyle()));
 	}
 
 	/*
@@ -790,7 +802,9 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 
 		// The name is sanitized.
 		String newStyleNameSanitized = GeoserverUtils.createName(newStyleName);
-		return publisher.publishStyle(layerSDLContent, newStyleNameSanitized);
+		long start = System.nanoTime();
+		return record("createStyle", start, publisher.publishStyle(
+				layerSDLContent, newStyleNameSanitized));
 	}
 
 	/*
@@ -802,7 +816,7 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	public boolean setLayerStyle(String workspaceName, String layerName,
 			String newLayerStyleName) {
 
-		String url = String.format(SET_LAYER_STYLE_URL, workspaceName,
+		String url = String.format(WORKSPACE_LAYER_URL, workspaceName,
 				layerName);
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("### Setting layer style using " + url);
@@ -814,7 +828,7 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 		String payload = String.format(SET_LAYER_STYLE_PAYLOAD,
 				newStyleNameSanitized);
 
-		return this.put(url, payload) != null;
+		return this.put("setLayerStyle", url, payload) != null;
 	}
 
 	/*
@@ -831,7 +845,9 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 			throw new GeoserverException("Malformed Geoserver REST API URL", e);
 		}
 
-		return publisher.removeStyle(styleName, true);
+		long start = System.nanoTime();
+		return record("deleteStyle", start,
+				publisher.removeStyle(styleName, true));
 	}
 
 	@Override
@@ -855,20 +871,15 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 * @return
 	 */
 	public RESTDataStore getDatastore(String layerName) {
-		GeoServerRESTReader reader;
-		try {
-			reader = getReader();
-			return getReader().getDatastore(
-					reader.getFeatureType(reader.getLayer(layerName)));
-
-		} catch (MalformedURLException e) {
-			LOG.error("Malformed Geoserver REST API URL", e);
-			throw new GeoserverException("Malformed Geoserver REST API URL", e);
-		} catch (NullPointerException np) {
-			LOG.error("Incorrect Geoserver layer '" + layerName + "'", np);
+		RESTFeatureType featureType = getFeatureType("getDatastore",
+				getLayer("getDatastore", layerName));
+		if (featureType == null) {
+			LOG.error("Incorrect Geoserver layer '" + layerName + "'");
 			throw new GeoserverException("Incorrect Geoserver layer '"
-					+ layerName + "'", np);
+					+ layerName + "'");
 		}
+		return RESTDataStore.build(getRestClient().get("getDatastore",
+				featureType.getStoreUrl()));
 	}
 	
 	/**
@@ -877,12 +888,12 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 * @return
 	 */
 	public List<String> getLayersNames(){
-		try {
-			return getReader().getLayers().getNames();
-		} catch (MalformedURLException e) {
-			LOG.error("Malformed Geoserver REST API URL", e);
-			throw new GeoserverException("Malformed Geoserver REST API URL", e);
+		RESTLayerList layers = RESTLayerList.build(getRestClient().get(
+				"getLayersNames", GET_LAYERS_URL));
+		if (layers == null) {
+			throw new GeoserverException("Can't read the Geoserver layers");
 		}
+		return layers.getNames();
 	}
 	
 
@@ -903,18 +914,14 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 * @return native name of the layer 
 	 */
 	public String getNativeName(String layerName){
-		GeoServerRESTReader reader;
-		try {
-			reader = getReader();
-			return reader.getFeatureType(reader.getLayer(layerName)).getNativeName();
-		} catch (MalformedURLException e) {
-			LOG.error("Malformed Geoserver REST API URL", e);
-			throw new GeoserverException("Malformed Geoserver REST API URL", e);
-		} catch (NullPointerException np) {
-			LOG.error("Incorrect Geoserver layer '" + layerName + "'", np);
+		RESTFeatureType featureType = getFeatureType("getNativeName",
+				getLayer("getNativeName", layerName));
+		if (featureType == null) {
+			LOG.error("Incorrect Geoserver layer '" + layerName + "'");
 			throw new GeoserverException("Incorrect Geoserver layer '"
-					+ layerName + "'", np);
+					+ layerName + "'");
 		}
+		return featureType.getNativeName();
 	}
 	
 	/**
@@ -923,12 +930,12 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 * @return styles' names
 	 */
 	public List<String> getStyleNames(){
-		try {
-			return getReader().getStyles().getNames();
-		} catch (MalformedURLException e) {
-			LOG.error("Malformed Geoserver REST API URL", e);
-			throw new GeoserverException("Malformed Geoserver REST API URL", e);
+		RESTStyleList styles = RESTStyleList.build(getRestClient().get(
+				"getStyleNames", GET_STYLES_URL));
+		if (styles == null) {
+			throw new GeoserverException("Can't read the Geoserver styles");
 		}
+		return styles.getNames();
 	}
 	
 	private String [] DEAFAULT_STYLES = {"line", "polygon", "point"};
@@ -950,35 +957,31 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 * @return list of deleted styles
 	 */
 	public List<String> cleanUnusedStyles(List<String> styleNames){
-		GeoServerRESTReader reader;
-		GeoServerRESTManager manager;
 		GeoServerRESTPublisher publisher;
 		List<String> removedStyles = new LinkedList<String>();
 		try {
-			manager = new GeoServerRESTManager(new URL(
-					gsConfiguration.getServerUrl()),
-					gsConfiguration.getAdminUsername(),
-					gsConfiguration.getAdminPassword());
-			reader = manager.getReader();
-			publisher = manager.getPublisher();
-			for(String style: styleNames){
-				if(canRemove(style, reader)
-						&& removeStyle(style, publisher)){
-					removedStyles.add(style);
-				}
-			}
-			return removedStyles;
+			publisher = getPublisher();
 		} catch (MalformedURLException e) {
 			LOG.error("Malformed Geoserver REST API URL", e);
 			throw new GeoserverException("Malformed Geoserver REST API URL", e);
 		}
+		// the layers are read once for all the styles
+		Set<String> usedStyles = getUsedStyles();
+		for(String style: styleNames){
+			if(canRemove(style, usedStyles)
+					&& removeStyle(style, publisher)){
+				removedStyles.add(style);
+			}
+		}
+		return removedStyles;
 	}
 
 	private boolean removeStyle(String style, GeoServerRESTPublisher publisher) {
-		return publisher.removeStyle(style);
+		long start = System.nanoTime();
+		return record("deleteStyle", start, publisher.removeStyle(style));
 	}
 
-	private boolean canRemove(String style, GeoServerRESTReader reader) {
+	private boolean canRemove(String style, Set<String> usedStyles) {
 		// we can't remove default styles
 		for(String defaultStyle: DEAFAULT_STYLES){
 			if(defaultStyle.equals(style)){
@@ -986,24 +989,35 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 			}
 		}
 		// we can't remove used styles
-		for(String layerName: reader.getLayers().getNames()){
-			RESTLayer layer = reader.getLayer(layerName);
-			if(style.equals(layer.getDefaultStyle())){
-				return false;
+		return !usedStyles.contains(style);
+	}
+
+	/**
+	 * @return default styles of the layers
+	 */
+	private Set<String> getUsedStyles() {
+		Set<String> usedStyles = new HashSet<String>();
+		for(String layerName: getLayersNames()){
+			RESTLayer layer = getLayer("cleanUnusedStyles", layerName);
+			if(layer == null){
+				// the style of an unreadable layer can't be known
+				throw new GeoserverException("Can't read the Geoserver layer '"
+						+ layerName + "'");
 			}
+			usedStyles.add(layer.getDefaultStyle());
 		}
-		return true;
+		return usedStyles;
 	}
 
 	@Override
 	public String getLayerWorkspace(String layerName) {
-	    String storeUrl;
-	    try {		
-		storeUrl= getReader().getResource(getReader().getLayer(layerName)).getStoreUrl();
-	    } catch (MalformedURLException ex) {
-		LOG.error("Malformed Geoserver REST API URL", ex);
-		throw new GeoserverException("Malformed Geoserver REST API URL", ex);
+	    RESTLayer layer = getLayer("getLayerWorkspace", layerName);
+	    RESTResource resource = layer != null ? RESTResource.build(getRestClient()
+	    		.get("getLayerWorkspace", layer.getResourceUrl())) : null;
+	    if (resource == null) {
+	    	return null;
 	    }
+	    String storeUrl = resource.getStoreUrl();
 	  
 	   Matcher m = LAYER_WORKSPACE_PATTERN.matcher(storeUrl);
 	   if(!m.find()){
@@ -1020,12 +1034,16 @@ public class GeoserverGsManagerDaoImpl implements GeoserverDao {
 	 */
 	@Override
 	public RESTLayer getLayerInfo(String layerName) {
-	    try {
-		return getReader().getLayer(layerName);
-	    } catch (MalformedURLException ex) {
-		LOG.error("Malformed Geoserver REST API URL", ex);
-		throw new GeoserverException("Malformed Geoserver REST API URL", ex);
-	    }
+	    return getLayer("getLayerInfo", layerName);
+	}
+
+	@Override
+	public RESTFeatureType getFeatureType(String layerName) {
+		GsRestClient client = getRestClient();
+		RESTLayer layer = RESTLayer.build(client.find("getFeatureType",
+				String.format(GET_LAYER_URL, layerName)));
+		return layer != null ? RESTFeatureType.build(client.find(
+				"getFeatureType", layer.getResourceUrl())) : null;
 	}
 	
 	
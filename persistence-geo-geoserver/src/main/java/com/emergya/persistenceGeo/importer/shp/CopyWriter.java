@@ -0,0 +1,228 @@
+/* CopyWriter.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Buffered writer of rows in the text format of the PostgreSQL
+ * <code>COPY ... FROM STDIN</code> command
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class CopyWriter {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final byte[] HEX = "0123456789ABCDEF".getBytes(UTF8);
+	private static final byte[] NULL = "\\N".getBytes(UTF8);
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final CopyIn copyIn;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position = 0;
+	private boolean firstColumn = true;
+
+	public CopyWriter(CopyIn copyIn) {
+		this.copyIn = copyIn;
+	}
+
+	/**
+	 * Write a text value escaping the COPY special characters
+	 * 
+	 * @param value
+	 *            value or null
+	 * @throws SQLException
+	 */
+	public void value(String value) throws SQLException {
+		separator();
+		if (value == null) {
+			write(NULL);
+			return;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '\t' || c == '\n' || c == '\r') {
+				value = escape(value);
+				break;
+			}
+		}
+		write(value.getBytes(UTF8));
+	}
+
+	/**
+	 * Write a null value
+	 * 
+	 * @throws SQLException
+	 */
+	public void nullValue() throws SQLException {
+		value(null);
+	}
+
+	/**
+	 * Start a value that will be written with the <code>hex*</code> methods
+	 * 
+	 * @throws SQLException
+	 */
+	public void startHex() throws SQLException {
+		separator();
+	}
+
+	/**
+	 * Write a byte as two hexadecimal digits
+	 * 
+	 * @param b
+	 * @throws SQLException
+	 */
+	public void hexByte(int b) throws SQLException {
+		ensure(2);
+		buffer[position++] = HEX[(b >> 4) & 0xF];
+		buffer[position++] = HEX[b & 0xF];
+	}
+
+	/**
+	 * Write a little endian integer in hexadecimal
+	 * 
+	 * @param value
+	 * @throws SQLException
+	 */
+	public void hexInt(int value) throws SQLException {
+		for (int i = 0; i < 4; i++) {
+			hexByte(value >> (8 * i));
+		}
+	}
+
+	/**
+	 * Write a little endian double in hexadecimal
+	 * 
+	 * @param value
+	 * @throws SQLException
+	 */
+	public void hexDouble(double value) throws SQLException {
+		long bits = Double.doubleToLongBits(value);
+		for (int i = 0; i < 8; i++) {
+			hexByte((int) (bits >> (8 * i)));
+		}
+	}
+
+	/**
+	 * End the current row
+	 * 
+	 * @throws SQLException
+	 */
+	public void endRow() throws SQLException {
+		ensure(1);
+		buffer[position++] = '\n';
+		firstColumn = true;
+	}
+
+	/**
+	 * Send the buffered rows and end the copy
+	 * 
+	 * @return number of rows copied
+	 * @throws SQLException
+	 */
+	public long close() throws SQLException {
+		flush();
+		return copyIn.endCopy();
+	}
+
+	/**
+	 * Abort the copy
+	 */
+	public void cancel() {
+		try {
+			if (copyIn.isActive()) {
+				copyIn.cancelCopy();
+			}
+		} catch (SQLException e) {
+			// the transaction is rolled back anyway
+		}
+	}
+
+	private void separator() throws SQLException {
+		if (!firstColumn) {
+			ensure(1);
+			buffer[position++] = '\t';
+		}
+		firstColumn = false;
+	}
+
+	private void write(byte[] bytes) throws SQLException {
+		if (bytes.length > buffer.length) {
+			flush();
+			copyIn.writeToCopy(bytes, 0, bytes.length);
+			return;
+		}
+		ensure(bytes.length);
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	private void ensure(int bytes) throws SQLException {
+		if (position + bytes > buffer.length) {
+			flush();
+		}
+	}
+
+	private void flush() throws SQLException {
+		if (position > 0) {
+			copyIn.writeToCopy(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+	private static String escape(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 8);
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			default:
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,123 @@
+/* DbfField.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+/**
+ * Field of a dBase file
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class DbfField {
+
+	public static final char CHARACTER = 'C';
+	public static final char NUMBER = 'N';
+	public static final char FLOAT = 'F';
+	public static final char LOGICAL = 'L';
+	public static final char DATE = 'D';
+
+	private final String name;
+	private final char type;
+	private final int length;
+	private final int decimalCount;
+	private final int offset;
+
+	public DbfField(String name, char type, int length, int decimalCount,
+			int offset) {
+		this.name = name;
+		this.type = type;
+		this.length = length;
+		this.decimalCount = decimalCount;
+		this.offset = offset;
+	}
+
+	/**
+	 * @return the field name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the dBase type
+	 */
+	public char getType() {
+		return type;
+	}
+
+	/**
+	 * @return the length in bytes
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return the number of decimals
+	 */
+	public int getDecimalCount() {
+		return decimalCount;
+	}
+
+	/**
+	 * @return offset of the field in the record
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * PostgreSQL type of the field, the same used by <code>shp2pgsql -i</code>
+	 * 
+	 * @return column type
+	 */
+	public String getSqlType() {
+		switch (type) {
+		case NUMBER:
+		case FLOAT:
+			if (decimalCount == 0 && type == NUMBER) {
+				if (length < 10) {
+					return "int4";
+				} else if (length < 19) {
+					return "int8";
+				} else {
+					return "numeric(" + length + ",0)";
+				}
+			}
+			return "float8";
+		case LOGICAL:
+			return "boolean";
+		case DATE:
+			return "date";
+		default:
+			return "varchar(" + length + ")";
+		}
+	}
+
+}
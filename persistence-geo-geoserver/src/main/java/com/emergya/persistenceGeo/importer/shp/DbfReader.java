@@ -0,0 +1,241 @@
+/* DbfReader.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.emergya.persistenceGeo.exceptions.ShpImporterException;
+
+/**
+ * Random access reader of the attributes of a shapefile (dBase file). The
+ * file is memory mapped and the values are returned as text ready to be
+ * loaded in PostgreSQL: <code>null</code> for empty values, <code>t</code>/
+ * <code>f</code> for logical values and <code>yyyy-MM-dd</code> for dates.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class DbfReader {
+
+	private static final Charset ASCII = Charset.forName("ISO-8859-1");
+	private static final int HEADER_LENGTH = 32;
+	private static final int FIELD_LENGTH = 32;
+	private static final byte HEADER_TERMINATOR = 0x0D;
+	private static final byte DELETED = '*';
+
+	private final ByteBuffer dbf;
+	private final Charset charset;
+	private final List<DbfField> fields;
+	private final int recordCount;
+	private final int headerLength;
+	private final int recordLength;
+	private final byte[] record;
+
+	/**
+	 * Map a dBase file
+	 * 
+	 * @param dbfFile
+	 * @param charset
+	 *            charset of the text values
+	 * 
+	 * @throws IOException
+	 * @throws ShpImporterException
+	 *             if the file isn't a valid dBase file
+	 */
+	public DbfReader(File dbfFile, Charset charset) throws IOException {
+		this(map(dbfFile), charset, dbfFile.getName());
+	}
+
+	/**
+	 * Read a dBase file from a buffer with its content
+	 * 
+	 * @param dbf
+	 * @param charset
+	 *            charset of the text values
+	 * @param name
+	 *            file name for the error messages
+	 * 
+	 * @throws ShpImporterException
+	 *             if the buffer isn't a valid dBase file
+	 */
+	public DbfReader(ByteBuffer dbf, Charset charset, String name) {
+		this.dbf = dbf;
+		this.dbf.order(ByteOrder.LITTLE_ENDIAN);
+		this.charset = charset;
+		if (dbf.capacity() < HEADER_LENGTH) {
+			throw new ShpImporterException(name + " is not a valid dBase file");
+		}
+		this.recordCount = dbf.getInt(4);
+		this.headerLength = dbf.getShort(8) & 0xFFFF;
+		this.recordLength = dbf.getShort(10) & 0xFFFF;
+		if (headerLength > dbf.capacity()
+				|| (long) headerLength + (long) recordCount * recordLength > dbf
+						.capacity()) {
+			throw new ShpImporterException(name + " is truncated");
+		}
+		List<DbfField> fields = new ArrayList<DbfField>();
+		// first byte of each record is the deletion flag
+		int offset = 1;
+		byte[] fieldName = new byte[11];
+		for (int position = HEADER_LENGTH; position + FIELD_LENGTH <= headerLength
+				&& dbf.get(position) != HEADER_TERMINATOR; position += FIELD_LENGTH) {
+			dbf.position(position);
+			dbf.get(fieldName);
+			int nameLength = 0;
+			while (nameLength < fieldName.length && fieldName[nameLength] != 0) {
+				nameLength++;
+			}
+			char type = (char) dbf.get(position + 11);
+			int length = dbf.get(position + 16) & 0xFF;
+			int decimalCount = dbf.get(position + 17) & 0xFF;
+			fields.add(new DbfField(new String(fieldName, 0, nameLength, ASCII)
+					.trim(), type, length, decimalCount, offset));
+			offset += length;
+		}
+		this.fields = Collections.unmodifiableList(fields);
+		this.record = new byte[recordLength];
+	}
+
+	private DbfReader(DbfReader reader) {
+		this.dbf = reader.dbf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		this.charset = reader.charset;
+		this.fields = reader.fields;
+		this.recordCount = reader.recordCount;
+		this.headerLength = reader.headerLength;
+		this.recordLength = reader.recordLength;
+		this.record = new byte[recordLength];
+	}
+
+	/**
+	 * @return a reader sharing the mapped file to be used in another thread
+	 */
+	public DbfReader duplicate() {
+		return new DbfReader(this);
+	}
+
+	/**
+	 * @return fields of the file
+	 */
+	public List<DbfField> getFields() {
+		return fields;
+	}
+
+	/**
+	 * @return number of records
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Read the values of a record
+	 * 
+	 * @param index
+	 *            record index (starting in 0)
+	 * @param values
+	 *            array where the values of the fields are copied
+	 * 
+	 * @return false if the record is marked as deleted
+	 */
+	public boolean read(int index, String[] values) {
+		dbf.position(headerLength + index * recordLength);
+		dbf.get(record);
+		if (record[0] == DELETED) {
+			return false;
+		}
+		for (int i = 0; i < fields.size(); i++) {
+			values[i] = decode(fields.get(i));
+		}
+		return true;
+	}
+
+	private String decode(DbfField field) {
+		int start = field.getOffset();
+		int end = start + field.getLength();
+		switch (field.getType()) {
+		case DbfField.CHARACTER:
+			while (end > start && (record[end - 1] == ' ' || record[end - 1] == 0)) {
+				end--;
+			}
+			return new String(record, start, end - start, charset);
+		case DbfField.NUMBER:
+		case DbfField.FLOAT:
+			String number = new String(record, start, end - start, ASCII)
+					.trim();
+			return number.length() == 0 || number.charAt(0) == '*' ? null
+					: number;
+		case DbfField.LOGICAL:
+			switch (record[start]) {
+			case 'T':
+			case 't':
+			case 'Y':
+			case 'y':
+				return "t";
+			case 'F':
+			case 'f':
+			case 'N':
+			case 'n':
+				return "f";
+			default:
+				return null;
+			}
+		case DbfField.DATE:
+			String date = new String(record, start, end - start, ASCII)
+					.trim();
+			if (date.length() != 8 || "00000000".equals(date)) {
+				return null;
+			}
+			return date.substring(0, 4) + "-" + date.substring(4, 6) + "-"
+					+ date.substring(6, 8);
+		default:
+			return new String(record, start, end - start, charset).trim();
+		}
+	}
+
+	private static ByteBuffer map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return channel.map(MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			raf.close();
+		}
+	}
+
+}
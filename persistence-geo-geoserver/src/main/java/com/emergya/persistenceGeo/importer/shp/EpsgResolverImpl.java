@@ -0,0 +1,229 @@
+/* EpsgResolverImpl.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.geotools.referencing.CRS;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * {@link IEpsgResolver} based on the GeoTools EPSG database. The WKT is parsed
+ * and compared with the EPSG definitions, first by name and then, for ESRI
+ * WKT whose names don't match, comparing every definition. The last one is
+ * slow, so the codes are cached by a hash of the WKT in memory and in a
+ * properties file (<code>epsg.cache.file</code>) that survives restarts.
+ * WKT without an EPSG equivalent are cached too, but not the WKT that can't
+ * be parsed or looked up, since the EPSG database may just be unavailable.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+@Service
+public class EpsgResolverImpl implements IEpsgResolver {
+
+	private static final Log LOG = LogFactory.getLog(EpsgResolverImpl.class);
+	private static final String DEFAULT_CACHE_FILE = "persistenceGeo-epsg.properties";
+	/** Cached value of the WKT that can't be identified */
+	private static final String UNKNOWN = "";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Value("${epsg.cache.file:}")
+	private String cacheFile;
+
+	private File file;
+	private final Map<String, String> cache = new ConcurrentHashMap<String, String>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	@PostConstruct
+	public void init() {
+		file = cacheFile == null || cacheFile.trim().length() == 0 ? new File(
+				System.getProperty("java.io.tmpdir"), DEFAULT_CACHE_FILE)
+				: new File(cacheFile.trim());
+		if (file.isFile()) {
+			Properties codes = new Properties();
+			InputStream in = null;
+			try {
+				in = new FileInputStream(file);
+				codes.load(in);
+				for (String key : codes.stringPropertyNames()) {
+					cache.put(key, codes.getProperty(key));
+				}
+			} catch (IOException e) {
+				LOG.warn("Can't load the EPSG cache " + file, e);
+			} finally {
+				IOUtils.closeQuietly(in);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.emergya.persistenceGeo.importer.shp.IEpsgResolver#lookupEpsgCode(
+	 * java.io.File)
+	 */
+	@Override
+	public Integer lookupEpsgCode(File prj) {
+		try {
+			return lookupEpsgCode(FileUtils.readFileToString(prj));
+		} catch (IOException e) {
+			LOG.error("Can't read " + prj.getName(), e);
+			return null;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.emergya.persistenceGeo.importer.shp.IEpsgResolver#lookupEpsgCode(
+	 * java.lang.String)
+	 */
+	@Override
+	public Integer lookupEpsgCode(String wkt) {
+		String normalized = wkt.trim().replaceAll("\\s+", " ");
+		String key = hash(normalized);
+		String code = cache.get(key);
+		if (code != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+			Integer epsg;
+			try {
+				epsg = identify(normalized);
+			} catch (FactoryException e) {
+				if (LOG.isWarnEnabled()) {
+					LOG.warn("Can't identify the WKT: " + e.getMessage());
+				}
+				return null;
+			}
+			code = epsg != null ? epsg.toString() : UNKNOWN;
+			cache.put(key, code);
+			save();
+		}
+		return UNKNOWN.equals(code) ? null : Integer.valueOf(code);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see com.emergya.persistenceGeo.importer.shp.IEpsgResolver#getStats()
+	 */
+	@Override
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new HashMap<String, Object>();
+		stats.put("size", cache.size());
+		stats.put("hits", hits.get());
+		stats.put("misses", misses.get());
+		return stats;
+	}
+
+	/**
+	 * @return EPSG code of the WKT or null if no EPSG definition matches it
+	 * @throws FactoryException
+	 *             if the WKT can't be parsed or the EPSG database can't be
+	 *             read
+	 */
+	private Integer identify(String wkt) throws FactoryException {
+		CoordinateReferenceSystem crs = CRS.parseWKT(wkt);
+		Integer epsg = CRS.lookupEpsgCode(crs, false);
+		if (epsg == null) {
+			// ESRI names don't match the EPSG ones
+			epsg = CRS.lookupEpsgCode(crs, true);
+		}
+		if (epsg == null && LOG.isWarnEnabled()) {
+			LOG.warn("No EPSG code found for " + crs.getName());
+		}
+		return epsg;
+	}
+
+	/**
+	 * Write the cache to a temporary file and replace the cache file with it
+	 */
+	private synchronized void save() {
+		Properties codes = new Properties();
+		codes.putAll(cache);
+		File tmp = new File(file.getPath() + ".tmp");
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(tmp);
+			codes.store(out, "WKT hash to EPSG code");
+			out.close();
+			out = null;
+			if (!tmp.renameTo(file) && (!file.delete() || !tmp.renameTo(file))) {
+				LOG.warn("Can't replace the EPSG cache " + file);
+			}
+		} catch (IOException e) {
+			LOG.warn("Can't save the EPSG cache " + file, e);
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	private String hash(String wkt) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(
+					wkt.getBytes(UTF8));
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(
+						Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,335 @@
+/* EwkbEncoder.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Writes shapefile geometries as hexadecimal EWKB, the text input format of
+ * PostGIS geometries. Lines and polygons are written as multi geometries, as
+ * <code>shp2pgsql</code> does.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class EwkbEncoder {
+
+	private static final Log LOG = LogFactory.getLog(EwkbEncoder.class);
+
+	public static final int WKB_POINT = 1;
+	public static final int WKB_LINESTRING = 2;
+	public static final int WKB_POLYGON = 3;
+	private static final int WKB_MULTIPOINT = 4;
+	private static final int WKB_MULTILINESTRING = 5;
+	private static final int WKB_MULTIPOLYGON = 6;
+	private static final int WKB_Z = 0x80000000;
+	private static final int WKB_SRID = 0x20000000;
+	private static final int LITTLE_ENDIAN = 1;
+
+	private EwkbEncoder() {
+	}
+
+	/**
+	 * PostGIS geometry type of the geometries of a shapefile
+	 * 
+	 * @param baseShapeType
+	 * @return geometry type for <code>AddGeometryColumn</code>
+	 */
+	public static String getGeometryType(int baseShapeType) {
+		switch (baseShapeType) {
+		case ShapefileReader.POINT:
+			return "POINT";
+		case ShapefileReader.MULTIPOINT:
+			return "MULTIPOINT";
+		case ShapefileReader.POLYLINE:
+			return "MULTILINESTRING";
+		case ShapefileReader.POLYGON:
+			return "MULTIPOLYGON";
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Write a geometry in a COPY row
+	 * 
+	 * @param geometry
+	 *            geometry or null
+	 * @param srid
+	 * @param out
+	 * @throws SQLException
+	 */
+	public static void write(ShpGeometry geometry, int srid, CopyWriter out)
+			throws SQLException {
+		if (geometry == null) {
+			out.nullValue();
+			return;
+		}
+		out.startHex();
+		boolean z = geometry.hasZ();
+		switch (geometry.getShapeType() % 10) {
+		case ShapefileReader.POINT:
+			header(WKB_POINT, srid, z, out);
+			coordinate(geometry, 0, out);
+			break;
+		case ShapefileReader.MULTIPOINT:
+			header(WKB_MULTIPOINT, srid, z, out);
+			out.hexInt(geometry.getNumPoints());
+			for (int i = 0; i < geometry.getNumPoints(); i++) {
+				header(WKB_POINT, 0, z, out);
+				coordinate(geometry, i, out);
+			}
+			break;
+		case ShapefileReader.POLYLINE:
+			header(WKB_MULTILINESTRING, srid, z, out);
+			out.hexInt(geometry.getParts().length);
+			for (int part = 0; part < geometry.getParts().length; part++) {
+				header(WKB_LINESTRING, 0, z, out);
+				points(geometry, part, out);
+			}
+			break;
+		case ShapefileReader.POLYGON:
+			List<List<Integer>> polygons = groupRings(geometry);
+			header(WKB_MULTIPOLYGON, srid, z, out);
+			out.hexInt(polygons.size());
+			for (List<Integer> rings : polygons) {
+				header(WKB_POLYGON, 0, z, out);
+				out.hexInt(rings.size());
+				for (Integer ring : rings) {
+					points(geometry, ring, out);
+				}
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported shape type "
+					+ geometry.getShapeType());
+		}
+	}
+
+	/**
+	 * Group the rings of a shapefile polygon in polygons. Outer rings are
+	 * clockwise and holes are counterclockwise; each hole is added to the
+	 * smallest larger outer ring that contains a point strictly inside the hole, so
+	 * holes of islands inside lakes go to the island and holes touching their
+	 * shell at a vertex are still found.
+	 * 
+	 * @param geometry
+	 * @return indexes of the rings of each polygon, the outer ring first
+	 */
+	static List<List<Integer>> groupRings(ShpGeometry geometry) {
+		List<List<Integer>> polygons = new ArrayList<List<Integer>>();
+		List<Double> areas = new ArrayList<Double>();
+		List<Integer> holes = new ArrayList<Integer>();
+		for (int part = 0; part < geometry.getParts().length; part++) {
+			double area = signedArea(geometry, part);
+			if (area <= 0) {
+				List<Integer> polygon = new ArrayList<Integer>();
+				polygon.add(part);
+				polygons.add(polygon);
+				areas.add(-area);
+			} else {
+				holes.add(part);
+			}
+		}
+		int shells = polygons.size();
+		for (Integer hole : holes) {
+			List<Integer> container = null;
+			double[] point = interiorPoint(geometry, hole);
+			if (point != null) {
+				// islands inside the hole are smaller than it and may contain
+				// the point too
+				double smallest = Double.MAX_VALUE;
+				double area = signedArea(geometry, hole);
+				for (int i = 0; i < shells; i++) {
+					List<Integer> polygon = polygons.get(i);
+					if (areas.get(i) < smallest && areas.get(i) > area
+							&& contains(geometry, polygon.get(0), point[0],
+									point[1])) {
+						container = polygon;
+						smallest = areas.get(i);
+					}
+				}
+			}
+			if (container != null) {
+				container.add(hole);
+			} else {
+				// orphan hole: take it as an outer ring
+				LOG.warn("Hole " + hole + " of a " + geometry.getShapeType()
+						+ " shape is not inside any outer ring;"
+						+ " imported as an outer ring");
+				List<Integer> polygon = new ArrayList<Integer>();
+				polygon.add(hole);
+				polygons.add(polygon);
+			}
+		}
+		return polygons;
+	}
+
+	/**
+	 * A point strictly inside a ring: the middle of the widest span of the
+	 * ring over a horizontal line that doesn't cross any vertex.
+	 * 
+	 * @return x and y of the point, or null for degenerate rings
+	 */
+	static double[] interiorPoint(ShpGeometry geometry, int part) {
+		double[] xy = geometry.getXY();
+		int start = geometry.getPartStart(part);
+		int end = geometry.getPartEnd(part);
+		if (end - start < 3) {
+			return null;
+		}
+		// the line goes through the middle of the widest gap between
+		// vertex ordinates
+		double[] ys = new double[end - start];
+		for (int i = start; i < end; i++) {
+			ys[i - start] = xy[i * 2 + 1];
+		}
+		Arrays.sort(ys);
+		double gap = 0;
+		double y = 0;
+		for (int i = 1; i < ys.length; i++) {
+			if (ys[i] - ys[i - 1] > gap) {
+				gap = ys[i] - ys[i - 1];
+				y = (ys[i] + ys[i - 1]) / 2;
+			}
+		}
+		if (gap == 0) {
+			return null;
+		}
+		List<Double> crossings = new ArrayList<Double>();
+		for (int i = start, j = end - 1; i < end; j = i++) {
+			double xi = xy[i * 2], yi = xy[i * 2 + 1];
+			double xj = xy[j * 2], yj = xy[j * 2 + 1];
+			if ((yi > y) != (yj > y)) {
+				crossings.add((xj - xi) * (y - yi) / (yj - yi) + xi);
+			}
+		}
+		Collections.sort(crossings);
+		double[] point = null;
+		double width = 0;
+		for (int i = 0; i + 1 < crossings.size(); i += 2) {
+			double span = crossings.get(i + 1) - crossings.get(i);
+			if (span > width) {
+				width = span;
+				point = new double[] {
+						(crossings.get(i) + crossings.get(i + 1)) / 2, y };
+			}
+		}
+		return point;
+	}
+
+	/**
+	 * Shoelace formula: negative for clockwise rings
+	 */
+	private static double signedArea(ShpGeometry geometry, int part) {
+		double[] xy = geometry.getXY();
+		int start = geometry.getPartStart(part);
+		int end = geometry.getPartEnd(part);
+		double area = 0;
+		for (int i = start; i < end - 1; i++) {
+			area += xy[i * 2] * xy[(i + 1) * 2 + 1] - xy[(i + 1) * 2]
+					* xy[i * 2 + 1];
+		}
+		return area / 2;
+	}
+
+	/**
+	 * Ray casting point in ring test
+	 */
+	private static boolean contains(ShpGeometry geometry, int part, double x,
+			double y) {
+		double[] xy = geometry.getXY();
+		int start = geometry.getPartStart(part);
+		int end = geometry.getPartEnd(part);
+		boolean inside = false;
+		for (int i = start, j = end - 1; i < end; j = i++) {
+			double xi = xy[i * 2], yi = xy[i * 2 + 1];
+			double xj = xy[j * 2], yj = xy[j * 2 + 1];
+			if ((yi > y) != (yj > y)
+					&& x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+				inside = !inside;
+			}
+		}
+		return inside;
+	}
+
+	/**
+	 * Write the byte order, type and SRID of a geometry
+	 * 
+	 * @param type
+	 *            WKB type
+	 * @param srid
+	 *            SRID or 0 for geometries inside a multi geometry
+	 * @param z
+	 *            true if the coordinates have Z
+	 * @param out
+	 * @throws SQLException
+	 */
+	public static void header(int type, int srid, boolean z, CopyWriter out)
+			throws SQLException {
+		out.hexByte(LITTLE_ENDIAN);
+		int flags = type;
+		if (z) {
+			flags |= WKB_Z;
+		}
+		if (srid > 0) {
+			out.hexInt(flags | WKB_SRID);
+			out.hexInt(srid);
+		} else {
+			out.hexInt(flags);
+		}
+	}
+
+	private static void points(ShpGeometry geometry, int part, CopyWriter out)
+			throws SQLException {
+		int start = geometry.getPartStart(part);
+		int end = geometry.getPartEnd(part);
+		out.hexInt(end - start);
+		for (int i = start; i < end; i++) {
+			coordinate(geometry, i, out);
+		}
+	}
+
+	private static void coordinate(ShpGeometry geometry, int index,
+			CopyWriter out) throws SQLException {
+		out.hexDouble(geometry.getXY()[index * 2]);
+		out.hexDouble(geometry.getXY()[index * 2 + 1]);
+		if (geometry.hasZ()) {
+			out.hexDouble(geometry.getZ()[index]);
+		}
+	}
+
+}
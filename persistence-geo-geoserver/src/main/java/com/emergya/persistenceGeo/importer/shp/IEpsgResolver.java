@@ -0,0 +1,66 @@
+/* IEpsgResolver.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Identifies the EPSG code of the coordinate reference system described by
+ * a <code>.prj</code> file (ESRI WKT).
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public interface IEpsgResolver {
+
+	/**
+	 * Identify the EPSG code of a <code>.prj</code> file
+	 * 
+	 * @param prj
+	 *            the <code>.prj</code> file
+	 * @return EPSG code or <code>null</code> if it can't be identified
+	 */
+	public Integer lookupEpsgCode(File prj);
+
+	/**
+	 * Identify the EPSG code of a WKT coordinate reference system
+	 * 
+	 * @param wkt
+	 *            WKT as written in a <code>.prj</code> file
+	 * @return EPSG code or <code>null</code> if it can't be identified
+	 */
+	public Integer lookupEpsgCode(String wkt);
+
+	/**
+	 * @return cache size, hits and misses
+	 */
+	public Map<String, Object> getStats();
+
+}
@@ -28,6 +28,8 @@
  */
 package com.emergya.persistenceGeo.importer.shp;
 
+import java.io.File;
+
 import com.emergya.persistenceGeo.exceptions.ShpImporterException;
 import com.emergya.persistenceGeo.utils.GeographicDatabaseConfiguration;
 
@@ -80,5 +82,65 @@ public interface IShpImporter {
 	public boolean importShpToDb(String filePath, String tableName,
 			boolean dropExistingTable);
 
+	/**
+	 * Read a shapefile and import its content into tableName. It uses the
+	 * provided {@link GeographicDatabaseConfiguration}
+	 * 
+	 * @param filePath
+	 *            .shp file path
+	 * @param tableName
+	 *            table where import file contents
+	 * @param dropExistingTable
+	 *            <code>true</code> if should drop existing table with
+	 *            <tableName> before import.
+	 * @return result of the import with the failure reason if the data
+	 *         couldn't be imported
+	 * @throws ShpImporterException
+	 *             if the shapefile files can't be found.
+	 */
+	public ShpImportResult importShp(String filePath, String tableName,
+			boolean dropExistingTable);
+
+	/**
+	 * Read a shapefile and import its content into tableName reporting the
+	 * progress to <code>monitor</code>, which can also cancel the import.
+	 * 
+	 * @param filePath
+	 *            .shp file path
+	 * @param tableName
+	 *            table where import file contents
+	 * @param dropExistingTable
+	 *            <code>true</code> if should drop existing table with
+	 *            <tableName> before import.
+	 * @param monitor
+	 *            progress monitor or null
+	 * @return result of the import with the failure reason if the data
+	 *         couldn't be imported
+	 * @throws ShpImporterException
+	 *             if the shapefile files can't be found.
+	 */
+	public ShpImportResult importShp(String filePath, String tableName,
+			boolean dropExistingTable, ShpImportMonitor monitor);
+
+	/**
+	 * Import the shapefile contained in a zip archive without extracting it.
+	 * Its components are read in place from the archive, so the memory used
+	 * doesn't depend on their size.
+	 * 
+	 * @param zipFile
+	 *            zip with a single shapefile
+	 * @param tableName
+	 *            table where import file contents
+	 * @param dropExistingTable
+	 *            <code>true</code> if should drop existing table with
+	 *            <tableName> before import.
+	 * @param monitor
+	 *            progress monitor or null
+	 * @return result of the import with the failure reason if the data
+	 *         couldn't be imported
+	 */
+	public ShpImportResult importShpZip(File zipFile, String tableName,
+			boolean dropExistingTable, ShpImportMonitor monitor);
+
 
 }
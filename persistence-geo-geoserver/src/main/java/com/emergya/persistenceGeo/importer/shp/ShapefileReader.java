@@ -0,0 +1,256 @@
+/* ShapefileReader.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.emergya.persistenceGeo.exceptions.ShpImporterException;
+
+/**
+ * Random access reader of the geometries of a shapefile. The
+ * <code>.shp</code> and <code>.shx</code> files are memory mapped, so records
+ * can be read concurrently through {@link #duplicate()} readers.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class ShapefileReader {
+
+	public static final int NULL_SHAPE = 0;
+	public static final int POINT = 1;
+	public static final int POLYLINE = 3;
+	public static final int POLYGON = 5;
+	public static final int MULTIPOINT = 8;
+
+	private static final int FILE_CODE = 9994;
+	private static final int HEADER_LENGTH = 100;
+	private static final int INDEX_RECORD_LENGTH = 8;
+
+	private final ByteBuffer shp;
+	private final ByteBuffer shx;
+	private final int shapeType;
+	private final int recordCount;
+
+	/**
+	 * Map the <code>.shp</code> and <code>.shx</code> files
+	 * 
+	 * @param shpFile
+	 * @param shxFile
+	 * 
+	 * @throws IOException
+	 * @throws ShpImporterException
+	 *             if the files aren't a valid shapefile
+	 */
+	public ShapefileReader(File shpFile, File shxFile) throws IOException {
+		this(map(shpFile), map(shxFile), shpFile.getName());
+	}
+
+	/**
+	 * Read a shapefile from buffers with the content of the
+	 * <code>.shp</code> and <code>.shx</code> files
+	 * 
+	 * @param shp
+	 * @param shx
+	 * @param name
+	 *            name of the <code>.shp</code> for the error messages
+	 * 
+	 * @throws ShpImporterException
+	 *             if the buffers aren't a valid shapefile
+	 */
+	public ShapefileReader(ByteBuffer shp, ByteBuffer shx, String name) {
+		this.shp = shp;
+		this.shx = shx;
+		if (shp.capacity() < HEADER_LENGTH || shx.capacity() < HEADER_LENGTH
+				|| shp.order(ByteOrder.BIG_ENDIAN).getInt(0) != FILE_CODE) {
+			throw new ShpImporterException(name + " is not a valid shapefile");
+		}
+		this.shx.order(ByteOrder.BIG_ENDIAN);
+		this.shp.order(ByteOrder.LITTLE_ENDIAN);
+		this.shapeType = shp.getInt(32);
+		this.recordCount = (shx.capacity() - HEADER_LENGTH)
+				/ INDEX_RECORD_LENGTH;
+	}
+
+	private ShapefileReader(ShapefileReader reader) {
+		this.shp = reader.shp.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		this.shx = reader.shx.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.shapeType = reader.shapeType;
+		this.recordCount = reader.recordCount;
+	}
+
+	/**
+	 * @return a reader sharing the mapped files to be used in another thread
+	 */
+	public ShapefileReader duplicate() {
+		return new ShapefileReader(this);
+	}
+
+	/**
+	 * @return shape type of the file
+	 */
+	public int getShapeType() {
+		return shapeType;
+	}
+
+	/**
+	 * @return shape type without Z or M (POINT, POLYLINE, POLYGON or
+	 *         MULTIPOINT)
+	 */
+	public int getBaseShapeType() {
+		return baseType(shapeType);
+	}
+
+	/**
+	 * @return true if the shapes have Z coordinates
+	 */
+	public boolean hasZ() {
+		return hasZ(shapeType);
+	}
+
+	/**
+	 * @return number of records
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Read the geometry of a record
+	 * 
+	 * @param index
+	 *            record index (starting in 0)
+	 * 
+	 * @return the geometry or null for null shapes
+	 * 
+	 * @throws ShpImporterException
+	 *             if the record is corrupted
+	 */
+	public ShpGeometry read(int index) {
+		int position = shx.getInt(HEADER_LENGTH + index * INDEX_RECORD_LENGTH) * 2 + 8;
+		if (position < HEADER_LENGTH || position + 4 > shp.capacity()) {
+			throw new ShpImporterException("Record " + index
+					+ " is out of the file bounds");
+		}
+		shp.position(position);
+		int type = shp.getInt();
+		if (type == NULL_SHAPE) {
+			return null;
+		}
+		if (baseType(type) != getBaseShapeType()) {
+			throw new ShpImporterException("Record " + index
+					+ " has shape type " + type + " in a file of type "
+					+ shapeType);
+		}
+		boolean z = hasZ(type);
+		ShpGeometry geometry;
+		switch (baseType(type)) {
+		case POINT:
+			geometry = new ShpGeometry(type, new int[] { 0 }, 1, z);
+			geometry.getXY()[0] = shp.getDouble();
+			geometry.getXY()[1] = shp.getDouble();
+			if (z) {
+				geometry.getZ()[0] = shp.getDouble();
+			}
+			break;
+		case MULTIPOINT:
+			skip(32);
+			int numPoints = shp.getInt();
+			geometry = new ShpGeometry(type, new int[] { 0 }, numPoints, z);
+			readPoints(geometry);
+			break;
+		case POLYLINE:
+		case POLYGON:
+			skip(32);
+			int numParts = shp.getInt();
+			numPoints = shp.getInt();
+			if (numParts < 0 || numPoints < 0) {
+				throw new ShpImporterException("Record " + index
+						+ " is corrupted");
+			}
+			int[] parts = new int[numParts];
+			for (int i = 0; i < numParts; i++) {
+				parts[i] = shp.getInt();
+			}
+			geometry = new ShpGeometry(type, parts, numPoints, z);
+			readPoints(geometry);
+			break;
+		default:
+			throw new ShpImporterException("Shape type " + type
+					+ " is not supported");
+		}
+		return geometry;
+	}
+
+	private void readPoints(ShpGeometry geometry) {
+		double[] xy = geometry.getXY();
+		for (int i = 0; i < xy.length; i++) {
+			xy[i] = shp.getDouble();
+		}
+		if (geometry.hasZ()) {
+			skip(16);
+			double[] z = geometry.getZ();
+			for (int i = 0; i < z.length; i++) {
+				z[i] = shp.getDouble();
+			}
+		}
+	}
+
+	private void skip(int bytes) {
+		shp.position(shp.position() + bytes);
+	}
+
+	private static int baseType(int type) {
+		if (type == NULL_SHAPE) {
+			return NULL_SHAPE;
+		}
+		// PointZ = 11, PointM = 21 ...
+		return type % 10;
+	}
+
+	private static boolean hasZ(int type) {
+		return type > 10 && type < 20;
+	}
+
+	private static ByteBuffer map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return channel.map(MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			raf.close();
+		}
+	}
+
+}
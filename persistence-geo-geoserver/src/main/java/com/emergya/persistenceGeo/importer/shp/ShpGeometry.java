@@ -0,0 +1,110 @@
+/* ShpGeometry.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+/**
+ * Geometry of a shapefile record: the coordinates of all the parts and the
+ * index of the first point of each part.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class ShpGeometry {
+
+	private final int shapeType;
+	private final int[] parts;
+	private final double[] xy;
+	private final double[] z;
+
+	public ShpGeometry(int shapeType, int[] parts, int numPoints, boolean hasZ) {
+		this.shapeType = shapeType;
+		this.parts = parts;
+		this.xy = new double[numPoints * 2];
+		this.z = hasZ ? new double[numPoints] : null;
+	}
+
+	/**
+	 * @return shape type of the record
+	 */
+	public int getShapeType() {
+		return shapeType;
+	}
+
+	/**
+	 * @return index of the first point of each part
+	 */
+	public int[] getParts() {
+		return parts;
+	}
+
+	/**
+	 * @return x and y of each point
+	 */
+	public double[] getXY() {
+		return xy;
+	}
+
+	/**
+	 * @return z of each point or null
+	 */
+	public double[] getZ() {
+		return z;
+	}
+
+	/**
+	 * @return true if the geometry has z coordinates
+	 */
+	public boolean hasZ() {
+		return z != null;
+	}
+
+	/**
+	 * @return number of points
+	 */
+	public int getNumPoints() {
+		return xy.length / 2;
+	}
+
+	/**
+	 * @param part
+	 * @return index of the first point of the part
+	 */
+	public int getPartStart(int part) {
+		return parts[part];
+	}
+
+	/**
+	 * @param part
+	 * @return index after the last point of the part
+	 */
+	public int getPartEnd(int part) {
+		return part + 1 < parts.length ? parts[part + 1] : getNumPoints();
+	}
+
+}
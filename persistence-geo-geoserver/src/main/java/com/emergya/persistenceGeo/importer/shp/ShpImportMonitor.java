@@ -0,0 +1,62 @@
+/* ShpImportMonitor.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+/**
+ * Receives the progress of a shapefile import and can cancel it. When the
+ * import is loaded in parallel the methods are called from several threads.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public interface ShpImportMonitor {
+
+	/**
+	 * Called once the shapefile has been opened
+	 * 
+	 * @param records
+	 *            number of records of the shapefile
+	 */
+	public void started(int records);
+
+	/**
+	 * Called periodically while the records are copied
+	 * 
+	 * @param records
+	 *            records read since the last call
+	 */
+	public void recordsRead(int records);
+
+	/**
+	 * @return <code>true</code> to stop the import. The table is left as it
+	 *         was before the import.
+	 */
+	public boolean isCancelled();
+
+}
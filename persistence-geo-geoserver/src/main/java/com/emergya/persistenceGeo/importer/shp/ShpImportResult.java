@@ -0,0 +1,218 @@
+/* ShpImportResult.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import java.io.Serializable;
+
+/**
+ * Result of a shapefile import
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class ShpImportResult implements Serializable {
+
+	private static final long serialVersionUID = -2617466206329718412L;
+
+	/**
+	 * Reasons why an import can fail
+	 */
+	public enum Failure {
+		/** The table exists and it shouldn't be dropped */
+		TABLE_EXISTS,
+		/** The shape type can't be imported (e.g. MultiPatch) */
+		UNSUPPORTED_SHAPE,
+		/** The files are corrupted or inconsistent */
+		INVALID_FILE,
+		/** A record couldn't be read */
+		INVALID_RECORD,
+		/** The geometries can't be reprojected */
+		UNKNOWN_CRS,
+		/** The database rejected the data */
+		DATABASE,
+		/** The import was cancelled by its monitor */
+		CANCELLED
+	}
+
+	private String tableName;
+	private String geometryType;
+	private Integer sourceSrid;
+	private int destSrid;
+	private long featureCount;
+	private long elapsedTime;
+	private Failure failure;
+	private Integer failedRecord;
+	private String message;
+
+	public ShpImportResult(String tableName) {
+		this.tableName = tableName;
+	}
+
+	/**
+	 * Mark the import as failed
+	 * 
+	 * @param failure
+	 *            reason
+	 * @param record
+	 *            index of the record that failed or null if it isn't related
+	 *            with a record
+	 * @param message
+	 *            error message
+	 * 
+	 * @return this result
+	 */
+	public ShpImportResult fail(Failure failure, Integer record, String message) {
+		this.failure = failure;
+		this.failedRecord = record;
+		this.message = message;
+		return this;
+	}
+
+	/**
+	 * @return true if the shapefile has been imported
+	 */
+	public boolean isSuccess() {
+		return failure == null;
+	}
+
+	/**
+	 * @return the table name
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * @return the PostGIS geometry type of the table
+	 */
+	public String getGeometryType() {
+		return geometryType;
+	}
+
+	/**
+	 * @param geometryType
+	 *            the geometryType to set
+	 */
+	public void setGeometryType(String geometryType) {
+		this.geometryType = geometryType;
+	}
+
+	/**
+	 * @return EPSG code found in the .prj file or null if it's unknown
+	 */
+	public Integer getSourceSrid() {
+		return sourceSrid;
+	}
+
+	/**
+	 * @param sourceSrid
+	 *            the sourceSrid to set
+	 */
+	public void setSourceSrid(Integer sourceSrid) {
+		this.sourceSrid = sourceSrid;
+	}
+
+	/**
+	 * @return SRID of the table
+	 */
+	public int getDestSrid() {
+		return destSrid;
+	}
+
+	/**
+	 * @param destSrid
+	 *            the destSrid to set
+	 */
+	public void setDestSrid(int destSrid) {
+		this.destSrid = destSrid;
+	}
+
+	/**
+	 * @return number of features imported
+	 */
+	public long getFeatureCount() {
+		return featureCount;
+	}
+
+	/**
+	 * @param featureCount
+	 *            the featureCount to set
+	 */
+	public void setFeatureCount(long featureCount) {
+		this.featureCount = featureCount;
+	}
+
+	/**
+	 * @return import time in milliseconds
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * @param elapsedTime
+	 *            the elapsedTime to set
+	 */
+	public void setElapsedTime(long elapsedTime) {
+		this.elapsedTime = elapsedTime;
+	}
+
+	/**
+	 * @return reason of the failure or null if the import succeeded
+	 */
+	public Failure getFailure() {
+		return failure;
+	}
+
+	/**
+	 * @return index of the record that failed or null
+	 */
+	public Integer getFailedRecord() {
+		return failedRecord;
+	}
+
+	/**
+	 * @return error message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		if (isSuccess()) {
+			return tableName + ": " + featureCount + " " + geometryType
+					+ " features imported in " + elapsedTime + " ms";
+		}
+		return tableName + ": " + failure
+				+ (failedRecord != null ? " at record " + failedRecord : "")
+				+ " - " + message;
+	}
+
+}
@@ -28,24 +28,63 @@
  */
 package com.emergya.persistenceGeo.importer.shp;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.sql.DataSource;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.geotools.referencing.CRS;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+import org.postgresql.PGConnection;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import com.emergya.persistenceGeo.exceptions.ShpImporterException;
+import com.emergya.persistenceGeo.importer.shp.ShpImportResult.Failure;
 import com.emergya.persistenceGeo.utils.GeographicDatabaseConfiguration;
 
 /**
+ * Imports shapefiles into PostGIS without external tools. The
+ * <code>.shp</code>, <code>.shx</code> and <code>.dbf</code> files are memory
+ * mapped and the features are loaded with a <code>COPY</code> command in a
+ * single transaction, in the same way <code>shp2pgsql -k -i -I</code> would
+ * do: a <code>gid</code> serial primary key, a column for each attribute, the
+ * geometry column registered with <code>AddGeometryColumn</code> and a GiST
+ * index on it.
+ * 
+ * If the <code>.prj</code> file has an EPSG equivalent the geometries are
+ * reprojected to the destination SRID.
+ * 
+ * Zipped shapefiles are read in place from the archive with
+ * {@link ZipShapefile}.
+ * 
  * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
  * 
  */
@@ -54,22 +93,38 @@ public class ShpImporterImpl implements IShpImporter {
 	private static final String[] EXTENSIONS_TO_CHECK = { ".shp", ".shx",
 			".dbf" };
 	private static final Log LOG = LogFactory.getLog(ShpImporterImpl.class);
-	private static final String BASH_COMMAND = "bash";
-	private static final String BASH_COMMAND_FIRST_ARGUMENT = "-c";
-	private static final String DROP_TABLE_OPTION = "-d";
-	private static final String SHP2PGSQL_COMMAND = "shp2pgsql -W LATIN1 {0} -s {1}{2} -g geom -k -i -I \"{3}\" "
-			+ "\"{4}.{5}\" | psql -h {6} -p {7} -d {8} -U {9}";
-	private static final String GUESS_PROJECTION_COMMAND = "guessEPSG.py";
-
-	@Autowired(required = false)
-	@Qualifier(value = "checkForCommandLine")
-	private Boolean checkForCommandLine;
-
-	public ShpImporterImpl() {
-		if (checkForCommandLine != null && checkForCommandLine) {
-			checkForCommandLineUtils();
-		}
-	}
+	private static final Charset DEFAULT_CHARSET = Charset.forName("ISO-8859-1");
+	private static final String DEFAULT_SCHEMA = "public";
+	private static final String DEFAULT_GEOM_COLUMN = "geom";
+	private static final int DEFAULT_DEST_SRID = 4326;
+	private static final String ID_COLUMN = "gid";
+	private static final String JDBC_URL = "jdbc:postgresql://{0}:{1}/{2}";
+	private static final String TABLE_EXISTS_SQL = "SELECT 1 FROM pg_tables WHERE schemaname = ? AND tablename = ?";
+	private static final String DROP_TABLE_SQL = "SELECT DropGeometryTable(?, ?)";
+	private static final String CREATE_TABLE_SQL = "CREATE {0}TABLE {1}.{2} ({3} serial{4}{5})";
+	private static final String ADD_GEOMETRY_COLUMN_SQL = "SELECT AddGeometryColumn(?, ?, ?, ?, ?, ?)";
+	private static final String COPY_SQL = "COPY {0}.{1} ({2}) FROM STDIN";
+	private static final String CREATE_INDEX_SQL = "CREATE INDEX {0} ON {1}.{2} USING GIST ({3})";
+	private static final String ANALYZE_SQL = "ANALYZE {0}.{1}";
+	private static final String SET_LOGGED_SQL = "ALTER TABLE {0}.{1} SET LOGGED";
+	private static final String ADD_PK_SQL = "ALTER TABLE {0}.{1} ADD CONSTRAINT {2} PRIMARY KEY ({3})";
+	private static final String RESET_SEQUENCE_SQL = "SELECT pg_get_serial_sequence(?, ?), setval(pg_get_serial_sequence(?, ?), COALESCE(MAX({0}), 0) + 1, false) FROM {1}.{2}";
+	private static final String RENAME_TABLE_SQL = "ALTER TABLE {0}.{1} RENAME TO {2}";
+	private static final String RENAME_INDEX_SQL = "ALTER INDEX {0}.{1} RENAME TO {2}";
+	private static final String RENAME_SEQUENCE_SQL = "ALTER SEQUENCE {0} RENAME TO {1}";
+	private static final String UPDATE_GEOMETRY_COLUMNS_SQL = "UPDATE public.geometry_columns SET f_table_name = ? WHERE f_table_schema = ? AND f_table_name = ?";
+	private static final String STAGING_SUFFIX = "_import_";
+	/**
+	 * Characters of the table name kept in the staging table name, so it and
+	 * its index names fit in the 63 characters of a PostgreSQL identifier
+	 */
+	private static final int STAGING_PREFIX_LENGTH = 30;
+	private static final String PK_SUFFIX = "_pkey";
+	/** Minimum number of records loaded by a chunk */
+	private static final int MIN_CHUNK_SIZE = 10000;
+	private static final int CHUNKS_PER_THREAD = 4;
+	/** Records copied between progress reports and cancellation checks */
+	private static final int PROGRESS_INTERVAL = 1000;
 
 	@Autowired(required = false)
 	@Qualifier("dataSourceHibernate")
@@ -78,6 +133,9 @@ public class ShpImporterImpl implements IShpImporter {
 	@Autowired(required = false)
 	private GeographicDatabaseConfiguration dbConfig;
 
+	@Autowired
+	private IEpsgResolver epsgResolver;
+
 	public void setDbConfig(GeographicDatabaseConfiguration config) {
 		this.dbConfig = config;
 	}
@@ -95,7 +153,7 @@ public class ShpImporterImpl implements IShpImporter {
 	}
 
 	private boolean checkIfPrjFileExist(String folder, String filename) {
-		return checkForExtensions(folder, filename, new String[] { ".shp" });
+		return checkForExtensions(folder, filename, new String[] { ".prj" });
 	}
 
 	private boolean checkForExtensions(String folder, String filename,
@@ -132,182 +190,857 @@ public class ShpImporterImpl implements IShpImporter {
 	@Override
 	public boolean importShpToDb(String pathToShp, String tableName,
 			boolean dropExistingTable) {
-		boolean result = true;
-		String srcProjection = "";
-		Runtime rt = Runtime.getRuntime();
+		return importShp(pathToShp, tableName, dropExistingTable).isSuccess();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.emergya.persistenceGeo.importer.shp.IShpImporter#importShp(java
+	 * .lang.String, java.lang.String, boolean)
+	 */
+	@Override
+	public ShpImportResult importShp(String pathToShp, String tableName,
+			boolean dropExistingTable) {
+		return importShp(pathToShp, tableName, dropExistingTable, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.emergya.persistenceGeo.importer.shp.IShpImporter#importShp(java
+	 * .lang.String, java.lang.String, boolean,
+	 * com.emergya.persistenceGeo.importer.shp.ShpImportMonitor)
+	 */
+	@Override
+	public ShpImportResult importShp(String pathToShp, String tableName,
+			boolean dropExistingTable, ShpImportMonitor monitor) {
+		long start = System.currentTimeMillis();
 		if (pathToShp == null || !pathToShp.endsWith(".shp")) {
 			throw new IllegalArgumentException(
 					"pathToShp does not end with .shp");
 		}
 		int lastIndexOfSlash = pathToShp.lastIndexOf(File.separatorChar);
 		int lastIndexOfShp = pathToShp.lastIndexOf('.');
-		String path = getFileSystemPath(pathToShp.substring(0, lastIndexOfSlash));
-		String file = getFileSystemPath(pathToShp.substring(lastIndexOfSlash + 1, lastIndexOfShp));
+		String path = pathToShp.substring(0, lastIndexOfSlash);
+		String file = pathToShp.substring(lastIndexOfSlash + 1, lastIndexOfShp);
 		boolean exists = checkIfAllFilesExist(path, file);
 		if (!exists) {
 			throw new ShpImporterException(
 					"Not all mandatory shape file components could be found");
 		}
+		String basename = pathToShp.substring(0, lastIndexOfShp);
+
+		ShpImportResult result = new ShpImportResult(tableName);
+		ShapefileReader shapes;
+		DbfReader attributes;
+		try {
+			shapes = new ShapefileReader(new File(pathToShp), new File(
+					basename + ".shx"));
+			attributes = new DbfReader(new File(basename + ".dbf"),
+					getCharset(new File(basename + ".cpg")));
+		} catch (IOException e) {
+			throw new ShpImporterException("Can't read the shapefile "
+					+ pathToShp, e);
+		} catch (ShpImporterException e) {
+			return finish(result.fail(Failure.INVALID_FILE, null,
+					e.getMessage()), start);
+		}
 
 		// If exists a .prj file try to guess the EPSG code. If not code found
-		// defaults to EPSG:4326
+		// geometries are imported without reprojection
 		if (checkIfPrjFileExist(path, file)) {
-			String prjPath = pathToShp.substring(0, pathToShp.lastIndexOf('.'))
-					+ ".prj";
+			result.setSourceSrid(epsgResolver
+					.lookupEpsgCode(new File(basename + ".prj")));
+		}
+		return importShp(result, shapes, attributes, dropExistingTable,
+				monitor, start);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * com.emergya.persistenceGeo.importer.shp.IShpImporter#importShpZip(java
+	 * .io.File, java.lang.String, boolean,
+	 * com.emergya.persistenceGeo.importer.shp.ShpImportMonitor)
+	 */
+	@Override
+	public ShpImportResult importShpZip(File zipFile, String tableName,
+			boolean dropExistingTable, ShpImportMonitor monitor) {
+		long start = System.currentTimeMillis();
+		ShpImportResult result = new ShpImportResult(tableName);
+		ZipShapefile zip = null;
+		try {
+			ShapefileReader shapes;
+			DbfReader attributes;
+			String prj;
 			try {
-				Process proc = rt.exec(new String[] { GUESS_PROJECTION_COMMAND,
-						prjPath });
-				BufferedReader standarStream = new BufferedReader(
-						new InputStreamReader(proc.getInputStream()));
-
-				int projStatus = proc.waitFor();
-				String line;
-				if (projStatus == 0) {
-					while ((line = standarStream.readLine()) != null) {
-						if (!"EPSG:-1".equals(line)) {
-							srcProjection = line.split(":")[1] + ":";
-						}
-					}
-				} else {
-					if (LOG.isWarnEnabled()) {
-						LOG.warn(GUESS_PROJECTION_COMMAND + " return code was "
-								+ projStatus);
+				zip = new ZipShapefile(zipFile);
+				shapes = new ShapefileReader(zip.map(ZipShapefile.SHP),
+						zip.map(ZipShapefile.SHX),
+						zip.getName(ZipShapefile.SHP));
+				attributes = new DbfReader(zip.map(ZipShapefile.DBF),
+						getCharset(zip.readText(ZipShapefile.CPG)),
+						zip.getName(ZipShapefile.DBF));
+				prj = zip.readText(ZipShapefile.PRJ);
+			} catch (IOException e) {
+				return finish(result.fail(Failure.INVALID_FILE, null,
+						"Can't read " + zipFile.getName() + ": "
+								+ e.getMessage()), start);
+			} catch (ShpImporterException e) {
+				return finish(result.fail(Failure.INVALID_FILE, null,
+						e.getMessage()), start);
+			}
+			if (prj != null) {
+				result.setSourceSrid(epsgResolver.lookupEpsgCode(prj));
+			}
+			return importShp(result, shapes, attributes, dropExistingTable,
+					monitor, start);
+		} finally {
+			// inflated components are deleted once they're imported
+			if (zip != null) {
+				zip.close();
+			}
+		}
+	}
+
+	/**
+	 * Import the records read by <code>shapes</code> and
+	 * <code>attributes</code>
+	 */
+	private ShpImportResult importShp(ShpImportResult result,
+			ShapefileReader shapes, DbfReader attributes,
+			boolean dropExistingTable, ShpImportMonitor monitor, long start) {
+		String tableName = result.getTableName();
+		String geometryType = EwkbEncoder.getGeometryType(shapes
+				.getBaseShapeType());
+		if (geometryType == null) {
+			return finish(result.fail(Failure.UNSUPPORTED_SHAPE, null,
+					"Shape type " + shapes.getShapeType() + " is not supported"),
+					start);
+		}
+		if (shapes.getRecordCount() != attributes.getRecordCount()) {
+			return finish(result.fail(Failure.INVALID_FILE, null, "The .shp has "
+					+ shapes.getRecordCount() + " records and the .dbf "
+					+ attributes.getRecordCount()), start);
+		}
+		result.setGeometryType(geometryType);
+
+		int destSrid = getDestSrid();
+		result.setDestSrid(destSrid);
+		MathTransform transform = null;
+		if (result.getSourceSrid() != null
+				&& result.getSourceSrid() != destSrid) {
+			try {
+				transform = CRS.findMathTransform(
+						CRS.decode("EPSG:" + result.getSourceSrid(), true),
+						CRS.decode("EPSG:" + destSrid, true), true);
+			} catch (FactoryException e) {
+				return finish(result.fail(Failure.UNKNOWN_CRS, null,
+						e.getMessage()), start);
+			}
+		}
+
+		if (monitor != null) {
+			monitor.started(shapes.getRecordCount());
+		}
+		try {
+			int parallelism = getParallelism();
+			if (parallelism > 1 && shapes.getRecordCount() > MIN_CHUNK_SIZE) {
+				importParallel(result, tableName, dropExistingTable, shapes,
+						attributes, transform, parallelism, monitor);
+			} else {
+				importSingle(result, tableName, dropExistingTable, shapes,
+						attributes, transform, monitor);
+			}
+		} catch (ImportFailure e) {
+			result.fail(e.getFailure(), e.getRecord(), e.getMessage());
+		} catch (SQLException e) {
+			result.fail(Failure.DATABASE, null, e.getMessage());
+		}
+		return finish(result, start);
+	}
+
+	/**
+	 * Import all the records in a single transaction
+	 */
+	private void importSingle(ShpImportResult result, String tableName,
+			boolean dropExistingTable, ShapefileReader shapes,
+			DbfReader attributes, MathTransform transform,
+			ShpImportMonitor monitor) throws ImportFailure {
+		Connection connection = null;
+		try {
+			connection = getConnection();
+			connection.setAutoCommit(false);
+			String schema = getSchema();
+			if (tableExists(connection, schema, tableName)) {
+				if (!dropExistingTable) {
+					throw tableExistsFailure(schema, tableName);
+				}
+				dropTable(connection, schema, tableName);
+			}
+			List<String> columns = createTable(connection, schema, tableName,
+					attributes.getFields(), result.getGeometryType(),
+					result.getDestSrid(), shapes.hasZ(), false, true);
+			result.setFeatureCount(copyRecords(connection, schema, tableName,
+					columns, shapes, attributes, 0, shapes.getRecordCount(),
+					transform, result.getDestSrid(), false, monitor,
+					new AtomicBoolean(false)));
+			createIndex(connection, schema, tableName);
+			connection.commit();
+		} catch (CancellationException e) {
+			rollback(connection);
+			throw cancelledFailure();
+		} catch (SQLException e) {
+			rollback(connection);
+			throw new ImportFailure(Failure.DATABASE, null, e.getMessage());
+		} catch (ImportFailure e) {
+			rollback(connection);
+			throw e;
+		} finally {
+			close(connection);
+		}
+	}
+
+	/**
+	 * Import the records in chunks loaded concurrently in a staging table
+	 * without indexes. When all the chunks are loaded the primary key and
+	 * the GiST index are built, the table is analyzed and then it replaces
+	 * the destination table in a short transaction, so readers of an existing
+	 * table don't wait for the import.
+	 * 
+	 * The staging table is <code>UNLOGGED</code> when the server can turn it
+	 * into a logged table afterwards (PostgreSQL 9.5 or newer). Its name is
+	 * unique for each import, so concurrent imports of the same table don't
+	 * drop each other's staging table; the last one to finish wins.
+	 */
+	private void importParallel(ShpImportResult result, String tableName,
+			boolean dropExistingTable, ShapefileReader shapes,
+			DbfReader attributes, MathTransform transform, int parallelism,
+			ShpImportMonitor monitor) throws ImportFailure, SQLException {
+		String schema = getSchema();
+		String staging = getStagingName(tableName);
+		Connection connection = getConnection();
+		try {
+			// DDL is committed so the chunk connections see the table
+			connection.setAutoCommit(true);
+			if (!dropExistingTable
+					&& tableExists(connection, schema, tableName)) {
+				throw tableExistsFailure(schema, tableName);
+			}
+			boolean unlogged = supportsSetLogged(connection);
+			List<String> columns = createTable(connection, schema, staging,
+					attributes.getFields(), result.getGeometryType(),
+					result.getDestSrid(), shapes.hasZ(), unlogged, false);
+			columns.add(0, quote(ID_COLUMN));
+
+			boolean loaded = false;
+			try {
+				result.setFeatureCount(loadChunks(schema, staging, columns,
+						shapes, attributes, transform, result.getDestSrid(),
+						parallelism, monitor));
+				Statement stmt = connection.createStatement();
+				try {
+					if (unlogged) {
+						stmt.execute(MessageFormat.format(SET_LOGGED_SQL,
+								quote(schema), quote(staging)));
 					}
-					if (LOG.isDebugEnabled()) {
-						BufferedReader errorStream = new BufferedReader(
-								new InputStreamReader(proc.getErrorStream()));
-						while ((line = errorStream.readLine()) != null) {
-							LOG.debug(GUESS_PROJECTION_COMMAND + ": " + line);
-						}
+					stmt.execute(MessageFormat.format(ADD_PK_SQL,
+							quote(schema), quote(staging),
+							quote(staging + PK_SUFFIX), quote(ID_COLUMN)));
+				} finally {
+					stmt.close();
+				}
+				createIndex(connection, schema, staging);
+				String sequence = resetSequence(connection, schema, staging);
+				swapTables(connection, schema, staging, tableName, sequence);
+				loaded = true;
+			} finally {
+				if (!loaded) {
+					try {
+						dropTable(connection, schema, staging);
+					} catch (SQLException e) {
+						LOG.error("Can't drop staging table " + staging, e);
 					}
+				}
+			}
+		} finally {
+			close(connection);
+		}
+	}
 
+	/**
+	 * Load the records in chunks with <code>parallelism</code> connections
+	 * 
+	 * @return number of rows loaded
+	 */
+	private long loadChunks(String schema, String table, List<String> columns,
+			ShapefileReader shapes, DbfReader attributes,
+			MathTransform transform, int srid, int parallelism,
+			ShpImportMonitor monitor) throws ImportFailure {
+		int records = shapes.getRecordCount();
+		int chunks = parallelism * CHUNKS_PER_THREAD;
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, (records + chunks - 1)
+				/ chunks);
+		AtomicBoolean cancelled = new AtomicBoolean(false);
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			List<Future<Long>> futures = new ArrayList<Future<Long>>();
+			for (int from = 0; from < records; from += chunkSize) {
+				futures.add(executor.submit(new ChunkLoader(schema, table,
+						columns, shapes.duplicate(), attributes.duplicate(),
+						from, Math.min(records, from + chunkSize), transform,
+						srid, monitor, cancelled)));
+			}
+			long rows = 0;
+			ImportFailure failure = null;
+			for (Future<Long> future : futures) {
+				try {
+					rows += future.get();
+				} catch (ExecutionException e) {
+					cancelled.set(true);
+					if (failure == null) {
+						failure = e.getCause() instanceof ImportFailure ? (ImportFailure) e
+								.getCause() : new ImportFailure(
+								Failure.DATABASE, null, String.valueOf(e
+										.getCause()));
+					}
+				} catch (InterruptedException e) {
+					cancelled.set(true);
+					Thread.currentThread().interrupt();
+					throw new ImportFailure(Failure.DATABASE, null,
+							"Import interrupted");
 				}
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			if (cancelled.get()) {
+				throw cancelledFailure();
+			}
+			return rows;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 
-			} catch (IOException e) {
-				if (LOG.isErrorEnabled()) {
-					LOG.error("guessEPSG.py not found. Please put this file "
-							+ " in the path");
+	/**
+	 * Copy a range of records to a table. The caller commits or rolls back
+	 * the transaction.
+	 * 
+	 * @param writeGid
+	 *            write the record number as <code>gid</code>. It must be the
+	 *            first of <code>columns</code>
+	 * @param monitor
+	 *            progress monitor or null
+	 * @param cancelled
+	 *            flag checked periodically to stop the copy. It's set if
+	 *            the monitor cancels the import
+	 * 
+	 * @return number of rows copied
+	 * 
+	 * @throws CancellationException
+	 *             if <code>cancelled</code> is set
+	 */
+	private long copyRecords(Connection connection, String schema,
+			String table, List<String> columns, ShapefileReader shapes,
+			DbfReader attributes, int from, int to, MathTransform transform,
+			int srid, boolean writeGid, ShpImportMonitor monitor,
+			AtomicBoolean cancelled) throws ImportFailure {
+		CopyWriter copy = null;
+		int record = from;
+		int reported = from;
+		try {
+			copy = new CopyWriter(getCopyManager(connection).copyIn(
+					MessageFormat.format(COPY_SQL, quote(schema),
+							quote(table), join(columns))));
+			String[] values = new String[attributes.getFields().size()];
+			for (; record < to; record++) {
+				if (record - reported == PROGRESS_INTERVAL) {
+					checkProgress(monitor, record - reported, cancelled);
+					reported = record;
+				}
+				if (!attributes.read(record, values)) {
+					// deleted record
+					continue;
+				}
+				ShpGeometry geometry = shapes.read(record);
+				if (geometry != null && transform != null) {
+					transform.transform(geometry.getXY(), 0, geometry.getXY(),
+							0, geometry.getNumPoints());
+				}
+				if (writeGid) {
+					copy.value(String.valueOf(record + 1));
 				}
-			} catch (InterruptedException e) {
-				LOG.error(GUESS_PROJECTION_COMMAND + " thread interrupted", e);
+				for (String value : values) {
+					copy.value(value);
+				}
+				EwkbEncoder.write(geometry, srid, copy);
+				copy.endRow();
+			}
+			long rows = copy.close();
+			copy = null;
+			if (monitor != null) {
+				monitor.recordsRead(to - reported);
+			}
+			return rows;
+		} catch (SQLException e) {
+			throw new ImportFailure(Failure.DATABASE, record < to ? record
+					: null, e.getMessage());
+		} catch (TransformException e) {
+			throw new ImportFailure(Failure.UNKNOWN_CRS, record,
+					e.getMessage());
+		} catch (ShpImporterException e) {
+			throw new ImportFailure(Failure.INVALID_RECORD, record,
+					e.getMessage());
+		} catch (CancellationException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			// corrupted record read out of the mapped file
+			throw new ImportFailure(Failure.INVALID_RECORD, record,
+					e.toString());
+		} finally {
+			if (copy != null) {
+				copy.cancel();
 			}
+		}
+	}
 
+	/**
+	 * Loads a chunk of records in its own connection and transaction
+	 */
+	private class ChunkLoader implements Callable<Long> {
+
+		private final String schema;
+		private final String table;
+		private final List<String> columns;
+		private final ShapefileReader shapes;
+		private final DbfReader attributes;
+		private final int from;
+		private final int to;
+		private final MathTransform transform;
+		private final int srid;
+		private final ShpImportMonitor monitor;
+		private final AtomicBoolean cancelled;
+
+		ChunkLoader(String schema, String table, List<String> columns,
+				ShapefileReader shapes, DbfReader attributes, int from,
+				int to, MathTransform transform, int srid,
+				ShpImportMonitor monitor, AtomicBoolean cancelled) {
+			this.schema = schema;
+			this.table = table;
+			this.columns = columns;
+			this.shapes = shapes;
+			this.attributes = attributes;
+			this.from = from;
+			this.to = to;
+			this.transform = transform;
+			this.srid = srid;
+			this.monitor = monitor;
+			this.cancelled = cancelled;
 		}
 
-		File shp = new File(pathToShp);
-		String dropTableParameter = "";
-		if (dropExistingTable) {
-			dropTableParameter = DROP_TABLE_OPTION;
+		@Override
+		public Long call() throws ImportFailure {
+			if (monitor != null && monitor.isCancelled()) {
+				cancelled.set(true);
+			}
+			if (cancelled.get()) {
+				return 0L;
+			}
+			Connection connection = null;
+			try {
+				connection = getConnection();
+				connection.setAutoCommit(false);
+				long rows = copyRecords(connection, schema, table, columns,
+						shapes, attributes, from, to, transform, srid, true,
+						monitor, cancelled);
+				connection.commit();
+				return rows;
+			} catch (CancellationException e) {
+				rollback(connection);
+				return 0L;
+			} catch (SQLException e) {
+				rollback(connection);
+				throw new ImportFailure(Failure.DATABASE, null, e.getMessage());
+			} catch (ImportFailure e) {
+				rollback(connection);
+				throw e;
+			} finally {
+				close(connection);
+			}
 		}
+	}
 
-		String command = MessageFormat.format(SHP2PGSQL_COMMAND,
-				dropTableParameter, srcProjection, dbConfig.getDestSrid(),
-				getFileSystemPath(shp.getAbsolutePath()), dbConfig.getSchema(), tableName,
-				dbConfig.getPostgresHost(), dbConfig.getPostgresPort(),
-				dbConfig.getDatabaseName(), dbConfig.getPostgresUser());
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("SHPIMPORTER Command: " + command);
+	/**
+	 * Set the <code>gid</code> sequence after the last loaded record
+	 * 
+	 * @return name of the sequence
+	 */
+	private String resetSequence(Connection connection, String schema,
+			String table) throws SQLException {
+		PreparedStatement stmt = connection.prepareStatement(MessageFormat
+				.format(RESET_SEQUENCE_SQL, quote(ID_COLUMN), quote(schema),
+						quote(table)));
+		try {
+			String qualifiedName = quote(schema) + "." + quote(table);
+			stmt.setString(1, qualifiedName);
+			stmt.setString(2, ID_COLUMN);
+			stmt.setString(3, qualifiedName);
+			stmt.setString(4, ID_COLUMN);
+			ResultSet rs = stmt.executeQuery();
+			rs.next();
+			return rs.getString(1);
+		} finally {
+			stmt.close();
 		}
+	}
+
+	/**
+	 * Replace the destination table with the staging table in a single
+	 * transaction, renaming its indexes and sequence
+	 */
+	private void swapTables(Connection connection, String schema,
+			String staging, String tableName, String sequence)
+			throws SQLException {
+		connection.setAutoCommit(false);
 		try {
-			Process proc = rt.exec(
-					new String[] { BASH_COMMAND, BASH_COMMAND_FIRST_ARGUMENT,
-							command },
-					new String[] { "PGPASSWORD="
-							+ dbConfig.getPostgresPassword() });
-
-			BufferedReader standarStream = new BufferedReader(
-					new InputStreamReader(proc.getInputStream()));
-
-			BufferedReader errorStream = new BufferedReader(
-					new InputStreamReader(proc.getErrorStream()));
-
-			String line;
-			while ((line = standarStream.readLine()) != null) {
-				if (line.contains("ROLLBACK")) {
-					result = false;
-				}
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("SHPIMPORTER standar output: " + line);
-				}
+			if (tableExists(connection, schema, tableName)) {
+				dropTable(connection, schema, tableName);
 			}
-
-			while ((line = errorStream.readLine()) != null) {
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("SHPIMPORTER error output: ");
+			Statement stmt = connection.createStatement();
+			try {
+				stmt.execute(MessageFormat.format(RENAME_TABLE_SQL,
+						quote(schema), quote(staging), quote(tableName)));
+				stmt.execute(MessageFormat.format(RENAME_INDEX_SQL,
+						quote(schema), quote(staging + PK_SUFFIX),
+						quote(tableName + PK_SUFFIX)));
+				stmt.execute(MessageFormat.format(RENAME_INDEX_SQL,
+						quote(schema), quote(getIndexName(staging)),
+						quote(getIndexName(tableName))));
+				stmt.execute(MessageFormat.format(RENAME_SEQUENCE_SQL,
+						sequence, quote(tableName + "_" + ID_COLUMN + "_seq")));
+			} finally {
+				stmt.close();
+			}
+			if (tableExists(connection, DEFAULT_SCHEMA, "geometry_columns")) {
+				// PostGIS 1.x keeps geometry columns in a table
+				PreparedStatement update = connection
+						.prepareStatement(UPDATE_GEOMETRY_COLUMNS_SQL);
+				try {
+					update.setString(1, tableName);
+					update.setString(2, schema);
+					update.setString(3, staging);
+					update.executeUpdate();
+				} finally {
+					update.close();
 				}
 			}
-			standarStream.close();
-			errorStream.close();
-			int exitStatus = proc.waitFor();
-
-			// Am I checking the real subcommand parameter exit status or only
-			// bash command exit status?
-			if (exitStatus != 0) {
-				throw new ShpImporterException(
-						"Exit status is not 0 after executing " + command);
+			connection.commit();
+		} catch (SQLException e) {
+			rollback(connection);
+			throw e;
+		}
+	}
+
+	private boolean supportsSetLogged(Connection connection)
+			throws SQLException {
+		DatabaseMetaData metaData = connection.getMetaData();
+		int major = metaData.getDatabaseMajorVersion();
+		return major > 9
+				|| (major == 9 && metaData.getDatabaseMinorVersion() >= 5);
+	}
+
+	/**
+	 * Report the records read to the monitor and stop the copy if the import
+	 * has been cancelled
+	 * 
+	 * @throws CancellationException
+	 *             if the import has been cancelled
+	 */
+	private void checkProgress(ShpImportMonitor monitor, int records,
+			AtomicBoolean cancelled) {
+		if (monitor != null) {
+			monitor.recordsRead(records);
+			if (monitor.isCancelled()) {
+				cancelled.set(true);
 			}
-		} catch (IOException e) {
-			throw new ShpImporterException(
-					"IOExcption thrown while executing SHP import", e);
-		} catch (InterruptedException e) {
-			throw new ShpImporterException(
-					"Another thread interrumped this when it "
-							+ " was waiting for SHP import command ending.", e);
 		}
+		if (cancelled.get()) {
+			throw new CancellationException();
+		}
+	}
 
-		return result;
+	private ImportFailure cancelledFailure() {
+		return new ImportFailure(Failure.CANCELLED, null, "Import cancelled");
+	}
 
+	private ImportFailure tableExistsFailure(String schema, String tableName) {
+		return new ImportFailure(Failure.TABLE_EXISTS, null, "Table "
+				+ schema + "." + tableName + " already exists");
 	}
-	
+
+	private ShpImportResult finish(ShpImportResult result, long start) {
+		result.setElapsedTime(System.currentTimeMillis() - start);
+		if (result.isSuccess()) {
+			if (LOG.isInfoEnabled()) {
+				LOG.info("SHPIMPORTER " + result);
+			}
+		} else if (LOG.isWarnEnabled()) {
+			LOG.warn("SHPIMPORTER " + result);
+		}
+		return result;
+	}
+
 	/**
-	 * Repair a path with escape white spaces 
+	 * Create the table and its geometry column
 	 * 
-	 * @param path to be escaped
+	 * @param unlogged
+	 *            create an <code>UNLOGGED</code> table
+	 * @param primaryKey
+	 *            create the primary key with the table
 	 * 
-	 * @return path escaped
+	 * @return columns to copy: attributes and geometry
 	 */
-	private String getFileSystemPath(String path){
-		return path != null ? path.replaceAll(" ", "\\ ") : path;
+	private List<String> createTable(Connection connection, String schema,
+			String tableName, List<DbfField> fields, String geometryType,
+			int srid, boolean hasZ, boolean unlogged, boolean primaryKey)
+			throws SQLException {
+		String geomColumn = getGeomColumn();
+		Set<String> names = new HashSet<String>();
+		names.add(ID_COLUMN.toLowerCase());
+		names.add(geomColumn.toLowerCase());
+		List<String> columns = new ArrayList<String>();
+		StringBuilder definitions = new StringBuilder();
+		for (DbfField field : fields) {
+			String name = field.getName();
+			while (!names.add(name.toLowerCase())) {
+				name = name + "_";
+			}
+			columns.add(quote(name));
+			definitions.append(", ").append(quote(name)).append(" ")
+					.append(field.getSqlType());
+		}
+		columns.add(quote(geomColumn));
+
+		Statement stmt = connection.createStatement();
+		try {
+			stmt.execute(MessageFormat.format(CREATE_TABLE_SQL,
+					unlogged ? "UNLOGGED " : "", quote(schema),
+					quote(tableName), quote(ID_COLUMN),
+					primaryKey ? " PRIMARY KEY" : "", definitions));
+		} finally {
+			stmt.close();
+		}
+		PreparedStatement addGeometry = connection
+				.prepareStatement(ADD_GEOMETRY_COLUMN_SQL);
+		try {
+			addGeometry.setString(1, schema);
+			addGeometry.setString(2, tableName);
+			addGeometry.setString(3, geomColumn);
+			addGeometry.setInt(4, srid);
+			addGeometry.setString(5, geometryType);
+			addGeometry.setInt(6, hasZ ? 3 : 2);
+			addGeometry.execute();
+		} finally {
+			addGeometry.close();
+		}
+		return columns;
+	}
+
+	private void createIndex(Connection connection, String schema,
+			String tableName) throws SQLException {
+		String geomColumn = getGeomColumn();
+		Statement stmt = connection.createStatement();
+		try {
+			stmt.execute(MessageFormat.format(CREATE_INDEX_SQL,
+					quote(getIndexName(tableName)),
+					quote(schema), quote(tableName), quote(geomColumn)));
+			stmt.execute(MessageFormat.format(ANALYZE_SQL, quote(schema),
+					quote(tableName)));
+		} finally {
+			stmt.close();
+		}
+	}
+
+	private boolean tableExists(Connection connection, String schema,
+			String tableName) throws SQLException {
+		PreparedStatement stmt = connection.prepareStatement(TABLE_EXISTS_SQL);
+		try {
+			stmt.setString(1, schema);
+			stmt.setString(2, tableName);
+			ResultSet rs = stmt.executeQuery();
+			return rs.next();
+		} finally {
+			stmt.close();
+		}
 	}
 
-	private void checkForCommandLineUtils() {
-		Runtime runtime = Runtime.getRuntime();
-		Process proc;
+	private void dropTable(Connection connection, String schema,
+			String tableName) throws SQLException {
+		PreparedStatement stmt = connection.prepareStatement(DROP_TABLE_SQL);
 		try {
-			if (LOG.isTraceEnabled()) {
-				LOG.trace("Checking psql command line tool existence");
+			stmt.setString(1, schema);
+			stmt.setString(2, tableName);
+			stmt.execute();
+		} finally {
+			stmt.close();
+		}
+	}
+
+	/**
+	 * Obtain a connection from <code>dataSourceHibernate</code> or, if it
+	 * isn't available, from the database configuration
+	 */
+	private Connection getConnection() throws SQLException {
+		if (dataSource != null) {
+			return dataSource.getConnection();
+		}
+		return DriverManager.getConnection(MessageFormat.format(JDBC_URL,
+				dbConfig.getPostgresHost(), dbConfig.getPostgresPort(),
+				dbConfig.getDatabaseName()), dbConfig.getPostgresUser(),
+				dbConfig.getPostgresPassword());
+	}
+
+	private org.postgresql.copy.CopyManager getCopyManager(
+			Connection connection) throws SQLException {
+		PGConnection pgConnection = connection instanceof PGConnection ? (PGConnection) connection
+				: connection.unwrap(PGConnection.class);
+		return pgConnection.getCopyAPI();
+	}
+
+	private static String getStagingName(String tableName) {
+		String prefix = tableName.length() > STAGING_PREFIX_LENGTH ? tableName
+				.substring(0, STAGING_PREFIX_LENGTH) : tableName;
+		return prefix + STAGING_SUFFIX
+				+ UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	private String getIndexName(String tableName) {
+		return tableName + "_" + getGeomColumn() + "_gist";
+	}
+
+	private void rollback(Connection connection) {
+		if (connection != null) {
+			try {
+				connection.rollback();
+			} catch (SQLException e) {
+				LOG.error("Error rolling back the shapefile import", e);
 			}
+		}
+	}
 
-			proc = runtime.exec(new String[] { "psql", "--help" });
-			int returnValue = proc.waitFor();
-			if (returnValue != 0) {
-				throw new ShpImporterException(
-						"psql command line tool not found"
-								+ "Please, check if postgresql-client package is installed.");
+	private void close(Connection connection) {
+		if (connection != null) {
+			try {
+				connection.setAutoCommit(true);
+				connection.close();
+			} catch (SQLException e) {
+				LOG.error("Error closing connection", e);
 			}
-		} catch (Exception e) {
-			throw new ShpImporterException(
-					"psql command line tool not found. "
-							+ "Please, check if postgresql-client package is installed.",
-					e);
 		}
-		try {
-			if (LOG.isTraceEnabled()) {
-				LOG.trace("Checking shp2pgsql command line tool existence");
+	}
+
+	/**
+	 * Charset of the <code>.dbf</code> from the <code>.cpg</code> file.
+	 * Defaults to LATIN1.
+	 */
+	private Charset getCharset(File cpg) {
+		if (cpg.isFile()) {
+			try {
+				return getCharset(FileUtils.readFileToString(cpg));
+			} catch (Exception e) {
+				LOG.warn("Can't read " + cpg.getName(), e);
 			}
+		}
+		return DEFAULT_CHARSET;
+	}
 
-			proc = runtime.exec("shp2pgsql");
-			int returnValue = proc.waitFor();
-			if (returnValue != 0) {
-				throw new ShpImporterException(
-						"shp2pgsql command line tool not found"
-								+ "Please, check if postgis package is installed.");
+	/**
+	 * Charset named by the content of a <code>.cpg</code> file or LATIN1
+	 */
+	private Charset getCharset(String cpg) {
+		if (cpg != null) {
+			String name = cpg.trim();
+			try {
+				if (Charset.isSupported(name)) {
+					return Charset.forName(name);
+				} else if (Charset.isSupported("cp" + name)) {
+					return Charset.forName("cp" + name);
+				}
+			} catch (IllegalArgumentException e) {
+				LOG.warn("Unknown charset " + name, e);
 			}
-		} catch (Exception e) {
-			throw new ShpImporterException(
-					"shp2pgsql command line tool not found. "
-							+ "Please, check if postgis package is installed.",
-					e);
+		}
+		return DEFAULT_CHARSET;
+	}
+
+	private int getDestSrid() {
+		if (dbConfig == null || dbConfig.getDestSrid() == null) {
+			return DEFAULT_DEST_SRID;
+		}
+		try {
+			return Integer.parseInt(dbConfig.getDestSrid().trim());
+		} catch (RuntimeException e) {
+			throw new ShpImporterException("Invalid destination SRID "
+					+ dbConfig.getDestSrid(), e);
+		}
+	}
+
+	private String getSchema() {
+		return dbConfig != null && dbConfig.getSchema() != null ? dbConfig
+				.getSchema() : DEFAULT_SCHEMA;
+	}
+
+	private int getParallelism() {
+		return dbConfig != null ? dbConfig.getImportParallelism() : 1;
+	}
+
+	private String getGeomColumn() {
+		return dbConfig != null && dbConfig.getGeomColumn() != null ? dbConfig
+				.getGeomColumn() : DEFAULT_GEOM_COLUMN;
+	}
+
+	private static String quote(String identifier) {
+		return "\"" + identifier.replace("\"", "\"\"") + "\"";
+	}
+
+	private static String join(List<String> columns) {
+		StringBuilder sb = new StringBuilder();
+		for (String column : columns) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(column);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Failure of an import step
+	 */
+	private static class ImportFailure extends Exception {
+
+		private static final long serialVersionUID = 4180773915546305211L;
+
+		private final Failure failure;
+		private final Integer record;
+
+		ImportFailure(Failure failure, Integer record, String message) {
+			super(message);
+			this.failure = failure;
+			this.record = record;
+		}
+
+		Failure getFailure() {
+			return failure;
+		}
+
+		Integer getRecord() {
+			return record;
 		}
 	}
 
@@ -0,0 +1,400 @@
+/* ZipShapefile.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.emergya.persistenceGeo.exceptions.ShpImporterException;
+
+/**
+ * Shapefile inside a zip archive. The entries are found in the central
+ * directory and read in place: stored entries are memory mapped from the zip
+ * file and deflated ones are inflated to a temporary file that is mapped and
+ * deleted on {@link #close()}. Entries are never buffered in the heap, so
+ * memory use doesn't depend on their size.
+ * 
+ * The archive must contain a single <code>.shp</code>, together with its
+ * <code>.shx</code> and <code>.dbf</code> and optionally a <code>.prj</code>
+ * and a <code>.cpg</code>. Zip64 archives aren't supported.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class ZipShapefile {
+
+	private static final Log LOG = LogFactory.getLog(ZipShapefile.class);
+
+	public static final String SHP = "shp";
+	public static final String SHX = "shx";
+	public static final String DBF = "dbf";
+	public static final String PRJ = "prj";
+	public static final String CPG = "cpg";
+
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int CENTRAL_SIGNATURE = 0x02014b50;
+	private static final int LOCAL_SIGNATURE = 0x04034b50;
+	private static final int END_LENGTH = 22;
+	private static final int CENTRAL_LENGTH = 46;
+	private static final int LOCAL_LENGTH = 30;
+	private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+	private static final int UTF8_FLAG = 0x800;
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+	private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	/** Largest .prj or .cpg read in memory */
+	private static final int MAX_TEXT_LENGTH = 64 * 1024;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+	private final File zipFile;
+	private final RandomAccessFile raf;
+	private final FileChannel channel;
+	private final Map<String, Entry> components = new HashMap<String, Entry>();
+	private final List<File> tempFiles = new ArrayList<File>();
+
+	/**
+	 * Read the central directory of a zip and find the shapefile components
+	 * 
+	 * @param zipFile
+	 * @throws IOException
+	 *             if the file can't be read
+	 * @throws ShpImporterException
+	 *             if it isn't a zip with a single shapefile
+	 */
+	public ZipShapefile(File zipFile) throws IOException {
+		this.zipFile = zipFile;
+		this.raf = new RandomAccessFile(zipFile, "r");
+		this.channel = raf.getChannel();
+		try {
+			readCentralDirectory();
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		} catch (RuntimeException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param extension
+	 *            component extension, without dot
+	 * @return true if the archive has the component
+	 */
+	public boolean has(String extension) {
+		return components.containsKey(extension);
+	}
+
+	/**
+	 * @param extension
+	 *            component extension, without dot
+	 * @return name of the component entry or null if it doesn't exist
+	 */
+	public String getName(String extension) {
+		Entry entry = components.get(extension);
+		return entry != null ? entry.name : null;
+	}
+
+	/**
+	 * Map a component
+	 * 
+	 * @param extension
+	 *            component extension, without dot
+	 * @return read only buffer with the component content
+	 * @throws IOException
+	 * @throws ShpImporterException
+	 *             if the component doesn't exist
+	 */
+	public ByteBuffer map(String extension) throws IOException {
+		Entry entry = getEntry(extension);
+		if (entry.method == STORED) {
+			return channel.map(MapMode.READ_ONLY, getDataOffset(entry),
+					entry.size);
+		}
+		File temp = File.createTempFile("shape", "." + extension);
+		tempFiles.add(temp);
+		OutputStream out = new FileOutputStream(temp);
+		try {
+			copy(entry, out);
+		} finally {
+			out.close();
+		}
+		RandomAccessFile tempRaf = new RandomAccessFile(temp, "r");
+		try {
+			return tempRaf.getChannel().map(MapMode.READ_ONLY, 0,
+					entry.size);
+		} finally {
+			tempRaf.close();
+		}
+	}
+
+	/**
+	 * Read a small text component such as the <code>.prj</code>
+	 * 
+	 * @param extension
+	 *            component extension, without dot
+	 * @return the content or null if the component doesn't exist
+	 * @throws IOException
+	 */
+	public String readText(String extension) throws IOException {
+		if (!has(extension)) {
+			return null;
+		}
+		Entry entry = getEntry(extension);
+		if (entry.size > MAX_TEXT_LENGTH) {
+			throw new ShpImporterException(entry.name + " is too big");
+		}
+		ByteArrayOutputStream content = new ByteArrayOutputStream(
+				(int) entry.size);
+		copy(entry, content);
+		return new String(content.toByteArray(), LATIN1);
+	}
+
+	/**
+	 * Close the zip and delete the inflated components. Buffers already
+	 * mapped can still be read.
+	 */
+	public void close() {
+		try {
+			raf.close();
+		} catch (IOException e) {
+			LOG.warn("Error closing " + zipFile, e);
+		}
+		for (File temp : tempFiles) {
+			if (!temp.delete()) {
+				temp.deleteOnExit();
+			}
+		}
+		tempFiles.clear();
+	}
+
+	private Entry getEntry(String extension) {
+		Entry entry = components.get(extension);
+		if (entry == null) {
+			throw new ShpImporterException("The zip has no ." + extension
+					+ " file");
+		}
+		return entry;
+	}
+
+	private void readCentralDirectory() throws IOException {
+		long size = channel.size();
+		int tailLength = (int) Math.min(size, END_LENGTH + MAX_COMMENT_LENGTH);
+		ByteBuffer tail = read(size - tailLength, tailLength);
+		int end = -1;
+		for (int i = tailLength - END_LENGTH; i >= 0; i--) {
+			if (tail.getInt(i) == END_SIGNATURE) {
+				end = i;
+				break;
+			}
+		}
+		if (end < 0) {
+			throw new ShpImporterException(zipFile.getName()
+					+ " is not a zip file");
+		}
+		long directorySize = tail.getInt(end + 12) & ZIP64_MARKER;
+		long directoryOffset = tail.getInt(end + 16) & ZIP64_MARKER;
+		if (directoryOffset == ZIP64_MARKER
+				|| directoryOffset + directorySize > size) {
+			throw new ShpImporterException(zipFile.getName()
+					+ " is a zip64 or corrupted zip file");
+		}
+
+		ByteBuffer directory = channel.map(MapMode.READ_ONLY,
+				directoryOffset, directorySize).order(ByteOrder.LITTLE_ENDIAN);
+		List<Entry> shapefiles = new ArrayList<Entry>();
+		Map<String, Entry> others = new HashMap<String, Entry>();
+		int position = 0;
+		while (position + CENTRAL_LENGTH <= directorySize
+				&& directory.getInt(position) == CENTRAL_SIGNATURE) {
+			int flags = directory.getShort(position + 8) & 0xFFFF;
+			int nameLength = directory.getShort(position + 28) & 0xFFFF;
+			int extraLength = directory.getShort(position + 30) & 0xFFFF;
+			int commentLength = directory.getShort(position + 32) & 0xFFFF;
+			byte[] name = new byte[nameLength];
+			directory.position(position + CENTRAL_LENGTH);
+			directory.get(name);
+
+			Entry entry = new Entry();
+			entry.name = new String(name, (flags & UTF8_FLAG) != 0 ? UTF8
+					: LATIN1);
+			entry.method = directory.getShort(position + 10) & 0xFFFF;
+			entry.compressedSize = directory.getInt(position + 20)
+					& ZIP64_MARKER;
+			entry.size = directory.getInt(position + 24) & ZIP64_MARKER;
+			entry.localOffset = directory.getInt(position + 42)
+					& ZIP64_MARKER;
+			position += CENTRAL_LENGTH + nameLength + extraLength
+					+ commentLength;
+
+			if (entry.name.endsWith("/")
+					|| entry.name.startsWith("__MACOSX/")) {
+				continue;
+			}
+			int dot = entry.name.lastIndexOf('.');
+			if (dot < 0) {
+				continue;
+			}
+			String extension = entry.name.substring(dot + 1).toLowerCase();
+			if (SHP.equals(extension)) {
+				shapefiles.add(entry);
+			} else {
+				others.put(entry.name.substring(0, dot).toLowerCase() + "."
+						+ extension, entry);
+			}
+		}
+
+		if (shapefiles.size() != 1) {
+			throw new ShpImporterException(zipFile.getName() + " has "
+					+ shapefiles.size() + " .shp files, expected one");
+		}
+		Entry shp = shapefiles.get(0);
+		components.put(SHP, shp);
+		String basename = shp.name.substring(0, shp.name.lastIndexOf('.'))
+				.toLowerCase();
+		for (String extension : new String[] { SHX, DBF, PRJ, CPG }) {
+			Entry component = others.get(basename + "." + extension);
+			if (component != null) {
+				components.put(extension, component);
+			}
+		}
+		for (String extension : new String[] { SHX, DBF }) {
+			if (!components.containsKey(extension)) {
+				throw new ShpImporterException(
+						"Not all mandatory shape file components could be found");
+			}
+		}
+		for (Entry component : components.values()) {
+			if (component.size == ZIP64_MARKER
+					|| component.compressedSize == ZIP64_MARKER
+					|| component.localOffset == ZIP64_MARKER) {
+				throw new ShpImporterException(component.name
+						+ " is too big, zip64 archives aren't supported");
+			}
+			if (component.method != STORED && component.method != DEFLATED) {
+				throw new ShpImporterException(component.name
+						+ " uses an unsupported compression method");
+			}
+		}
+	}
+
+	private long getDataOffset(Entry entry) throws IOException {
+		ByteBuffer header = read(entry.localOffset, LOCAL_LENGTH);
+		if (header.getInt(0) != LOCAL_SIGNATURE) {
+			throw new ShpImporterException("Corrupted zip entry " + entry.name);
+		}
+		int nameLength = header.getShort(26) & 0xFFFF;
+		int extraLength = header.getShort(28) & 0xFFFF;
+		long offset = entry.localOffset + LOCAL_LENGTH + nameLength
+				+ extraLength;
+		if (offset + entry.compressedSize > channel.size()) {
+			throw new ShpImporterException(entry.name + " is truncated");
+		}
+		return offset;
+	}
+
+	/**
+	 * Write the uncompressed content of an entry
+	 */
+	private void copy(Entry entry, OutputStream out) throws IOException {
+		channel.position(getDataOffset(entry));
+		InputStream in = Channels.newInputStream(channel);
+		Inflater inflater = null;
+		if (entry.method == DEFLATED) {
+			// the bytes after the entry provide the dummy byte that the
+			// inflater needs in nowrap mode
+			inflater = new Inflater(true);
+			in = new InflaterInputStream(in, inflater, BUFFER_SIZE);
+		}
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long remaining = entry.size;
+			while (remaining > 0) {
+				int count = in.read(buffer, 0,
+						(int) Math.min(buffer.length, remaining));
+				if (count < 0) {
+					throw new ShpImporterException(entry.name
+							+ " is truncated");
+				}
+				out.write(buffer, 0, count);
+				remaining -= count;
+			}
+		} finally {
+			if (inflater != null) {
+				inflater.end();
+			}
+		}
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(
+				ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new ShpImporterException(zipFile.getName()
+						+ " is truncated");
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Central directory data of an entry
+	 */
+	private static class Entry {
+		private String name;
+		private int method;
+		private long compressedSize;
+		private long size;
+		private long localOffset;
+	}
+
+}
@@ -0,0 +1,72 @@
+/* IXmlImporter.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.xml;
+
+import java.io.File;
+
+import com.emergya.persistenceGeo.importer.shp.ShpImportMonitor;
+
+/**
+ * An <code>IXmlImporter</code> imports the geometries of a KML or GML file
+ * into a layer table created with
+ * {@link com.emergya.persistenceGeo.dao.DBManagementDao#createLayerTable(String, int, com.emergya.persistenceGeo.utils.GeometryType)}
+ * , so it can be published in GeoServer instead of being served whole.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public interface IXmlImporter {
+
+	/**
+	 * Import the geometries of a KML or GML file into a new table. All the
+	 * geometries must be of the same type, the one of the table; files mixing
+	 * points, lines or polygons fail with
+	 * {@link com.emergya.persistenceGeo.importer.shp.ShpImportResult.Failure#UNSUPPORTED_SHAPE}
+	 * . Multi geometries are imported as a row for each member, with the
+	 * description of their feature.
+	 * 
+	 * The file is read twice in streaming, so memory use doesn't depend on
+	 * its size.
+	 * 
+	 * @param file
+	 *            KML or GML file
+	 * @param tableName
+	 *            table to be created
+	 * @param srid
+	 *            SRID of the coordinates or null to take it from the first
+	 *            <code>srsName</code> of the file, or EPSG:4326 if there is
+	 *            none
+	 * @param monitor
+	 *            receives the progress and can cancel the import, may be null
+	 * @return import result
+	 */
+	public XmlImportResult importXml(File file, String tableName,
+			Integer srid, ShpImportMonitor monitor);
+
+}
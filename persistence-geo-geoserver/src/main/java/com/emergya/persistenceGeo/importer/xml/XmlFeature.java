@@ -0,0 +1,81 @@
+/* XmlFeature.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.xml;
+
+import java.util.List;
+
+import com.emergya.persistenceGeo.utils.GeometryType;
+
+/**
+ * Geometry read from a KML or GML file together with the description of its
+ * feature. Multi geometries are read as one <code>XmlFeature</code> for each
+ * member.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class XmlFeature {
+
+	private final String description;
+	private final GeometryType type;
+	private final List<double[]> parts;
+
+	public XmlFeature(String description, GeometryType type,
+			List<double[]> parts) {
+		this.description = description;
+		this.type = type;
+		this.parts = parts;
+	}
+
+	/**
+	 * @return name or description of the feature, or null
+	 */
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * @return the geometry type
+	 */
+	public GeometryType getType() {
+		return type;
+	}
+
+	/**
+	 * Coordinates of the geometry as <code>x0, y0, x1, y1...</code> arrays:
+	 * one part for points and lines, the exterior ring followed by the holes
+	 * for polygons.
+	 * 
+	 * @return the geometry parts
+	 */
+	public List<double[]> getParts() {
+		return parts;
+	}
+
+}
@@ -0,0 +1,371 @@
+/* XmlFeatureReader.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.xml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.emergya.persistenceGeo.utils.GeometryType;
+
+/**
+ * Streaming reader of the geometries of a KML or GML file. The document is
+ * read with StAX, so only the feature being read is kept in memory.
+ * 
+ * Features are <code>Placemark</code> elements in KML and the children of
+ * <code>featureMember</code>, <code>featureMembers</code> or
+ * <code>member</code> elements in GML. Points, lines and polygons are read,
+ * with KML <code>coordinates</code>, GML 2 <code>coordinates</code> and GML 3
+ * <code>pos</code> and <code>posList</code> elements; multi geometries are
+ * read as their members. The feature description is its <code>name</code>
+ * or, if it hasn't got one, its <code>description</code>.
+ * 
+ * The SRID is taken from the first <code>srsName</code> attribute. Positions
+ * in <code>urn:</code> or <code>http://www.opengis.net/def/crs/</code>
+ * EPSG:4326 are in latitude/longitude order and they're swapped.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class XmlFeatureReader implements Closeable {
+
+	private static final int WGS84 = 4326;
+	private static final String WHITESPACE = " \t\n\r";
+
+	private final InputStream input;
+	private final XMLStreamReader xml;
+	private final LinkedList<XmlFeature> pending = new LinkedList<XmlFeature>();
+	/** Local names of the open elements */
+	private final List<String> path = new ArrayList<String>();
+	private final StringBuilder text = new StringBuilder();
+	private final Coordinates coordinates = new Coordinates();
+
+	private Integer srid;
+	private boolean swapAxes;
+	private long invalidCount;
+
+	// feature being read
+	private int featureDepth = -1;
+	private String name;
+	private String description;
+	private final List<GeometryType> types = new ArrayList<GeometryType>();
+	private final List<List<double[]>> geometries = new ArrayList<List<double[]>>();
+
+	// geometry being read
+	private GeometryType geometryType;
+	private int geometryDepth;
+	private List<double[]> parts;
+	private String cs;
+	private String ts;
+	private String decimal;
+	private int dimension;
+
+	public XmlFeatureReader(InputStream input) throws XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(
+				XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+				Boolean.FALSE);
+		this.input = input;
+		this.xml = factory.createXMLStreamReader(input);
+	}
+
+	/**
+	 * Read the next geometry
+	 * 
+	 * @return the geometry or null at the end of the document
+	 * @throws XMLStreamException
+	 *             if the document isn't well formed
+	 */
+	public XmlFeature next() throws XMLStreamException {
+		while (pending.isEmpty() && xml.hasNext()) {
+			switch (xml.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				startElement(xml.getLocalName());
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				endElement(xml.getLocalName());
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				if (featureDepth >= 0) {
+					text.append(xml.getTextCharacters(), xml.getTextStart(),
+							xml.getTextLength());
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		return pending.poll();
+	}
+
+	/**
+	 * @return EPSG code of the first <code>srsName</code> read or null
+	 */
+	public Integer getSrid() {
+		return srid;
+	}
+
+	/**
+	 * @return number of geometries skipped because they haven't got enough
+	 *         positions
+	 */
+	public long getInvalidCount() {
+		return invalidCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			xml.close();
+		} catch (XMLStreamException e) {
+			// the input is closed anyway
+		}
+		input.close();
+	}
+
+	private void startElement(String localName) {
+		path.add(localName);
+		text.setLength(0);
+		if (srid == null) {
+			readSrsName(xml.getAttributeValue(null, "srsName"));
+		}
+		int depth = path.size();
+		if (featureDepth < 0) {
+			String parent = depth > 1 ? path.get(depth - 2) : null;
+			if ("Placemark".equals(localName) || "featureMember".equals(parent)
+					|| "featureMembers".equals(parent)
+					|| "member".equals(parent)) {
+				featureDepth = depth;
+			}
+			return;
+		}
+		if (geometryType == null) {
+			if ("Point".equals(localName)) {
+				startGeometry(GeometryType.POINT, depth);
+			} else if ("LineString".equals(localName)) {
+				startGeometry(GeometryType.LINESTRING, depth);
+			} else if ("Polygon".equals(localName)) {
+				startGeometry(GeometryType.POLYGON, depth);
+			}
+		} else if ("LinearRing".equals(localName)) {
+			coordinates.clear();
+		} else if ("coordinates".equals(localName)) {
+			cs = xml.getAttributeValue(null, "cs");
+			ts = xml.getAttributeValue(null, "ts");
+			decimal = xml.getAttributeValue(null, "decimal");
+		} else if ("posList".equals(localName)) {
+			String srsDimension = xml.getAttributeValue(null, "srsDimension");
+			dimension = srsDimension != null ? Integer.parseInt(srsDimension
+					.trim()) : 2;
+		}
+	}
+
+	private void endElement(String localName) {
+		int depth = path.size();
+		path.remove(depth - 1);
+		if (featureDepth < 0) {
+			return;
+		}
+		if (depth == featureDepth) {
+			endFeature();
+		} else if (geometryType == null) {
+			if (depth == featureDepth + 1 && "name".equals(localName)) {
+				name = text.toString().trim();
+			} else if (depth == featureDepth + 1
+					&& "description".equals(localName)) {
+				description = text.toString().trim();
+			}
+		} else if ("coordinates".equals(localName)) {
+			readCoordinates(text);
+		} else if ("pos".equals(localName)) {
+			readPositions(text, 0);
+		} else if ("posList".equals(localName)) {
+			readPositions(text, dimension);
+		} else if ("LinearRing".equals(localName)) {
+			parts.add(coordinates.toArray());
+			coordinates.clear();
+		} else if (depth == geometryDepth) {
+			if (geometryType != GeometryType.POLYGON) {
+				parts.add(coordinates.toArray());
+			}
+			endGeometry();
+		}
+	}
+
+	private void startGeometry(GeometryType type, int depth) {
+		geometryType = type;
+		geometryDepth = depth;
+		parts = new ArrayList<double[]>();
+		coordinates.clear();
+	}
+
+	private void endGeometry() {
+		int minimum = geometryType == GeometryType.POINT ? 2
+				: geometryType == GeometryType.LINESTRING ? 4 : 8;
+		boolean valid = !parts.isEmpty();
+		for (double[] part : parts) {
+			valid &= part.length >= minimum;
+		}
+		if (valid) {
+			types.add(geometryType);
+			geometries.add(parts);
+		} else {
+			invalidCount++;
+		}
+		geometryType = null;
+		parts = null;
+	}
+
+	private void endFeature() {
+		String featureDescription = name != null && name.length() > 0 ? name
+				: description;
+		for (int i = 0; i < types.size(); i++) {
+			pending.add(new XmlFeature(featureDescription, types.get(i),
+					geometries.get(i)));
+		}
+		types.clear();
+		geometries.clear();
+		featureDepth = -1;
+		name = null;
+		description = null;
+		geometryType = null;
+	}
+
+	private void readSrsName(String srsName) {
+		if (srsName == null) {
+			return;
+		}
+		int end = srsName.length();
+		int start = end;
+		while (start > 0 && Character.isDigit(srsName.charAt(start - 1))) {
+			start--;
+		}
+		if (start < end) {
+			srid = Integer.valueOf(srsName.substring(start, end));
+			swapAxes = srid == WGS84
+					&& (srsName.startsWith("urn:") || srsName
+							.contains("/def/crs/"));
+		}
+	}
+
+	/**
+	 * Read tuples of a KML or GML 2 <code>coordinates</code> element
+	 */
+	private void readCoordinates(CharSequence value) {
+		String tuples = value.toString();
+		if (decimal != null && !".".equals(decimal)) {
+			tuples = tuples.replace(decimal, ".");
+		}
+		String tupleSeparator = ts == null || ts.trim().length() == 0 ? WHITESPACE
+				: ts;
+		String coordinateSeparator = cs == null ? "," : cs;
+		StringTokenizer tuple = new StringTokenizer(tuples, tupleSeparator);
+		while (tuple.hasMoreTokens()) {
+			StringTokenizer coordinate = new StringTokenizer(
+					tuple.nextToken(), coordinateSeparator);
+			if (coordinate.countTokens() >= 2) {
+				add(Double.parseDouble(coordinate.nextToken().trim()),
+						Double.parseDouble(coordinate.nextToken().trim()));
+			}
+		}
+	}
+
+	/**
+	 * Read GML 3 positions
+	 * 
+	 * @param dimension
+	 *            values of each position or 0 if it's a single position
+	 */
+	private void readPositions(CharSequence value, int dimension) {
+		StringTokenizer tokens = new StringTokenizer(value.toString(),
+				WHITESPACE);
+		if (dimension == 0) {
+			dimension = Math.max(tokens.countTokens(), 2);
+		}
+		while (tokens.countTokens() >= dimension) {
+			double x = Double.parseDouble(tokens.nextToken());
+			double y = Double.parseDouble(tokens.nextToken());
+			for (int i = 2; i < dimension; i++) {
+				tokens.nextToken();
+			}
+			add(x, y);
+		}
+	}
+
+	private void add(double x, double y) {
+		if (swapAxes) {
+			coordinates.add(y, x);
+		} else {
+			coordinates.add(x, y);
+		}
+	}
+
+	/**
+	 * Growable buffer of coordinates
+	 */
+	private static class Coordinates {
+
+		private double[] values = new double[64];
+		private int size;
+
+		void add(double x, double y) {
+			if (size + 2 > values.length) {
+				double[] grown = new double[values.length * 2];
+				System.arraycopy(values, 0, grown, 0, size);
+				values = grown;
+			}
+			values[size++] = x;
+			values[size++] = y;
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		double[] toArray() {
+			double[] array = new double[size];
+			System.arraycopy(values, 0, array, 0, size);
+			return array;
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+/* XmlImportResult.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.xml;
+
+import com.emergya.persistenceGeo.importer.shp.ShpImportResult;
+import com.emergya.persistenceGeo.utils.BoundingBox;
+import com.emergya.persistenceGeo.utils.GeometryType;
+
+/**
+ * Result of a KML or GML import. Besides the shapefile import data it has
+ * what's needed to publish the table in GeoServer.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class XmlImportResult extends ShpImportResult {
+
+	private static final long serialVersionUID = 6383207645917321472L;
+
+	private GeometryType type;
+	private BoundingBox boundingBox;
+	private long skippedCount;
+
+	public XmlImportResult(String tableName) {
+		super(tableName);
+	}
+
+	/**
+	 * @return geometry type of the table
+	 */
+	public GeometryType getType() {
+		return type;
+	}
+
+	/**
+	 * @param type
+	 *            the type to set
+	 */
+	public void setType(GeometryType type) {
+		this.type = type;
+		setGeometryType(type != null ? type.name() : null);
+	}
+
+	/**
+	 * @return extent of the imported geometries in the table SRS
+	 */
+	public BoundingBox getBoundingBox() {
+		return boundingBox;
+	}
+
+	/**
+	 * @param boundingBox
+	 *            the boundingBox to set
+	 */
+	public void setBoundingBox(BoundingBox boundingBox) {
+		this.boundingBox = boundingBox;
+	}
+
+	/**
+	 * @return number of geometries not imported because they're invalid
+	 */
+	public long getSkippedCount() {
+		return skippedCount;
+	}
+
+	/**
+	 * @param skippedCount
+	 *            the skippedCount to set
+	 */
+	public void setSkippedCount(long skippedCount) {
+		this.skippedCount = skippedCount;
+	}
+
+}
@@ -0,0 +1,380 @@
+/* XmlImporterImpl.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.xml;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.MessageFormat;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.annotation.Resource;
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.jdbc.Work;
+import org.postgresql.PGConnection;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import com.emergya.persistenceGeo.dao.DBManagementDao;
+import com.emergya.persistenceGeo.importer.shp.CopyWriter;
+import com.emergya.persistenceGeo.importer.shp.EwkbEncoder;
+import com.emergya.persistenceGeo.importer.shp.ShpImportMonitor;
+import com.emergya.persistenceGeo.importer.shp.ShpImportResult.Failure;
+import com.emergya.persistenceGeo.utils.BoundingBox;
+import com.emergya.persistenceGeo.utils.GeometryType;
+
+/**
+ * Imports KML and GML files with a StAX reader. The table is created by
+ * {@link DBManagementDao#createLayerTable(String, int, GeometryType)} and
+ * the geometries are loaded with a <code>COPY</code> command in the same
+ * transaction, so a failed import leaves nothing behind. A GiST index is
+ * built once the data is loaded.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+@Service
+public class XmlImporterImpl implements IXmlImporter {
+
+	private static final Log LOG = LogFactory.getLog(XmlImporterImpl.class);
+	private static final String DEFAULT_SCHEMA = "public";
+	private static final int WGS84 = 4326;
+	private static final int DESCRIPTION_LENGTH = 512;
+	private static final int PROGRESS_INTERVAL = 1000;
+	/** Table name as {@link DBManagementDao#createLayerTable} writes it */
+	private static final String TABLE = "{0}.\"{1}\"";
+	private static final String COPY_SQL = "COPY {0} (descripcion, geom) FROM STDIN";
+	private static final String CREATE_INDEX_SQL = "CREATE INDEX \"{1}_geom_gist\" ON {0} USING GIST (geom)";
+	private static final String ANALYZE_SQL = "ANALYZE {0}";
+
+	@Resource
+	private DBManagementDao dbManagementDao;
+
+	@Resource
+	private SessionFactory sessionFactory;
+
+	@Override
+	@Transactional
+	public XmlImportResult importXml(File file, String tableName,
+			Integer srid, ShpImportMonitor monitor) {
+		long start = System.currentTimeMillis();
+		XmlImportResult result = new XmlImportResult(tableName);
+
+		// first pass: geometry type and SRS
+		Map<GeometryType, Long> counts = new EnumMap<GeometryType, Long>(
+				GeometryType.class);
+		XmlFeatureReader reader = null;
+		try {
+			reader = open(file);
+			XmlFeature feature;
+			while ((feature = reader.next()) != null) {
+				Long count = counts.get(feature.getType());
+				counts.put(feature.getType(), count != null ? count + 1 : 1L);
+			}
+			result.setSourceSrid(reader.getSrid());
+		} catch (XMLStreamException e) {
+			return fail(result, Failure.INVALID_FILE, null, e.getMessage());
+		} catch (NumberFormatException e) {
+			return fail(result, Failure.INVALID_FILE, null,
+					"Invalid coordinate " + e.getMessage());
+		} catch (IOException e) {
+			return fail(result, Failure.INVALID_FILE, null, e.getMessage());
+		} finally {
+			close(reader);
+		}
+
+		if (counts.isEmpty()) {
+			return fail(result, Failure.UNSUPPORTED_SHAPE, null,
+					"No points, lines or polygons found");
+		}
+		if (counts.size() > 1) {
+			// a layer table has a single geometry type
+			return fail(result, Failure.UNSUPPORTED_SHAPE, null,
+					"The file mixes geometry types " + counts
+							+ ", import each type in its own file");
+		}
+		GeometryType type = counts.keySet().iterator().next();
+		result.setType(type);
+		result.setDestSrid(srid != null ? srid
+				: result.getSourceSrid() != null ? result.getSourceSrid()
+						: WGS84);
+
+		String schema = getSchema();
+		if (dbManagementDao.tableExists(schema, tableName)) {
+			return fail(result, Failure.TABLE_EXISTS, null, "Table "
+					+ tableName + " already exists");
+		}
+		if (!dbManagementDao.createLayerTable(tableName,
+				result.getDestSrid(), type)) {
+			return fail(result, Failure.DATABASE, null,
+					"The table can't be created");
+		}
+		if (monitor != null) {
+			monitor.started(counts.get(type).intValue());
+		}
+
+		// second pass: load
+		LoadWork load = new LoadWork(file, schema, tableName,
+				result.getDestSrid(), monitor);
+		try {
+			sessionFactory.getCurrentSession().doWork(load);
+		} catch (HibernateException e) {
+			LOG.error("Error importing " + file, e);
+			return fail(result, Failure.DATABASE, load.record,
+					e.getCause() != null ? e.getCause().getMessage() : e
+							.getMessage());
+		}
+		if (load.failure != null) {
+			return fail(result, load.failure, load.record, load.message);
+		}
+
+		BoundingBox boundingBox = new BoundingBox();
+		boundingBox.setMinx(load.minx);
+		boundingBox.setMiny(load.miny);
+		boundingBox.setMaxx(load.maxx);
+		boundingBox.setMaxy(load.maxy);
+		boundingBox.setSrs("EPSG:" + result.getDestSrid());
+		result.setBoundingBox(boundingBox);
+		result.setFeatureCount(load.count);
+		result.setSkippedCount(load.skipped);
+		result.setElapsedTime(System.currentTimeMillis() - start);
+		if (LOG.isInfoEnabled()) {
+			LOG.info(result + " (" + load.skipped + " skipped)");
+		}
+		return result;
+	}
+
+	private XmlImportResult fail(XmlImportResult result, Failure failure,
+			Integer record, String message) {
+		TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+		result.fail(failure, record, message);
+		return result;
+	}
+
+	private XmlFeatureReader open(File file) throws IOException,
+			XMLStreamException {
+		FileInputStream input = new FileInputStream(file);
+		try {
+			return new XmlFeatureReader(new BufferedInputStream(input));
+		} catch (XMLStreamException e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	private void close(XmlFeatureReader reader) {
+		if (reader != null) {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				LOG.warn("Error closing the XML file", e);
+			}
+		}
+	}
+
+	private String getSchema() {
+		String schema = ((SessionFactoryImplementor) sessionFactory)
+				.getSettings().getDefaultSchemaName();
+		return schema != null ? schema : DEFAULT_SCHEMA;
+	}
+
+	/**
+	 * Loads the geometries with a COPY command and indexes them
+	 */
+	private class LoadWork implements Work {
+
+		private final File file;
+		private final String table;
+		private final String tableName;
+		private final int srid;
+		private final ShpImportMonitor monitor;
+
+		private long count;
+		private long skipped;
+		private Integer record;
+		private Failure failure;
+		private String message;
+		private double minx = Double.MAX_VALUE;
+		private double miny = Double.MAX_VALUE;
+		private double maxx = -Double.MAX_VALUE;
+		private double maxy = -Double.MAX_VALUE;
+
+		LoadWork(File file, String schema, String tableName,
+				int srid, ShpImportMonitor monitor) {
+			this.file = file;
+			this.table = MessageFormat.format(TABLE, schema, tableName);
+			this.tableName = tableName;
+			this.srid = srid;
+			this.monitor = monitor;
+		}
+
+		@Override
+		public void execute(Connection connection) throws SQLException {
+			PGConnection pgConnection = connection instanceof PGConnection ? (PGConnection) connection
+					: connection.unwrap(PGConnection.class);
+			CopyWriter copy = new CopyWriter(pgConnection.getCopyAPI()
+					.copyIn(MessageFormat.format(COPY_SQL, table)));
+			XmlFeatureReader reader = null;
+			int reported = 0;
+			int index = 0;
+			try {
+				reader = open(file);
+				XmlFeature feature;
+				while ((feature = reader.next()) != null) {
+					record = index++;
+					if (count - reported == PROGRESS_INTERVAL) {
+						reported = (int) count;
+						if (monitor != null) {
+							monitor.recordsRead(PROGRESS_INTERVAL);
+							if (monitor.isCancelled()) {
+								copy.cancel();
+								failure = Failure.CANCELLED;
+								message = "Cancelled";
+								return;
+							}
+						}
+					}
+					String description = feature.getDescription();
+					if (description != null
+							&& description.length() > DESCRIPTION_LENGTH) {
+						description = description.substring(0,
+								DESCRIPTION_LENGTH);
+					}
+					copy.value(description);
+					writeGeometry(feature, copy);
+					copy.endRow();
+					count++;
+				}
+				copy.close();
+				record = null;
+				skipped = reader.getInvalidCount();
+				if (monitor != null) {
+					monitor.recordsRead((int) count - reported);
+				}
+			} catch (XMLStreamException e) {
+				copy.cancel();
+				failure = Failure.INVALID_FILE;
+				message = e.getMessage();
+				return;
+			} catch (NumberFormatException e) {
+				copy.cancel();
+				failure = Failure.INVALID_RECORD;
+				message = "Invalid coordinate " + e.getMessage();
+				return;
+			} catch (IOException e) {
+				copy.cancel();
+				failure = Failure.INVALID_FILE;
+				message = e.getMessage();
+				return;
+			} catch (SQLException e) {
+				copy.cancel();
+				throw e;
+			} finally {
+				close(reader);
+			}
+
+			Statement stmt = connection.createStatement();
+			try {
+				stmt.execute(MessageFormat.format(CREATE_INDEX_SQL, table,
+						tableName));
+				stmt.execute(MessageFormat.format(ANALYZE_SQL, table));
+			} finally {
+				stmt.close();
+			}
+		}
+
+		/**
+		 * Write a geometry as hexadecimal EWKB
+		 */
+		private void writeGeometry(XmlFeature feature, CopyWriter copy)
+				throws SQLException {
+			copy.startHex();
+			double[] first = feature.getParts().get(0);
+			switch (feature.getType()) {
+			case POINT:
+				EwkbEncoder.header(EwkbEncoder.WKB_POINT, srid, false, copy);
+				position(first[0], first[1], copy);
+				break;
+			case LINESTRING:
+				EwkbEncoder.header(EwkbEncoder.WKB_LINESTRING, srid, false,
+						copy);
+				points(first, false, copy);
+				break;
+			default:
+				EwkbEncoder.header(EwkbEncoder.WKB_POLYGON, srid, false, copy);
+				copy.hexInt(feature.getParts().size());
+				for (double[] ring : feature.getParts()) {
+					points(ring, true, copy);
+				}
+				break;
+			}
+		}
+
+		/**
+		 * Write the points of a line or ring. Rings that aren't closed are
+		 * closed with their first point.
+		 */
+		private void points(double[] xy, boolean ring, CopyWriter copy)
+				throws SQLException {
+			int length = xy.length;
+			boolean close = ring
+					&& (xy[0] != xy[length - 2] || xy[1] != xy[length - 1]);
+			copy.hexInt(length / 2 + (close ? 1 : 0));
+			for (int i = 0; i < length; i += 2) {
+				position(xy[i], xy[i + 1], copy);
+			}
+			if (close) {
+				position(xy[0], xy[1], copy);
+			}
+		}
+
+		private void position(double x, double y, CopyWriter copy)
+				throws SQLException {
+			copy.hexDouble(x);
+			copy.hexDouble(y);
+			minx = Math.min(minx, x);
+			miny = Math.min(miny, y);
+			maxx = Math.max(maxx, x);
+			maxy = Math.max(maxy, y);
+		}
+	}
+
+}
@@ -36,6 +36,8 @@ import java.util.List;
 import com.emergya.persistenceGeo.utils.BoundingBox;
 import com.emergya.persistenceGeo.utils.GsCoverageDetails;
 import com.emergya.persistenceGeo.utils.GsCoverageStoreData;
+import com.emergya.persistenceGeo.utils.GsDbLayerPublication;
+import com.emergya.persistenceGeo.utils.GsPublicationResult;
 import com.emergya.persistenceGeo.utils.GeometryType;
 import it.geosolutions.geoserver.rest.decoder.RESTLayer;
 
@@ -90,6 +92,31 @@ public interface GeoserverService {
 			String layerName, String title, BoundingBox nativeBoundingBox,
 			GeometryType type);
 
+	/**
+	 * Publishes many PostGIS layers concurrently. The missing workspaces (and
+	 * their datastores) are created first; then every layer is published and,
+	 * if it has a style source layer, the style is copied and set.
+	 * 
+	 * @param layers
+	 *            layers to publish
+	 * @return result of each layer in the order of <code>layers</code>
+	 */
+	public List<GsPublicationResult> publishGsDbLayers(
+			List<GsDbLayerPublication> layers);
+
+	/**
+	 * Unpublishes many PostGIS layers concurrently, removing also the style
+	 * named after each layer if there is one. Workspaces and datastores are
+	 * kept.
+	 * 
+	 * @param layers
+	 *            layers to unpublish; only the workspace and layer names are
+	 *            used
+	 * @return result of each layer in the order of <code>layers</code>
+	 */
+	public List<GsPublicationResult> unpublishGsDbLayers(
+			List<GsDbLayerPublication> layers);
+
 	/**
 	 * Check if a layer with <code>layerName</code> exists in the workspace
 	 * <code>workspaceName</code>
@@ -0,0 +1,134 @@
+/* ImportJobService.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.service;
+
+import java.io.File;
+import java.util.Map;
+
+import com.emergya.persistenceGeo.dto.ImportJobDto;
+import com.emergya.persistenceGeo.exceptions.ImportJobRejectedException;
+
+/**
+ * Runs shapefile, KML, GML and raster imports in background. Submitted jobs
+ * are kept in the job table and processed by a bounded pool of workers, so at
+ * most <code>import.jobs.threads</code> imports hit the database at the same
+ * time. Queued jobs are resumed after a restart.
+ * 
+ * The service takes ownership of the job source: it's deleted when the job
+ * ends.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public interface ImportJobService {
+
+	/**
+	 * Queue the import of a shapefile into a table
+	 * 
+	 * @param directory
+	 *            directory containing the shapefile files or zip file with
+	 *            them, which is imported without extracting it
+	 * @param tableName
+	 *            table where the shapefile is imported
+	 * @param dropExistingTable
+	 *            <code>true</code> to replace an existing table
+	 * @param owner
+	 *            user submitting the job
+	 * @return job id
+	 * @throws ImportJobRejectedException
+	 *             if the queue is full
+	 */
+	public Long submitShpImport(File directory, String tableName,
+			boolean dropExistingTable, String owner);
+
+	/**
+	 * Queue the upload and publication of a GeoTIFF image
+	 * 
+	 * @param geotiff
+	 *            the GeoTIFF file
+	 * @param workspaceName
+	 *            workspace to use
+	 * @param layerName
+	 *            the layer name to be created
+	 * @param crs
+	 *            the image native SRS
+	 * @param owner
+	 *            user submitting the job
+	 * @return job id
+	 * @throws ImportJobRejectedException
+	 *             if the queue is full
+	 */
+	public Long submitGeoTIFFImport(File geotiff, String workspaceName,
+			String layerName, String crs, String owner);
+
+	/**
+	 * Queue the import of a KML or GML file into a table and its publication
+	 * as a layer with the same name
+	 * 
+	 * @param file
+	 *            the KML or GML file
+	 * @param workspaceName
+	 *            workspace to use
+	 * @param tableName
+	 *            table and layer to be created
+	 * @param srid
+	 *            SRID of the coordinates or null to take it from the file
+	 * @param owner
+	 *            user submitting the job
+	 * @return job id
+	 * @throws ImportJobRejectedException
+	 *             if the queue is full
+	 */
+	public Long submitXmlImport(File file, String workspaceName,
+			String tableName, Integer srid, String owner);
+
+	/**
+	 * Get the status of a job. The progress of the jobs running in this node
+	 * is up to date; for the rest it's the last one saved.
+	 * 
+	 * @param id
+	 * @return the job or null if it doesn't exist
+	 */
+	public ImportJobDto getJob(Long id);
+
+	/**
+	 * Cancel a job. Shapefile, KML and GML imports can be cancelled while
+	 * they're running; raster imports only while they're queued.
+	 * 
+	 * @param id
+	 * @return <code>true</code> if the job will be cancelled
+	 */
+	public boolean cancel(Long id);
+
+	/**
+	 * @return workers and queue usage
+	 */
+	public Map<String, Object> getStats();
+
+}
@@ -0,0 +1,381 @@
+/* GeoserverCatalogMirror.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
+import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList.RESTShortWorkspace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.emergya.persistenceGeo.dao.GeoserverDao;
+import com.emergya.persistenceGeo.exceptions.GeoserverException;
+
+/**
+ * In-process copy of the GeoServer catalog (workspaces, stores, layers and
+ * styles) indexed by name.
+ * 
+ * The workspaces, styles and layer names are loaded with one request each
+ * on the first lookup and on every {@link #refresh()}. The workspace, store
+ * and native name of a layer are read the first time they're needed and
+ * kept until the layer disappears from the catalog. The changes made by this
+ * application are applied with the <code>add</code> and <code>remove</code>
+ * methods as soon as GeoServer accepts them, so a refresh only has to pick up
+ * the changes made by somebody else.
+ * 
+ * An unknown layer is still looked up in GeoServer, as it may have been
+ * published since the last refresh. A layer is only forgotten when GeoServer
+ * answers it doesn't exist; if GeoServer can't be reached the lookup throws
+ * a {@link GeoserverException} and the mirror is left as it was.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class GeoserverCatalogMirror {
+
+	private static final Log LOG = LogFactory
+			.getLog(GeoserverCatalogMirror.class);
+	private static final Pattern STORE_URL_PATTERN = Pattern
+			.compile("/rest/workspaces/([^/]+)/(?:data|coverage)stores/([^/]+?)(?:\\.xml)?$");
+	private static final String WORKSPACE_PREFIX = "w:";
+	private static final String STYLE_PREFIX = "s:";
+	private static final String LAYER_PREFIX = "l:";
+
+	private final GeoserverDao gsDao;
+
+	private final Set<String> workspaces = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final ConcurrentMap<String, Set<String>> stores = new ConcurrentHashMap<String, Set<String>>();
+	private final ConcurrentMap<String, LayerEntry> layers = new ConcurrentHashMap<String, LayerEntry>();
+	private final Set<String> styles = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	/** Names changed by this application while a refresh was running */
+	private final Set<String> changed = new HashSet<String>();
+	private volatile boolean loaded = false;
+
+	public GeoserverCatalogMirror(GeoserverDao gsDao) {
+		this.gsDao = gsDao;
+	}
+
+	/**
+	 * Reload the workspaces, styles and layer names from GeoServer. The
+	 * details of the layers already known are kept.
+	 */
+	public synchronized void refresh() {
+		synchronized (changed) {
+			changed.clear();
+		}
+		RESTWorkspaceList workspaceList = gsDao.getWorkspaceList();
+		if (workspaceList == null) {
+			throw new GeoserverException("Can't read the Geoserver workspaces");
+		}
+		Set<String> currentWorkspaces = new HashSet<String>();
+		for (RESTShortWorkspace workspace : workspaceList) {
+			currentWorkspaces.add(workspace.getName());
+		}
+		Set<String> currentStyles = new HashSet<String>(gsDao.getStyleNames());
+		Set<String> currentLayers = new HashSet<String>(gsDao.getLayersNames());
+
+		synchronized (changed) {
+			merge(workspaces, currentWorkspaces, WORKSPACE_PREFIX);
+			merge(styles, currentStyles, STYLE_PREFIX);
+			for (String layerName : new ArrayList<String>(layers.keySet())) {
+				if (!currentLayers.contains(layerName)
+						&& !changed.contains(LAYER_PREFIX + layerName)) {
+					layers.remove(layerName);
+				}
+			}
+			for (String layerName : currentLayers) {
+				if (!changed.contains(LAYER_PREFIX + layerName)) {
+					layers.putIfAbsent(layerName, new LayerEntry());
+				}
+			}
+			stores.keySet().retainAll(workspaces);
+			loaded = true;
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Geoserver catalog refreshed [workspaces="
+						+ workspaces.size() + ", styles=" + styles.size()
+						+ ", layers=" + layers.size() + "]");
+			}
+		}
+	}
+
+	/**
+	 * Forget everything; the catalog is loaded again on the next lookup
+	 */
+	public void clear() {
+		synchronized (changed) {
+			loaded = false;
+			workspaces.clear();
+			stores.clear();
+			layers.clear();
+			styles.clear();
+		}
+	}
+
+	public boolean existsWorkspace(String workspaceName) {
+		load();
+		return workspaces.contains(workspaceName);
+	}
+
+	/**
+	 * @return names of the layers, in no particular order
+	 */
+	public List<String> getLayersNames() {
+		load();
+		return new ArrayList<String>(layers.keySet());
+	}
+
+	public List<String> getStyleNames() {
+		load();
+		return new ArrayList<String>(styles);
+	}
+
+	/**
+	 * @param workspaceName
+	 * @return stores of the workspace created by this application or used by
+	 *         a layer looked up
+	 */
+	public Set<String> getStores(String workspaceName) {
+		load();
+		Set<String> workspaceStores = stores.get(workspaceName);
+		return workspaceStores != null ? new HashSet<String>(workspaceStores)
+				: Collections.<String> emptySet();
+	}
+
+	/**
+	 * @param layerName
+	 * @return native name of the layer
+	 * @throws GeoserverException
+	 *             if the layer doesn't exist
+	 */
+	public String getNativeName(String layerName) {
+		LayerEntry entry = getLayer(layerName);
+		if (entry == null) {
+			throw new GeoserverException("Incorrect Geoserver layer '"
+					+ layerName + "'");
+		}
+		return entry.nativeName;
+	}
+
+	/**
+	 * @param layerName
+	 * @return workspace of the layer or null if the layer doesn't exist
+	 */
+	public String getLayerWorkspace(String layerName) {
+		LayerEntry entry = getLayer(layerName);
+		return entry != null ? entry.workspace : null;
+	}
+
+	public void addWorkspace(String workspaceName) {
+		synchronized (changed) {
+			changed.add(WORKSPACE_PREFIX + workspaceName);
+			workspaces.add(workspaceName);
+		}
+	}
+
+	/**
+	 * Remove a workspace together with its stores and layers
+	 */
+	public void removeWorkspace(String workspaceName) {
+		synchronized (changed) {
+			changed.add(WORKSPACE_PREFIX + workspaceName);
+			workspaces.remove(workspaceName);
+			stores.remove(workspaceName);
+			for (Map.Entry<String, LayerEntry> entry : layers.entrySet()) {
+				if (workspaceName.equals(entry.getValue().workspace)) {
+					changed.add(LAYER_PREFIX + entry.getKey());
+					layers.remove(entry.getKey());
+				}
+			}
+		}
+	}
+
+	public void addStore(String workspaceName, String storeName) {
+		Set<String> workspaceStores = stores.get(workspaceName);
+		if (workspaceStores == null) {
+			stores.putIfAbsent(workspaceName, Collections
+					.newSetFromMap(new ConcurrentHashMap<String, Boolean>()));
+			workspaceStores = stores.get(workspaceName);
+		}
+		workspaceStores.add(storeName);
+	}
+
+	/**
+	 * @param layerName
+	 * @param workspaceName
+	 * @param storeName
+	 * @param nativeName
+	 *            native name or null to read it from GeoServer when it's
+	 *            needed
+	 */
+	public void addLayer(String layerName, String workspaceName,
+			String storeName, String nativeName) {
+		LayerEntry entry = new LayerEntry();
+		if (nativeName != null) {
+			entry.set(workspaceName, nativeName);
+			addStore(workspaceName, storeName);
+		}
+		synchronized (changed) {
+			changed.add(LAYER_PREFIX + layerName);
+			layers.put(layerName, entry);
+		}
+	}
+
+	public void removeLayer(String layerName) {
+		synchronized (changed) {
+			changed.add(LAYER_PREFIX + layerName);
+			layers.remove(layerName);
+		}
+	}
+
+	public void addStyle(String styleName) {
+		synchronized (changed) {
+			changed.add(STYLE_PREFIX + styleName);
+			styles.add(styleName);
+		}
+	}
+
+	public void removeStyles(Collection<String> styleNames) {
+		synchronized (changed) {
+			for (String styleName : styleNames) {
+				changed.add(STYLE_PREFIX + styleName);
+				styles.remove(styleName);
+			}
+		}
+	}
+
+	private void load() {
+		if (!loaded) {
+			synchronized (this) {
+				if (!loaded) {
+					refresh();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param layerName
+	 *            name of the layer, optionally prefixed by its workspace
+	 * @return the layer with its details or null if it doesn't exist
+	 */
+	private LayerEntry getLayer(String layerName) {
+		load();
+		String name = layerName;
+		String workspaceName = null;
+		LayerEntry entry = layers.get(name);
+		int separator = layerName.indexOf(':');
+		if (entry == null && separator > 0) {
+			workspaceName = layerName.substring(0, separator);
+			name = layerName.substring(separator + 1);
+			entry = layers.get(name);
+		}
+		if (entry == null) {
+			// published since the last refresh?
+			entry = new LayerEntry();
+			if (!resolve(layerName, entry)) {
+				return null;
+			}
+			LayerEntry previous = layers.putIfAbsent(name, entry);
+			entry = previous != null ? previous : entry;
+		} else if (!entry.resolved && !resolve(layerName, entry)) {
+			removeLayer(name);
+			return null;
+		}
+		if (workspaceName != null && !workspaceName.equals(entry.workspace)) {
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 * @return false if GeoServer answered the layer doesn't exist
+	 * @throws GeoserverException
+	 *             if GeoServer can't be reached
+	 */
+	private boolean resolve(String layerName, LayerEntry entry) {
+		RESTFeatureType featureType = gsDao.getFeatureType(layerName);
+		if (featureType == null) {
+			return false;
+		}
+		String workspaceName = null;
+		String storeUrl = featureType.getStoreUrl();
+		Matcher m = storeUrl != null ? STORE_URL_PATTERN.matcher(storeUrl)
+				: null;
+		if (m != null && m.find()) {
+			workspaceName = m.group(1);
+			addStore(workspaceName, m.group(2));
+		}
+		entry.set(workspaceName, featureType.getNativeName());
+		return true;
+	}
+
+	private void merge(Set<String> mirror, Set<String> current, String prefix) {
+		for (String name : new ArrayList<String>(mirror)) {
+			if (!current.contains(name) && !changed.contains(prefix + name)) {
+				mirror.remove(name);
+			}
+		}
+		for (String name : current) {
+			if (!changed.contains(prefix + name)) {
+				mirror.add(name);
+			}
+		}
+	}
+
+	/**
+	 * Details of a layer, filled in when they're first needed
+	 */
+	private static class LayerEntry {
+		private volatile String workspace;
+		private volatile String nativeName;
+		private volatile boolean resolved = false;
+
+		void set(String workspace, String nativeName) {
+			this.workspace = workspace;
+			this.nativeName = nativeName;
+			this.resolved = true;
+		}
+	}
+}
@@ -30,13 +30,23 @@ package com.emergya.persistenceGeo.service.impl;
 
 import com.emergya.persistenceGeo.dao.DBManagementDao;
 import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
-import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
-import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList.RESTShortWorkspace;
 
 import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
@@ -56,9 +66,12 @@ import com.emergya.persistenceGeo.service.GeoserverService;
 import com.emergya.persistenceGeo.utils.BoundingBox;
 import com.emergya.persistenceGeo.utils.GsCoverageDetails;
 import com.emergya.persistenceGeo.utils.GsCoverageStoreData;
+import com.emergya.persistenceGeo.utils.GsDbLayerPublication;
 import com.emergya.persistenceGeo.utils.GsFeatureDescriptor;
 import com.emergya.persistenceGeo.utils.GsLayerDescriptor;
+import com.emergya.persistenceGeo.utils.GsPublicationResult;
 import com.emergya.persistenceGeo.utils.GeometryType;
+import com.emergya.persistenceGeo.utils.GeoserverUtils;
 import it.geosolutions.geoserver.rest.decoder.RESTLayer;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -68,8 +81,13 @@ import java.util.zip.ZipOutputStream;
 import org.apache.commons.io.IOUtils;
 import org.hibernate.exception.SQLGrammarException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 
 /**
+ * The workspaces, layers and styles are looked up in a
+ * {@link GeoserverCatalogMirror} kept up to date by the methods of this
+ * service and refreshed from GeoServer every five minutes.
+ *
  * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
  *
  */
@@ -87,6 +105,11 @@ public class GeoserverServiceImpl implements GeoserverService {
     @Resource
     private DBManagementDao dbManagementDao;
 
+    private GeoserverCatalogMirror catalog;
+
+    /** Concurrent GeoServer requests of a batch publication */
+    private int batchThreads = 4;
+
     /**
      * @return the gsDao
      */
@@ -97,8 +120,42 @@ public class GeoserverServiceImpl implements GeoserverService {
     /**
      * @param gsDao the gsDao to set
      */
-    public void setGsDao(GeoserverDao gsDao) {
+    public synchronized void setGsDao(GeoserverDao gsDao) {
         this.gsDao = gsDao;
+        this.catalog = null;
+    }
+
+    /**
+     * @param batchThreads concurrent GeoServer requests of a batch
+     * publication. It shouldn't exceed the REST connection pool size.
+     */
+    public void setBatchThreads(int batchThreads) {
+        this.batchThreads = batchThreads;
+    }
+
+    /**
+     * @return the mirror of the GeoServer catalog. Its workspaces and stores
+     *         are named as {@link GeoserverUtils#createName(String)} names
+     *         them when they're created.
+     */
+    public synchronized GeoserverCatalogMirror getCatalog() {
+        if (catalog == null) {
+            catalog = new GeoserverCatalogMirror(gsDao);
+        }
+        return catalog;
+    }
+
+    /**
+     * Reconcile the catalog mirror with the changes made in GeoServer by
+     * others
+     */
+    @Scheduled(fixedDelay = 300000)
+    public void refreshCatalog() {
+        try {
+            getCatalog().refresh();
+        } catch (RuntimeException e) {
+            LOG.warn("Couldn't refresh the Geoserver catalog", e);
+        }
     }
 
     /**
@@ -150,9 +207,13 @@ public class GeoserverServiceImpl implements GeoserverService {
                 }
                 return result;
             }
+            getCatalog().addWorkspace(GeoserverUtils.createName(workspaceName));
             String datastoreName = workspaceName + DATASTORE_SUFFIX;
             result = gsDao.createDatastoreJndi(workspaceName, datastoreName);
-            if (!result) {
+            if (result) {
+                getCatalog().addStore(GeoserverUtils.createName(workspaceName),
+                        GeoserverUtils.createName(datastoreName));
+            } else {
                 // Can't create Datastore. Try to delete workspace.
                 if (LOG.isInfoEnabled()) {
                     LOG.info("Couln't create the datastore " + datastoreName
@@ -160,6 +221,10 @@ public class GeoserverServiceImpl implements GeoserverService {
                             + ". Trying to delete workspace...");
                 }
                 boolean deleteResult = gsDao.deleteWorkspace(workspaceName);
+                if (deleteResult) {
+                    getCatalog().removeWorkspace(
+                            GeoserverUtils.createName(workspaceName));
+                }
 
                 if (LOG.isInfoEnabled()) {
                     if (deleteResult) {
@@ -193,7 +258,12 @@ public class GeoserverServiceImpl implements GeoserverService {
             LOG.info("Deleting Geoserver workspace [workspaceName="
                     + workspaceName + "]");
         }
-        return gsDao.deleteWorkspace(workspaceName);
+        boolean result = gsDao.deleteWorkspace(workspaceName);
+        if (result) {
+            getCatalog().removeWorkspace(
+                    GeoserverUtils.createName(workspaceName));
+        }
+        return result;
     }
 
     /*
@@ -276,10 +346,183 @@ public class GeoserverServiceImpl implements GeoserverService {
         String datastoreName = workspaceName + DATASTORE_SUFFIX;
         result = gsDao
                 .publishPostgisLayer(workspaceName, datastoreName, fd, ld);
+        if (result) {
+            getCatalog().addLayer(layerName,
+                    GeoserverUtils.createName(workspaceName),
+                    GeoserverUtils.createName(datastoreName), tableName);
+        }
 
         return result;
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.emergya.persistenceGeo.service.GeoserverService#publishGsDbLayers
+     * (java.util.List)
+     */
+    @Override
+    public List<GsPublicationResult> publishGsDbLayers(
+            List<GsDbLayerPublication> layers) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Publishing " + layers.size() + " geoserver database layers");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(batchThreads);
+        try {
+            // workspaces (with their datastores) before the feature types
+            Set<String> workspaceNames = new LinkedHashSet<String>();
+            for (GsDbLayerPublication layer : layers) {
+                workspaceNames.add(layer.getWorkspaceName());
+            }
+            Map<String, Future<Boolean>> workspaceTasks = new HashMap<String, Future<Boolean>>();
+            for (final String workspaceName : workspaceNames) {
+                workspaceTasks.put(workspaceName,
+                        executor.submit(new Callable<Boolean>() {
+                            @Override
+                            public Boolean call() {
+                                return existsWorkspace(workspaceName)
+                                        || createGsWorkspaceWithDatastore(workspaceName);
+                            }
+                        }));
+            }
+            Set<String> readyWorkspaces = new HashSet<String>();
+            for (Map.Entry<String, Future<Boolean>> task : workspaceTasks
+                    .entrySet()) {
+                if (Boolean.TRUE.equals(getResult(task.getValue()))) {
+                    readyWorkspaces.add(task.getKey());
+                }
+            }
+
+            // feature types and then their styles
+            List<Future<GsPublicationResult>> layerTasks = new ArrayList<Future<GsPublicationResult>>();
+            for (final GsDbLayerPublication layer : layers) {
+                if (!readyWorkspaces.contains(layer.getWorkspaceName())) {
+                    layerTasks.add(null);
+                    continue;
+                }
+                layerTasks.add(executor.submit(new Callable<GsPublicationResult>() {
+                    @Override
+                    public GsPublicationResult call() {
+                        return publish(layer);
+                    }
+                }));
+            }
+            List<GsPublicationResult> results = new ArrayList<GsPublicationResult>(
+                    layers.size());
+            for (int i = 0; i < layers.size(); i++) {
+                GsDbLayerPublication layer = layers.get(i);
+                Future<GsPublicationResult> task = layerTasks.get(i);
+                GsPublicationResult result = task != null ? getResult(task)
+                        : null;
+                if (result == null) {
+                    result = new GsPublicationResult(layer.getWorkspaceName(),
+                            layer.getLayerName(), false, task != null
+                            ? "Unexpected error" : "Can't create the workspace");
+                }
+                results.add(result);
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * com.emergya.persistenceGeo.service.GeoserverService#unpublishGsDbLayers
+     * (java.util.List)
+     */
+    @Override
+    public List<GsPublicationResult> unpublishGsDbLayers(
+            List<GsDbLayerPublication> layers) {
+        if (LOG.isInfoEnabled()) {
+            LOG.info("Unpublishing " + layers.size() + " geoserver database layers");
+        }
+        final Set<String> styleNames = new HashSet<String>(getStyleNames());
+        ExecutorService executor = Executors.newFixedThreadPool(batchThreads);
+        try {
+            List<Future<GsPublicationResult>> tasks = new ArrayList<Future<GsPublicationResult>>();
+            for (final GsDbLayerPublication layer : layers) {
+                tasks.add(executor.submit(new Callable<GsPublicationResult>() {
+                    @Override
+                    public GsPublicationResult call() {
+                        return unpublish(layer, styleNames);
+                    }
+                }));
+            }
+            List<GsPublicationResult> results = new ArrayList<GsPublicationResult>(
+                    layers.size());
+            for (int i = 0; i < layers.size(); i++) {
+                GsPublicationResult result = getResult(tasks.get(i));
+                if (result == null) {
+                    GsDbLayerPublication layer = layers.get(i);
+                    result = new GsPublicationResult(layer.getWorkspaceName(),
+                            layer.getLayerName(), false, "Unexpected error");
+                }
+                results.add(result);
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private GsPublicationResult publish(GsDbLayerPublication layer) {
+        String workspaceName = layer.getWorkspaceName();
+        String layerName = layer.getLayerName();
+        if (!publishGsDbLayer(workspaceName, layer.getTableName(), layerName,
+                layer.getTitle(), layer.getNativeBoundingBox(),
+                layer.getType())) {
+            return new GsPublicationResult(workspaceName, layerName, false,
+                    "Can't publish the feature type");
+        }
+        if (layer.getStyleSourceLayer() != null) {
+            if (!copyLayerStyle(layer.getStyleSourceLayer(), layerName)) {
+                return new GsPublicationResult(workspaceName, layerName,
+                        false, "Can't copy the style");
+            }
+            if (!setLayerStyle(workspaceName, layerName, layerName)) {
+                return new GsPublicationResult(workspaceName, layerName,
+                        false, "Can't set the style");
+            }
+        }
+        return new GsPublicationResult(workspaceName, layerName, true, null);
+    }
+
+    private GsPublicationResult unpublish(GsDbLayerPublication layer,
+            Set<String> styleNames) {
+        String workspaceName = layer.getWorkspaceName();
+        String layerName = layer.getLayerName();
+        if (!unpublishGsDbLayer(workspaceName, layerName)) {
+            return new GsPublicationResult(workspaceName, layerName, false,
+                    "Can't unpublish the feature type");
+        }
+        String styleName = GeoserverUtils.createName(layerName);
+        if (styleNames.contains(styleName) && !deleteStyle(styleName)) {
+            return new GsPublicationResult(workspaceName, layerName, false,
+                    "Can't delete the style");
+        }
+        return new GsPublicationResult(workspaceName, layerName, true, null);
+    }
+
+    /**
+     * @return the result of the task or null if it failed
+     */
+    private <T> T getResult(Future<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GeoserverException("Interrupted batch publication", e);
+        } catch (ExecutionException e) {
+            LOG.error("Error in a batch publication", e.getCause());
+            return null;
+        }
+    }
+
     /**
      * Unpublish layer identified by layerName, workspace and workspace
      *
@@ -297,6 +540,9 @@ public class GeoserverServiceImpl implements GeoserverService {
 
         boolean result = gsDao.deletePostgisFeatureType(workspaceName, datastoreName,
                 layerName);
+        if (result) {
+            getCatalog().removeLayer(layerName);
+        }
         return result;
     }
 
@@ -334,28 +580,51 @@ public class GeoserverServiceImpl implements GeoserverService {
     @Override
     public boolean createDatastoreJndi(String workspaceName,
             String datastoreName) {
-        return gsDao.createDatastoreJndi(workspaceName, datastoreName);
+        boolean result = gsDao.createDatastoreJndi(workspaceName,
+                datastoreName);
+        if (result) {
+            getCatalog().addStore(GeoserverUtils.createName(workspaceName),
+                    GeoserverUtils.createName(datastoreName));
+        }
+        return result;
     }
 
     @Override
     public boolean publishGeoTIFF(String workspace, String layerName,
             File geotiff, String crs) {
-        return gsDao.publishGeoTIFF(workspace, layerName, geotiff, crs);
+        return coveragePublished(workspace, layerName,
+                gsDao.publishGeoTIFF(workspace, layerName, geotiff, crs));
     }
 
     @Override
     public boolean publishImageMosaic(String workspaceName, String layerName,
             File imageFile, String crs) {
-        return gsDao.publishImageMosaic(workspaceName, layerName, imageFile,
-                crs);
+        return coveragePublished(workspaceName, layerName,
+                gsDao.publishImageMosaic(workspaceName, layerName, imageFile,
+                        crs));
     }
 
     @Override
     public boolean publishWorldImage(String workspaceName, String layerName,
             File imageFile, String crs) {
 
-        return gsDao
-                .publishWorldImage(workspaceName, layerName, imageFile, crs);
+        return coveragePublished(workspaceName, layerName,
+                gsDao.publishWorldImage(workspaceName, layerName, imageFile,
+                        crs));
+    }
+
+    /**
+     * Add a published coverage to the catalog mirror. Its native name is
+     * read from GeoServer when it's needed.
+     */
+    private boolean coveragePublished(String workspaceName, String layerName,
+            boolean result) {
+        if (result) {
+            String name = GeoserverUtils.createName(layerName);
+            getCatalog().addLayer(name,
+                    GeoserverUtils.createName(workspaceName), name, null);
+        }
+        return result;
     }
 
     @Override
@@ -371,6 +640,7 @@ public class GeoserverServiceImpl implements GeoserverService {
         if (!gsDao.deleteCoverage(workspaceName, coverageLayer)) {
             return false;
         }
+        getCatalog().removeLayer(coverageLayer);
 
         if (!gsDao.deleteGsCoverageStore(workspaceName, coverageLayer)) {
             return false;
@@ -394,7 +664,11 @@ public class GeoserverServiceImpl implements GeoserverService {
             return false;
         }
 
-        return gsDao.createStyle(newStyleName, layerSDLContent);
+        boolean result = gsDao.createStyle(newStyleName, layerSDLContent);
+        if (result) {
+            getCatalog().addStyle(GeoserverUtils.createName(newStyleName));
+        }
+        return result;
     }
 
     @Override
@@ -406,24 +680,26 @@ public class GeoserverServiceImpl implements GeoserverService {
 
     @Override
     public boolean deleteStyle(String styleName) {
-        return gsDao.deleteStyle(styleName);
+        boolean result = gsDao.deleteStyle(styleName);
+        if (result) {
+            getCatalog().removeStyles(Collections.singleton(styleName));
+        }
+        return result;
     }
 
     @Override
     public boolean reset() {
-        return gsDao.reset();
+        boolean result = gsDao.reset();
+        // GeoServer has reloaded its catalog from disk
+        getCatalog().clear();
+        return result;
     }
 
     @Override
     public boolean existsWorkspace(String workspaceName) {
-        RESTWorkspaceList workspaceList = gsDao.getWorkspaceList();
-        for (RESTShortWorkspace workspace : workspaceList) {
-            String currentName = workspace.getName();
-            if (StringUtils.equals(workspaceName, currentName)) {
-                return true;
-            }
-        }
-        return false;
+        return workspaceName != null && !workspaceName.isEmpty()
+                && getCatalog().existsWorkspace(
+                        GeoserverUtils.createName(workspaceName));
     }
 
     /**
@@ -466,7 +742,7 @@ public class GeoserverServiceImpl implements GeoserverService {
      */
     @Override
     public List<String> getLayersNames() {
-        return gsDao.getLayersNames();
+        return getCatalog().getLayersNames();
     }
 
     /**
@@ -478,7 +754,7 @@ public class GeoserverServiceImpl implements GeoserverService {
      */
     @Override
     public String getNativeName(String layerName) {
-        return gsDao.getNativeName(layerName);
+        return getCatalog().getNativeName(layerName);
     }
 
     /**
@@ -488,7 +764,7 @@ public class GeoserverServiceImpl implements GeoserverService {
      */
     @Override
     public List<String> getStyleNames() {
-        return gsDao.getStyleNames();
+        return getCatalog().getStyleNames();
     }
 
     /**
@@ -500,7 +776,9 @@ public class GeoserverServiceImpl implements GeoserverService {
      */
     @Override
     public List<String> cleanUnusedStyles(List<String> styleNames) {
-        return gsDao.cleanUnusedStyles(styleNames);
+        List<String> removedStyles = gsDao.cleanUnusedStyles(styleNames);
+        getCatalog().removeStyles(removedStyles);
+        return removedStyles;
     }
 
     /**
@@ -511,7 +789,7 @@ public class GeoserverServiceImpl implements GeoserverService {
      */
     @Override
     public String getLayerWorkspace(String layerName) {
-        return gsDao.getLayerWorkspace(layerName);
+        return getCatalog().getLayerWorkspace(layerName);
     }
 
     /**
@@ -0,0 +1,573 @@
+/* ImportJobServiceImpl.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.emergya.persistenceGeo.dto.ImportJobDto;
+import com.emergya.persistenceGeo.exceptions.ImportJobRejectedException;
+import com.emergya.persistenceGeo.importer.shp.IShpImporter;
+import com.emergya.persistenceGeo.importer.shp.ShpImportMonitor;
+import com.emergya.persistenceGeo.importer.shp.ShpImportResult;
+import com.emergya.persistenceGeo.importer.shp.ShpImportResult.Failure;
+import com.emergya.persistenceGeo.importer.xml.IXmlImporter;
+import com.emergya.persistenceGeo.importer.xml.XmlImportResult;
+import com.emergya.persistenceGeo.metaModel.AbstractImportJobEntity;
+import com.emergya.persistenceGeo.service.GeoserverService;
+import com.emergya.persistenceGeo.service.ImportJobAdminService;
+import com.emergya.persistenceGeo.service.ImportJobService;
+
+/**
+ * {@link ImportJobService} running the jobs in a fixed pool of threads with a
+ * bounded queue. Uploaded files are kept in the local disk, so a job is run by
+ * the node that received its file (<code>import.jobs.node</code>). Queued jobs
+ * are taken from the job table, so they survive restarts; a job is only run
+ * once, by changing it from queued to running.
+ * 
+ * Running jobs hold a lease: their node renews their heartbeat every 30
+ * seconds, and reads the cancellations requested from other nodes. Jobs whose
+ * heartbeat is older than <code>import.jobs.leaseTimeout</code> were
+ * interrupted by a crash, as are the jobs a node finds running in its name at
+ * startup: shapefile, KML and GML imports are transactional and they're queued
+ * again for their node, raster imports are marked as failed. KML and GML
+ * tables are published in GeoServer once they're imported.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+@Service("importJobService")
+public class ImportJobServiceImpl implements ImportJobService {
+
+	private static final Log LOG = LogFactory
+			.getLog(ImportJobServiceImpl.class);
+
+	private static final String TYPE_SHP = AbstractImportJobEntity.TYPE_SHP;
+	private static final String TYPE_GEOTIFF = AbstractImportJobEntity.TYPE_GEOTIFF;
+	private static final String TYPE_XML = AbstractImportJobEntity.TYPE_XML;
+	private static final String STATUS_QUEUED = AbstractImportJobEntity.STATUS_QUEUED;
+	private static final String STATUS_RUNNING = AbstractImportJobEntity.STATUS_RUNNING;
+	private static final String STATUS_DONE = AbstractImportJobEntity.STATUS_DONE;
+	private static final String STATUS_FAILED = AbstractImportJobEntity.STATUS_FAILED;
+	private static final String STATUS_CANCELLED = AbstractImportJobEntity.STATUS_CANCELLED;
+
+	@Resource
+	private ImportJobAdminService importJobAdminService;
+	@Resource
+	private IShpImporter shpImporter;
+	@Resource
+	private IXmlImporter xmlImporter;
+	@Resource
+	private GeoserverService geoserverService;
+
+	@Value("${import.jobs.threads:2}")
+	private int threads = 2;
+	@Value("${import.jobs.queueSize:20}")
+	private int queueSize = 20;
+	/** Milliseconds between progress updates in the job table */
+	@Value("${import.jobs.progressInterval:5000}")
+	private long progressInterval = 5000;
+	/** Name of this node in the job table, by default the host name */
+	@Value("${import.jobs.node:}")
+	private String node;
+	/** Milliseconds without heartbeat after which a running job is dead */
+	@Value("${import.jobs.leaseTimeout:120000}")
+	private long leaseTimeout = 120000;
+
+	private ThreadPoolExecutor executor;
+	/** Jobs queued or running in this node */
+	private final Map<Long, ImportJob> jobs = new ConcurrentHashMap<Long, ImportJob>();
+	private volatile boolean shuttingDown;
+
+	@PostConstruct
+	public void init() {
+		if (node == null || node.trim().length() == 0) {
+			try {
+				node = InetAddress.getLocalHost().getHostName();
+			} catch (UnknownHostException e) {
+				throw new IllegalStateException(
+						"Can't name the node, set import.jobs.node", e);
+			}
+		}
+		executor = new ThreadPoolExecutor(threads, threads, 0L,
+				TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+						queueSize));
+		try {
+			// jobs running in this node before the restart
+			for (ImportJobDto job : importJobAdminService
+					.findByStatus(STATUS_RUNNING)) {
+				if (!node.equals(job.getNode())) {
+					continue;
+				}
+				if (isTransactional(job.getType())) {
+					importJobAdminService.changeStatus(job.getId(),
+							STATUS_RUNNING, STATUS_QUEUED,
+							"Interrupted by a restart");
+				} else if (importJobAdminService.changeStatus(job.getId(),
+						STATUS_RUNNING, STATUS_FAILED,
+						"Interrupted by a restart")) {
+					deleteSource(job);
+				}
+			}
+			pollQueuedJobs();
+		} catch (RuntimeException e) {
+			LOG.error("Can't resume the import jobs", e);
+		}
+	}
+
+	/**
+	 * Stop the workers. Running shapefile imports are cancelled and queued
+	 * again so they're resumed on the next start.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		shuttingDown = true;
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Renew the heartbeat of the jobs running in this node and cancel the
+	 * ones cancelled from other nodes
+	 */
+	@Scheduled(fixedDelay = 30000)
+	public void renewLeases() {
+		List<Long> running = new ArrayList<Long>();
+		for (ImportJob job : jobs.values()) {
+			if (job.started) {
+				running.add(job.job.getId());
+			}
+		}
+		if (running.isEmpty()) {
+			return;
+		}
+		try {
+			importJobAdminService.renewLeases(node, running);
+			for (Long id : importJobAdminService.findCancelRequested(node)) {
+				ImportJob job = jobs.get(id);
+				if (job != null) {
+					job.cancelled = true;
+				}
+			}
+		} catch (RuntimeException e) {
+			LOG.warn("Can't renew the import jobs of " + node, e);
+		}
+	}
+
+	/**
+	 * Recover the jobs of dead nodes and take the queued jobs of this node
+	 * from the job table while there is room in the queue
+	 */
+	@Scheduled(fixedDelay = 30000)
+	public void pollQueuedJobs() {
+		if (shuttingDown) {
+			return;
+		}
+		Date heartbeatBefore = new Date(System.currentTimeMillis()
+				- leaseTimeout);
+		int requeued = importJobAdminService.expireLeases(heartbeatBefore,
+				STATUS_QUEUED, "Interrupted, its node stopped renewing it",
+				TYPE_SHP, TYPE_XML);
+		int failed = importJobAdminService.expireLeases(heartbeatBefore,
+				STATUS_FAILED, "Interrupted, its node stopped renewing it",
+				TYPE_GEOTIFF);
+		if (requeued + failed > 0) {
+			LOG.warn("Import jobs with an expired lease: " + requeued
+					+ " queued again, " + failed + " failed");
+		}
+		for (ImportJobDto job : importJobAdminService.findQueued(node)) {
+			if (executor.getQueue().remainingCapacity() == 0) {
+				break;
+			}
+			if (!jobs.containsKey(job.getId())) {
+				try {
+					enqueue(job);
+				} catch (ImportJobRejectedException e) {
+					break;
+				}
+			}
+		}
+	}
+
+	@Override
+	public Long submitShpImport(File directory, String tableName,
+			boolean dropExistingTable, String owner) {
+		ImportJobDto job = new ImportJobDto();
+		job.setType(TYPE_SHP);
+		job.setSourcePath(directory.getAbsolutePath());
+		job.setTargetName(tableName);
+		job.setDropExisting(dropExistingTable);
+		job.setOwner(owner);
+		return submit(job);
+	}
+
+	@Override
+	public Long submitGeoTIFFImport(File geotiff, String workspaceName,
+			String layerName, String crs, String owner) {
+		ImportJobDto job = new ImportJobDto();
+		job.setType(TYPE_GEOTIFF);
+		job.setSourcePath(geotiff.getAbsolutePath());
+		job.setTargetName(layerName);
+		job.setWorkspaceName(workspaceName);
+		job.setCrs(crs);
+		job.setOwner(owner);
+		job.setTotal(geotiff.length());
+		return submit(job);
+	}
+
+	@Override
+	public Long submitXmlImport(File file, String workspaceName,
+			String tableName, Integer srid, String owner) {
+		ImportJobDto job = new ImportJobDto();
+		job.setType(TYPE_XML);
+		job.setSourcePath(file.getAbsolutePath());
+		job.setTargetName(tableName);
+		job.setWorkspaceName(workspaceName);
+		job.setCrs(srid != null ? "EPSG:" + srid : null);
+		job.setOwner(owner);
+		return submit(job);
+	}
+
+	@Override
+	public ImportJobDto getJob(Long id) {
+		ImportJobDto job = (ImportJobDto) importJobAdminService.getById(id);
+		ImportJob running = jobs.get(id);
+		if (job != null && running != null && running.started) {
+			job.setStatus(STATUS_RUNNING);
+			job.setDone(running.done.get());
+			job.setTotal(running.total);
+		}
+		return job;
+	}
+
+	@Override
+	public boolean cancel(Long id) {
+		ImportJob running = jobs.get(id);
+		if (running != null) {
+			running.cancelled = true;
+		}
+		if (importJobAdminService.changeStatus(id, STATUS_QUEUED,
+				STATUS_CANCELLED, "Cancelled before starting")) {
+			if (running != null) {
+				executor.remove(running);
+				jobs.remove(id);
+			}
+			// otherwise its node deletes the file when it takes the job
+			ImportJobDto job = (ImportJobDto) importJobAdminService.getById(id);
+			if (job != null && isLocal(job)) {
+				deleteSource(job);
+			}
+			return true;
+		}
+		// the node running the job reads the request with its heartbeat
+		if (!importJobAdminService.requestCancel(id)) {
+			return false;
+		}
+		ImportJobDto job = (ImportJobDto) importJobAdminService.getById(id);
+		return job != null && isTransactional(job.getType());
+	}
+
+	@Override
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new HashMap<String, Object>();
+		stats.put("node", node);
+		stats.put("threads", threads);
+		stats.put("running", executor.getActiveCount());
+		stats.put("queued", executor.getQueue().size());
+		stats.put("queueCapacity", queueSize);
+		stats.put("completed", executor.getCompletedTaskCount());
+		return stats;
+	}
+
+	/**
+	 * @return true if the jobs of the type can be cancelled while running and
+	 *         run again after a restart
+	 */
+	private boolean isTransactional(String type) {
+		return TYPE_SHP.equals(type) || TYPE_XML.equals(type);
+	}
+
+	/**
+	 * @return true if the file of the job is in this node
+	 */
+	private boolean isLocal(ImportJobDto job) {
+		return job.getNode() == null || node.equals(job.getNode());
+	}
+
+	private Long submit(ImportJobDto job) {
+		if (executor.getQueue().remainingCapacity() == 0) {
+			throw new ImportJobRejectedException("The import queue is full");
+		}
+		job.setStatus(STATUS_QUEUED);
+		job.setNode(node);
+		job.setDone(0L);
+		job.setCreateDate(new Date());
+		job = (ImportJobDto) importJobAdminService.create(job);
+		try {
+			enqueue(job);
+		} catch (ImportJobRejectedException e) {
+			importJobAdminService.changeStatus(job.getId(), STATUS_QUEUED,
+					STATUS_FAILED, e.getMessage());
+			throw e;
+		}
+		return job.getId();
+	}
+
+	private void enqueue(ImportJobDto job) {
+		ImportJob importJob = new ImportJob(job);
+		jobs.put(job.getId(), importJob);
+		try {
+			executor.execute(importJob);
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.getId());
+			throw new ImportJobRejectedException("The import queue is full");
+		}
+	}
+
+	private void deleteSource(ImportJobDto job) {
+		if (job == null || job.getSourcePath() == null) {
+			return;
+		}
+		File source = new File(job.getSourcePath());
+		try {
+			if (source.isDirectory()) {
+				FileUtils.deleteDirectory(source);
+			} else if (source.exists() && !source.delete()) {
+				LOG.warn("Can't delete " + source);
+			}
+		} catch (IOException e) {
+			LOG.warn("Can't delete " + source, e);
+		}
+	}
+
+	/**
+	 * Runs a job and tracks its progress
+	 */
+	private class ImportJob implements Runnable, ShpImportMonitor {
+
+		private final ImportJobDto job;
+		private final AtomicLong done = new AtomicLong();
+		private final AtomicLong lastSave = new AtomicLong();
+		private volatile Long total;
+		private volatile boolean started;
+		private volatile boolean cancelled;
+
+		ImportJob(ImportJobDto job) {
+			this.job = job;
+			this.total = job.getTotal();
+		}
+
+		@Override
+		public void run() {
+			Long id = job.getId();
+			try {
+				if (cancelled || !importJobAdminService.claim(id, node)) {
+					// cancelled, maybe from another node, or already run
+					ImportJobDto current = (ImportJobDto) importJobAdminService
+							.getById(id);
+					if (current != null
+							&& STATUS_CANCELLED.equals(current.getStatus())) {
+						deleteSource(job);
+					}
+					return;
+				}
+				started = true;
+				String status;
+				String message;
+				if (TYPE_SHP.equals(job.getType())) {
+					ShpImportResult result = importShp();
+					status = getStatus(result);
+					message = result.toString();
+				} else if (TYPE_XML.equals(job.getType())) {
+					XmlImportResult result = importXml();
+					status = getStatus(result);
+					message = result.toString();
+					if (result.isSuccess()
+							&& !geoserverService.publishGsDbLayer(
+									job.getWorkspaceName(),
+									job.getTargetName(),
+									job.getTargetName(),
+									job.getTargetName(),
+									result.getBoundingBox(),
+									result.getType())) {
+						status = STATUS_FAILED;
+						message = message
+								+ ", but GeoServer rejected the layer";
+					}
+				} else if (TYPE_GEOTIFF.equals(job.getType())) {
+					boolean published = geoserverService.publishGeoTIFF(
+							job.getWorkspaceName(), job.getTargetName(),
+							new File(job.getSourcePath()), job.getCrs());
+					if (published) {
+						done.set(total != null ? total : 0);
+					}
+					status = published ? STATUS_DONE : STATUS_FAILED;
+					message = published ? "Published" : "GeoServer rejected the image";
+				} else {
+					status = STATUS_FAILED;
+					message = "Unknown import type " + job.getType();
+				}
+				finish(status, message);
+			} catch (RuntimeException e) {
+				LOG.error("Import job " + id + " failed", e);
+				finish(STATUS_FAILED, String.valueOf(e.getMessage()));
+			} finally {
+				jobs.remove(id);
+			}
+		}
+
+		private ShpImportResult importShp() {
+			File directory = new File(job.getSourcePath());
+			if (directory.isFile()) {
+				return shpImporter.importShpZip(directory,
+						job.getTargetName(),
+						Boolean.TRUE.equals(job.getDropExisting()), this);
+			}
+			File shapefile = null;
+			try {
+				if (directory.isDirectory()) {
+					shapefile = com.emergya.persistenceGeo.utils.FileUtils
+							.getUniqueFileWithExtensionInDir(directory, "shp");
+				}
+			} catch (IOException e) {
+				LOG.warn("Can't read " + directory, e);
+			}
+			if (shapefile == null) {
+				return new ShpImportResult(job.getTargetName()).fail(
+						Failure.INVALID_FILE, null, "No shapefile found");
+			}
+			return shpImporter.importShp(shapefile.getAbsolutePath(),
+					job.getTargetName(),
+					Boolean.TRUE.equals(job.getDropExisting()), this);
+		}
+
+		private XmlImportResult importXml() {
+			String crs = job.getCrs();
+			Integer srid = crs != null ? Integer.valueOf(crs.substring(crs
+					.indexOf(':') + 1)) : null;
+			return xmlImporter.importXml(new File(job.getSourcePath()),
+					job.getTargetName(), srid, this);
+		}
+
+		private String getStatus(ShpImportResult result) {
+			if (result.isSuccess()) {
+				return STATUS_DONE;
+			} else if (result.getFailure() == Failure.CANCELLED) {
+				return shuttingDown ? STATUS_QUEUED : STATUS_CANCELLED;
+			}
+			return STATUS_FAILED;
+		}
+
+		private void finish(String status, String message) {
+			try {
+				if (STATUS_QUEUED.equals(status)) {
+					// resumed on the next start
+					importJobAdminService.updateProgress(job.getId(), 0L,
+							null);
+				} else {
+					importJobAdminService.updateProgress(job.getId(),
+							done.get(), total);
+				}
+				importJobAdminService.changeStatus(job.getId(),
+						STATUS_RUNNING, status, message);
+				if (!STATUS_QUEUED.equals(status)) {
+					deleteSource(job);
+				}
+			} catch (RuntimeException e) {
+				LOG.error("Can't save the status of the import job "
+						+ job.getId(), e);
+			}
+		}
+
+		@Override
+		public void started(int records) {
+			total = (long) records;
+			save(true);
+		}
+
+		@Override
+		public void recordsRead(int records) {
+			done.addAndGet(records);
+			save(false);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled || shuttingDown;
+		}
+
+		/**
+		 * Save the progress in the job table, at most once every
+		 * <code>progressInterval</code> unless it's forced
+		 */
+		private void save(boolean force) {
+			long now = System.currentTimeMillis();
+			long last = lastSave.get();
+			if ((force || now - last >= progressInterval)
+					&& lastSave.compareAndSet(last, now)) {
+				try {
+					importJobAdminService.updateProgress(job.getId(),
+							done.get(), total);
+				} catch (RuntimeException e) {
+					LOG.warn("Can't save the progress of the import job "
+							+ job.getId(), e);
+				}
+			}
+		}
+	}
+
+}
@@ -41,6 +41,7 @@ public class GeographicDatabaseConfiguration {
 	private String postgresUser;
 	private String postgresPassword;
 	private String databaseName;
+	private int importParallelism = 1;
 
 	/**
 	 * @return the schema
@@ -162,4 +163,21 @@ public class GeographicDatabaseConfiguration {
 		this.databaseName = databaseName;
 	}
 
+	/**
+	 * @return number of concurrent connections used to load a shapefile. 1
+	 *         imports it in a single transaction
+	 */
+	public int getImportParallelism() {
+		return importParallelism;
+	}
+
+	/**
+	 * @param importParallelism
+	 *            the importParallelism to set. It should not exceed the size
+	 *            of the connection pool
+	 */
+	public void setImportParallelism(int importParallelism) {
+		this.importParallelism = importParallelism;
+	}
+
 }
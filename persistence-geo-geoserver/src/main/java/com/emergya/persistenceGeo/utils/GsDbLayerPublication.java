@@ -0,0 +1,172 @@
+/* GsDbLayerPublication.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.Serializable;
+
+/**
+ * A PostGIS layer to publish or unpublish in a batch. See
+ * {@link com.emergya.persistenceGeo.service.GeoserverService#publishGsDbLayers(java.util.List)}
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class GsDbLayerPublication implements Serializable {
+
+	private static final long serialVersionUID = 4410973586287260544L;
+
+	private String workspaceName;
+	private String tableName;
+	private String layerName;
+	private String title;
+	private BoundingBox nativeBoundingBox;
+	private GeometryType type;
+	private String styleSourceLayer;
+
+	public GsDbLayerPublication() {
+	}
+
+	public GsDbLayerPublication(String workspaceName, String tableName,
+			String layerName, String title, BoundingBox nativeBoundingBox,
+			GeometryType type) {
+		this.workspaceName = workspaceName;
+		this.tableName = tableName;
+		this.layerName = layerName;
+		this.title = title;
+		this.nativeBoundingBox = nativeBoundingBox;
+		this.type = type;
+	}
+
+	/**
+	 * @return the workspaceName
+	 */
+	public String getWorkspaceName() {
+		return workspaceName;
+	}
+
+	/**
+	 * @param workspaceName
+	 *            the workspaceName to set
+	 */
+	public void setWorkspaceName(String workspaceName) {
+		this.workspaceName = workspaceName;
+	}
+
+	/**
+	 * @return the tableName
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * @param tableName
+	 *            the tableName to set
+	 */
+	public void setTableName(String tableName) {
+		this.tableName = tableName;
+	}
+
+	/**
+	 * @return the layerName
+	 */
+	public String getLayerName() {
+		return layerName;
+	}
+
+	/**
+	 * @param layerName
+	 *            the layerName to set
+	 */
+	public void setLayerName(String layerName) {
+		this.layerName = layerName;
+	}
+
+	/**
+	 * @return the title
+	 */
+	public String getTitle() {
+		return title;
+	}
+
+	/**
+	 * @param title
+	 *            the title to set
+	 */
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	/**
+	 * @return the nativeBoundingBox
+	 */
+	public BoundingBox getNativeBoundingBox() {
+		return nativeBoundingBox;
+	}
+
+	/**
+	 * @param nativeBoundingBox
+	 *            the nativeBoundingBox to set
+	 */
+	public void setNativeBoundingBox(BoundingBox nativeBoundingBox) {
+		this.nativeBoundingBox = nativeBoundingBox;
+	}
+
+	/**
+	 * @return the type
+	 */
+	public GeometryType getType() {
+		return type;
+	}
+
+	/**
+	 * @param type
+	 *            the type to set
+	 */
+	public void setType(GeometryType type) {
+		this.type = type;
+	}
+
+	/**
+	 * @return layer whose style is copied as the style of the new layer, or
+	 *         null to keep the default style of the geometry type
+	 */
+	public String getStyleSourceLayer() {
+		return styleSourceLayer;
+	}
+
+	/**
+	 * @param styleSourceLayer
+	 *            the styleSourceLayer to set
+	 */
+	public void setStyleSourceLayer(String styleSourceLayer) {
+		this.styleSourceLayer = styleSourceLayer;
+	}
+
+}
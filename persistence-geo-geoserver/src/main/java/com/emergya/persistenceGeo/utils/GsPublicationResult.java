@@ -0,0 +1,84 @@
+/* GsPublicationResult.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of one layer of a batch publication
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class GsPublicationResult implements Serializable {
+
+	private static final long serialVersionUID = -3325011837496307312L;
+
+	private String workspaceName;
+	private String layerName;
+	private boolean success;
+	private String message;
+
+	public GsPublicationResult(String workspaceName, String layerName,
+			boolean success, String message) {
+		this.workspaceName = workspaceName;
+		this.layerName = layerName;
+		this.success = success;
+		this.message = message;
+	}
+
+	/**
+	 * @return the workspaceName
+	 */
+	public String getWorkspaceName() {
+		return workspaceName;
+	}
+
+	/**
+	 * @return the layerName
+	 */
+	public String getLayerName() {
+		return layerName;
+	}
+
+	/**
+	 * @return true if every step succeeded
+	 */
+	public boolean isSuccess() {
+		return success;
+	}
+
+	/**
+	 * @return the step that failed, or null on success
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+}
@@ -0,0 +1,336 @@
+/* GsRestClient.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.methods.DeleteMethod;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.emergya.persistenceGeo.exceptions.GeoserverException;
+
+/**
+ * Long lived client of the GeoServer REST API. Connections are kept alive
+ * in a pool shared by all the threads and the credentials are sent
+ * preemptively, so a request costs neither a handshake nor an authentication
+ * round trip once the pool is warm.
+ * 
+ * Requests return null when they fail; {@link #find(String, String)}
+ * throws an exception instead, so a missing resource can't be mistaken for
+ * an unreachable server.
+ * 
+ * The latency of every request is recorded under its operation name; calls
+ * made with other clients can be recorded with
+ * {@link #record(String, long, boolean)}.
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class GsRestClient {
+
+	private static final Log LOG = LogFactory.getLog(GsRestClient.class);
+	private static final String UTF8 = "UTF-8";
+
+	private final String serverUrl;
+	private final MultiThreadedHttpConnectionManager connectionManager;
+	private final HttpClient client;
+	private final ConcurrentMap<String, OperationStats> stats = new ConcurrentHashMap<String, OperationStats>();
+
+	/**
+	 * @param serverUrl
+	 *            GeoServer base URL
+	 * @param username
+	 * @param password
+	 * @param connectionTimeout
+	 *            milliseconds to wait for a connection to be opened or taken
+	 *            from the pool
+	 * @param readTimeout
+	 *            milliseconds to wait for response data
+	 * @param maxConnections
+	 *            connections kept in the pool
+	 */
+	public GsRestClient(String serverUrl, String username, String password,
+			int connectionTimeout, int readTimeout, int maxConnections) {
+		this.serverUrl = serverUrl.endsWith("/") ? serverUrl.substring(0,
+				serverUrl.length() - 1) : serverUrl;
+		this.connectionManager = new MultiThreadedHttpConnectionManager();
+		HttpConnectionManagerParams params = connectionManager.getParams();
+		params.setDefaultMaxConnectionsPerHost(maxConnections);
+		params.setMaxTotalConnections(maxConnections);
+		params.setConnectionTimeout(connectionTimeout);
+		params.setSoTimeout(readTimeout);
+		params.setStaleCheckingEnabled(true);
+		this.client = new HttpClient(connectionManager);
+		client.getParams().setConnectionManagerTimeout(connectionTimeout);
+		if (username != null) {
+			client.getParams().setAuthenticationPreemptive(true);
+			client.getState().setCredentials(AuthScope.ANY,
+					new UsernamePasswordCredentials(username, password));
+		}
+	}
+
+	/**
+	 * @return GeoServer base URL, without trailing slash
+	 */
+	public String getServerUrl() {
+		return serverUrl;
+	}
+
+	/**
+	 * GET a resource
+	 * 
+	 * @param operation
+	 *            name of the operation for the metrics
+	 * @param path
+	 *            path from the GeoServer base URL or absolute URL
+	 * @return response body or null if the resource doesn't exist or the
+	 *         request failed
+	 */
+	public String get(String operation, String path) {
+		return execute(operation, new GetMethod(toUrl(path)), false);
+	}
+
+	/**
+	 * GET a resource telling a missing resource from a failed request
+	 * 
+	 * @param operation
+	 *            name of the operation for the metrics
+	 * @param path
+	 *            path from the GeoServer base URL or absolute URL
+	 * @return response body or null if GeoServer answered the resource
+	 *         doesn't exist
+	 * @throws GeoserverException
+	 *             if GeoServer can't be reached or fails
+	 */
+	public String find(String operation, String path) {
+		return execute(operation, new GetMethod(toUrl(path)), true);
+	}
+
+	/**
+	 * PUT a resource
+	 * 
+	 * @param operation
+	 *            name of the operation for the metrics
+	 * @param path
+	 *            path from the GeoServer base URL or absolute URL
+	 * @param content
+	 * @param contentType
+	 * @return response body or null if the request failed
+	 */
+	public String put(String operation, String path, String content,
+			String contentType) {
+		return execute(operation,
+				withContent(new PutMethod(toUrl(path)), content, contentType),
+				false);
+	}
+
+	/**
+	 * POST a new resource
+	 * 
+	 * @param operation
+	 *            name of the operation for the metrics
+	 * @param path
+	 *            path from the GeoServer base URL or absolute URL
+	 * @param content
+	 * @param contentType
+	 * @return response body or null if the request failed
+	 */
+	public String post(String operation, String path, String content,
+			String contentType) {
+		return execute(operation,
+				withContent(new PostMethod(toUrl(path)), content, contentType),
+				false);
+	}
+
+	/**
+	 * DELETE a resource
+	 * 
+	 * @param operation
+	 *            name of the operation for the metrics
+	 * @param path
+	 *            path from the GeoServer base URL or absolute URL
+	 * @return true if the resource was deleted
+	 */
+	public boolean delete(String operation, String path) {
+		return execute(operation, new DeleteMethod(toUrl(path)), false) != null;
+	}
+
+	/**
+	 * Record the latency of a call
+	 * 
+	 * @param operation
+	 *            name of the operation
+	 * @param startNanos
+	 *            {@link System#nanoTime()} when the call started
+	 * @param success
+	 *            false if the call failed
+	 */
+	public void record(String operation, long startNanos, boolean success) {
+		OperationStats operationStats = stats.get(operation);
+		if (operationStats == null) {
+			stats.putIfAbsent(operation, new OperationStats());
+			operationStats = stats.get(operation);
+		}
+		operationStats.add(System.nanoTime() - startNanos, success);
+	}
+
+	/**
+	 * @return for each operation the number of calls, the failed ones and the
+	 *         average and maximum latency in milliseconds, plus the connections
+	 *         in the pool
+	 */
+	public Map<String, Object> getStats() {
+		Map<String, Object> result = new TreeMap<String, Object>();
+		for (Map.Entry<String, OperationStats> entry : stats.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().toMap());
+		}
+		result.put("connectionsInPool",
+				connectionManager.getConnectionsInPool());
+		return result;
+	}
+
+	/**
+	 * Close the pooled connections
+	 */
+	public void shutdown() {
+		connectionManager.shutdown();
+	}
+
+	private EntityEnclosingMethod withContent(EntityEnclosingMethod method,
+			String content, String contentType) {
+		try {
+			method.setRequestEntity(new StringRequestEntity(content,
+					contentType, UTF8));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		return method;
+	}
+
+	private String toUrl(String path) {
+		return path.startsWith("http://") || path.startsWith("https://") ? path
+				: serverUrl + path;
+	}
+
+	private String execute(String operation, HttpMethodBase method,
+			boolean failOnError) {
+		long start = System.nanoTime();
+		boolean success = false;
+		try {
+			int status = client.executeMethod(method);
+			// the body is always read so the connection can be reused
+			InputStream body = method.getResponseBodyAsStream();
+			String response = body != null ? IOUtils.toString(body,
+					method.getResponseCharSet()) : "";
+			if (status >= HttpStatus.SC_OK
+					&& status < HttpStatus.SC_MULTIPLE_CHOICES) {
+				success = true;
+				return response;
+			}
+			// a missing resource is an answer, not a failure
+			success = status == HttpStatus.SC_NOT_FOUND;
+			if (!success) {
+				String message = method.getName() + " " + method.getPath()
+						+ " returned " + status;
+				if (failOnError) {
+					throw new GeoserverException(message);
+				}
+				LOG.warn(message);
+			}
+			return null;
+		} catch (IOException e) {
+			String message = "Error calling GeoServer " + method.getName()
+					+ " " + method.getPath();
+			if (failOnError) {
+				throw new GeoserverException(message, e);
+			}
+			LOG.error(message, e);
+			return null;
+		} finally {
+			method.releaseConnection();
+			record(operation, start, success);
+		}
+	}
+
+	/**
+	 * Latency counters of an operation
+	 */
+	private static class OperationStats {
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		void add(long nanos, boolean success) {
+			count.incrementAndGet();
+			if (!success) {
+				errors.incrementAndGet();
+			}
+			totalNanos.addAndGet(nanos);
+			long max = maxNanos.get();
+			while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+				max = maxNanos.get();
+			}
+		}
+
+		Map<String, Object> toMap() {
+			Map<String, Object> map = new TreeMap<String, Object>();
+			long calls = count.get();
+			map.put("count", calls);
+			map.put("errors", errors.get());
+			map.put("avgMillis", calls > 0 ? TimeUnit.NANOSECONDS
+					.toMillis(totalNanos.get() / calls) : 0);
+			map.put("maxMillis", TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+			return map;
+		}
+	}
+
+}
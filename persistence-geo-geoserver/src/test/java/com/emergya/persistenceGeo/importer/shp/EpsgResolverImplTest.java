@@ -0,0 +1,90 @@
+/* EpsgResolverImplTest.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "classpath:shpTestContext.xml" })
+public class EpsgResolverImplTest {
+
+	private static final String SHAPES = "target/test-classes/ficheros/shapes/";
+
+	@Autowired
+	private IEpsgResolver resolver;
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.shp.EpsgResolverImpl#lookupEpsgCode(File)}
+	 * .
+	 */
+	@Test
+	public void testLookupEpsgCode() {
+		assertEquals(Integer.valueOf(4326),
+				resolver.lookupEpsgCode(new File(SHAPES + "points.prj")));
+		assertEquals(Integer.valueOf(23030),
+				resolver.lookupEpsgCode(new File(SHAPES + "points_23030.prj")));
+		assertNull(resolver.lookupEpsgCode("PROJCS[\"unknown\""));
+
+		// the same projection is resolved from the cache
+		long hits = (Long) resolver.getStats().get("hits");
+		assertEquals(Integer.valueOf(23030),
+				resolver.lookupEpsgCode(new File(SHAPES + "points_23030.prj")));
+		assertEquals(hits + 1, resolver.getStats().get("hits"));
+	}
+
+	/**
+	 * WKT that can't be parsed aren't cached, so they're identified again
+	 * once the problem is solved
+	 */
+	@Test
+	public void testFailuresAreNotCached() {
+		String wkt = "PROJCS[\"not cached\"";
+		assertNull(resolver.lookupEpsgCode(wkt));
+		int size = (Integer) resolver.getStats().get("size");
+		long misses = (Long) resolver.getStats().get("misses");
+		assertNull(resolver.lookupEpsgCode(wkt));
+		assertEquals(size, resolver.getStats().get("size"));
+		assertEquals(misses + 1, resolver.getStats().get("misses"));
+	}
+
+}
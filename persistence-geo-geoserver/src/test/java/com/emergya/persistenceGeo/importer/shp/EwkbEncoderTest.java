@@ -0,0 +1,106 @@
+/* EwkbEncoderTest.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class EwkbEncoderTest {
+
+	private static final double[] SHELL = { 0, 0, 0, 10, 10, 10, 10, 0, 0, 0 };
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.shp.EwkbEncoder#groupRings(ShpGeometry)}
+	 * with an island inside a lake: each hole goes to its smallest shell.
+	 */
+	@Test
+	public void testGroupRingsNested() {
+		ShpGeometry geometry = polygon(SHELL,
+				new double[] { 1, 1, 9, 1, 9, 9, 1, 9, 1, 1 }, new double[] {
+						3, 3, 3, 7, 7, 7, 7, 3, 3, 3 }, new double[] { 4, 4,
+						6, 4, 6, 6, 4, 6, 4, 4 });
+		List<List<Integer>> polygons = EwkbEncoder.groupRings(geometry);
+		assertEquals(2, polygons.size());
+		assertEquals(Arrays.asList(0, 1), polygons.get(0));
+		assertEquals(Arrays.asList(2, 3), polygons.get(1));
+	}
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.shp.EwkbEncoder#groupRings(ShpGeometry)}
+	 * with a hole that touches its shell at a vertex.
+	 */
+	@Test
+	public void testGroupRingsTouchingHole() {
+		ShpGeometry geometry = polygon(SHELL, new double[] { 10, 10, 5, 8, 8,
+				5, 10, 10 });
+		List<List<Integer>> polygons = EwkbEncoder.groupRings(geometry);
+		assertEquals(1, polygons.size());
+		assertEquals(Arrays.asList(0, 1), polygons.get(0));
+	}
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.shp.EwkbEncoder#groupRings(ShpGeometry)}
+	 * with a hole outside every shell.
+	 */
+	@Test
+	public void testGroupRingsOrphanHole() {
+		ShpGeometry geometry = polygon(SHELL, new double[] { 20, 20, 30, 20,
+				30, 30, 20, 30, 20, 20 });
+		List<List<Integer>> polygons = EwkbEncoder.groupRings(geometry);
+		assertEquals(2, polygons.size());
+		assertEquals(Arrays.asList(1), polygons.get(1));
+	}
+
+	private static ShpGeometry polygon(double[]... rings) {
+		int[] parts = new int[rings.length];
+		int points = 0;
+		for (int i = 0; i < rings.length; i++) {
+			parts[i] = points;
+			points += rings[i].length / 2;
+		}
+		ShpGeometry geometry = new ShpGeometry(ShapefileReader.POLYGON, parts,
+				points, false);
+		for (int i = 0; i < rings.length; i++) {
+			System.arraycopy(rings[i], 0, geometry.getXY(), parts[i] * 2,
+					rings[i].length);
+		}
+		return geometry;
+	}
+}
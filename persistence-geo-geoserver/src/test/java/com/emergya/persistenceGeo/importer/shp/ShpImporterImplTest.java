@@ -28,9 +28,17 @@
  */
 package com.emergya.persistenceGeo.importer.shp;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.apache.commons.io.FileUtils;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -40,6 +48,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import com.emergya.persistenceGeo.exceptions.ShpImporterException;
+import com.emergya.persistenceGeo.utils.GeographicDatabaseConfiguration;
 
 /**
  * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
@@ -52,9 +61,14 @@ public class ShpImporterImplTest {
 	@Rule
 	public ExpectedException thrown = ExpectedException.none();
 
+	private static final String SHAPES = "target/test-classes/ficheros/shapes/";
+
 	@Autowired
 	private IShpImporter importer;
 
+	@Autowired
+	private GeographicDatabaseConfiguration dbConfig;
+
 	/**
 	 * Test method for
 	 * {@link com.emergya.persistenceGeo.importer.shp.ShpImporterImpl#checkIfAllFilesExist(java.lang.String, java.lang.String)}
@@ -124,4 +138,103 @@ public class ShpImporterImplTest {
 		assertTrue("Couldn't import shp", result);
 	}
 
+	@Test
+	public void testImportShpResult() {
+		ShpImportResult result = importer.importShp(
+				"target/test-classes/ficheros/shapes/polygons.shp", "polygons",
+				true);
+		assertTrue("Couldn't import shp: " + result, result.isSuccess());
+		assertEquals("MULTIPOLYGON", result.getGeometryType());
+		assertTrue(result.getFeatureCount() > 0);
+		result = importer.importShp(
+				"target/test-classes/ficheros/shapes/polygons.shp", "polygons",
+				false);
+		assertFalse(result.isSuccess());
+		assertEquals(ShpImportResult.Failure.TABLE_EXISTS, result.getFailure());
+	}
+
+	/**
+	 * Import a shapefile with more records than a chunk in several threads,
+	 * twice to replace the table loaded the first time.
+	 */
+	@Test
+	public void testImportParallel() throws IOException {
+		int records = 25000;
+		writePoints(SHAPES + "many_points", records);
+		int parallelism = dbConfig.getImportParallelism();
+		dbConfig.setImportParallelism(4);
+		try {
+			for (int i = 0; i < 2; i++) {
+				ShpImportResult result = importer.importShp(SHAPES
+						+ "many_points.shp", "many_points", true);
+				assertTrue("Couldn't import shp: " + result,
+						result.isSuccess());
+				assertEquals(records, result.getFeatureCount());
+			}
+		} finally {
+			dbConfig.setImportParallelism(parallelism);
+		}
+	}
+
+	/**
+	 * Write a point shapefile with a numeric attribute and the projection of
+	 * points.shp
+	 */
+	private static void writePoints(String basename, int records)
+			throws IOException {
+		int recordLength = 28;
+		ByteBuffer shp = shpHeader(100 + records * recordLength);
+		ByteBuffer shx = shpHeader(100 + records * 8);
+		shx.order(ByteOrder.BIG_ENDIAN);
+		int fieldLength = 10;
+		int headerLength = 32 + 32 + 1;
+		ByteBuffer dbf = ByteBuffer.allocate(
+				headerLength + records * (fieldLength + 1) + 1).order(
+				ByteOrder.LITTLE_ENDIAN);
+		dbf.put(0, (byte) 3);
+		dbf.putInt(4, records);
+		dbf.putShort(8, (short) headerLength);
+		dbf.putShort(10, (short) (fieldLength + 1));
+		dbf.position(32);
+		dbf.put("ID".getBytes("US-ASCII"));
+		dbf.put(32 + 11, (byte) 'N');
+		dbf.put(32 + 16, (byte) fieldLength);
+		dbf.put(headerLength - 1, (byte) 0x0D);
+		dbf.position(headerLength);
+		for (int i = 0; i < records; i++) {
+			int offset = 100 + i * recordLength;
+			shp.order(ByteOrder.BIG_ENDIAN);
+			shp.putInt(offset, i + 1);
+			shp.putInt(offset + 4, (recordLength - 8) / 2);
+			shp.order(ByteOrder.LITTLE_ENDIAN);
+			shp.putInt(offset + 8, ShapefileReader.POINT);
+			shp.putDouble(offset + 12, -6 + (i % 500) * 0.001);
+			shp.putDouble(offset + 20, 37 + (i / 500) * 0.001);
+			shx.putInt(100 + i * 8, offset / 2);
+			shx.putInt(100 + i * 8 + 4, (recordLength - 8) / 2);
+			dbf.put((byte) ' ');
+			dbf.put(String.format("%10d", i).getBytes("US-ASCII"));
+		}
+		dbf.put((byte) 0x1A);
+		FileUtils.writeByteArrayToFile(new File(basename + ".shp"),
+				shp.array());
+		FileUtils.writeByteArrayToFile(new File(basename + ".shx"),
+				shx.array());
+		FileUtils.writeByteArrayToFile(new File(basename + ".dbf"),
+				dbf.array());
+		FileUtils.copyFile(new File(SHAPES + "points.prj"), new File(basename
+				+ ".prj"));
+	}
+
+	private static ByteBuffer shpHeader(int length) {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		buffer.putInt(0, 9994);
+		buffer.putInt(24, length / 2);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(28, 1000);
+		buffer.putInt(32, ShapefileReader.POINT);
+		return buffer;
+	}
+
 }
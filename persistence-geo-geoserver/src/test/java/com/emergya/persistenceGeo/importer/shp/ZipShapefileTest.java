@@ -0,0 +1,146 @@
+/* ZipShapefileTest.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.shp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import com.emergya.persistenceGeo.exceptions.ShpImporterException;
+
+/**
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class ZipShapefileTest {
+
+	private static final String SHAPES = "target/test-classes/ficheros/shapes/";
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.shp.ZipShapefile#map(String)}
+	 * with deflated entries.
+	 */
+	@Test
+	public void testMapDeflated() throws IOException {
+		checkZip(zip("points", ZipEntry.DEFLATED, "shp", "shx", "dbf", "prj"));
+	}
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.shp.ZipShapefile#map(String)}
+	 * with stored entries, which are mapped from the zip.
+	 */
+	@Test
+	public void testMapStored() throws IOException {
+		checkZip(zip("points", ZipEntry.STORED, "shp", "shx", "dbf", "prj"));
+	}
+
+	@Test(expected = ShpImporterException.class)
+	public void testIncompleteZip() throws IOException {
+		File zip = zip("incomplete", ZipEntry.DEFLATED, "shp", "shx", "prj");
+		try {
+			new ZipShapefile(zip);
+		} finally {
+			zip.delete();
+		}
+	}
+
+	private void checkZip(File zipFile) throws IOException {
+		ZipShapefile zip = new ZipShapefile(zipFile);
+		try {
+			assertEquals("shapes/points.shp", zip.getName(ZipShapefile.SHP));
+			for (String extension : new String[] { ZipShapefile.SHP,
+					ZipShapefile.SHX, ZipShapefile.DBF }) {
+				ByteBuffer buffer = zip.map(extension);
+				byte[] content = new byte[buffer.remaining()];
+				buffer.get(content);
+				assertArrayEquals(extension, FileUtils
+						.readFileToByteArray(new File(SHAPES + "points."
+								+ extension)), content);
+			}
+			assertEquals(FileUtils.readFileToString(new File(SHAPES
+					+ "points.prj"), "ISO-8859-1"),
+					zip.readText(ZipShapefile.PRJ));
+			assertFalse(zip.has(ZipShapefile.CPG));
+			assertNull(zip.readText(ZipShapefile.CPG));
+
+			ShapefileReader shapes = new ShapefileReader(
+					zip.map(ZipShapefile.SHP), zip.map(ZipShapefile.SHX),
+					zip.getName(ZipShapefile.SHP));
+			ShapefileReader expected = new ShapefileReader(new File(SHAPES
+					+ "points.shp"), new File(SHAPES + "points.shx"));
+			assertEquals(expected.getRecordCount(), shapes.getRecordCount());
+		} finally {
+			zip.close();
+			zipFile.delete();
+		}
+	}
+
+	private File zip(String name, int method, String... extensions)
+			throws IOException {
+		File zipFile = File.createTempFile(name, ".zip");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(
+				zipFile));
+		try {
+			for (String extension : extensions) {
+				byte[] content = FileUtils.readFileToByteArray(new File(SHAPES
+						+ name + "." + extension));
+				ZipEntry entry = new ZipEntry("shapes/" + name + "."
+						+ extension);
+				entry.setMethod(method);
+				if (method == ZipEntry.STORED) {
+					CRC32 crc = new CRC32();
+					crc.update(content);
+					entry.setSize(content.length);
+					entry.setCrc(crc.getValue());
+				}
+				out.putNextEntry(entry);
+				out.write(content);
+				out.closeEntry();
+			}
+		} finally {
+			out.close();
+		}
+		return zipFile;
+	}
+
+}
@@ -0,0 +1,118 @@
+/* XmlFeatureReaderTest.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.xml;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+
+import com.emergya.persistenceGeo.utils.GeometryType;
+
+/**
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class XmlFeatureReaderTest {
+
+	private static final double DELTA = 1e-9;
+
+	private static final String KML = "<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document>"
+			+ "<Placemark><name>Zona</name><MultiGeometry>"
+			+ "<Polygon><outerBoundaryIs><LinearRing><coordinates>0,0,0 10,0,0 10,10,0 0,10,0 0,0,0</coordinates></LinearRing></outerBoundaryIs>"
+			+ "<innerBoundaryIs><LinearRing><coordinates>2,2 4,2 4,4 2,2</coordinates></LinearRing></innerBoundaryIs></Polygon>"
+			+ "<Point><coordinates>5,5</coordinates></Point>"
+			+ "</MultiGeometry></Placemark>"
+			+ "<Placemark><description><![CDATA[<b>Linea</b>]]></description>"
+			+ "<LineString><coordinates>1,1 2,2</coordinates></LineString></Placemark>"
+			+ "</Document></kml>";
+
+	private static final String GML3 = "<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\">"
+			+ "<gml:featureMembers><ns:calle xmlns:ns=\"urn:test\"><gml:name>Calle</gml:name><ns:geom>"
+			+ "<gml:LineString srsName=\"urn:ogc:def:crs:EPSG::4326\"><gml:posList srsDimension=\"3\">41.5 2.1 0 41.6 2.2 0</gml:posList></gml:LineString>"
+			+ "</ns:geom></ns:calle></gml:featureMembers></wfs:FeatureCollection>";
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.xml.XmlFeatureReader#next()}
+	 * .
+	 */
+	@Test
+	public void testReadKml() throws Exception {
+		XmlFeatureReader reader = new XmlFeatureReader(
+				new ByteArrayInputStream(KML.getBytes("UTF-8")));
+
+		XmlFeature polygon = reader.next();
+		assertEquals(GeometryType.POLYGON, polygon.getType());
+		assertEquals("Zona", polygon.getDescription());
+		assertEquals(2, polygon.getParts().size());
+		assertArrayEquals(new double[] { 2, 2, 4, 2, 4, 4, 2, 2 }, polygon
+				.getParts().get(1), DELTA);
+
+		XmlFeature point = reader.next();
+		assertEquals(GeometryType.POINT, point.getType());
+		assertEquals("Zona", point.getDescription());
+		assertArrayEquals(new double[] { 5, 5 }, point.getParts().get(0),
+				DELTA);
+
+		XmlFeature line = reader.next();
+		assertEquals(GeometryType.LINESTRING, line.getType());
+		assertEquals("<b>Linea</b>", line.getDescription());
+
+		assertNull(reader.next());
+		assertNull(reader.getSrid());
+		reader.close();
+	}
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.xml.XmlFeatureReader#next()}
+	 * .
+	 */
+	@Test
+	public void testReadGml3() throws Exception {
+		XmlFeatureReader reader = new XmlFeatureReader(
+				new ByteArrayInputStream(GML3.getBytes("UTF-8")));
+
+		XmlFeature line = reader.next();
+		assertEquals(GeometryType.LINESTRING, line.getType());
+		assertEquals("Calle", line.getDescription());
+		// urn EPSG:4326 positions are latitude/longitude
+		assertArrayEquals(new double[] { 2.1, 41.5, 2.2, 41.6 }, line
+				.getParts().get(0), DELTA);
+		assertEquals(Integer.valueOf(4326), reader.getSrid());
+
+		assertNull(reader.next());
+		reader.close();
+	}
+
+}
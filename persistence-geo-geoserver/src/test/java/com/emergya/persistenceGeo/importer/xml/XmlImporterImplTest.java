@@ -0,0 +1,237 @@
+/* XmlImporterImplTest.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.importer.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import org.hibernate.cfg.Settings;
+import org.hibernate.classic.Session;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.jdbc.Work;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.emergya.persistenceGeo.dao.DBManagementDao;
+import com.emergya.persistenceGeo.importer.shp.ShpImportResult.Failure;
+import com.emergya.persistenceGeo.utils.GeometryType;
+
+/**
+ * Tests {@link XmlImporterImpl} against a mock PostgreSQL connection
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class XmlImporterImplTest {
+
+	private static final String TABLE_NAME = "puntos";
+
+	private static final String POINTS_KML = "<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document>"
+			+ "<Placemark><name>Uno</name><Point><coordinates>1,2</coordinates></Point></Placemark>"
+			+ "<Placemark><name>Dos</name><Point><coordinates>3,4,0</coordinates></Point></Placemark>"
+			+ "</Document></kml>";
+
+	private static final String MIXED_KML = "<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document>"
+			+ "<Placemark><name>Punto</name><Point><coordinates>1,2</coordinates></Point></Placemark>"
+			+ "<Placemark><name>Linea</name><LineString><coordinates>1,1 2,2</coordinates></LineString></Placemark>"
+			+ "</Document></kml>";
+
+	private IXmlImporter importer;
+	private DBManagementDao dbManagementDao;
+	private SimpleTransactionStatus status;
+	private CopyManager copyManager;
+	private ByteArrayOutputStream copied;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		dbManagementDao = mock(DBManagementDao.class);
+		when(dbManagementDao.tableExists(anyString(), anyString()))
+				.thenReturn(false);
+		when(
+				dbManagementDao.createLayerTable(anyString(), anyInt(),
+						any(GeometryType.class))).thenReturn(true);
+
+		// the COPY data is kept in memory
+		copied = new ByteArrayOutputStream();
+		CopyIn copyIn = mock(CopyIn.class);
+		doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+				Object[] args = invocation.getArguments();
+				copied.write((byte[]) args[0], (Integer) args[1],
+						(Integer) args[2]);
+				return null;
+			}
+		}).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+		copyManager = mock(CopyManager.class);
+		when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+
+		final Connection connection = mock(Connection.class, withSettings()
+				.extraInterfaces(PGConnection.class));
+		when(((PGConnection) connection).getCopyAPI()).thenReturn(copyManager);
+		when(connection.createStatement()).thenReturn(mock(Statement.class));
+
+		Session session = mock(Session.class);
+		doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				((Work) invocation.getArguments()[0]).execute(connection);
+				return null;
+			}
+		}).when(session).doWork(any(Work.class));
+
+		// without a default schema, as in the test contexts
+		Constructor<Settings> constructor = Settings.class
+				.getDeclaredConstructor();
+		constructor.setAccessible(true);
+		SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+		when(sessionFactory.getSettings()).thenReturn(
+				constructor.newInstance());
+		when(sessionFactory.getCurrentSession()).thenReturn(session);
+
+		XmlImporterImpl target = new XmlImporterImpl();
+		ReflectionTestUtils.setField(target, "dbManagementDao",
+				dbManagementDao);
+		ReflectionTestUtils.setField(target, "sessionFactory", sessionFactory);
+
+		// fail() marks the current transaction as rollback only
+		status = new SimpleTransactionStatus();
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(
+				transactionManager.getTransaction(any(TransactionDefinition.class)))
+				.thenReturn(status);
+		ProxyFactory proxyFactory = new ProxyFactory(target);
+		proxyFactory.addAdvice(new TransactionInterceptor(transactionManager,
+				new AnnotationTransactionAttributeSource()));
+		importer = (IXmlImporter) proxyFactory.getProxy();
+	}
+
+	@After
+	public void tearDown() {
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.xml.XmlImporterImpl#importXml(java.io.File, java.lang.String, java.lang.Integer, com.emergya.persistenceGeo.importer.shp.ShpImportMonitor)}
+	 * .
+	 */
+	@Test
+	public void testImportPoints() throws Exception {
+		file = write(POINTS_KML);
+
+		XmlImportResult result = importer.importXml(file, TABLE_NAME, null,
+				null);
+
+		assertNull(result.getMessage(), result.getFailure());
+		assertEquals(GeometryType.POINT, result.getType());
+		assertEquals(4326, result.getDestSrid());
+		assertEquals(2, result.getFeatureCount());
+		assertEquals(0, result.getSkippedCount());
+		assertFalse(status.isRollbackOnly());
+		verify(dbManagementDao).createLayerTable(TABLE_NAME, 4326,
+				GeometryType.POINT);
+		// quoted as the table was created
+		verify(copyManager).copyIn(
+				"COPY public.\"" + TABLE_NAME
+						+ "\" (descripcion, geom) FROM STDIN");
+		// EWKB points with the SRID flag and SRID 4326
+		assertEquals("Uno\t0101000020E6100000" + "000000000000F03F"
+				+ "0000000000000040\n" + "Dos\t0101000020E6100000"
+				+ "0000000000000840" + "0000000000001040\n",
+				copied.toString("UTF-8"));
+	}
+
+	/**
+	 * Test method for
+	 * {@link com.emergya.persistenceGeo.importer.xml.XmlImporterImpl#importXml(java.io.File, java.lang.String, java.lang.Integer, com.emergya.persistenceGeo.importer.shp.ShpImportMonitor)}
+	 * .
+	 */
+	@Test
+	public void testImportMixedTypes() throws Exception {
+		file = write(MIXED_KML);
+
+		XmlImportResult result = importer.importXml(file, TABLE_NAME, null,
+				null);
+
+		assertEquals(Failure.UNSUPPORTED_SHAPE, result.getFailure());
+		assertTrue(status.isRollbackOnly());
+		verify(dbManagementDao, never()).createLayerTable(anyString(),
+				anyInt(), any(GeometryType.class));
+		verify(copyManager, never()).copyIn(anyString());
+	}
+
+	private File write(String content) throws IOException {
+		File kml = File.createTempFile("xmlImporter", ".kml");
+		OutputStream out = new FileOutputStream(kml);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		return kml;
+	}
+
+}
@@ -0,0 +1,221 @@
+/* GeoserverCatalogMirrorTest.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emergya.persistenceGeo.dao.GeoserverDao;
+import com.emergya.persistenceGeo.exceptions.GeoserverException;
+
+/**
+ * Tests {@link GeoserverCatalogMirror} against a stub {@link GeoserverDao}
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class GeoserverCatalogMirrorTest {
+
+	private static final String FEATURE_TYPE = "<featureType><name>%s</name>"
+			+ "<nativeName>%s</nativeName><store class=\"dataStore\"><name>%s</name>"
+			+ "<atom:link xmlns:atom=\"http://www.w3.org/2005/Atom\" rel=\"alternate\" "
+			+ "href=\"http://localhost:8080/geoserver/rest/workspaces/%s/datastores/%s.xml\" "
+			+ "type=\"application/xml\"/></store></featureType>";
+
+	private final Map<String, Integer> calls = new HashMap<String, Integer>();
+	private List<String> workspaces;
+	private List<String> layers;
+	private List<String> styles;
+	private boolean unavailable;
+	private GeoserverCatalogMirror catalog;
+
+	@Before
+	public void setUp() {
+		workspaces = new ArrayList<String>(Arrays.asList("ws1", "ws2"));
+		layers = new ArrayList<String>(Arrays.asList("roads", "rivers"));
+		styles = new ArrayList<String>(Arrays.asList("line", "polygon"));
+		GeoserverDao gsDao = (GeoserverDao) Proxy.newProxyInstance(getClass()
+				.getClassLoader(), new Class<?>[] { GeoserverDao.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method,
+							Object[] args) {
+						String name = method.getName();
+						Integer count = calls.get(name);
+						calls.put(name, count != null ? count + 1 : 1);
+						if ("getWorkspaceList".equals(name)) {
+							return workspaceList();
+						} else if ("getLayersNames".equals(name)) {
+							return new ArrayList<String>(layers);
+						} else if ("getStyleNames".equals(name)) {
+							return new ArrayList<String>(styles);
+						} else if ("getFeatureType".equals(name)) {
+							if (unavailable) {
+								throw new GeoserverException("Connection refused");
+							}
+							return featureType((String) args[0]);
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+		catalog = new GeoserverCatalogMirror(gsDao);
+	}
+
+	@Test
+	public void testLookupsDontReload() {
+		assertTrue(catalog.existsWorkspace("ws1"));
+		assertFalse(catalog.existsWorkspace("ws3"));
+		assertEquals(2, catalog.getLayersNames().size());
+		assertTrue(catalog.getStyleNames().contains("line"));
+		assertEquals(1, count("getWorkspaceList"));
+		assertEquals(1, count("getLayersNames"));
+		assertEquals(1, count("getStyleNames"));
+	}
+
+	@Test
+	public void testLayerDetailsAreReadOnce() {
+		assertEquals("roads_table", catalog.getNativeName("roads"));
+		assertEquals("ws1", catalog.getLayerWorkspace("roads"));
+		assertEquals("ws1", catalog.getLayerWorkspace("ws1:roads"));
+		assertNull(catalog.getLayerWorkspace("ws2:roads"));
+		assertTrue(catalog.getStores("ws1").contains("ws1_datastore"));
+		assertEquals(1, count("getFeatureType"));
+	}
+
+	@Test
+	public void testWriteThrough() {
+		catalog.existsWorkspace("ws1");
+		catalog.addWorkspace("ws3");
+		catalog.addLayer("lakes", "ws3", "ws3_datastore", "lakes_table");
+		catalog.addStyle("lakes");
+		catalog.removeLayer("rivers");
+		assertTrue(catalog.existsWorkspace("ws3"));
+		assertTrue(catalog.getStyleNames().contains("lakes"));
+		assertEquals("lakes_table", catalog.getNativeName("lakes"));
+		assertEquals("ws3", catalog.getLayerWorkspace("lakes"));
+		assertFalse(catalog.getLayersNames().contains("rivers"));
+		assertEquals(1, count("getWorkspaceList"));
+		assertEquals(0, count("getFeatureType"));
+
+		catalog.removeWorkspace("ws3");
+		assertFalse(catalog.existsWorkspace("ws3"));
+		assertFalse(catalog.getLayersNames().contains("lakes"));
+	}
+
+	@Test
+	public void testRefresh() {
+		catalog.getNativeName("roads");
+		workspaces.remove("ws2");
+		layers.add("lakes");
+		styles.remove("polygon");
+		catalog.refresh();
+		assertFalse(catalog.existsWorkspace("ws2"));
+		assertTrue(catalog.getLayersNames().contains("lakes"));
+		assertFalse(catalog.getStyleNames().contains("polygon"));
+		// the details already read are kept
+		catalog.getNativeName("roads");
+		assertEquals(1, count("getFeatureType"));
+	}
+
+	@Test
+	public void testLayerPublishedByOthers() {
+		catalog.existsWorkspace("ws1");
+		layers.add("lakes");
+		assertEquals("lakes_table", catalog.getNativeName("lakes"));
+		assertTrue(catalog.getLayersNames().contains("lakes"));
+		assertNull(catalog.getLayerWorkspace("unknown"));
+	}
+
+	@Test
+	public void testLayerKeptWhenGeoserverIsUnavailable() {
+		catalog.existsWorkspace("ws1");
+		unavailable = true;
+		try {
+			catalog.getNativeName("roads");
+			fail("GeoServer was unavailable");
+		} catch (GeoserverException e) {
+			// expected
+		}
+		assertTrue(catalog.getLayersNames().contains("roads"));
+
+		unavailable = false;
+		assertEquals("roads_table", catalog.getNativeName("roads"));
+		layers.remove("rivers");
+		assertNull(catalog.getLayerWorkspace("rivers"));
+		assertFalse(catalog.getLayersNames().contains("rivers"));
+	}
+
+	@Test(expected = GeoserverException.class)
+	public void testNativeNameOfUnknownLayer() {
+		catalog.getNativeName("unknown");
+	}
+
+	private int count(String method) {
+		Integer count = calls.get(method);
+		return count != null ? count : 0;
+	}
+
+	private RESTWorkspaceList workspaceList() {
+		StringBuilder xml = new StringBuilder("<workspaces>");
+		for (String workspace : workspaces) {
+			xml.append("<workspace><name>").append(workspace)
+					.append("</name></workspace>");
+		}
+		return RESTWorkspaceList.build(xml.append("</workspaces>").toString());
+	}
+
+	private RESTFeatureType featureType(String layerName) {
+		String name = layerName.substring(layerName.indexOf(':') + 1);
+		if (!layers.contains(name)) {
+			return null;
+		}
+		String workspace = "roads".equals(name) ? "ws1" : "ws2";
+		return RESTFeatureType.build(String.format(FEATURE_TYPE, name, name
+				+ "_table", workspace + "_datastore", workspace, workspace
+				+ "_datastore"));
+	}
+}
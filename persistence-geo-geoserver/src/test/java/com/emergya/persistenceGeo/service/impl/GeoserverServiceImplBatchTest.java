@@ -0,0 +1,159 @@
+/* GeoserverServiceImplBatchTest.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emergya.persistenceGeo.dao.GeoserverDao;
+import com.emergya.persistenceGeo.utils.BoundingBox;
+import com.emergya.persistenceGeo.utils.GeometryType;
+import com.emergya.persistenceGeo.utils.GsDbLayerPublication;
+import com.emergya.persistenceGeo.utils.GsFeatureDescriptor;
+import com.emergya.persistenceGeo.utils.GsPublicationResult;
+
+/**
+ * Tests the batch publication of {@link GeoserverServiceImpl} against a stub
+ * {@link GeoserverDao}
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class GeoserverServiceImplBatchTest {
+
+	private final List<String> calls = Collections
+			.synchronizedList(new ArrayList<String>());
+	private GeoserverServiceImpl service;
+
+	@Before
+	public void setUp() {
+		GeoserverDao gsDao = (GeoserverDao) Proxy.newProxyInstance(getClass()
+				.getClassLoader(), new Class<?>[] { GeoserverDao.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method,
+							Object[] args) {
+						String name = method.getName();
+						if ("getWorkspaceList".equals(name)) {
+							return RESTWorkspaceList
+									.build("<workspaces><workspace><name>existing</name></workspace></workspaces>");
+						} else if ("getLayersNames".equals(name)
+								|| "getStyleNames".equals(name)) {
+							return new ArrayList<String>(Arrays
+									.asList("layer_b"));
+						} else if ("publishPostgisLayer".equals(name)) {
+							String layerName = ((GsFeatureDescriptor) args[2])
+									.getName();
+							calls.add(name + ":" + args[0] + ":" + layerName);
+							return !"broken".equals(layerName);
+						} else if ("getLayerStyle".equals(name)) {
+							return "<sld/>";
+						}
+						calls.add(name + ":" + args[0]);
+						return !"unreachable".equals(args[0]);
+					}
+				});
+		service = new GeoserverServiceImpl();
+		service.setGsDao(gsDao);
+		service.setNamespaceBaseUrl("http://localhost/ns");
+		service.setBatchThreads(3);
+	}
+
+	@Test
+	public void testPublish() {
+		List<GsDbLayerPublication> layers = new ArrayList<GsDbLayerPublication>();
+		layers.add(layer("created", "layer_a"));
+		layers.add(layer("existing", "layer_b"));
+		layers.add(layer("existing", "broken"));
+		layers.add(layer("unreachable", "layer_c"));
+		layers.get(1).setStyleSourceLayer("layer_a");
+
+		List<GsPublicationResult> results = service.publishGsDbLayers(layers);
+
+		assertEquals(4, results.size());
+		assertTrue(results.get(0).isSuccess());
+		assertTrue(results.get(1).isSuccess());
+		assertFalse(results.get(2).isSuccess());
+		assertEquals("broken", results.get(2).getLayerName());
+		assertFalse(results.get(3).isSuccess());
+		assertFalse(calls.contains("publishPostgisLayer:unreachable:layer_c"));
+		assertFalse(calls.contains("createNamespace:existing"));
+
+		// the workspace is ready before its layer is published
+		assertTrue(calls.indexOf("createDatastoreJndi:created") < calls
+				.indexOf("publishPostgisLayer:created:layer_a"));
+		// and the style is set after the feature type
+		assertTrue(calls.indexOf("publishPostgisLayer:existing:layer_b") < calls
+				.indexOf("createStyle:layer_b"));
+		assertTrue(calls.indexOf("createStyle:layer_b") < calls
+				.indexOf("setLayerStyle:existing"));
+	}
+
+	@Test
+	public void testUnpublish() {
+		List<GsDbLayerPublication> layers = new ArrayList<GsDbLayerPublication>();
+		layers.add(layer("existing", "layer_a"));
+		layers.add(layer("existing", "layer_b"));
+		layers.add(layer("unreachable", "layer_c"));
+
+		List<GsPublicationResult> results = service.unpublishGsDbLayers(layers);
+
+		assertTrue(results.get(0).isSuccess());
+		assertTrue(results.get(1).isSuccess());
+		assertFalse(results.get(2).isSuccess());
+		// only the layer with a style named after it loses it
+		assertTrue(calls.contains("deleteStyle:layer_b"));
+		assertFalse(calls.contains("deleteStyle:layer_a"));
+	}
+
+	private GsDbLayerPublication layer(String workspaceName, String layerName) {
+		BoundingBox bbox = new BoundingBox();
+		bbox.setSrs("EPSG:4326");
+		bbox.setMinx(-6.0);
+		bbox.setMiny(36.0);
+		bbox.setMaxx(-5.0);
+		bbox.setMaxy(37.0);
+		return new GsDbLayerPublication(workspaceName, layerName, layerName,
+				layerName, bbox, GeometryType.POINT);
+	}
+}
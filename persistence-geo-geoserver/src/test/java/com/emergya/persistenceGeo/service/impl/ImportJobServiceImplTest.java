@@ -0,0 +1,281 @@
+/* ImportJobServiceImplTest.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.emergya.persistenceGeo.dto.ImportJobDto;
+import com.emergya.persistenceGeo.importer.shp.IShpImporter;
+import com.emergya.persistenceGeo.importer.shp.ShpImportMonitor;
+import com.emergya.persistenceGeo.importer.shp.ShpImportResult;
+import com.emergya.persistenceGeo.importer.shp.ShpImportResult.Failure;
+import com.emergya.persistenceGeo.metaModel.AbstractImportJobEntity;
+import com.emergya.persistenceGeo.service.ImportJobAdminService;
+
+/**
+ * Tests {@link ImportJobServiceImpl} against a mock job table
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class ImportJobServiceImplTest {
+
+	private static final String NODE = "node1";
+	private static final Long JOB_ID = 1L;
+	private static final int WAIT = 5000;
+
+	private ImportJobServiceImpl service;
+	private ImportJobAdminService importJobAdminService;
+	private IShpImporter shpImporter;
+
+	@Before
+	public void setUp() {
+		service = new ImportJobServiceImpl();
+		importJobAdminService = mock(ImportJobAdminService.class);
+		shpImporter = mock(IShpImporter.class);
+		ReflectionTestUtils.setField(service, "importJobAdminService",
+				importJobAdminService);
+		ReflectionTestUtils.setField(service, "shpImporter", shpImporter);
+		ReflectionTestUtils.setField(service, "node", NODE);
+		when(importJobAdminService.create(any(Serializable.class)))
+				.thenAnswer(new Answer<Serializable>() {
+					@Override
+					public Serializable answer(InvocationOnMock invocation) {
+						ImportJobDto job = (ImportJobDto) invocation
+								.getArguments()[0];
+						job.setId(JOB_ID);
+						return job;
+					}
+				});
+	}
+
+	@After
+	public void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	public void testQueueAndClaim() throws Exception {
+		service.init();
+		when(importJobAdminService.claim(JOB_ID, NODE)).thenReturn(true);
+		File zip = File.createTempFile("import", ".zip");
+		when(
+				shpImporter.importShpZip(eq(zip), eq("roads"), eq(true),
+						any(ShpImportMonitor.class))).thenReturn(
+				new ShpImportResult("roads"));
+
+		assertEquals(JOB_ID,
+				service.submitShpImport(zip, "roads", true, "admin"));
+
+		ArgumentCaptor<ImportJobDto> created = ArgumentCaptor
+				.forClass(ImportJobDto.class);
+		verify(importJobAdminService).create(created.capture());
+		assertEquals(NODE, created.getValue().getNode());
+		assertEquals(AbstractImportJobEntity.STATUS_QUEUED, created
+				.getValue().getStatus());
+		awaitCompleted();
+		verify(importJobAdminService).changeStatus(eq(JOB_ID),
+				eq(AbstractImportJobEntity.STATUS_RUNNING),
+				eq(AbstractImportJobEntity.STATUS_DONE), anyString());
+		assertFalse("The file of a finished job is kept", zip.exists());
+	}
+
+	@Test
+	public void testClaimedByAnotherNode() throws Exception {
+		service.init();
+		File zip = File.createTempFile("import", ".zip");
+		ImportJobDto cancelled = job(AbstractImportJobEntity.TYPE_SHP, NODE,
+				zip);
+		cancelled.setStatus(AbstractImportJobEntity.STATUS_CANCELLED);
+		when(importJobAdminService.getById(JOB_ID)).thenReturn(cancelled);
+
+		service.submitShpImport(zip, "roads", true, "admin");
+
+		awaitCompleted();
+		verify(importJobAdminService).getById(JOB_ID);
+		verify(shpImporter, never()).importShpZip(any(File.class),
+				anyString(), eq(true), any(ShpImportMonitor.class));
+		assertFalse("The file of a cancelled job is kept", zip.exists());
+	}
+
+	@Test
+	public void testCancelQueued() throws IOException {
+		service.init();
+		File zip = File.createTempFile("import", ".zip");
+		when(
+				importJobAdminService.changeStatus(eq(JOB_ID),
+						eq(AbstractImportJobEntity.STATUS_QUEUED),
+						eq(AbstractImportJobEntity.STATUS_CANCELLED),
+						anyString())).thenReturn(true);
+		when(importJobAdminService.getById(JOB_ID)).thenReturn(
+				job(AbstractImportJobEntity.TYPE_SHP, NODE, zip));
+
+		assertTrue(service.cancel(JOB_ID));
+		assertFalse("The file of a cancelled job is kept", zip.exists());
+		verify(importJobAdminService, never()).requestCancel(JOB_ID);
+	}
+
+	@Test
+	public void testCancelRunningInAnotherNode() throws IOException {
+		service.init();
+		File zip = File.createTempFile("import", ".zip");
+		zip.deleteOnExit();
+		when(importJobAdminService.requestCancel(JOB_ID)).thenReturn(true);
+		when(importJobAdminService.getById(JOB_ID)).thenReturn(
+				job(AbstractImportJobEntity.TYPE_SHP, "node2", zip));
+
+		assertTrue(service.cancel(JOB_ID));
+		assertTrue("The file of another node is deleted", zip.exists());
+	}
+
+	@Test
+	public void testCancelFromAnotherNodeStopsTheImport() throws Exception {
+		service.init();
+		final CountDownLatch started = new CountDownLatch(1);
+		when(importJobAdminService.claim(JOB_ID, NODE)).thenReturn(true);
+		when(
+				shpImporter.importShpZip(any(File.class), eq("roads"),
+						eq(true), any(ShpImportMonitor.class))).thenAnswer(
+				new Answer<ShpImportResult>() {
+					@Override
+					public ShpImportResult answer(InvocationOnMock invocation)
+							throws InterruptedException {
+						ShpImportMonitor monitor = (ShpImportMonitor) invocation
+								.getArguments()[3];
+						started.countDown();
+						long end = System.currentTimeMillis() + WAIT;
+						while (!monitor.isCancelled()
+								&& System.currentTimeMillis() < end) {
+							Thread.sleep(10);
+						}
+						return new ShpImportResult("roads").fail(
+								Failure.CANCELLED, null, "Cancelled");
+					}
+				});
+		when(importJobAdminService.findCancelRequested(NODE)).thenReturn(
+				Arrays.asList(JOB_ID));
+
+		service.submitShpImport(File.createTempFile("import", ".zip"),
+				"roads", true, "admin");
+		assertTrue(started.await(WAIT, TimeUnit.MILLISECONDS));
+		service.renewLeases();
+
+		verify(importJobAdminService).renewLeases(NODE, Arrays.asList(JOB_ID));
+		verify(importJobAdminService, timeout(WAIT)).changeStatus(
+				eq(JOB_ID), eq(AbstractImportJobEntity.STATUS_RUNNING),
+				eq(AbstractImportJobEntity.STATUS_CANCELLED), anyString());
+	}
+
+	@Test
+	public void testRestartRecovery() throws IOException {
+		File tif = File.createTempFile("import", ".tif");
+		ImportJobDto shp = job(AbstractImportJobEntity.TYPE_SHP, NODE, null);
+		shp.setId(1L);
+		ImportJobDto geotiff = job(AbstractImportJobEntity.TYPE_GEOTIFF, NODE,
+				tif);
+		geotiff.setId(2L);
+		ImportJobDto remote = job(AbstractImportJobEntity.TYPE_SHP, "node2",
+				null);
+		remote.setId(3L);
+		when(
+				importJobAdminService
+						.findByStatus(AbstractImportJobEntity.STATUS_RUNNING))
+				.thenReturn(Arrays.asList(shp, geotiff, remote));
+		when(
+				importJobAdminService.changeStatus(eq(2L),
+						eq(AbstractImportJobEntity.STATUS_RUNNING),
+						eq(AbstractImportJobEntity.STATUS_FAILED), anyString()))
+				.thenReturn(true);
+
+		service.init();
+
+		// this node was running them, so they were interrupted
+		verify(importJobAdminService).changeStatus(eq(1L),
+				eq(AbstractImportJobEntity.STATUS_RUNNING),
+				eq(AbstractImportJobEntity.STATUS_QUEUED), anyString());
+		assertFalse("The file of a failed job is kept", tif.exists());
+		// the jobs of other nodes only if their lease has expired
+		verify(importJobAdminService, never()).changeStatus(eq(3L),
+				anyString(), anyString(), anyString());
+		verify(importJobAdminService).expireLeases(any(Date.class),
+				eq(AbstractImportJobEntity.STATUS_QUEUED), anyString(),
+				eq(AbstractImportJobEntity.TYPE_SHP),
+				eq(AbstractImportJobEntity.TYPE_XML));
+		verify(importJobAdminService).findQueued(NODE);
+	}
+
+	/**
+	 * Wait for the submitted job to finish
+	 */
+	private void awaitCompleted() throws InterruptedException {
+		long end = System.currentTimeMillis() + WAIT;
+		while ((Long) service.getStats().get("completed") < 1
+				&& System.currentTimeMillis() < end) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static ImportJobDto job(String type, String node, File source) {
+		ImportJobDto job = new ImportJobDto();
+		job.setId(JOB_ID);
+		job.setType(type);
+		job.setStatus(AbstractImportJobEntity.STATUS_RUNNING);
+		job.setNode(node);
+		job.setTargetName("roads");
+		job.setSourcePath(source != null ? source.getAbsolutePath() : null);
+		return job;
+	}
+
+}
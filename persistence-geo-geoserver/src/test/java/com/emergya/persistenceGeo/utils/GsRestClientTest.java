@@ -0,0 +1,195 @@
+/* GsRestClientTest.java
+ * 
+ * Copyright (C) 2012
+ * 
+ * This file is part of project persistence-geo-core
+ * 
+ * This software is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ * 
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * As a special exception, if you link this library with other files to
+ * produce an executable, this library does not by itself cause the
+ * resulting executable to be covered by the GNU General Public License.
+ * This exception does not however invalidate any other reasons why the
+ * executable file might be covered by the GNU General Public License.
+ * 
+ * Authors:: Juan Luis Rodríguez Ponce (mailto:jlrodriguez@emergya.com)
+ */
+package com.emergya.persistenceGeo.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.emergya.persistenceGeo.exceptions.GeoserverException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests {@link GsRestClient} against a stub HTTP server
+ * 
+ * @author <a href="mailto:jlrodriguez@emergya.com">jlrodriguez</a>
+ * 
+ */
+public class GsRestClientTest {
+
+	private HttpServer server;
+	private GsRestClient client;
+	private final Set<Integer> clientPorts = new HashSet<Integer>();
+	private String lastAuthorization;
+	private String lastBody;
+	private String lastMethod;
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/rest/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				synchronized (GsRestClientTest.this) {
+					clientPorts.add(exchange.getRemoteAddress().getPort());
+					lastAuthorization = exchange.getRequestHeaders().getFirst(
+							"Authorization");
+					InputStream in = exchange.getRequestBody();
+					lastMethod = exchange.getRequestMethod();
+					lastBody = IOUtils.toString(in, "UTF-8");
+					in.close();
+				}
+				String path = exchange.getRequestURI().getPath();
+				int status = 200;
+				byte[] response = ("<ok>" + path + "</ok>").getBytes("UTF-8");
+				if (path.endsWith("/missing.xml")) {
+					status = 404;
+					response = "No such resource".getBytes("UTF-8");
+				} else if (path.endsWith("/slow.xml")) {
+					try {
+						Thread.sleep(1000);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				exchange.sendResponseHeaders(status, response.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(response);
+				out.close();
+			}
+		});
+		server.start();
+		client = new GsRestClient("http://127.0.0.1:"
+				+ server.getAddress().getPort() + "/", "admin", "geoserver",
+				1000, 300, 2);
+	}
+
+	@After
+	public void tearDown() {
+		client.shutdown();
+		server.stop(0);
+	}
+
+	@Test
+	public void testGetReusesConnection() {
+		for (int i = 0; i < 5; i++) {
+			assertEquals("<ok>/rest/layers.xml</ok>",
+					client.get("getLayersNames", "/rest/layers.xml"));
+		}
+		assertNotNull("No preemptive authentication", lastAuthorization);
+		assertEquals("The connection wasn't reused", 1, clientPorts.size());
+	}
+
+	@Test
+	public void testAbsoluteUrl() {
+		assertEquals("<ok>/rest/styles.xml</ok>", client.get("getStyleNames",
+				client.getServerUrl() + "/rest/styles.xml"));
+	}
+
+	@Test
+	public void testMissingResource() {
+		assertNull(client.get("getLayerInfo", "/rest/layers/missing.xml"));
+		assertEquals(0L, getStats("getLayerInfo").get("errors"));
+	}
+
+	@Test
+	public void testPut() {
+		assertNotNull(client.put("setLayerStyle", "/rest/layers/test.xml",
+				"<layer/>", "text/xml"));
+		assertEquals("<layer/>", lastBody);
+	}
+
+	@Test
+	public void testPost() {
+		assertNotNull(client.post("createWorkspace", "/rest/workspaces",
+				"<workspace><name>test</name></workspace>", "text/xml"));
+		assertEquals("POST", lastMethod);
+		assertEquals("<workspace><name>test</name></workspace>", lastBody);
+	}
+
+	@Test
+	public void testDelete() {
+		assertTrue(client.delete("deleteWorkspace",
+				"/rest/workspaces/test?recurse=true"));
+		assertEquals("DELETE", lastMethod);
+		assertFalse(client.delete("deleteWorkspace",
+				"/rest/workspaces/missing.xml"));
+	}
+
+	@Test
+	public void testReadTimeout() {
+		assertNull(client.get("getLayerInfo", "/rest/layers/slow.xml"));
+		Map<String, Object> stats = getStats("getLayerInfo");
+		assertEquals(1L, stats.get("count"));
+		assertEquals(1L, stats.get("errors"));
+	}
+
+	@Test
+	public void testFind() {
+		assertEquals("<ok>/rest/layers/test.xml</ok>",
+				client.find("getFeatureType", "/rest/layers/test.xml"));
+		assertNull(client.find("getFeatureType", "/rest/layers/missing.xml"));
+	}
+
+	@Test(expected = GeoserverException.class)
+	public void testFindFailure() {
+		client.find("getFeatureType", "/rest/layers/slow.xml");
+	}
+
+	@Test
+	public void testRecord() {
+		client.record("createWorkspace", System.nanoTime(), true);
+		client.record("createWorkspace", System.nanoTime(), false);
+		Map<String, Object> stats = getStats("createWorkspace");
+		assertEquals(2L, stats.get("count"));
+		assertEquals(1L, stats.get("errors"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> getStats(String operation) {
+		return (Map<String, Object>) client.getStats().get(operation);
+	}
+}